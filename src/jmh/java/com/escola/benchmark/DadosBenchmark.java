@@ -0,0 +1,132 @@
+package com.escola.benchmark;
+
+import com.escola.model.Aluno;
+import com.escola.model.Curso;
+import com.escola.model.Matricula;
+import com.escola.repository.memory.InMemoryAlunoRepository;
+import com.escola.repository.memory.InMemoryCursoRepository;
+import com.escola.repository.memory.InMemoryMatriculaRepository;
+import com.escola.repository.memory.InMemoryStore;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Realistic, reproducible data for the benchmarks: students aged 16 to 60 with distinct
+ * e-mails, courses with descriptions and workloads, and enrollments spread over the last two
+ * years (a few percent of them within the last 30 days, about 5% cancelled). The generator is
+ * seeded, so every run measures the same data.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public final class DadosBenchmark {
+
+    /** Courses in the catalog; every student takes at most {@link #CURSOS_POR_ALUNO} of them. */
+    public static final int CURSOS = 50;
+    public static final int CURSOS_POR_ALUNO = 10;
+
+    private static final String[] NOMES = {"Ana", "Bruno", "Carla", "Daniel", "Eduarda", "Felipe", "Gabriela",
+            "Henrique", "Isabela", "João", "Larissa", "Marcos", "Natália", "Otávio", "Paula", "Rafael",
+            "Sofia", "Thiago", "Vitória", "William"};
+    private static final String[] SOBRENOMES = {"Silva", "Santos", "Oliveira", "Souza", "Rodrigues", "Ferreira",
+            "Alves", "Pereira", "Lima", "Gomes", "Costa", "Ribeiro", "Martins", "Carvalho", "Araújo"};
+    private static final String[] AREAS = {"Java", "Banco de Dados", "Redes", "Algoritmos", "Engenharia de Software",
+            "Sistemas Operacionais", "Segurança", "Inteligência Artificial", "Estatística", "Cálculo"};
+
+    private DadosBenchmark() {}
+
+    /**
+     * @param quantidade Number of students.
+     * @param random     Seeded generator.
+     * @return Detached students with IDs 1..quantidade.
+     */
+    public static List<Aluno> alunos(int quantidade, SplittableRandom random) {
+        LocalDate hoje = LocalDate.now();
+        List<Aluno> alunos = new ArrayList<>(quantidade);
+        for (int i = 1; i <= quantidade; i++) {
+            String nome = NOMES[random.nextInt(NOMES.length)] + " " + SOBRENOMES[random.nextInt(SOBRENOMES.length)]
+                    + " " + SOBRENOMES[random.nextInt(SOBRENOMES.length)];
+            String email = nome.toLowerCase().replace(' ', '.') + "." + i + "@escola.com.br";
+            LocalDate nascimento = hoje.minusYears(16 + random.nextInt(45)).minusDays(random.nextInt(365));
+            Aluno aluno = new Aluno(nome, email, nascimento);
+            aluno.setId((long) i);
+            aluno.setVersao(random.nextInt(4));
+            alunos.add(aluno);
+        }
+        return alunos;
+    }
+
+    /**
+     * @param quantidade Number of courses.
+     * @return Detached courses with IDs 1..quantidade.
+     */
+    public static List<Curso> cursos(int quantidade) {
+        List<Curso> cursos = new ArrayList<>(quantidade);
+        for (int i = 1; i <= quantidade; i++) {
+            String area = AREAS[(i - 1) % AREAS.length];
+            Curso curso = new Curso(area + " " + ((i - 1) / AREAS.length + 1),
+                    "Curso de " + area + ", turma " + i, 20 + (i % 4) * 20);
+            curso.setId((long) i);
+            cursos.add(curso);
+        }
+        return cursos;
+    }
+
+    /**
+     * Enrolls the students in the courses: each student in 1 to {@link #CURSOS_POR_ALUNO}
+     * distinct courses, until {@code quantidade} enrollments exist.
+     *
+     * @param quantidade Number of enrollments.
+     * @param alunos     Students, at least {@code quantidade / CURSOS_POR_ALUNO}.
+     * @param cursos     Courses, at least {@link #CURSOS}.
+     * @param random     Seeded generator.
+     * @return Detached enrollments, without IDs.
+     */
+    public static List<Matricula> matriculas(int quantidade, List<Aluno> alunos, List<Curso> cursos,
+                                             SplittableRandom random) {
+        LocalDate hoje = LocalDate.now();
+        List<Matricula> matriculas = new ArrayList<>(quantidade);
+        for (int a = 0; matriculas.size() < quantidade; a++) {
+            Aluno aluno = alunos.get(a);
+            int primeiro = random.nextInt(CURSOS);
+            // Never fewer than the remaining students can still absorb, so the loop always completes
+            int minimo = quantidade - matriculas.size() - (alunos.size() - a - 1) * CURSOS_POR_ALUNO;
+            int porAluno = Math.max(1 + random.nextInt(CURSOS_POR_ALUNO), minimo);
+            for (int k = 0; k < porAluno && matriculas.size() < quantidade; k++) {
+                Curso curso = cursos.get((primeiro + k * (CURSOS / CURSOS_POR_ALUNO)) % CURSOS);
+                Matricula matricula = new Matricula(aluno, curso, hoje.minusDays(random.nextInt(730)));
+                matricula.setCancelada(random.nextInt(20) == 0);
+                matriculas.add(matricula);
+            }
+        }
+        return matriculas;
+    }
+
+    /**
+     * Fills an in-memory store with {@code quantidade} enrollments, {@link #CURSOS} courses and
+     * about {@code quantidade / 5} students (5.5 courses each on average).
+     *
+     * @param quantidade Number of enrollments.
+     * @return The populated store.
+     */
+    public static InMemoryStore popular(int quantidade) {
+        SplittableRandom random = new SplittableRandom(42);
+        InMemoryStore store = new InMemoryStore();
+        InMemoryAlunoRepository alunoRepository = new InMemoryAlunoRepository(store);
+        InMemoryCursoRepository cursoRepository = new InMemoryCursoRepository(store);
+        InMemoryMatriculaRepository matriculaRepository = new InMemoryMatriculaRepository(store);
+
+        List<Aluno> alunos = alunos(quantidade / 5 + 1, random);
+        for (Aluno aluno : alunos) alunoRepository.salvar(aluno);
+        List<Curso> cursos = cursos(CURSOS);
+        for (Curso curso : cursos) cursoRepository.salvar(curso);
+        List<Matricula> matriculas = matriculas(quantidade, alunos, cursos, random);
+        for (int i = 0; i < matriculas.size(); i += 10_000) {
+            matriculaRepository.salvarTodas(matriculas.subList(i, Math.min(i + 10_000, matriculas.size())));
+        }
+        return store;
+    }
+}
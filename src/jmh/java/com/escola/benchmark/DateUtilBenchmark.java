@@ -0,0 +1,57 @@
+package com.escola.benchmark;
+
+import com.escola.util.DateUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DateUtil#calculateAge(LocalDate)}, called once per student by the reports. Each
+ * operation computes the age of one student of a fixed pool of realistic birth dates.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DateUtilBenchmark {
+
+    private static final int POOL = 1024; // power of two, see proxima()
+
+    private LocalDate[] nascimentos;
+    private int indice;
+
+    @Setup
+    public void preparar() {
+        SplittableRandom random = new SplittableRandom(42);
+        LocalDate hoje = LocalDate.now();
+        nascimentos = new LocalDate[POOL];
+        for (int i = 0; i < POOL; i++) {
+            nascimentos[i] = hoje.minusYears(16 + random.nextInt(45)).minusDays(random.nextInt(365));
+        }
+    }
+
+    private LocalDate proxima() {
+        return nascimentos[indice++ & (POOL - 1)];
+    }
+
+    @Benchmark
+    public int calculateAge() {
+        return DateUtil.calculateAge(proxima());
+    }
+}
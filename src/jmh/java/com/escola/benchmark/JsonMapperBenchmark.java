@@ -0,0 +1,126 @@
+package com.escola.benchmark;
+
+import com.escola.dto.AlunoDTO;
+import com.escola.dto.MatriculaDTO;
+import com.escola.dto.RelatorioCursoDTO;
+import com.escola.util.JsonMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link JsonMapper} with a plain {@link ObjectMapper} configured like JsonMapper 1.1
+ * (JavaTimeModule only, reflection-based access, list type rebuilt on every call), on lists of
+ * {@link AlunoDTO}, {@link MatriculaDTO} and {@link RelatorioCursoDTO}.
+ * <p>
+ * {@code RelatorioCursoDTO} is immutable and only ever written, so it has no read benchmark.
+ * </p>
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonMapperBenchmark {
+
+    @Param({"1000"})
+    public int tamanho;
+
+    private ObjectMapper baseline;
+    private List<AlunoDTO> alunos;
+    private List<MatriculaDTO> matriculas;
+    private List<RelatorioCursoDTO> relatorio;
+    private byte[] alunosJson;
+    private byte[] matriculasJson;
+
+    @Setup
+    public void preparar() throws IOException {
+        baseline = new ObjectMapper();
+        baseline.registerModule(new JavaTimeModule());
+
+        alunos = new ArrayList<>(tamanho);
+        matriculas = new ArrayList<>(tamanho);
+        relatorio = new ArrayList<>(tamanho);
+        LocalDate base = LocalDate.of(2000, 1, 1);
+        for (long i = 1; i <= tamanho; i++) {
+            alunos.add(new AlunoDTO(i, "Aluno " + i, "aluno" + i + "@escola.com", base.plusDays(i * 7 % 3650), 1L));
+            matriculas.add(new MatriculaDTO(i, i, "Aluno " + i, i % 30 + 1, "Curso " + (i % 30 + 1),
+                    LocalDate.of(2024, 1, 1).plusDays(i % 365), i % 10 == 0, 2L));
+            relatorio.add(new RelatorioCursoDTO("Curso " + i, i * 3, 20 + i % 15 + 0.5, i % 7));
+        }
+        alunosJson = JsonMapper.toJsonBytes(alunos);
+        matriculasJson = JsonMapper.toJsonBytes(matriculas);
+    }
+
+    @Benchmark
+    public byte[] escreverAlunosBaseline() throws IOException {
+        return baseline.writeValueAsBytes(alunos);
+    }
+
+    @Benchmark
+    public byte[] escreverAlunos() throws IOException {
+        return JsonMapper.toJsonBytes(alunos);
+    }
+
+    @Benchmark
+    public byte[] escreverMatriculasBaseline() throws IOException {
+        return baseline.writeValueAsBytes(matriculas);
+    }
+
+    @Benchmark
+    public byte[] escreverMatriculas() throws IOException {
+        return JsonMapper.toJsonBytes(matriculas);
+    }
+
+    @Benchmark
+    public byte[] escreverRelatorioBaseline() throws IOException {
+        return baseline.writeValueAsBytes(relatorio);
+    }
+
+    @Benchmark
+    public byte[] escreverRelatorio() throws IOException {
+        return JsonMapper.toJsonBytes(relatorio);
+    }
+
+    @Benchmark
+    public List<AlunoDTO> lerAlunosBaseline() throws IOException {
+        return baseline.readValue(alunosJson,
+                baseline.getTypeFactory().constructCollectionType(List.class, AlunoDTO.class));
+    }
+
+    @Benchmark
+    public List<AlunoDTO> lerAlunos() throws IOException {
+        return JsonMapper.fromJsonList(alunosJson, AlunoDTO.class);
+    }
+
+    @Benchmark
+    public List<MatriculaDTO> lerMatriculasBaseline() throws IOException {
+        return baseline.readValue(matriculasJson,
+                baseline.getTypeFactory().constructCollectionType(List.class, MatriculaDTO.class));
+    }
+
+    @Benchmark
+    public List<MatriculaDTO> lerMatriculas() throws IOException {
+        return JsonMapper.fromJsonList(matriculasJson, MatriculaDTO.class);
+    }
+}
@@ -0,0 +1,94 @@
+package com.escola.benchmark;
+
+import com.escola.config.PersistenceManager;
+import com.escola.model.Aluno;
+import com.escola.repository.AlunoRepository;
+import com.escola.repository.impl.AlunoRepositoryImpl;
+import com.escola.repository.memory.InMemoryAlunoRepository;
+import com.escola.repository.memory.InMemoryStore;
+import com.escola.repository.memory.Journal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Write throughput of the two durable backends: the in-memory store with its {@link Journal}
+ * ({@code REPOSITORY_BACKEND=journal}) against JPA on an H2 file database ({@code h2-file}).
+ * Eight threads insert students concurrently, each call returning only once its row is committed.
+ * <p>
+ * {@code journal} forces every batch to disk ({@code JOURNAL_FSYNC=true}, the default), so its
+ * figure is bounded by fsync latency shared through group commit. H2 commits to its file without
+ * an fsync per transaction, which is what {@code journal-sem-fsync} ({@code JOURNAL_FSYNC=false})
+ * matches. Each backend runs in its own fork over an empty directory.
+ * </p>
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class PersistenciaBenchmark {
+
+    @Param({"journal", "journal-sem-fsync", "jpa"})
+    public String backend;
+
+    private final AtomicLong sequencia = new AtomicLong();
+    private Path diretorio;
+    private Journal journal;
+    private AlunoRepository alunoRepository;
+
+    @Setup
+    public void preparar() throws IOException {
+        diretorio = Files.createTempDirectory("persistencia-benchmark");
+        if ("jpa".equals(backend)) {
+            System.setProperty("persistence.profile", "h2-file");
+            System.setProperty("h2.file.path", diretorio.resolve("escola").toString());
+            PersistenceManager.getEntityManagerFactory();
+            alunoRepository = new AlunoRepositoryImpl();
+        } else {
+            InMemoryStore store = new InMemoryStore();
+            journal = Journal.abrir(diretorio, store, "journal".equals(backend), 0, 100_000);
+            alunoRepository = new InMemoryAlunoRepository(store);
+        }
+    }
+
+    @TearDown
+    public void encerrar() throws IOException {
+        if (journal != null) journal.close();
+        else PersistenceManager.close();
+        try (Stream<Path> arquivos = Files.walk(diretorio)) {
+            arquivos.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Aluno salvarAluno() {
+        long n = sequencia.incrementAndGet();
+        return alunoRepository.salvar(new Aluno("Aluno " + n, "aluno" + n + "@benchmark.com",
+                LocalDate.of(1990, 1, 1).plusDays(n % 10_000)));
+    }
+}
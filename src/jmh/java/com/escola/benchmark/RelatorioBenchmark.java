@@ -0,0 +1,58 @@
+package com.escola.benchmark;
+
+import com.escola.dto.RelatorioCursoDTO;
+import com.escola.repository.memory.InMemoryCursoRepository;
+import com.escola.repository.memory.InMemoryMatriculaRepository;
+import com.escola.repository.memory.InMemoryStore;
+import com.escola.service.impl.RelatorioServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The course engagement report ({@link RelatorioServiceImpl#gerarRelatorioEngajamentoCursos()})
+ * over 10k, 100k and 1M enrollments held by the in-memory backend, so the figures cover the
+ * aggregation and the per-course reads without database noise.
+ * <p>
+ * Single-flight is disabled in the fork: every call computes the report.
+ * </p>
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "-Dsingle.flight.enabled=false"})
+public class RelatorioBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int matriculas;
+
+    private RelatorioServiceImpl relatorioService;
+
+    @Setup
+    public void preparar() {
+        InMemoryStore store = DadosBenchmark.popular(matriculas);
+        relatorioService = new RelatorioServiceImpl(new InMemoryMatriculaRepository(store),
+                new InMemoryCursoRepository(store));
+    }
+
+    @Benchmark
+    public List<RelatorioCursoDTO> gerarRelatorioEngajamentoCursos() {
+        return relatorioService.gerarRelatorioEngajamentoCursos();
+    }
+}
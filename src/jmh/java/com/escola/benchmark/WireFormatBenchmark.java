@@ -0,0 +1,98 @@
+package com.escola.benchmark;
+
+import com.escola.dto.AlunoDTO;
+import com.escola.dto.ApiResponse;
+import com.escola.dto.MatriculaDTO;
+import com.escola.util.WireFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode time of each {@link WireFormat} on the payloads the integrations pull: the
+ * enrollment list wrapped in {@code ApiResponse} and the student list. The encoded sizes are
+ * printed once per trial, since JMH only reports times.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"JSON", "SMILE", "CBOR"})
+    public WireFormat formato;
+
+    @Param({"1000"})
+    public int tamanho;
+
+    private ApiResponse<List<MatriculaDTO>> matriculas;
+    private List<AlunoDTO> alunos;
+    private byte[] matriculasCodificadas;
+    private byte[] alunosCodificados;
+
+    @Setup
+    public void preparar() throws IOException {
+        List<MatriculaDTO> lista = new ArrayList<>(tamanho);
+        alunos = new ArrayList<>(tamanho);
+        LocalDate base = LocalDate.of(2000, 1, 1);
+        for (long i = 1; i <= tamanho; i++) {
+            lista.add(new MatriculaDTO(i, i, "Aluno " + i, i % 30 + 1, "Curso " + (i % 30 + 1),
+                    LocalDate.of(2024, 1, 1).plusDays(i % 365), i % 10 == 0, 2L));
+            alunos.add(new AlunoDTO(i, "Aluno " + i, "aluno" + i + "@escola.com", base.plusDays(i * 7 % 3650), 1L));
+        }
+        matriculas = ApiResponse.success(lista, "Matrículas listadas com sucesso.");
+        matriculasCodificadas = formato.escrever(matriculas);
+        alunosCodificados = formato.escrever(alunos);
+        System.out.printf("%n%s: matrículas %d bytes, alunos %d bytes%n",
+                formato, matriculasCodificadas.length, alunosCodificados.length);
+    }
+
+    @Benchmark
+    public byte[] codificarMatriculas() throws IOException {
+        return formato.escrever(matriculas);
+    }
+
+    @Benchmark
+    public byte[] codificarAlunos() throws IOException {
+        return formato.escrever(alunos);
+    }
+
+    @Benchmark
+    public Object decodificarMatriculas() throws IOException {
+        return formato.ler(new ByteArrayInputStream(matriculasCodificadas), MatriculasResposta.class);
+    }
+
+    @Benchmark
+    public List<AlunoDTO> decodificarAlunos() throws IOException {
+        return formato.lerLista(new ByteArrayInputStream(alunosCodificados), AlunoDTO.class);
+    }
+
+    /**
+     * What a client reads the enrollment list into ({@code ApiResponse} itself has no setters).
+     */
+    public static class MatriculasResposta {
+        public boolean success;
+        public String message;
+        public List<MatriculaDTO> data;
+    }
+}
@@ -0,0 +1,122 @@
+package com.escola.controller;
+
+import com.escola.repository.memory.InMemoryAlunoRepository;
+import com.escola.repository.memory.InMemoryCursoRepository;
+import com.escola.repository.memory.InMemoryMatriculaRepository;
+import com.escola.repository.memory.InMemoryStore;
+import com.escola.service.impl.MatriculaServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request routing cost of the controllers: {@code findHandler}, {@code matchPath} and
+ * {@code resolveRouteTemplate}, the three lookups {@code handle} runs before any handler.
+ * Each operation routes one batch of paths mixing exact routes, routes with an ID and
+ * unknown paths, in roughly the proportion the API receives them.
+ * <p>
+ * Lives in the controller package because the routing methods are package-private. The
+ * services are not needed to route: the controllers get none, or an empty in-memory one
+ * where the constructor requires it.
+ * </p>
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoutingBenchmark {
+
+    private static final String[][] ALUNOS = {
+            {"GET", "/api/alunos"},
+            {"GET", "/api/alunos/42"},
+            {"GET", "/api/alunos/1234567"},
+            {"PUT", "/api/alunos/42"},
+            {"POST", "/api/alunos"},
+            {"POST", "/api/alunos/lote"},
+            {"GET", "/api/alunos/email/aluno42@escola.com"},
+            {"GET", "/api/alunos/abc"},
+    };
+
+    private static final String[][] CURSOS = {
+            {"GET", "/api/cursos"},
+            {"GET", "/api/cursos/7"},
+            {"PATCH", "/api/cursos/7"},
+            {"GET", "/api/cursos/relatorio/engajamento"},
+            {"POST", "/api/cursos"},
+            {"GET", "/api/cursos/nome/java"},
+    };
+
+    private static final String[][] MATRICULAS = {
+            {"GET", "/api/matriculas"},
+            {"GET", "/api/matriculas/1001"},
+            {"DELETE", "/api/matriculas/1001"},
+            {"POST", "/api/matriculas"},
+            {"PUT", "/api/matriculas/curso/7/cancelar"},
+            {"GET", "/api/matriculas/x/y"},
+    };
+
+    private AlunoController alunoController;
+    private CursoController cursoController;
+    private MatriculaController matriculaController;
+
+    @Setup
+    public void preparar() {
+        alunoController = new AlunoController(null);
+        cursoController = new CursoController(null, null);
+        InMemoryStore store = new InMemoryStore(); // MatriculaController insists on a service
+        matriculaController = new MatriculaController(new MatriculaServiceImpl(new InMemoryMatriculaRepository(store),
+                new InMemoryAlunoRepository(store), new InMemoryCursoRepository(store)));
+    }
+
+    @Benchmark
+    public void rotearAlunos(Blackhole bh) {
+        for (String[] req : ALUNOS) {
+            bh.consume(alunoController.resolveRouteTemplate(req[1]));
+            bh.consume(alunoController.findHandler(req[0], req[1]));
+            bh.consume(alunoController.matchPath(req[1]));
+        }
+    }
+
+    @Benchmark
+    public void rotearCursos(Blackhole bh) {
+        for (String[] req : CURSOS) {
+            bh.consume(cursoController.resolveRouteTemplate(req[1]));
+            bh.consume(cursoController.findHandler(req[0], req[1]));
+            bh.consume(cursoController.matchPath(req[1]));
+        }
+    }
+
+    @Benchmark
+    public void rotearMatriculas(Blackhole bh) {
+        for (String[] req : MATRICULAS) {
+            bh.consume(matriculaController.resolveRouteTemplate(req[1]));
+            bh.consume(matriculaController.findHandler(req[0], req[1]));
+            bh.consume(matriculaController.matchPath(req[1]));
+        }
+    }
+
+    @Benchmark
+    public Object findHandlerPorId() {
+        return alunoController.findHandler("GET", "/api/alunos/42");
+    }
+
+    @Benchmark
+    public Object matchPathPorId() {
+        return alunoController.matchPath("/api/alunos/42");
+    }
+}
@@ -0,0 +1,80 @@
+package com.escola.service.impl;
+
+import com.escola.benchmark.DadosBenchmark;
+import com.escola.model.Aluno;
+import com.escola.model.Curso;
+import com.escola.model.Matricula;
+import com.escola.repository.memory.InMemoryAlunoRepository;
+import com.escola.repository.memory.InMemoryMatriculaRepository;
+import com.escola.repository.memory.InMemoryStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping as done for every listed row: {@code MatriculaServiceImpl.toDTO} and
+ * {@code AlunoServiceImpl.convertToDTO}, over a page of detached entities with their
+ * associations loaded. Lives in the service package because both mappers are package-private.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapeamentoBenchmark {
+
+    @Param({"1000"})
+    public int tamanho;
+
+    private MatriculaServiceImpl matriculaService;
+    private AlunoServiceImpl alunoService;
+    private List<Aluno> alunos;
+    private List<Matricula> matriculas;
+
+    @Setup
+    public void preparar() {
+        InMemoryStore store = new InMemoryStore();
+        matriculaService = new MatriculaServiceImpl(null, null, null);
+        alunoService = new AlunoServiceImpl(new InMemoryAlunoRepository(store), new InMemoryMatriculaRepository(store));
+
+        SplittableRandom random = new SplittableRandom(42);
+        alunos = DadosBenchmark.alunos(tamanho, random);
+        List<Curso> cursos = DadosBenchmark.cursos(DadosBenchmark.CURSOS);
+        matriculas = DadosBenchmark.matriculas(tamanho, alunos, cursos, random);
+        long id = 1;
+        for (Matricula matricula : matriculas) {
+            matricula.setId(id++);
+        }
+    }
+
+    @Benchmark
+    public void matriculaToDTO(Blackhole bh) {
+        for (Matricula matricula : matriculas) {
+            bh.consume(matriculaService.toDTO(matricula));
+        }
+    }
+
+    @Benchmark
+    public void alunoConvertToDTO(Blackhole bh) {
+        for (Aluno aluno : alunos) {
+            bh.consume(alunoService.convertToDTO(aluno));
+        }
+    }
+}
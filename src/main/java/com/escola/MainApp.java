@@ -1,7 +1,20 @@
 package com.escola;
 
+import com.escola.config.AppConfig;
+import com.escola.config.DataSeeder;
 import com.escola.config.PersistenceManager;
+import com.escola.config.WarmUp;
+import com.escola.controller.HealthController;
 import com.escola.controller.HttpHandlerFactory;
+import com.escola.controller.StaticFileHandler;
+import com.escola.logging.LogRuntime;
+import com.escola.monitoring.FlightRecording;
+import com.escola.monitoring.Readiness;
+import com.escola.monitoring.RepositoryEvents;
+import com.escola.monitoring.RequestContext;
+import com.escola.monitoring.TrafficCapture;
+import com.escola.monitoring.Tracing;
+import com.escola.monitoring.WarmUpTraffic;
 import com.escola.service.AlunoService;
 import com.escola.service.CursoService;
 import com.escola.service.MatriculaService;
@@ -10,97 +23,169 @@ import com.escola.service.impl.AlunoServiceImpl;
 import com.escola.service.impl.CursoServiceImpl;
 import com.escola.service.impl.MatriculaServiceImpl;
 import com.escola.service.impl.RelatorioServiceImpl;
+import com.escola.repository.AlunoRepository;
+import com.escola.repository.CursoRepository;
+import com.escola.repository.MatriculaRepository;
 import com.escola.repository.impl.AlunoRepositoryImpl;
 import com.escola.repository.impl.CursoRepositoryImpl;
 import com.escola.repository.impl.MatriculaRepositoryImpl;
+import com.escola.repository.memory.InMemoryAlunoRepository;
+import com.escola.repository.memory.InMemoryCursoRepository;
+import com.escola.repository.memory.InMemoryMatriculaRepository;
+import com.escola.repository.memory.InMemoryStore;
+import com.escola.repository.memory.Journal;
 
+import com.escola.model.Matricula;
 import com.escola.util.ConsoleUI;
 import com.escola.util.DateUtil;
+import com.escola.util.GroupCommitQueue;
+import com.escola.util.RetryPolicy;
 
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpContext;
 import com.sun.net.httpserver.HttpServer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Main application class for the Course Management System.
  * Initializes the JPA EntityManagerFactory, sets up services,
  * and starts either a simple HTTP server or console UI to handle user interaction.
+ * <p>
+ * The execution mode comes from the arguments ({@code --server}, {@code --console}) or from
+ * {@code APP_MODE} ({@code menu}, the default, {@code server} or {@code console}). In server mode
+ * there is no menu: the HTTP socket is bound right away, answering {@code /health/live} and
+ * {@code /health/ready}, while persistence, the static assets and the caches are initialized in
+ * parallel; {@code /health/ready} turns 200 once all of them are done.
+ * </p>
+ * <p>
+ * The operational endpoints ({@code /admin}) are never on the API port: they get a listener of
+ * their own, on {@code ADMIN_PORT} (default 8081; negative disables it) and
+ * {@code ADMIN_BIND_ADDRESS} (default {@code 127.0.0.1}). {@code ADMIN_TOKEN} makes them require
+ * {@code Authorization: Bearer <token>}, and is mandatory to bind them to a non-loopback address.
+ * </p>
  *
- * @version 1.2
+ * @version 2.4
  * @author FelipeCardoso
  */
 public class MainApp {
 
     private static final Logger logger = LoggerFactory.getLogger(MainApp.class); // Use SLF4J for MainApp
-    private static final int SERVER_PORT = 8080;
+    private static final int SERVER_PORT = 8080; // default; SERVER_PORT overrides (0 picks a free port)
+    private static final int ADMIN_PORT = 8081; // default; ADMIN_PORT overrides (0 picks a free port, negative disables)
+    private static final String BACKEND_JPA = "jpa";
+    private static final String BACKEND_MEMORY = "memory";
+    private static final String BACKEND_JOURNAL = "journal";
+    private static final String MODO_MENU = "menu";
+    private static final String MODO_SERVIDOR = "server";
+    private static final String MODO_CONSOLE = "console";
+    // Startup stages reported by /health/ready
+    private static final String ETAPA_SERVICOS = "servicos";
+    private static final String ETAPA_PERSISTENCIA = "persistencia";
+    private static final String ETAPA_ESTATICOS = "estaticos";
+    private static final String ETAPA_CACHES = "caches";
+    private static final String ETAPA_AQUECIMENTO = "aquecimento";
     private static HttpServer httpServer; // Keep a reference to the server for graceful shutdown
+    private static HttpServer adminServer; // /admin listener, unless disabled or misconfigured
+    private static Journal journal; // Only with REPOSITORY_BACKEND=journal
+    private static TrafficCapture captura; // Only with CAPTURE_ENABLED=true
+    private static Tracing tracing; // Unless TRACE_ENABLED=false
+    private static GroupCommitQueue<Matricula> filaMatriculas; // Only with MATRICULA_GROUP_COMMIT=true
 
-    public static void main(String[] args) { // main can throw Exception, but catching is cleaner
+    public static void main(String[] args) {
+        try {
+            executar(args);
+        } finally {
+            // Logging is asynchronous: write what is still buffered before the JVM exits
+            // (in HTTP mode the shutdown hook does it instead, as main never returns)
+            LogRuntime.encerrar();
+        }
+    }
+
+    private static void executar(String[] args) { // could throw Exception, but catching is cleaner
         logger.info("Iniciando Sistema de Controle de Cursos...");
+        LogRuntime.registrarMetricas();
+        RequestContext.configurarOrcamento(
+                AppConfig.getInt("QUERY_BUDGET", 10), AppConfig.getInt("QUERY_REPEAT_THRESHOLD", 5));
 
-        // Initialize JPA EntityManagerFactory
+        String modo;
         try {
-            PersistenceManager.getEntityManagerFactory(); // Initialize on startup
-            logger.info("EntityManagerFactory inicializado com sucesso.");
-        } catch (Exception e) {
-            logger.error("Falha ao inicializar EntityManagerFactory. Encerrando aplicação.", e);
-            // Consider more specific exception handling if needed (e.g., SQLException)
-            return; // Exit if DB connection fails
+            modo = modo(args);
+        } catch (IllegalArgumentException e) {
+            logger.error("{} Encerrando aplicação.", e.getMessage());
+            return;
+        }
+        if (MODO_SERVIDOR.equals(modo)) {
+            try {
+                startHeadlessServer();
+            } catch (IOException e) {
+                logger.error("Erro ao iniciar servidor HTTP: {}", e.getMessage(), e);
+            } catch (InterruptedException e) {
+                logger.warn("Servidor HTTP interrompido enquanto aguardava finalização.", e);
+                Thread.currentThread().interrupt();
+            }
+            return;
         }
 
-        // --- Service Instantiation (Manual "Dependency Injection") ---
-        // Using `var` for local type inference is fine.
-        var alunoRepository = new AlunoRepositoryImpl();
-        var cursoRepository = new CursoRepositoryImpl();
-        var matriculaRepository = new MatriculaRepositoryImpl();
+        Servicos servicos;
+        try {
+            servicos = inicializarServicos();
+        } catch (RuntimeException e) {
+            logger.error(e.getMessage() + " Encerrando aplicação.", e);
+            return;
+        }
+        AlunoService alunoService = servicos.aluno;
+        CursoService cursoService = servicos.curso;
+        MatriculaService matriculaService = servicos.matricula;
+        RelatorioService relatorioService = servicos.relatorio;
 
-        // Instantiate services, injecting repositories
-        AlunoService alunoService = new AlunoServiceImpl(alunoRepository, matriculaRepository);
-        CursoService cursoService = new CursoServiceImpl(cursoRepository);
-        MatriculaService matriculaService = new MatriculaServiceImpl(matriculaRepository, alunoRepository, cursoRepository);
-        RelatorioService relatorioService = new RelatorioServiceImpl(matriculaRepository);
-
-        // Initial menu to choose execution mode
-        String[] executionModes = {
-                "Iniciar servidor HTTP (API)",
-                "Iniciar interface de console",
-                "Sair"
-        };
+        if (MODO_CONSOLE.equals(modo)) {
+            startConsoleUI(alunoService, cursoService, matriculaService, relatorioService);
+        } else {
+            // Initial menu to choose execution mode
+            String[] executionModes = {
+                    "Iniciar servidor HTTP (API)",
+                    "Iniciar interface de console",
+                    "Sair"
+            };
 
-        boolean running = true;
-        while (running) {
-            ConsoleUI.displayMenu("Escolha o modo de execução:", executionModes);
-            int choice = ConsoleUI.readInt(""); // Use more descriptive variable name
-            switch (choice) {
-                case 1:
-                    try {
-                        startHttpServer(alunoService, cursoService, matriculaService, relatorioService);
-                        running = false; // Exit loop after starting server (it's blocking)
-                    } catch (IOException e) {
-                        logger.error("Erro ao iniciar servidor HTTP: {}", e.getMessage(), e);
-                        System.out.println("Erro ao iniciar servidor HTTP. Verifique os logs.");
-                    } catch (InterruptedException e) {
-                        logger.warn("Servidor HTTP interrompido enquanto aguardava finalização.", e);
-                        Thread.currentThread().interrupt(); // Restore interrupted status
-                    }
-                    break;
-                case 2:                    startConsoleUI(alunoService, cursoService, matriculaService, relatorioService);
-                    // After console UI exits, return to the initial menu
-                    break;
-                case 3:
-                    logger.info("Encerrando aplicação...");
-                    running = false;
-                    break;
-                default:
-                    System.out.println("Opção inválida. Tente novamente.");
+            boolean running = true;
+            while (running) {
+                ConsoleUI.displayMenu("Escolha o modo de execução:", executionModes);
+                int choice = ConsoleUI.readInt(""); // Use more descriptive variable name
+                switch (choice) {
+                    case 1:
+                        try {
+                            startHttpServer(alunoService, cursoService, matriculaService, relatorioService);
+                            running = false; // Exit loop after starting server (it's blocking)
+                        } catch (IOException e) {
+                            logger.error("Erro ao iniciar servidor HTTP: {}", e.getMessage(), e);
+                            System.out.println("Erro ao iniciar servidor HTTP. Verifique os logs.");
+                        } catch (InterruptedException e) {
+                            logger.warn("Servidor HTTP interrompido enquanto aguardava finalização.", e);
+                            Thread.currentThread().interrupt(); // Restore interrupted status
+                        }
+                        break;
+                    case 2:
+                        startConsoleUI(alunoService, cursoService, matriculaService, relatorioService);
+                        // After console UI exits, return to the initial menu
+                        break;
+                    case 3:
+                        logger.info("Encerrando aplicação...");
+                        running = false;
+                        break;
+                    default:
+                        System.out.println("Opção inválida. Tente novamente.");
+                }
             }
         }
 
@@ -113,11 +198,152 @@ public class MainApp {
             // httpServer.stop(3); // Wait up to 3 seconds for active requests to finish
             logger.info("Servidor HTTP parado.");
         }
+        if (adminServer != null) adminServer.stop(0);
+        if (filaMatriculas != null) filaMatriculas.close();
+        if (journal != null) journal.close();
         PersistenceManager.close();
         ConsoleUI.closeScanner();
         logger.info("Aplicação encerrada.");
     }
 
+    /**
+     * Picks the execution mode: {@code --server} / {@code --console} on the command line win over
+     * {@code APP_MODE}; without either, the interactive menu is shown.
+     *
+     * @param args Command-line arguments.
+     * @return {@link #MODO_MENU}, {@link #MODO_SERVIDOR} or {@link #MODO_CONSOLE}.
+     * @throws IllegalArgumentException If {@code APP_MODE} holds an unknown mode.
+     */
+    private static String modo(String[] args) {
+        for (String arg : args) {
+            switch (arg) {
+                case "--server":
+                case "--servidor":
+                case "server":
+                    return MODO_SERVIDOR;
+                case "--console":
+                case "console":
+                    return MODO_CONSOLE;
+                default:
+                    logger.warn("Argumento desconhecido ignorado: {}", arg);
+            }
+        }
+        String modo = AppConfig.getString("APP_MODE", MODO_MENU).trim().toLowerCase();
+        if (!MODO_MENU.equals(modo) && !MODO_SERVIDOR.equals(modo) && !MODO_CONSOLE.equals(modo)) {
+            throw new IllegalArgumentException("APP_MODE inválido: '" + modo + "' (use menu, server ou console).");
+        }
+        return modo;
+    }
+
+    /**
+     * Selects the repository backend, initializes it and creates the services on top of it.
+     *
+     * @return The services.
+     * @throws RuntimeException If the database or the journal cannot be initialized.
+     */
+    private static Servicos inicializarServicos() {
+        // --- Repository backend selection ---
+        // REPOSITORY_BACKEND=jpa (default) uses the escolaPU persistence unit;
+        // REPOSITORY_BACKEND=memory keeps all data in process, with no database at all;
+        // REPOSITORY_BACKEND=journal serves from memory too, persisting writes to a journal + snapshots.
+        AlunoRepository alunoRepository;
+        CursoRepository cursoRepository;
+        MatriculaRepository matriculaRepository;
+        String backend = AppConfig.getString("REPOSITORY_BACKEND", BACKEND_JPA).toLowerCase();
+
+        if (BACKEND_MEMORY.equals(backend) || BACKEND_JOURNAL.equals(backend)) {
+            InMemoryStore store = new InMemoryStore();
+            boolean duravel = BACKEND_JOURNAL.equals(backend);
+            if (duravel) {
+                try {
+                    journal = Journal.fromConfig(store); // recovers the store before any repository call
+                } catch (RuntimeException e) {
+                    throw new RuntimeException("Falha ao recuperar o journal.", e);
+                }
+            }
+            alunoRepository = new InMemoryAlunoRepository(store);
+            cursoRepository = new InMemoryCursoRepository(store);
+            matriculaRepository = new InMemoryMatriculaRepository(store);
+            logger.info(duravel ? "Usando repositórios em memória persistidos em journal."
+                    : "Usando repositórios em memória (sem banco de dados).");
+            // A volatile store always starts empty; a journaled one only on its first run
+            if (AppConfig.getBoolean("DB_SEED", !duravel)) {
+                DataSeeder.fromConfig().popularSeVazio(alunoRepository, cursoRepository, matriculaRepository);
+            }
+        } else {
+            // Initialize JPA EntityManagerFactory
+            try {
+                PersistenceManager.getEntityManagerFactory(); // Initialize on startup
+                logger.info("EntityManagerFactory inicializado com sucesso.");
+                // Embedded profiles start empty, so they are seeded by default (DB_SEED overrides)
+                if (AppConfig.getBoolean("DB_SEED", PersistenceManager.isEmbedded())) {
+                    DataSeeder.fromConfig().popularSeVazio();
+                }
+            } catch (Exception e) {
+                // Consider more specific exception handling if needed (e.g., SQLException)
+                throw new RuntimeException("Falha ao inicializar EntityManagerFactory.", e);
+            }
+
+            // --- Service Instantiation (Manual "Dependency Injection") ---
+            alunoRepository = new AlunoRepositoryImpl();
+            cursoRepository = new CursoRepositoryImpl();
+            matriculaRepository = new MatriculaRepositoryImpl();
+        }
+
+        if (AppConfig.getBoolean("JFR_EVENTS_ENABLED", true)) {
+            // Repository calls show up in JFR recordings (see POST /admin/jfr/start)
+            alunoRepository = RepositoryEvents.instrumentar(AlunoRepository.class, alunoRepository);
+            cursoRepository = RepositoryEvents.instrumentar(CursoRepository.class, cursoRepository);
+            matriculaRepository = RepositoryEvents.instrumentar(MatriculaRepository.class, matriculaRepository);
+        }
+        tracing = Tracing.fromConfig();
+        if (tracing != null) {
+            alunoRepository = Tracing.instrumentar(AlunoRepository.class, alunoRepository, "repository");
+            cursoRepository = Tracing.instrumentar(CursoRepository.class, cursoRepository, "repository");
+            matriculaRepository = Tracing.instrumentar(MatriculaRepository.class, matriculaRepository, "repository");
+        }
+
+        // Instantiate services, injecting repositories
+        AlunoService alunoService = new AlunoServiceImpl(alunoRepository, matriculaRepository);
+        CursoService cursoService = new CursoServiceImpl(cursoRepository);
+        filaMatriculas = criarFilaDeMatriculas(matriculaRepository);
+        RelatorioService relatorioService = new RelatorioServiceImpl(matriculaRepository, cursoRepository);
+        MatriculaService matriculaService = new MatriculaServiceImpl(matriculaRepository, alunoRepository,
+                cursoRepository, RetryPolicy.padrao(), filaMatriculas, relatorioService);
+        if (tracing != null) {
+            // Spans around service calls, parents of the repository spans
+            alunoService = Tracing.instrumentar(AlunoService.class, alunoService, "service");
+            cursoService = Tracing.instrumentar(CursoService.class, cursoService, "service");
+            matriculaService = Tracing.instrumentar(MatriculaService.class, matriculaService, "service");
+            relatorioService = Tracing.instrumentar(RelatorioService.class, relatorioService, "service");
+        }
+        return new Servicos(alunoService, cursoService, matriculaService, relatorioService);
+    }
+
+    /**
+     * Creates the group-commit queue for new enrollments when {@code MATRICULA_GROUP_COMMIT} is enabled.
+     * Up to {@code MATRICULA_GROUP_COMMIT_MAX_BATCH} (default 64) enrollments arriving within
+     * {@code MATRICULA_GROUP_COMMIT_WINDOW_MS} (default 5) share one transaction; at most
+     * {@code MATRICULA_GROUP_COMMIT_QUEUE} (default 1024) wait in the queue.
+     *
+     * @param matriculaRepository The repository that writes the batches.
+     * @return The queue, or {@code null} when disabled.
+     */
+    private static GroupCommitQueue<Matricula> criarFilaDeMatriculas(MatriculaRepository matriculaRepository) {
+        if (!AppConfig.getBoolean("MATRICULA_GROUP_COMMIT", false)) {
+            return null;
+        }
+        GroupCommitQueue<Matricula> fila = new GroupCommitQueue<>("matriculas.group-commit",
+                AppConfig.getInt("MATRICULA_GROUP_COMMIT_QUEUE", 1024),
+                AppConfig.getInt("MATRICULA_GROUP_COMMIT_MAX_BATCH", 64),
+                AppConfig.getLong("MATRICULA_GROUP_COMMIT_WINDOW_MS", 5),
+                matriculaRepository::salvarTodas,
+                matriculaRepository::salvar);
+        logger.info("Gravação de matrículas em lote habilitada.");
+        return fila;
+    }
+
+
     /**
      * Initializes and starts the HTTP server for the API.
      *
@@ -134,91 +360,267 @@ public class MainApp {
             MatriculaService matriculaService,
             RelatorioService relatorioService) throws IOException, InterruptedException {
 
-        httpServer = HttpServer.create(new InetSocketAddress(SERVER_PORT), 0);
-        HttpHandlerFactory handlerFactory = new HttpHandlerFactory(
-                alunoService, cursoService, matriculaService, relatorioService);
-
-        // --- 1) Register API Endpoints FIRST (Most Specific Paths) ---
-        // This order is crucial: more specific paths must be registered before general ones.
-        httpServer.createContext("/api/alunos", handlerFactory.getAlunoHandler());
-        httpServer.createContext("/api/cursos", handlerFactory.getCursoHandler());
-        httpServer.createContext("/api/matriculas", handlerFactory.getMatriculaHandler());
-        // Use the factory to get the RelatorioController instance
-        httpServer.createContext("/api/relatorios/engajamento-cursos", handlerFactory.getRelatorioEngajamentoHandler());
-
-        // --- 2) Register Static File Server and Default Not Found Handler LAST (Catch-all) ---
-        // This context will handle all requests not caught by the specific API endpoints above.
-        httpServer.createContext("/", exchange -> {
-            String path = exchange.getRequestURI().getPath();
-            logger.debug("Attempting to serve static file or handle unmapped path for: {}", path);
-
-            // 1. Try to serve static files from /web resources
-            String resourcePath = path.equals("/") ? "/web/index.html" : "/web" + path;
-            try (InputStream is = MainApp.class.getResourceAsStream(resourcePath)) {
-                if (is != null) {
-                    // Determine content type
-                    String contentType = "application/octet-stream"; // Default
-                    if (path.endsWith(".css")) contentType = "text/css; charset=UTF-8";
-                    else if (path.endsWith(".js")) contentType = "application/javascript; charset=UTF-8";
-                    else if (path.endsWith(".html") || path.equals("/")) contentType = "text/html; charset=UTF-8";
-                    // Add more content types as needed (e.g., .png, .jpg, .json)
-
-                    exchange.getResponseHeaders().set("Content-Type", contentType);
-                    byte[] data = is.readAllBytes();
-                    exchange.sendResponseHeaders(200, data.length);
-                    try (OutputStream os = exchange.getResponseBody()) { // Use try-with-resources for OutputStream
-                        os.write(data);
-                        os.flush();
-                    }
-                    logger.debug("Served static file: {}", resourcePath);
-                    return; // Crucial: return after handling
-                }
-            } catch (IOException e) {
-                logger.error("Error serving static file {}: {}", resourcePath, e.getMessage(), e);
-                // If an error occurs serving a static file, fall through to default 500 or 404 handler
-                exchange.sendResponseHeaders(500, -1); // -1 for unknown length
-                return; // Ensure no further processing for this request
-            } finally {
-                // This finally block is specific to the static file serving attempt
-                // The outer finally block in the default handler will handle closing the exchange
-            }
+        // The services already exist: the instance is ready as soon as it serves
+        Readiness readiness = new Readiness();
+        readiness.registrar(ETAPA_SERVICOS);
+        criarServidor(readiness, new StaticFileHandler(HttpHandlerFactory.getDefaultNotFoundHandler()));
+        registrarApi(new Servicos(alunoService, cursoService, matriculaService, relatorioService), null);
+        httpServer.start();
+        iniciarServidorAdmin();
+        readiness.concluir(ETAPA_SERVICOS);
 
+        logger.info("Servidor iniciado em http://localhost:{}", httpServer.getAddress().getPort());
+        registrarDesligamento();
 
-            // 2. If it's not a static file, delegate to the generic Not Found Handler
-            // This ensures consistent JSON 404 responses for all unhandled paths
-            logger.warn("Path not found as static resource or specific API, delegating to default handler: {}", path);
+        // Blocks the main thread, keeping the server alive.
+        // The server will stop when the JVM exits (e.g., via Ctrl+C or a shutdown hook).
+        Thread.currentThread().join();
+    }
+
+    /**
+     * Server mode, with no menu: binds the HTTP socket first, so health probes are answered from
+     * the start, then initializes in parallel, on a startup pool,
+     * <ul>
+     * <li>{@code persistencia}: repositories (EMF bootstrap, journal recovery, seed) and services,
+     * after which the API contexts are registered, still closed to clients;</li>
+     * <li>{@code estaticos}: the {@code /web} assets, read into memory;</li>
+     * <li>{@code caches}: student cache and course catalog, once persistence is done;</li>
+     * <li>{@code aquecimento} (only with {@code WARMUP_ENABLED=true}): synthetic read-only requests
+     * through the API ({@link WarmUp}), after the caches, so the JIT has compiled the request path
+     * before the first client request.</li>
+     * </ul>
+     * Until every stage is done {@code /api} answers 503 with {@code Retry-After}: first the
+     * placeholder context, then the readiness filter of the API contexts, which only lets the
+     * warm-up requests through. If persistence fails the
+     * instance exits with status 1; the other stages only speed the first requests up, so
+     * their failures are logged and startup goes on.
+     * <p>
+     * With {@code APP_EXIT_WHEN_READY=true} the instance exits (status 0) as soon as it is ready:
+     * this is the training run of the {@code cds} build profile, which archives the classes
+     * loaded up to that point.
+     * </p>
+     *
+     * @throws IOException If the socket cannot be bound.
+     * @throws InterruptedException If the main thread is interrupted while waiting.
+     */
+    private static void startHeadlessServer() throws IOException, InterruptedException {
+        Readiness readiness = new Readiness();
+        readiness.registrar(ETAPA_PERSISTENCIA);
+        readiness.registrar(ETAPA_ESTATICOS);
+        readiness.registrar(ETAPA_CACHES);
+        WarmUp warmUp = WarmUp.fromConfig();
+        if (warmUp != null) readiness.registrar(ETAPA_AQUECIMENTO);
+
+        StaticFileHandler estaticos = new StaticFileHandler(HttpHandlerFactory.getDefaultNotFoundHandler());
+        HealthController healthController = criarServidor(readiness, estaticos);
+        // Catches /api/* until the specific contexts are registered (longer prefixes win afterwards)
+        httpServer.createContext("/api", healthController.aguardandoProntidao(HttpHandlerFactory.getDefaultNotFoundHandler()));
+        httpServer.start();
+        iniciarServidorAdmin();
+        logger.info("Servidor iniciado em http://localhost:{} (aguardando inicialização).", httpServer.getAddress().getPort());
+        registrarDesligamento();
+
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService inicializacao = Executors.newFixedThreadPool(2, r -> {
+            Thread t = new Thread(r, "startup-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        CompletableFuture<Void> arquivos = CompletableFuture.runAsync(() -> {
+            readiness.iniciar(ETAPA_ESTATICOS);
             try {
-                handlerFactory.getDefaultNotFoundHandler().handle(exchange);
-            } catch (IOException e) {
-                logger.error("Error during default 404 handling for path {}: {}", path, e.getMessage(), e);
-                // Last resort if the 404 handler itself fails
-                exchange.sendResponseHeaders(500, -1); // -1 for unknown length
-            } finally {
-                exchange.close(); // Ensure exchange is closed after handling (either static or 404)
+                estaticos.preCarregar();
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Falha ao pré-carregar os arquivos estáticos; serão lidos a cada requisição.", e);
+            }
+            readiness.concluir(ETAPA_ESTATICOS);
+        }, inicializacao);
+        CompletableFuture<Void> servicos = CompletableFuture.supplyAsync(() -> {
+            readiness.iniciar(ETAPA_PERSISTENCIA);
+            Servicos s;
+            try {
+                s = inicializarServicos();
+            } catch (RuntimeException e) {
+                readiness.falhar(ETAPA_PERSISTENCIA, e);
+                logger.error(e.getMessage() + " Encerrando aplicação.", e);
+                System.exit(1); // the shutdown hook releases what was already opened
+                throw e;
+            }
+            registrarApi(s, healthController);
+            readiness.concluir(ETAPA_PERSISTENCIA);
+            return s;
+        }, inicializacao).thenAccept(s -> {
+            readiness.iniciar(ETAPA_CACHES);
+            try {
+                int alunos = s.aluno.aquecerCache(AppConfig.getInt("CACHE_WARMUP_ALUNOS", 10_000));
+                s.curso.listarTodosCursosJson();
+                logger.info("Caches aquecidos: {} aluno(s) e catálogo de cursos.", alunos);
+            } catch (RuntimeException e) {
+                logger.warn("Falha ao aquecer os caches; serão preenchidos sob demanda.", e);
+            }
+            readiness.concluir(ETAPA_CACHES);
+            if (warmUp != null) {
+                aquecer(readiness, warmUp);
             }
         });
+        CompletableFuture.allOf(arquivos, servicos).whenComplete((r, e) -> inicializacao.shutdown());
+        if (AppConfig.getBoolean("APP_EXIT_WHEN_READY", false)) {
+            CompletableFuture.allOf(arquivos, servicos).thenRun(() -> {
+                logger.info("APP_EXIT_WHEN_READY: instância pronta, encerrando.");
+                System.exit(0);
+            });
+        }
+
+        // Blocks the main thread, keeping the server alive.
+        Thread.currentThread().join();
+    }
+
+    /**
+     * Runs the warm-up stage. Like the caches, it only speeds the first requests up: a failure is
+     * logged and startup goes on. The warm-up requests are kept out of the SQL statistics
+     * ({@link WarmUpTraffic}), so {@code /admin/queries} shows real traffic only.
+     */
+    private static void aquecer(Readiness readiness, WarmUp warmUp) {
+        readiness.iniciar(ETAPA_AQUECIMENTO);
+        try {
+            warmUp.executar(httpServer.getAddress().getPort());
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Falha no aquecimento; a instância segue sem ele.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        readiness.concluir(ETAPA_AQUECIMENTO);
+    }
+
+    /**
+     * Creates the HTTP server with the contexts that do not need the services: health probes
+     * and the static files (catch-all). Does not start it.
+     *
+     * @return The health controller, for the {@code /api} placeholder of server mode.
+     * @throws IOException If the socket cannot be bound.
+     */
+    private static HealthController criarServidor(Readiness readiness, StaticFileHandler estaticos) throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress(AppConfig.getInt("SERVER_PORT", SERVER_PORT)), 0);
+        HealthController healthController = new HealthController(readiness);
+        // Liveness/readiness probes (load balancers, orchestrators)
+        httpServer.createContext("/health", healthController);
+        // Static files and the default JSON 404, for every path not caught by a more specific context
+        httpServer.createContext("/", estaticos);
 
         // Set a cached thread pool for handling requests concurrently
         httpServer.setExecutor(Executors.newCachedThreadPool());
-        httpServer.start();
+        return healthController;
+    }
 
-        logger.info("Servidor iniciado em http://localhost:{}", SERVER_PORT);
+    /**
+     * Starts the listener of the operational endpoints ({@code /admin}: SQL statistics, metrics,
+     * JFR, log levels), apart from the API port so that they are not exposed with it. Bound to
+     * loopback unless {@code ADMIN_BIND_ADDRESS} says otherwise; a non-loopback address is refused
+     * without {@code ADMIN_TOKEN}, and the endpoints then stay unavailable rather than open.
+     *
+     * @throws IOException If the address is unknown or the socket cannot be bound.
+     */
+    private static void iniciarServidorAdmin() throws IOException {
+        int porta = AppConfig.getInt("ADMIN_PORT", ADMIN_PORT);
+        if (porta < 0) {
+            logger.info("Endpoints administrativos desabilitados (ADMIN_PORT negativo).");
+            return;
+        }
+        InetAddress endereco = InetAddress.getByName(AppConfig.getString("ADMIN_BIND_ADDRESS", "127.0.0.1"));
+        String token = AppConfig.getString("ADMIN_TOKEN", null);
+        if (token == null && !endereco.isLoopbackAddress()) {
+            logger.error("ADMIN_BIND_ADDRESS={} exige ADMIN_TOKEN; endpoints administrativos desabilitados.",
+                    endereco.getHostAddress());
+            return;
+        }
+        adminServer = HttpServer.create(new InetSocketAddress(endereco, porta), 0);
+        adminServer.createContext("/admin", HttpHandlerFactory.getAdminHandler(token));
+        adminServer.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "admin-http");
+            t.setDaemon(true);
+            return t;
+        }));
+        adminServer.start();
+        logger.info("Endpoints administrativos em http://{}:{}/admin{}", endereco.getHostAddress(),
+                adminServer.getAddress().getPort(), token == null ? "" : " (com token)");
+    }
+
+    /**
+     * Registers the API endpoints, with the tracing and traffic-capture filters. May be called
+     * after the server started.
+     *
+     * @param healthController When not null, its readiness filter keeps the endpoints at 503
+     *                         until the instance is ready (server mode).
+     */
+    private static void registrarApi(Servicos servicos, HealthController healthController) {
+        HttpHandlerFactory handlerFactory = new HttpHandlerFactory(
+                servicos.aluno, servicos.curso, servicos.matricula, servicos.relatorio);
 
-        // Register a shutdown hook to gracefully stop the server and close resources
+        HttpContext[] contextosApi = {
+                httpServer.createContext("/api/alunos", handlerFactory.getAlunoHandler()),
+                httpServer.createContext("/api/cursos", handlerFactory.getCursoHandler()),
+                httpServer.createContext("/api/matriculas", handlerFactory.getMatriculaHandler()),
+                // Use the factory to get the RelatorioController instance
+                httpServer.createContext("/api/relatorios/engajamento-cursos", handlerFactory.getRelatorioEngajamentoHandler())
+        };
+        // Server mode registers the API before the caches and the warm-up: closed until ready
+        if (healthController != null) {
+            Filter prontidao = healthController.filtroProntidao();
+            for (HttpContext contexto : contextosApi) {
+                contexto.getFilters().add(prontidao);
+            }
+        }
+        // Trace IDs for every API request (traceparent / X-Trace-Id, log MDC), spans for the sampled ones
+        if (tracing != null) {
+            for (HttpContext contexto : contextosApi) {
+                contexto.getFilters().add(tracing);
+            }
+        }
+        // Optional traffic capture (CAPTURE_ENABLED=true), for replay against another instance
+        captura = TrafficCapture.fromConfig();
+        if (captura != null) {
+            for (HttpContext contexto : contextosApi) {
+                contexto.getFilters().add(captura);
+            }
+        }
+    }
+
+    /**
+     * Registers a shutdown hook to gracefully stop the server and close resources.
+     */
+    private static void registrarDesligamento() {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             logger.info("Detectado sinal de desligamento. Parando servidor HTTP e liberando recursos...");
             if (httpServer != null) {
                 // Give some time for ongoing requests to finish before stopping
                 httpServer.stop(5); // Stop gracefully within 5 seconds
             }
+            if (adminServer != null) adminServer.stop(0);
+            if (captura != null) captura.close();
+            if (tracing != null) tracing.close();
+            FlightRecording.getInstance().encerrar();
+            if (filaMatriculas != null) filaMatriculas.close();
+            if (journal != null) journal.close();
             PersistenceManager.close();
             ConsoleUI.closeScanner();
             logger.info("Recursos liberados. Aplicação desligada.");
+            LogRuntime.encerrar();
         }));
+    }
 
-        // Blocks the main thread, keeping the server alive.
-        // The server will stop when the JVM exits (e.g., via Ctrl+C or a shutdown hook).
-        Thread.currentThread().join();
+    /** The services, created together by {@link #inicializarServicos()}. */
+    private static final class Servicos {
+        final AlunoService aluno;
+        final CursoService curso;
+        final MatriculaService matricula;
+        final RelatorioService relatorio;
+
+        Servicos(AlunoService aluno, CursoService curso, MatriculaService matricula, RelatorioService relatorio) {
+            this.aluno = aluno;
+            this.curso = curso;
+            this.matricula = matricula;
+            this.relatorio = relatorio;
+        }
     }
 
     /**
@@ -0,0 +1,84 @@
+package com.escola.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Central access point for optional application settings.
+ * Each setting is read from an environment variable (e.g. {@code RETRY_MAX_ATTEMPTS}) and,
+ * when absent, from the equivalent JVM system property (e.g. {@code -Dretry.max.attempts=5}),
+ * falling back to the supplied default. Invalid values are logged and replaced by the default,
+ * so a typo in an optional setting never prevents the application from starting.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public final class AppConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppConfig.class);
+
+    private AppConfig() {}
+
+    /**
+     * Reads a raw setting.
+     *
+     * @param name         The environment variable name (upper case, underscore separated).
+     * @param defaultValue The value returned when the setting is not defined.
+     * @return The configured value, or {@code defaultValue}.
+     */
+    public static String getString(String name, String defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isEmpty()) {
+            value = System.getProperty(name.toLowerCase().replace('_', '.'));
+        }
+        return (value == null || value.isEmpty()) ? defaultValue : value.trim();
+    }
+
+    /**
+     * Reads an integer setting.
+     *
+     * @param name         The environment variable name.
+     * @param defaultValue The value returned when the setting is missing or invalid.
+     * @return The configured value, or {@code defaultValue}.
+     */
+    public static int getInt(String name, int defaultValue) {
+        String value = getString(name, null);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid integer value '{}' for {}. Using default {}.", value, name, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Reads a long setting.
+     *
+     * @param name         The environment variable name.
+     * @param defaultValue The value returned when the setting is missing or invalid.
+     * @return The configured value, or {@code defaultValue}.
+     */
+    public static long getLong(String name, long defaultValue) {
+        String value = getString(name, null);
+        if (value == null) return defaultValue;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid long value '{}' for {}. Using default {}.", value, name, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Reads a boolean setting ("true"/"false", case-insensitive).
+     *
+     * @param name         The environment variable name.
+     * @param defaultValue The value returned when the setting is missing.
+     * @return The configured value, or {@code defaultValue}.
+     */
+    public static boolean getBoolean(String name, boolean defaultValue) {
+        String value = getString(name, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+}
@@ -0,0 +1,252 @@
+package com.escola.config;
+
+import com.escola.model.Aluno;
+import com.escola.model.Curso;
+import com.escola.model.Matricula;
+import com.escola.repository.AlunoRepository;
+import com.escola.repository.CursoRepository;
+import com.escola.repository.MatriculaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Deterministic data seeder for benchmarks and integration tests.
+ * The same counts and seed always produce the same alunos, cursos and matriculas (names, e-mails,
+ * dates and cancellation flags), so measurements taken on different machines are comparable.
+ * <p>
+ * Settings: {@code SEED_ALUNOS} (default 1000), {@code SEED_CURSOS} (default 50),
+ * {@code SEED_MATRICULAS} (default 5000, capped at alunos × cursos because each pair is unique),
+ * {@code SEED_RANDOM} (default 42) and {@code SEED_CANCELADAS_PERCENT} (default 10).
+ * </p>
+ * <p>
+ * Seeding is skipped when the database already contains alunos, which makes it safe to enable
+ * on a file-backed database that survives restarts.
+ * </p>
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public final class DataSeeder {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSeeder.class);
+
+    private static final int LOTE = 500; // entities per flush/clear, to keep the persistence context small
+    private static final String[] NOMES = {
+            "Ana", "Bruno", "Carla", "Diego", "Eduarda", "Felipe", "Gabriela", "Henrique",
+            "Isabela", "João", "Larissa", "Marcos", "Natália", "Otávio", "Paula", "Rafael"
+    };
+    private static final String[] SOBRENOMES = {
+            "Almeida", "Barbosa", "Cardoso", "Dias", "Ferreira", "Gomes", "Lima", "Martins",
+            "Nunes", "Oliveira", "Pereira", "Ribeiro", "Santos", "Souza"
+    };
+    private static final String[] AREAS = {
+            "Java", "Banco de Dados", "Redes", "Algoritmos", "Engenharia de Software",
+            "Sistemas Operacionais", "Estatística", "Cálculo", "Física", "Inglês Técnico"
+    };
+    private static final LocalDate DATA_BASE = LocalDate.of(2024, 1, 1);
+
+    private final int alunos;
+    private final int cursos;
+    private final int matriculas;
+    private final long seed;
+    private final int percentualCanceladas;
+
+    /**
+     * Constructs a seeder.
+     *
+     * @param alunos               Number of students.
+     * @param cursos               Number of courses.
+     * @param matriculas           Number of enrollments (capped at alunos × cursos).
+     * @param seed                 Seed of the pseudo-random generator.
+     * @param percentualCanceladas Percentage (0-100) of enrollments created as cancelled.
+     */
+    public DataSeeder(int alunos, int cursos, int matriculas, long seed, int percentualCanceladas) {
+        this.alunos = Math.max(0, alunos);
+        this.cursos = Math.max(0, cursos);
+        this.matriculas = (int) Math.min(Math.max(0, matriculas), (long) this.alunos * this.cursos);
+        this.seed = seed;
+        this.percentualCanceladas = Math.max(0, Math.min(100, percentualCanceladas));
+    }
+
+    /**
+     * Creates a seeder from the configuration settings.
+     *
+     * @return The configured seeder.
+     */
+    public static DataSeeder fromConfig() {
+        return new DataSeeder(
+                AppConfig.getInt("SEED_ALUNOS", 1000),
+                AppConfig.getInt("SEED_CURSOS", 50),
+                AppConfig.getInt("SEED_MATRICULAS", 5000),
+                AppConfig.getLong("SEED_RANDOM", 42),
+                AppConfig.getInt("SEED_CANCELADAS_PERCENT", 10));
+    }
+
+    /**
+     * Populates the database unless it already contains students.
+     * Uses a single JPA transaction, flushing and clearing the persistence context every few hundred rows.
+     *
+     * @return {@code true} if data was inserted, {@code false} if seeding was skipped.
+     * @throws RuntimeException if the insertion fails; the whole load is rolled back.
+     */
+    public boolean popularSeVazio() {
+        EntityManager em = PersistenceManager.getEntityManager();
+        EntityTransaction tx = null;
+        try {
+            long existentes = em.createQuery("SELECT COUNT(a) FROM Aluno a", Long.class).getSingleResult();
+            if (existentes > 0) {
+                logger.info("Banco já contém {} aluno(s). Carga de dados ignorada.", existentes);
+                return false;
+            }
+            tx = em.getTransaction();
+            tx.begin();
+            gerar(new Destino() {
+                private int pendentes;
+
+                @Override
+                public long salvarAluno(Aluno aluno) {
+                    em.persist(aluno);
+                    liberarSeNecessario();
+                    return aluno.getId();
+                }
+
+                @Override
+                public long salvarCurso(Curso curso) {
+                    em.persist(curso);
+                    liberarSeNecessario();
+                    return curso.getId();
+                }
+
+                @Override
+                public void salvarMatricula(long alunoId, long cursoId, LocalDate data, boolean cancelada) {
+                    Matricula matricula = new Matricula(
+                            em.getReference(Aluno.class, alunoId), em.getReference(Curso.class, cursoId), data);
+                    matricula.setCancelada(cancelada);
+                    em.persist(matricula);
+                    liberarSeNecessario();
+                }
+
+                private void liberarSeNecessario() {
+                    if (++pendentes % LOTE == 0) {
+                        em.flush();
+                        em.clear();
+                    }
+                }
+            });
+            tx.commit();
+            return true;
+        } catch (Exception e) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            throw new RuntimeException("Erro ao popular banco de dados: " + e.getMessage(), e);
+        } finally {
+            if (em != null) em.close();
+        }
+    }
+
+    /**
+     * Populates the given repositories unless they already contain students.
+     * Intended for backends without a JPA persistence unit, such as the in-memory one.
+     *
+     * @param alunoRepository     Destination of the students.
+     * @param cursoRepository     Destination of the courses.
+     * @param matriculaRepository Destination of the enrollments.
+     * @return {@code true} if data was inserted, {@code false} if seeding was skipped.
+     */
+    public boolean popularSeVazio(AlunoRepository alunoRepository, CursoRepository cursoRepository,
+                                  MatriculaRepository matriculaRepository) {
+        if (!alunoRepository.listarTodos().isEmpty()) {
+            logger.info("Repositório já contém alunos. Carga de dados ignorada.");
+            return false;
+        }
+        gerar(new Destino() {
+            @Override
+            public long salvarAluno(Aluno aluno) {
+                return alunoRepository.salvar(aluno).getId();
+            }
+
+            @Override
+            public long salvarCurso(Curso curso) {
+                return cursoRepository.salvar(curso).getId();
+            }
+
+            @Override
+            public void salvarMatricula(long alunoId, long cursoId, LocalDate data, boolean cancelada) {
+                Aluno aluno = new Aluno();
+                aluno.setId(alunoId);
+                Curso curso = new Curso();
+                curso.setId(cursoId);
+                Matricula matricula = new Matricula(aluno, curso, data);
+                matricula.setCancelada(cancelada);
+                matriculaRepository.salvar(matricula);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Generates the data set and hands every entity to the destination, in a fixed order.
+     */
+    private void gerar(Destino destino) {
+        long inicio = System.nanoTime();
+        Random random = new Random(seed);
+
+        long[] alunoIds = new long[alunos];
+        for (int i = 0; i < alunos; i++) {
+            String nome = NOMES[random.nextInt(NOMES.length)] + " " + SOBRENOMES[random.nextInt(SOBRENOMES.length)];
+            LocalDate nascimento = DATA_BASE.minusYears(16 + random.nextInt(45)).minusDays(random.nextInt(365));
+            alunoIds[i] = destino.salvarAluno(new Aluno(nome, "aluno" + (i + 1) + "@escola.test", nascimento));
+        }
+
+        long[] cursoIds = new long[cursos];
+        for (int i = 0; i < cursos; i++) {
+            String area = AREAS[i % AREAS.length];
+            cursoIds[i] = destino.salvarCurso(new Curso(area + " " + (i / AREAS.length + 1),
+                    "Curso de " + area + " (turma " + (i + 1) + ")", 20 + 10 * random.nextInt(8)));
+        }
+
+        // Walks the aluno × curso grid with a stride coprime to its size: every pair is visited
+        // at most once (unique constraint) and the enrollments spread over all students and courses.
+        long pares = (long) alunos * cursos;
+        long passo = passoCoprimo(pares);
+        for (int i = 0; i < matriculas; i++) {
+            long par = (i * passo) % pares;
+            destino.salvarMatricula(alunoIds[(int) (par / cursos)], cursoIds[(int) (par % cursos)],
+                    DATA_BASE.plusDays(random.nextInt(540)), random.nextInt(100) < percentualCanceladas);
+        }
+
+        logger.info("Carga de dados concluída: {} aluno(s), {} curso(s), {} matrícula(s) em {} ms (seed {}).",
+                alunos, cursos, matriculas, (System.nanoTime() - inicio) / 1_000_000L, seed);
+    }
+
+    private static long passoCoprimo(long n) {
+        if (n <= 1) return 1;
+        long passo = 7919; // a prime larger than typical course counts
+        while (gcd(passo, n) != 1) passo++;
+        return passo;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * Receives the generated entities; implemented per backend.
+     */
+    private interface Destino {
+        long salvarAluno(Aluno aluno);
+
+        long salvarCurso(Curso curso);
+
+        void salvarMatricula(long alunoId, long cursoId, LocalDate data, boolean cancelada);
+    }
+}
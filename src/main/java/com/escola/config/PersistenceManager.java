@@ -1,5 +1,8 @@
 package com.escola.config;
 
+import com.escola.monitoring.InstrumentedConnectionProvider;
+import com.escola.monitoring.UnitOfWorkListener;
+
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
@@ -13,13 +16,25 @@ import org.slf4j.LoggerFactory;
  * This class follows the Singleton pattern to ensure that only one instance of
  * EntityManagerFactory is created and maintained throughout the application's lifecycle.
  * Database connection configurations are read from environment variables,
- * promoting flexibility and security for credentials.
+ * promoting flexibility and security for credentials. The {@code PERSISTENCE_PROFILE} setting
+ * selects between the PostgreSQL server (default) and an embedded H2 database (see {@link #getProfile()}).
+ * <p>
+ * Unless {@code JFR_EVENTS_ENABLED} is false, every EntityManager emits a JFR unit-of-work event
+ * (transactions, rollbacks, commit time) through {@link UnitOfWorkListener}.
+ * </p>
+ * <p>
+ * Bootstrap is tuned for startup time: the jar is not scanned for entities (they are listed in
+ * persistence.xml), the dialect is always given, so Hibernate does not open a connection to read
+ * JDBC metadata while booting ({@code HIBERNATE_JDBC_METADATA_DEFAULTS}, default false), Bean
+ * Validation is not looked up, and the in-memory H2 profile creates its (always empty) schema
+ * instead of introspecting it for an update.
+ * </p>
  * <p>
  * It is crucial to call the {@link #close()} method when the application shuts down
  * to correctly release database resources and prevent leaks.
  * </p>
  *
- * @version 1.1
+ * @version 1.4
  * @author FelipeCardoso
  */
 public final class PersistenceManager {
@@ -28,6 +43,10 @@ public final class PersistenceManager {
     private static EntityManagerFactory emf;
     private static final String PERSISTENCE_UNIT_NAME = "escolaPU";
     private static final String DEFAULT_HBM2DDL_AUTO = "update"; // Default value for hibernate.hbm2ddl.auto
+    private static final String HBM2DDL_AUTO_H2_MEM = "create-only"; // the database is new on every run
+    private static final String PROFILE_POSTGRES = "postgres";
+    private static final String PROFILE_H2_MEM = "h2-mem";
+    private static final String PROFILE_H2_FILE = "h2-file";
 
     /**
      * Private constructor to enforce the Singleton pattern.
@@ -46,59 +65,46 @@ public final class PersistenceManager {
      * </p>
      *
      * @return The singleton instance of EntityManagerFactory.
-     * @throws RuntimeException if the environment variables DB_URL, DB_USER, or DB_PASSWORD are not defined,
-     * or if a failure occurs during the creation of the EntityManagerFactory.
+     * @throws RuntimeException if the environment variables DB_URL, DB_USER, or DB_PASSWORD are not defined
+     * for the PostgreSQL profile, or if a failure occurs during the creation of the EntityManagerFactory.
      */
     public static synchronized EntityManagerFactory getEntityManagerFactory() {
         if (emf == null) {
             try {
                 Map<String, String> props = new HashMap<>();
 
-                // Reads environment variables for database connection configuration
-                String url = System.getenv("DB_URL");
-                String user = System.getenv("DB_USER");
-                String password = System.getenv("DB_PASSWORD");
-
-                if (url == null || url.isEmpty()) {
-                    logger.error("Environment variable DB_URL is not defined or is empty.");
-                    throw new RuntimeException("Environment variable DB_URL not defined or empty.");
-                }
-                if (user == null || user.isEmpty()) {
-                    logger.error("Environment variable DB_USER is not defined or is empty.");
-                    throw new RuntimeException("Environment variable DB_USER not defined or empty.");
-                }
-
-                String env = System.getenv("APP_ENV");
-
-                // Special handling for DB_PASSWORD in 'dev' environment
-                if (password == null || password.isEmpty()) {
-                    if (!"dev".equals(env)) {
-                        logger.error("Environment variable DB_PASSWORD is not defined for non-dev environment.");
-                        throw new RuntimeException("Environment variable DB_PASSWORD is not defined.");
-                    } else {
-                        password = ""; // Allow empty password for 'dev' environment
-                        logger.warn("DB_PASSWORD is not set. Using empty password for 'dev' environment.");
-                    }
+                String profile = getProfile();
+                if (isEmbedded()) {
+                    configureEmbedded(props, profile);
+                } else {
+                    configurePostgres(props);
                 }
 
-                props.put("javax.persistence.jdbc.driver", "org.postgresql.Driver");
-                props.put("javax.persistence.jdbc.url", url);
-                props.put("javax.persistence.jdbc.user", user);
-                props.put("javax.persistence.jdbc.password", password);
-
                 // Hibernate configurations
-                props.put("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
                 // 'update' for development, 'validate' or 'none' for production
                 String hbm2ddlAuto = System.getenv("HIBERNATE_HBM2DDL_AUTO");
                 if (hbm2ddlAuto == null || hbm2ddlAuto.isEmpty()) {
-                    hbm2ddlAuto = DEFAULT_HBM2DDL_AUTO; // Default to 'update' for development convenience
-                    logger.info("HIBERNATE_HBM2DDL_AUTO not set. Defaulting to '{}'.", DEFAULT_HBM2DDL_AUTO);
+                    // Default to 'update' for development convenience; an in-memory database has
+                    // nothing to update, and reading its (empty) schema first only costs startup time
+                    hbm2ddlAuto = PROFILE_H2_MEM.equals(profile) ? HBM2DDL_AUTO_H2_MEM : DEFAULT_HBM2DDL_AUTO;
+                    logger.info("HIBERNATE_HBM2DDL_AUTO not set. Defaulting to '{}'.", hbm2ddlAuto);
                 }
                 props.put("hibernate.hbm2ddl.auto", hbm2ddlAuto);
-                props.put("hibernate.show_sql", "true");
-                props.put("hibernate.format_sql", "true"); // Adds formatting for displayed SQL
+                configureBootstrap(props);
+                // SQL echo is off by default; use SQL_LOG_SAMPLE_RATE for sampled SQL logging with timings
+                props.put("hibernate.show_sql", "false");
+                props.put("hibernate.format_sql", "false");
+                if (AppConfig.getBoolean("SQL_INSTRUMENTATION_ENABLED", true)) {
+                    // Times every statement for the slow query log and /admin/queries
+                    props.put("hibernate.connection.provider_class", InstrumentedConnectionProvider.class.getName());
+                }
+                if (AppConfig.getBoolean("JFR_EVENTS_ENABLED", true)) {
+                    // One listener per session: emits the unit-of-work event when the EntityManager closes
+                    props.put("hibernate.session.events.auto", UnitOfWorkListener.class.getName());
+                }
 
-                logger.info("Attempting to create EntityManagerFactory with persistence unit: {}", PERSISTENCE_UNIT_NAME);
+                logger.info("Attempting to create EntityManagerFactory with persistence unit: {} (profile '{}')",
+                        PERSISTENCE_UNIT_NAME, profile);
                 emf = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT_NAME, props);
                 logger.info("EntityManagerFactory created successfully.");
             } catch (Exception e) {
@@ -110,6 +116,122 @@ public final class PersistenceManager {
         return emf;
     }
 
+    /**
+     * Skips the bootstrap work the application does not need.
+     * <ul>
+     * <li>Archive scanning: even with {@code exclude-unlisted-classes}, Hibernate reads and indexes
+     * every class of the persistence unit root, which for the shaded jar is every dependency. The
+     * entities are listed explicitly, so scanning is disabled.</li>
+     * <li>JDBC metadata: by default Hibernate opens a connection at boot to ask the driver which
+     * features it supports. The dialect is always set explicitly, so the dialect defaults are used
+     * instead; the one capability the IDENTITY ids depend on, generated keys, is declared here
+     * (both PostgreSQL and H2 support it). {@code HIBERNATE_JDBC_METADATA_DEFAULTS=true} restores
+     * the lookup.</li>
+     * <li>Bean Validation: there is no provider on the classpath, so it is not searched for.</li>
+     * </ul>
+     * Schema introspection is governed by {@code hibernate.hbm2ddl.auto}: in production set
+     * {@code HIBERNATE_HBM2DDL_AUTO=none} (or {@code validate}) so the schema is not read at all.
+     *
+     * @param props The properties passed to the persistence provider.
+     */
+    private static void configureBootstrap(Map<String, String> props) {
+        props.put("hibernate.archive.scanner", "org.hibernate.boot.archive.scan.internal.DisabledScanner");
+        if (!AppConfig.getBoolean("HIBERNATE_JDBC_METADATA_DEFAULTS", false)) {
+            props.put("hibernate.temp.use_jdbc_metadata_defaults", "false");
+            props.put("hibernate.jdbc.use_get_generated_keys", "true");
+        }
+        props.put("javax.persistence.validation.mode", "none");
+    }
+
+    /**
+     * Returns the selected persistence profile, from the {@code PERSISTENCE_PROFILE} setting.
+     * <ul>
+     * <li>{@code postgres} (default): the PostgreSQL server given by DB_URL, DB_USER and DB_PASSWORD.</li>
+     * <li>{@code h2-mem}: an embedded in-memory H2 database in PostgreSQL compatibility mode,
+     * discarded when the JVM exits.</li>
+     * <li>{@code h2-file}: an embedded file-backed H2 database in PostgreSQL compatibility mode,
+     * stored at {@code H2_FILE_PATH} (default {@code ./data/escola}).</li>
+     * </ul>
+     *
+     * @return The profile name, lower case.
+     */
+    public static String getProfile() {
+        return AppConfig.getString("PERSISTENCE_PROFILE", PROFILE_POSTGRES).toLowerCase();
+    }
+
+    /**
+     * Tells whether the selected profile runs against the embedded H2 database.
+     *
+     * @return {@code true} for the {@code h2-mem} and {@code h2-file} profiles.
+     */
+    public static boolean isEmbedded() {
+        String profile = getProfile();
+        return PROFILE_H2_MEM.equals(profile) || PROFILE_H2_FILE.equals(profile);
+    }
+
+    /**
+     * Fills the connection properties for the PostgreSQL server profile.
+     * Connection settings are read from environment variables.
+     *
+     * @param props The properties passed to the persistence provider.
+     * @throws RuntimeException if DB_URL or DB_USER are missing, or DB_PASSWORD outside the 'dev' environment.
+     */
+    private static void configurePostgres(Map<String, String> props) {
+        // Reads environment variables for database connection configuration
+        String url = System.getenv("DB_URL");
+        String user = System.getenv("DB_USER");
+        String password = System.getenv("DB_PASSWORD");
+
+        if (url == null || url.isEmpty()) {
+            logger.error("Environment variable DB_URL is not defined or is empty.");
+            throw new RuntimeException("Environment variable DB_URL not defined or empty.");
+        }
+        if (user == null || user.isEmpty()) {
+            logger.error("Environment variable DB_USER is not defined or is empty.");
+            throw new RuntimeException("Environment variable DB_USER not defined or empty.");
+        }
+
+        String env = System.getenv("APP_ENV");
+
+        // Special handling for DB_PASSWORD in 'dev' environment
+        if (password == null || password.isEmpty()) {
+            if (!"dev".equals(env)) {
+                logger.error("Environment variable DB_PASSWORD is not defined for non-dev environment.");
+                throw new RuntimeException("Environment variable DB_PASSWORD is not defined.");
+            } else {
+                password = ""; // Allow empty password for 'dev' environment
+                logger.warn("DB_PASSWORD is not set. Using empty password for 'dev' environment.");
+            }
+        }
+
+        props.put("javax.persistence.jdbc.driver", "org.postgresql.Driver");
+        props.put("javax.persistence.jdbc.url", url);
+        props.put("javax.persistence.jdbc.user", user);
+        props.put("javax.persistence.jdbc.password", password);
+        props.put("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
+    }
+
+    /**
+     * Fills the connection properties for the embedded H2 profiles. H2 runs in PostgreSQL
+     * compatibility mode with lower-case identifiers, so the mappings and queries written for
+     * PostgreSQL work unchanged. No credentials are required.
+     *
+     * @param props   The properties passed to the persistence provider.
+     * @param profile {@code h2-mem} or {@code h2-file}.
+     */
+    private static void configureEmbedded(Map<String, String> props, String profile) {
+        String compat = ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH";
+        String url = PROFILE_H2_MEM.equals(profile)
+                ? "jdbc:h2:mem:escola" + compat + ";DB_CLOSE_DELAY=-1" // keep the database while the JVM runs
+                : "jdbc:h2:file:" + AppConfig.getString("H2_FILE_PATH", "./data/escola") + compat;
+        props.put("javax.persistence.jdbc.driver", "org.h2.Driver");
+        props.put("javax.persistence.jdbc.url", url);
+        props.put("javax.persistence.jdbc.user", "sa");
+        props.put("javax.persistence.jdbc.password", "");
+        props.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        logger.info("Using embedded H2 database: {}", url);
+    }
+
     /**
      * Returns a new instance of EntityManager.
      * Each EntityManager is a unit of work and is not thread-safe.
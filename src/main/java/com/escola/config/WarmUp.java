@@ -0,0 +1,254 @@
+package com.escola.config;
+
+import com.escola.dto.AlunoDTO;
+import com.escola.dto.CursoDTO;
+import com.escola.monitoring.WarmUpTraffic;
+import com.escola.util.JsonMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * JIT warm-up of a freshly started server, run before it reports ready.
+ * <p>
+ * The first requests of a new JVM run interpreted code, build Hibernate query plans and fill the
+ * JSON serializer caches, so they are many times slower than the same requests a minute later.
+ * This routine sends synthetic requests to the instance's own API over loopback, through the
+ * same path production traffic takes: HttpServer, filters, routing, controllers, JSON, services,
+ * repositories and the database. The request path is then profiled and compiled before any client
+ * arrives.
+ * </p>
+ * <p>
+ * Every request is a read ({@code GET}), so no data changes: lists, lookups by ID and e-mail, the
+ * name search, the engagement report and a 404 for the error path. The IDs come from the data
+ * itself. Each request carries the token of {@link WarmUpTraffic}, so the readiness gate lets it
+ * through while traffic capture and the SQL statistics leave it out.
+ * </p>
+ * <p>
+ * Settings: {@code WARMUP_ENABLED} (default false), {@code WARMUP_ITERATIONS} (rounds of requests,
+ * default 100), {@code WARMUP_THREADS} (default 2) and {@code WARMUP_MAX_SECONDS} (default 60).
+ * The time limit keeps a slow machine from delaying readiness indefinitely.
+ * </p>
+ *
+ * @version 1.2
+ * @author FelipeCardoso
+ */
+public final class WarmUp {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmUp.class);
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final int LISTAS_A_CADA = 10; // rounds between two requests for the full lists and the report
+
+    private final int iteracoes;
+    private final int threads;
+    private final long maxSegundos;
+
+    /**
+     * @param iteracoes   Rounds of requests.
+     * @param threads     Rounds run concurrently.
+     * @param maxSegundos Time limit; the warm-up stops after it even if rounds remain.
+     */
+    public WarmUp(int iteracoes, int threads, long maxSegundos) {
+        this.iteracoes = Math.max(1, iteracoes);
+        this.threads = Math.max(1, threads);
+        this.maxSegundos = Math.max(1, maxSegundos);
+    }
+
+    /**
+     * Creates the warm-up from the configuration settings.
+     *
+     * @return The warm-up, or {@code null} unless {@code WARMUP_ENABLED=true}.
+     */
+    public static WarmUp fromConfig() {
+        if (!AppConfig.getBoolean("WARMUP_ENABLED", false)) {
+            return null;
+        }
+        return new WarmUp(
+                AppConfig.getInt("WARMUP_ITERATIONS", 100),
+                AppConfig.getInt("WARMUP_THREADS", 2),
+                AppConfig.getLong("WARMUP_MAX_SECONDS", 60));
+    }
+
+    /**
+     * Runs the warm-up against the API of this instance. The API contexts must already be registered.
+     *
+     * @param porta Port the local server listens on.
+     * @throws IOException          If the API cannot be reached or the data needed cannot be read.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public void executar(int porta) throws IOException, InterruptedException {
+        long inicio = System.nanoTime();
+        HttpClient cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(TIMEOUT)
+                .build();
+        URI base = URI.create("http://127.0.0.1:" + porta);
+        Rotas rotas = Rotas.carregar(cliente, base);
+
+        long limite = inicio + TimeUnit.SECONDS.toNanos(maxSegundos);
+        AtomicInteger proxima = new AtomicInteger();
+        AtomicLong requisicoes = new AtomicLong();
+        AtomicLong erros = new AtomicLong();
+        AtomicLongArray duracaoRodada = new AtomicLongArray(iteracoes); // nanoseconds, 0 = not run
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "warmup");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            for (int t = 0; t < threads; t++) {
+                executor.execute(() -> {
+                    int rodada;
+                    while ((rodada = proxima.getAndIncrement()) < iteracoes && System.nanoTime() < limite) {
+                        long inicioRodada = System.nanoTime();
+                        for (String caminho : rotas.rodada(rodada)) {
+                            requisicoes.incrementAndGet();
+                            if (!enviar(cliente, base.resolve(caminho))) erros.incrementAndGet();
+                        }
+                        duracaoRodada.set(rodada, Math.max(1, System.nanoTime() - inicioRodada));
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+        }
+        if (!executor.awaitTermination(maxSegundos + TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+
+        List<Long> rodadas = new ArrayList<>();
+        for (int i = 0; i < iteracoes; i++) {
+            if (duracaoRodada.get(i) > 0) rodadas.add(duracaoRodada.get(i));
+        }
+        if (rodadas.isEmpty()) {
+            logger.warn("Aquecimento não completou nenhuma rodada em {} s.", maxSegundos);
+            return;
+        }
+        int decimo = Math.max(1, rodadas.size() / 10);
+        logger.info("Aquecimento concluído em {} ms: {} rodada(s) de {}, {} requisição(ões), {} erro(s). "
+                        + "Rodada média: {} ms nas primeiras {}, {} ms nas últimas {}.",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio), rodadas.size(), iteracoes,
+                requisicoes.get(), erros.get(),
+                media(rodadas.subList(0, decimo)), decimo,
+                media(rodadas.subList(rodadas.size() - decimo, rodadas.size())), decimo);
+        if (rodadas.size() < iteracoes) {
+            logger.warn("Aquecimento interrompido por WARMUP_MAX_SECONDS ({} s).", maxSegundos);
+        }
+    }
+
+    /**
+     * Sends one request, discarding the body.
+     *
+     * @return {@code true} if the server answered as expected (2xx, or 404 for the error path).
+     */
+    private static boolean enviar(HttpClient cliente, URI uri) {
+        try {
+            HttpResponse<Void> resposta = cliente.send(requisicao(uri), HttpResponse.BodyHandlers.discarding());
+            return resposta.statusCode() < 300 || resposta.statusCode() == 404;
+        } catch (IOException e) {
+            logger.debug("Falha na requisição de aquecimento {}: {}", uri, e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static HttpRequest requisicao(URI uri) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(TIMEOUT)
+                .header("Accept", "application/json")
+                .header(WarmUpTraffic.CABECALHO, WarmUpTraffic.token())
+                .GET()
+                .build();
+    }
+
+    private static String media(List<Long> duracoes) {
+        double total = 0;
+        for (long d : duracoes) total += d;
+        return String.format("%.2f", total / duracoes.size() / 1_000_000.0);
+    }
+
+    /**
+     * The read-only requests of each round, built from the IDs, e-mails and names in the database.
+     */
+    private static final class Rotas {
+        private final List<Long> cursos = new ArrayList<>();
+        private final List<String> nomesCursos = new ArrayList<>();
+        private final List<Long> alunos = new ArrayList<>();
+        private final List<String> emails = new ArrayList<>();
+        private final List<Long> matriculas = new ArrayList<>();
+
+        static Rotas carregar(HttpClient cliente, URI base) throws IOException, InterruptedException {
+            Rotas rotas = new Rotas();
+            for (CursoDTO curso : JsonMapper.fromJsonList(ler(cliente, base.resolve("/api/cursos")), CursoDTO.class)) {
+                rotas.cursos.add(curso.getId());
+                // First word of the name: a search that matches several courses
+                if (curso.getNome() != null) rotas.nomesCursos.add(curso.getNome().split(" ")[0]);
+            }
+            for (AlunoDTO aluno : JsonMapper.fromJsonList(ler(cliente, base.resolve("/api/alunos")), AlunoDTO.class)) {
+                rotas.alunos.add(aluno.getId());
+                if (aluno.getEmail() != null) rotas.emails.add(aluno.getEmail());
+            }
+            JsonNode resposta = JsonMapper.fromJson(ler(cliente, base.resolve("/api/matriculas")), JsonNode.class);
+            for (JsonNode matricula : resposta.path("data")) {
+                rotas.matriculas.add(matricula.path("id").asLong());
+            }
+            return rotas;
+        }
+
+        private static byte[] ler(HttpClient cliente, URI uri) throws IOException, InterruptedException {
+            HttpResponse<byte[]> resposta = cliente.send(requisicao(uri), HttpResponse.BodyHandlers.ofByteArray());
+            if (resposta.statusCode() != 200) {
+                throw new IOException("GET " + uri.getPath() + " respondeu " + resposta.statusCode());
+            }
+            return resposta.body();
+        }
+
+        List<String> rodada(int i) {
+            List<String> caminhos = new ArrayList<>(10);
+            caminhos.add("/api/cursos");
+            caminhos.add("/api/cursos/0"); // not found: exception handling and the error response
+            if (!cursos.isEmpty()) caminhos.add("/api/cursos/" + escolher(cursos, i));
+            if (!nomesCursos.isEmpty()) caminhos.add("/api/cursos?nome=" + codificar(escolher(nomesCursos, i)));
+            if (!alunos.isEmpty()) caminhos.add("/api/alunos/" + escolher(alunos, i));
+            if (!emails.isEmpty()) caminhos.add("/api/alunos/email/" + codificar(escolher(emails, i)));
+            if (!matriculas.isEmpty()) caminhos.add("/api/matriculas/" + escolher(matriculas, i));
+            if (i % LISTAS_A_CADA == 0) {
+                // Much heavier than the lookups: not in every round, or they would be most of the warm-up
+                caminhos.add(i / LISTAS_A_CADA % 2 == 0 // the report has two routes, in different controllers
+                        ? "/api/relatorios/engajamento-cursos" : "/api/cursos/relatorio/engajamento");
+                caminhos.add("/api/alunos");
+                caminhos.add("/api/matriculas");
+            }
+            return caminhos;
+        }
+
+        // Spread over the data without repeating the same few rows
+        private static <T> T escolher(List<T> valores, int i) {
+            return valores.get((int) ((i * 2654435761L & 0xFFFFFFFFL) % valores.size()));
+        }
+
+        private static String codificar(String valor) {
+            return URLEncoder.encode(valor, StandardCharsets.UTF_8).replace("+", "%20");
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.escola.controller;
+
+import com.escola.dto.ApiResponse;
+import com.escola.dto.QueryStatsDTO;
+import com.escola.logging.LogRuntime;
+import com.escola.monitoring.FlightRecording;
+import com.escola.monitoring.MetricsRegistry;
+import com.escola.monitoring.SqlStatistics;
+import com.escola.util.JsonMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+
+/**
+ * HTTP Handler for operational endpoints under {@code /admin}.
+ * These endpoints expose runtime diagnostics and change runtime state, so they are not served on the
+ * public API port: {@code MainApp} registers them on a separate listener, bound to loopback by default.
+ * When a token is configured ({@code ADMIN_TOKEN}), every request must also carry
+ * {@code Authorization: Bearer <token>}; without it the answer is 401.
+ *
+ * <p>Supported Endpoints:</p>
+ * <ul>
+ * <li><b>GET /admin/queries</b>: Per-fingerprint SQL statistics (count, total/mean/max time, rows).
+ * Optional query parameters: {@code ordem} (total, max, count, media, linhas) and {@code limite} (default 50).</li>
+ * <li><b>DELETE /admin/queries</b>: Resets the SQL statistics.</li>
+ * <li><b>GET /admin/metrics</b>: Current values of every source in the {@link MetricsRegistry}
+ * (write queues, journal, caches...).</li>
+ * <li><b>POST /admin/jfr/start</b>: Starts a JFR recording with the application events (see {@link FlightRecording}).
+ * Optional query parameters: {@code config} ({@code default} or {@code profile}), {@code cache}
+ * ({@code true} to record every cache operation) and {@code maxSegundos} (stops by itself; at most
+ * {@code JFR_MAX_SECONDS}, which is also the default). 409 if one is running.</li>
+ * <li><b>POST /admin/jfr/stop</b>: Stops the recording and returns the path and size of its file.</li>
+ * <li><b>GET /admin/jfr</b>: Status of the current recording.</li>
+ * <li><b>GET /admin/loggers</b>: Loggers with an explicit level and the log sampling filters.</li>
+ * <li><b>POST /admin/loggers</b>: Sets a logger level at runtime. Query parameters: {@code nome}
+ * and {@code nivel} (empty to inherit again).</li>
+ * <li><b>POST /admin/loggers/amostragem</b>: Sets the rate of a sampling filter. Query parameters:
+ * {@code prefixo} and {@code taxa} (0 to 1).</li>
+ * </ul>
+ *
+ * @version 1.4
+ * @author FelipeCardoso
+ */
+public class AdminController implements HttpHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
+
+    private static final String APPLICATION_JSON = "application/json; charset=UTF-8";
+    private static final int DEFAULT_LIMITE = 50;
+    private static final String BEARER = "Bearer ";
+
+    // Route map to dispatch requests to specific handlers
+    private final Map<String, Map<String, HttpExchangeHandler>> routes;
+    private final byte[] token; // null: no Authorization header required
+
+    /**
+     * Constructor for AdminController.
+     *
+     * @param token Token required in {@code Authorization: Bearer}, or {@code null} to accept every
+     *              caller that reaches the listener.
+     */
+    public AdminController(String token) {
+        this.token = token == null ? null : token.getBytes(StandardCharsets.UTF_8);
+        this.routes = new HashMap<>();
+        initializeRoutes();
+        logger.info("AdminController inicializado.");
+    }
+
+    /**
+     * Initializes the routing map, associating HTTP methods and URI paths
+     * with their respective handler methods.
+     */
+    private void initializeRoutes() {
+        Map<String, HttpExchangeHandler> queriesRoutes = new HashMap<>();
+        queriesRoutes.put("GET", this::handleGetQueryStats);
+        queriesRoutes.put("DELETE", this::handleResetQueryStats);
+        routes.put("/admin/queries", queriesRoutes);
+
+        Map<String, HttpExchangeHandler> metricsRoutes = new HashMap<>();
+        metricsRoutes.put("GET", this::handleGetMetrics);
+        routes.put("/admin/metrics", metricsRoutes);
+
+        Map<String, HttpExchangeHandler> jfrRoutes = new HashMap<>();
+        jfrRoutes.put("GET", this::handleGetJfr);
+        routes.put("/admin/jfr", jfrRoutes);
+
+        Map<String, HttpExchangeHandler> jfrStartRoutes = new HashMap<>();
+        jfrStartRoutes.put("POST", this::handleStartJfr);
+        routes.put("/admin/jfr/start", jfrStartRoutes);
+
+        Map<String, HttpExchangeHandler> jfrStopRoutes = new HashMap<>();
+        jfrStopRoutes.put("POST", this::handleStopJfr);
+        routes.put("/admin/jfr/stop", jfrStopRoutes);
+
+        Map<String, HttpExchangeHandler> loggersRoutes = new HashMap<>();
+        loggersRoutes.put("GET", this::handleGetLoggers);
+        loggersRoutes.put("POST", this::handleSetLoggerLevel);
+        routes.put("/admin/loggers", loggersRoutes);
+
+        Map<String, HttpExchangeHandler> amostragemRoutes = new HashMap<>();
+        amostragemRoutes.put("POST", this::handleSetLogSampling);
+        routes.put("/admin/loggers/amostragem", amostragemRoutes);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        logger.debug("Requisição administrativa recebida: {} {}", method, path);
+
+        if (!autorizado(exchange)) {
+            logger.warn("Requisição administrativa sem token válido recusada: {} {} de {}",
+                    method, path, exchange.getRemoteAddress());
+            exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+            sendJsonResponse(exchange, 401, JsonMapper.toJson(ApiResponse.error("Token administrativo ausente ou inválido.")));
+            return;
+        }
+        try {
+            Map<String, HttpExchangeHandler> methodHandlers = routes.get(path);
+            HttpExchangeHandler handler = methodHandlers == null ? null : methodHandlers.get(method);
+            if (handler != null) {
+                handler.handle(exchange, null);
+            } else {
+                sendJsonResponse(exchange, 404, JsonMapper.toJson(
+                        ApiResponse.error("Endpoint administrativo não encontrado ou Método Não Permitido."))
+                );
+            }
+        } catch (IllegalArgumentException e) {
+            logger.warn("Parâmetro inválido para {}: {}", path, e.getMessage());
+            sendJsonResponse(exchange, 400, JsonMapper.toJson(ApiResponse.error(e.getMessage())));
+        } catch (IllegalStateException e) {
+            logger.warn("Operação administrativa recusada em {}: {}", path, e.getMessage());
+            sendJsonResponse(exchange, 409, JsonMapper.toJson(ApiResponse.error(e.getMessage())));
+        } catch (Exception e) {
+            logger.error("Erro interno inesperado ao processar requisição administrativa {}: {}", path, e.getMessage(), e);
+            sendJsonResponse(exchange, 500, JsonMapper.toJson(
+                    ApiResponse.error("Erro interno no servidor. Por favor, tente novamente mais tarde."))
+            );
+        }
+    }
+
+    /**
+     * Handles GET requests to /admin/queries.
+     *
+     * @param exchange The HttpExchange object.
+     * @param matcher  Not used for this handler.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void handleGetQueryStats(HttpExchange exchange, Matcher matcher) throws IOException {
+        Map<String, String> params = queryParams(exchange);
+        int limite = params.containsKey("limite") ? Integer.parseInt(params.get("limite")) : DEFAULT_LIMITE;
+        List<QueryStatsDTO> stats = SqlStatistics.getInstance().snapshot(params.get("ordem"), limite);
+        sendJsonResponse(exchange, 200, JsonMapper.toJson(
+                ApiResponse.success(stats, stats.size() + " consulta(s) distinta(s)."))
+        );
+    }
+
+    /**
+     * Handles DELETE requests to /admin/queries.
+     *
+     * @param exchange The HttpExchange object.
+     * @param matcher  Not used for this handler.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void handleResetQueryStats(HttpExchange exchange, Matcher matcher) throws IOException {
+        SqlStatistics.getInstance().reset();
+        sendJsonResponse(exchange, 200, JsonMapper.toJson(
+                ApiResponse.success(null, "Estatísticas de SQL reiniciadas."))
+        );
+    }
+
+    /**
+     * Handles GET requests to /admin/metrics.
+     *
+     * @param exchange The HttpExchange object.
+     * @param matcher  Not used for this handler.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void handleGetMetrics(HttpExchange exchange, Matcher matcher) throws IOException {
+        Map<String, Map<String, Object>> metricas = MetricsRegistry.getInstance().coletar();
+        sendJsonResponse(exchange, 200, JsonMapper.toJson(
+                ApiResponse.success(metricas, metricas.size() + " fonte(s) de métricas."))
+        );
+    }
+
+    /**
+     * Handles POST requests to /admin/jfr/start.
+     *
+     * @param exchange The HttpExchange object.
+     * @param matcher  Not used for this handler.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void handleStartJfr(HttpExchange exchange, Matcher matcher) throws IOException {
+        Map<String, String> params = queryParams(exchange);
+        String config = params.getOrDefault("config", "default");
+        boolean cache = Boolean.parseBoolean(params.get("cache"));
+        long maxSegundos = params.containsKey("maxSegundos") ? Long.parseLong(params.get("maxSegundos")) : 0;
+        Map<String, Object> estado = FlightRecording.getInstance().iniciar(config, cache, maxSegundos);
+        sendJsonResponse(exchange, 201, JsonMapper.toJson(
+                ApiResponse.success(estado, "Gravação JFR iniciada."))
+        );
+    }
+
+    /**
+     * Handles POST requests to /admin/jfr/stop.
+     *
+     * @param exchange The HttpExchange object.
+     * @param matcher  Not used for this handler.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void handleStopJfr(HttpExchange exchange, Matcher matcher) throws IOException {
+        Map<String, Object> estado = FlightRecording.getInstance().parar();
+        sendJsonResponse(exchange, 200, JsonMapper.toJson(
+                ApiResponse.success(estado, "Gravação JFR encerrada: " + estado.get("arquivo")))
+        );
+    }
+
+    /**
+     * Handles GET requests to /admin/jfr.
+     *
+     * @param exchange The HttpExchange object.
+     * @param matcher  Not used for this handler.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void handleGetJfr(HttpExchange exchange, Matcher matcher) throws IOException {
+        sendJsonResponse(exchange, 200, JsonMapper.toJson(
+                ApiResponse.success(FlightRecording.getInstance().estado(), "Estado da gravação JFR."))
+        );
+    }
+
+    /**
+     * Handles GET requests to /admin/loggers.
+     *
+     * @param exchange The HttpExchange object.
+     * @param matcher  Not used for this handler.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void handleGetLoggers(HttpExchange exchange, Matcher matcher) throws IOException {
+        Map<String, Object> loggers = new LinkedHashMap<>();
+        loggers.put("niveis", LogRuntime.niveis());
+        loggers.put("amostragem", LogRuntime.amostragens());
+        sendJsonResponse(exchange, 200, JsonMapper.toJson(
+                ApiResponse.success(loggers, "Configuração de logging."))
+        );
+    }
+
+    /**
+     * Handles POST requests to /admin/loggers.
+     *
+     * @param exchange The HttpExchange object.
+     * @param matcher  Not used for this handler.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void handleSetLoggerLevel(HttpExchange exchange, Matcher matcher) throws IOException {
+        Map<String, String> params = queryParams(exchange);
+        String nome = params.get("nome");
+        String efetivo = LogRuntime.definirNivel(nome, params.get("nivel"));
+        logger.info("Nível do logger [{}] alterado para {}.", nome, efetivo);
+        sendJsonResponse(exchange, 200, JsonMapper.toJson(
+                ApiResponse.success(Map.of("nome", nome, "nivelEfetivo", efetivo), "Nível de log alterado."))
+        );
+    }
+
+    /**
+     * Handles POST requests to /admin/loggers/amostragem.
+     *
+     * @param exchange The HttpExchange object.
+     * @param matcher  Not used for this handler.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void handleSetLogSampling(HttpExchange exchange, Matcher matcher) throws IOException {
+        Map<String, String> params = queryParams(exchange);
+        if (!params.containsKey("taxa")) {
+            throw new IllegalArgumentException("Informe a taxa de amostragem.");
+        }
+        LogRuntime.definirTaxa(params.get("prefixo"), Double.parseDouble(params.get("taxa")));
+        logger.info("Amostragem de log para [{}] alterada para {}.", params.get("prefixo"), params.get("taxa"));
+        sendJsonResponse(exchange, 200, JsonMapper.toJson(
+                ApiResponse.success(LogRuntime.amostragens(), "Amostragem de log alterada."))
+        );
+    }
+
+    // --- Helper Methods ---
+
+    /**
+     * Checks the {@code Authorization} header against the configured token, in constant time.
+     *
+     * @param exchange The HttpExchange object.
+     * @return {@code true} if no token is configured or the header carries it.
+     */
+    private boolean autorizado(HttpExchange exchange) {
+        if (token == null) return true;
+        String cabecalho = exchange.getRequestHeaders().getFirst("Authorization");
+        if (cabecalho == null || !cabecalho.regionMatches(true, 0, BEARER, 0, BEARER.length())) return false;
+        byte[] informado = cabecalho.substring(BEARER.length()).trim().getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(token, informado);
+    }
+
+    /**
+     * Parses the URL query string into a map (last value wins for repeated names).
+     *
+     * @param exchange The HttpExchange object.
+     * @return The decoded parameters.
+     */
+    private Map<String, String> queryParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) return params;
+        for (String par : query.split("&")) {
+            int igual = par.indexOf('=');
+            String nome = igual < 0 ? par : par.substring(0, igual);
+            String valor = igual < 0 ? "" : par.substring(igual + 1);
+            params.put(URLDecoder.decode(nome, StandardCharsets.UTF_8), URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    /**
+     * Sends the JSON response to the client.
+     *
+     * @param exchange     The HttpExchange object.
+     * @param statusCode   The HTTP status code.
+     * @param responseBody The JSON response body.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void sendJsonResponse(HttpExchange exchange, int statusCode, String responseBody) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", APPLICATION_JSON);
+        byte[] responseBytes = responseBody.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(statusCode, responseBytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(responseBytes);
+            os.flush();
+        } finally {
+            exchange.close();
+        }
+        logger.debug("Resposta enviada para {}: Status {}", exchange.getRequestURI().getPath(), statusCode);
+    }
+}
@@ -1,17 +1,19 @@
 package com.escola.controller;
 
 import com.escola.dto.AlunoDTO;
+import com.escola.exception.ConflitoDeVersaoException;
 import com.escola.exception.EntidadeNaoEncontradaException;
 import com.escola.exception.ValidacaoException;
+import com.escola.monitoring.RequestContext;
 import com.escola.service.AlunoService;
-import com.escola.util.JsonMapper;
+import com.escola.util.JsonFragmentCache;
+import com.escola.util.WireFormat;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler; // <<< Importe HttpHandler do SDK
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
@@ -36,17 +38,30 @@ import java.util.regex.Pattern;
  * - GET /api/alunos: List all students.
  * - GET /api/alunos/{id}: Get a student by ID.
  * - GET /api/alunos/email/{email}: Get a student by email.
- * - PUT /api/alunos/{id}: Update a student. Expects JSON body (AlunoDTO).
+ * - PUT /api/alunos/{id}: Update a student. Expects JSON body (AlunoDTO). If the body carries
+ *   {@code versao}, the update is rejected with 409 Conflict when the student changed since that version.
+ * - PATCH /api/alunos/{id}: Partially update a student with a single UPDATE. Only the non-null
+ *   fields of the JSON body (AlunoDTO) are changed; {@code versao} is optional.
  * - DELETE /api/alunos/{id}: Delete a student.
  * </p>
+ * <p>
+ * Bodies are JSON by default; Smile and CBOR are accepted and returned when the
+ * {@code Content-Type} / {@code Accept} headers ask for them (see {@link WireFormat}).
+ * </p>
+ * <p>
+ * The full list is assembled from per-student JSON fragments ({@link JsonFragmentCache}),
+ * so only students that changed since they were last listed are serialized again.
+ * </p>
  *
- * @version 1.2
+ * @version 1.8
  * @author FelipeCardoso
  */
 public class AlunoController implements HttpHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(AlunoController.class);
     private final AlunoService alunoService;
+    private final JsonFragmentCache<AlunoDTO> fragmentos =
+            JsonFragmentCache.fromConfig("json.fragmentos.alunos", AlunoDTO::getId, AlunoDTO::getVersao);
     private final Map<String, Map<String, HttpExchangeHandler>> routes;
 
     // Pattern for paths that include an ID (e.g., /api/alunos/{id})
@@ -81,6 +96,7 @@ public class AlunoController implements HttpHandler {
         Map<String, HttpExchangeHandler> alunosIdRoutes = new HashMap<>();
         alunosIdRoutes.put("GET", this::handleGetAlunoById);
         alunosIdRoutes.put("PUT", this::handleUpdateAluno);
+        alunosIdRoutes.put("PATCH", this::handlePatchAluno);
         alunosIdRoutes.put("DELETE", this::handleDeleteAluno);
         routes.put(ID_PATH_PATTERN.pattern(), alunosIdRoutes); // Use a pattern for regex matching
 
@@ -102,6 +118,7 @@ public class AlunoController implements HttpHandler {
             return;
         }
 
+        RequestContext.iniciar(method + " " + resolveRouteTemplate(path), exchange);
         // Request Dispatching
         try {
             // <<< Use HttpExchangeHandler para o tipo do handler
@@ -123,6 +140,9 @@ public class AlunoController implements HttpHandler {
             logger.warn("Entidade não encontrada para a requisição {}: {}",
                     path, e.getMessage());
             sendErrorResponse(exchange, e.getMessage(), 404); // Not Found
+        } catch (ConflitoDeVersaoException e) {
+            logger.warn("Conflito de versão para a requisição {}: {}", path, e.getMessage());
+            sendConflictResponse(exchange, e); // Conflict
         } catch (IOException e) {
             logger.error("Erro de I/O durante o processamento da requisição {}: {}",
                     path, e.getMessage(), e);
@@ -133,6 +153,8 @@ public class AlunoController implements HttpHandler {
                     path, e.getMessage(), e);
             sendErrorResponse(exchange, "Erro interno no servidor: "
                     + e.getMessage(), 500); // Internal Server Error
+        } finally {
+            RequestContext.encerrar();
         }
     }
 
@@ -144,7 +166,7 @@ public class AlunoController implements HttpHandler {
      * @param path The request URI path.
      * @return A HttpExchangeHandler representing the handler method, or null if no handler is found.
      */
-    private HttpExchangeHandler findHandler(String method, String path) {
+    HttpExchangeHandler findHandler(String method, String path) {
         // Try exact path match first
         Map<String, HttpExchangeHandler> methodHandlers = routes.get(path);
         if (methodHandlers != null) {
@@ -167,13 +189,27 @@ public class AlunoController implements HttpHandler {
         return null; // No handler found
     }
 
+    /**
+     * Resolves the route template of a request path, used to label per-request metrics
+     * without the unbounded cardinality of raw paths.
+     *
+     * @param path The request URI path.
+     * @return The matching route template, e.g. {@code /api/alunos/{id}}.
+     */
+    String resolveRouteTemplate(String path) {
+        if (routes.containsKey(path)) return path;
+        if (ID_PATH_PATTERN.matcher(path).matches()) return "/api/alunos/{id}";
+        if (EMAIL_PATH_PATTERN.matcher(path).matches()) return "/api/alunos/email/{email}";
+        return "/api/alunos/*";
+    }
+
     /**
      * Matches the given path against known regex patterns and returns a Matcher.
      *
      * @param path The request URI path.
      * @return A Matcher object if a regex pattern matches, otherwise null.
      */
-    private Matcher matchPath(String path) {
+    Matcher matchPath(String path) {
         Matcher idMatcher = ID_PATH_PATTERN.matcher(path);
         if (idMatcher.matches()) {
             return idMatcher;
@@ -197,18 +233,12 @@ public class AlunoController implements HttpHandler {
      */
     private void handleCreateAluno(HttpExchange exchange, Matcher matcher) throws IOException {
         logger.debug("Handling POST /api/alunos request.");
-        InputStream requestBody = exchange.getRequestBody();
-        AlunoDTO requestDTO = JsonMapper.fromJson(
-                new String(requestBody.readAllBytes(), StandardCharsets.UTF_8), AlunoDTO.class
-        );
+        AlunoDTO requestDTO = ContentNegotiation.lerCorpo(exchange, AlunoDTO.class);
         AlunoDTO createdAluno = alunoService.criarAluno(
                 requestDTO.getNome(),
                 requestDTO.getEmail(),
                 requestDTO.getDataNascimento());
-        sendResponse(
-                exchange,
-                JsonMapper.toJson(createdAluno),
-                201); // Created
+        sendEntity(exchange, createdAluno, 201); // Created
     }
 
     /**
@@ -220,16 +250,13 @@ public class AlunoController implements HttpHandler {
      */
     private void handleCreateBatchAlunos(HttpExchange exchange, Matcher matcher) throws IOException {
         logger.debug("Handling POST /api/alunos/lote request.");
-        InputStream requestBody = exchange.getRequestBody();
-        List<AlunoDTO> alunos = JsonMapper.fromJsonList(
-                new String(requestBody.readAllBytes(), StandardCharsets.UTF_8), AlunoDTO.class
-        );
+        List<AlunoDTO> alunos = ContentNegotiation.lerLista(exchange, AlunoDTO.class);
 
         for (AlunoDTO aluno : alunos) {
             alunoService.criarAluno(aluno.getNome(), aluno.getEmail(), aluno.getDataNascimento());
         }
 
-        sendResponse(exchange, "{\"message\":\"Alunos cadastrados com sucesso.\"}", 201);
+        sendEntity(exchange, Map.of("message", "Alunos cadastrados com sucesso."), 201);
     }
 
     /**
@@ -242,7 +269,23 @@ public class AlunoController implements HttpHandler {
     private void handleListAllAlunos(HttpExchange exchange, Matcher matcher) throws IOException {
         logger.debug("Handling GET /api/alunos request.");
         List<AlunoDTO> alunos = alunoService.listarTodosAlunos();
-        sendResponse(exchange, JsonMapper.toJson(alunos), 200);
+        if (fragmentos == null || ContentNegotiation.formatoResposta(exchange) != WireFormat.JSON) {
+            sendEntity(exchange, alunos, 200);
+            return;
+        }
+        JsonFragmentCache.ArrayJson json = fragmentos.array(alunos);
+        exchange.getResponseHeaders().set("Content-Type", WireFormat.JSON.getContentType());
+        exchange.getResponseHeaders().set("Vary", "Accept");
+        String serverTiming = RequestContext.serverTiming();
+        if (serverTiming != null) {
+            exchange.getResponseHeaders().set("Server-Timing", serverTiming);
+        }
+        RequestContext.registrarResposta(200, json.comprimento());
+        exchange.sendResponseHeaders(200, json.comprimento());
+        try (OutputStream os = exchange.getResponseBody()) {
+            json.escreverEm(os);
+        }
+        logger.debug("Response sent for {}: Status 200", exchange.getRequestURI().getPath());
     }
 
     /**
@@ -256,7 +299,7 @@ public class AlunoController implements HttpHandler {
         Long id = Long.parseLong(matcher.group(1));
         logger.debug("Handling GET /api/alunos/{} request.", id);
         AlunoDTO aluno = alunoService.buscarAlunoPorId(id);
-        sendResponse(exchange, JsonMapper.toJson(aluno), 200);
+        sendEntity(exchange, aluno, 200);
     }
 
     /**
@@ -269,17 +312,37 @@ public class AlunoController implements HttpHandler {
     private void handleUpdateAluno(HttpExchange exchange, Matcher matcher) throws IOException {
         Long id = Long.parseLong(matcher.group(1));
         logger.debug("Handling PUT /api/alunos/{} request.", id);
-        InputStream requestBody = exchange.getRequestBody();
-        AlunoDTO requestDTO = JsonMapper.fromJson(
-                new String(requestBody.readAllBytes(), StandardCharsets.UTF_8), AlunoDTO.class
-        );
+        AlunoDTO requestDTO = ContentNegotiation.lerCorpo(exchange, AlunoDTO.class);
         AlunoDTO updatedAluno = alunoService.atualizarAluno(
                 id,
+                requestDTO.getVersao(),
+                requestDTO.getNome(),
+                requestDTO.getEmail(),
+                requestDTO.getDataNascimento()
+        );
+        sendEntity(exchange, updatedAluno, 200);
+    }
+
+    /**
+     * Handles PATCH requests to /api/alunos/{id} to partially update a student.
+     * Only the fields present in the body are written, in a single UPDATE statement.
+     *
+     * @param exchange The HttpExchange object.
+     * @param matcher  The Matcher containing the ID captured from the URI.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void handlePatchAluno(HttpExchange exchange, Matcher matcher) throws IOException {
+        Long id = Long.parseLong(matcher.group(1));
+        logger.debug("Handling PATCH /api/alunos/{} request.", id);
+        AlunoDTO requestDTO = ContentNegotiation.lerCorpo(exchange, AlunoDTO.class);
+        alunoService.atualizarAlunoParcial(
+                id,
+                requestDTO.getVersao(),
                 requestDTO.getNome(),
                 requestDTO.getEmail(),
                 requestDTO.getDataNascimento()
         );
-        sendResponse(exchange, JsonMapper.toJson(updatedAluno), 200);
+        sendEntity(exchange, Map.of("message", "Aluno atualizado com sucesso."), 200);
     }
 
     /**
@@ -293,7 +356,8 @@ public class AlunoController implements HttpHandler {
         Long id = Long.parseLong(matcher.group(1));
         logger.debug("Handling DELETE /api/alunos/{} request.", id);
         alunoService.deletarAluno(id);
-        sendResponse(exchange, "{\"message\":\"Aluno deletado com sucesso.\"}", 200); // Or 204 No Content
+        if (fragmentos != null) fragmentos.invalidar(id);
+        sendEntity(exchange, Map.of("message", "Aluno deletado com sucesso."), 200); // Or 204 No Content
     }
 
     /**
@@ -307,7 +371,7 @@ public class AlunoController implements HttpHandler {
         String email = matcher.group(1);
         logger.debug("Handling GET /api/alunos/email/{} request.", email);
         AlunoDTO aluno = alunoService.buscarAlunoPorEmail(email);
-        sendResponse(exchange, JsonMapper.toJson(aluno), 200);
+        sendEntity(exchange, aluno, 200);
     }
 
     /**
@@ -330,7 +394,7 @@ public class AlunoController implements HttpHandler {
      */
     private void addCorsHeaders(HttpExchange exchange) {
         exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
-        exchange.getResponseHeaders().add("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
+        exchange.getResponseHeaders().add("Access-Control-Allow-Methods", "GET, POST, PUT, PATCH, DELETE, OPTIONS");
         exchange.getResponseHeaders().add("Access-Control-Allow-Headers", "Content-Type,Authorization");
     }
 
@@ -343,8 +407,32 @@ public class AlunoController implements HttpHandler {
      * @throws IOException If an I/O error occurs during response writing.
      */
     private void sendResponse(HttpExchange exchange, String responseBody, int statusCode) throws IOException {
-        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
-        byte[] responseBytes = responseBody.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", WireFormat.JSON.getContentType());
+        sendBytes(exchange, responseBody.getBytes(StandardCharsets.UTF_8), statusCode);
+    }
+
+    /**
+     * Sends a DTO (or any other payload) encoded in the format negotiated with the client:
+     * JSON by default, Smile or CBOR when the {@code Accept} header asks for them.
+     *
+     * @param exchange   The HttpExchange object.
+     * @param body       The payload to encode.
+     * @param statusCode The HTTP status code to send.
+     * @throws IOException If an I/O error occurs during encoding or response writing.
+     */
+    private void sendEntity(HttpExchange exchange, Object body, int statusCode) throws IOException {
+        sendBytes(exchange, ContentNegotiation.escreverResposta(exchange, body), statusCode);
+    }
+
+    /**
+     * Writes an already encoded body; the {@code Content-Type} header must be set by the caller.
+     */
+    private void sendBytes(HttpExchange exchange, byte[] responseBytes, int statusCode) throws IOException {
+        String serverTiming = RequestContext.serverTiming();
+        if (serverTiming != null) {
+            exchange.getResponseHeaders().set("Server-Timing", serverTiming);
+        }
+        RequestContext.registrarResposta(statusCode, responseBytes.length);
         exchange.sendResponseHeaders(statusCode, responseBytes.length);
         OutputStream os = exchange.getResponseBody();
         os.write(responseBytes);
@@ -364,4 +452,17 @@ public class AlunoController implements HttpHandler {
         String errorJson = "{\"error\":\"" + errorMessage + "\"}";
         sendResponse(exchange, errorJson, statusCode);
     }
+
+    /**
+     * Sends a 409 Conflict response including the version currently stored for the student,
+     * so the client can reload it and retry the update.
+     *
+     * @param exchange The HttpExchange object.
+     * @param e        The optimistic locking conflict.
+     * @throws IOException If an I/O error occurs during response writing.
+     */
+    private void sendConflictResponse(HttpExchange exchange, ConflitoDeVersaoException e) throws IOException {
+        String errorJson = "{\"error\":\"" + e.getMessage() + "\",\"versaoAtual\":" + e.getVersaoAtual() + "}";
+        sendResponse(exchange, errorJson, 409);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.escola.controller;
+
+import com.escola.util.WireFormat;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Content negotiation shared by the controllers: which {@link WireFormat} a request body is
+ * in ({@code Content-Type}) and which one the client wants back ({@code Accept}).
+ * JSON remains the default in both directions.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+final class ContentNegotiation {
+
+    private ContentNegotiation() {}
+
+    /**
+     * @return The format to answer this request with, from its {@code Accept} header.
+     */
+    static WireFormat formatoResposta(HttpExchange exchange) {
+        return WireFormat.paraAccept(exchange.getRequestHeaders().getFirst("Accept"));
+    }
+
+    /**
+     * Reads the request body in the format declared by its {@code Content-Type}.
+     *
+     * @param exchange The HttpExchange object.
+     * @param clazz    The class of the object to create.
+     * @param <T>      The type of the object.
+     * @return The deserialized body.
+     * @throws IOException If the body cannot be read or decoded.
+     */
+    static <T> T lerCorpo(HttpExchange exchange, Class<T> clazz) throws IOException {
+        return formatoRequisicao(exchange).ler(exchange.getRequestBody(), clazz);
+    }
+
+    /**
+     * Decodes a request body already read, in the format declared by its {@code Content-Type}.
+     *
+     * @param exchange The HttpExchange object.
+     * @param corpo    The raw body.
+     * @param clazz    The class of the object to create.
+     * @param <T>      The type of the object.
+     * @return The deserialized body.
+     * @throws IOException If the body cannot be decoded.
+     */
+    static <T> T lerCorpo(HttpExchange exchange, byte[] corpo, Class<T> clazz) throws IOException {
+        return formatoRequisicao(exchange).ler(new ByteArrayInputStream(corpo), clazz);
+    }
+
+    /**
+     * Reads a request body holding an array, in the format declared by its {@code Content-Type}.
+     *
+     * @param exchange The HttpExchange object.
+     * @param clazz    The class of the elements.
+     * @param <T>      The type of the elements.
+     * @return The deserialized elements.
+     * @throws IOException If the body cannot be read or decoded.
+     */
+    static <T> List<T> lerLista(HttpExchange exchange, Class<T> clazz) throws IOException {
+        return formatoRequisicao(exchange).lerLista(exchange.getRequestBody(), clazz);
+    }
+
+    /**
+     * Encodes a response body in the negotiated format and sets the matching {@code Content-Type}
+     * (plus {@code Vary: Accept}, since the representation depends on it).
+     *
+     * @param exchange The HttpExchange object.
+     * @param corpo    The DTO or {@code ApiResponse} to send.
+     * @return The encoded body.
+     * @throws IOException If the body cannot be encoded.
+     */
+    static byte[] escreverResposta(HttpExchange exchange, Object corpo) throws IOException {
+        WireFormat formato = formatoResposta(exchange);
+        byte[] bytes = formato.escrever(corpo);
+        exchange.getResponseHeaders().set("Content-Type", formato.getContentType());
+        exchange.getResponseHeaders().set("Vary", "Accept");
+        return bytes;
+    }
+
+    private static WireFormat formatoRequisicao(HttpExchange exchange) {
+        return WireFormat.paraContentType(exchange.getRequestHeaders().getFirst("Content-Type"));
+    }
+}
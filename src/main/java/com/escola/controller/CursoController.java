@@ -1,19 +1,21 @@
 package com.escola.controller;
 
 import com.escola.dto.CursoDTO;
+import com.escola.dto.CursoPatchDTO;
 import com.escola.dto.RelatorioCursoDTO;
+import com.escola.exception.ConflitoDeVersaoException;
 import com.escola.exception.EntidadeNaoEncontradaException;
 import com.escola.exception.ValidacaoException;
+import com.escola.monitoring.RequestContext;
 import com.escola.service.CursoService;
 import com.escola.service.RelatorioService;
-import com.escola.util.JsonMapper;
+import com.escola.util.WireFormat;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
@@ -37,12 +39,19 @@ import java.net.URLDecoder;
  * - POST /api/cursos: Create a new course. Expects JSON body (CursoDTO).
  * - GET /api/cursos: List all courses. Can filter by name using query param `?nome={nome}`.
  * - GET /api/cursos/{id}: Get a course by ID.
- * - PUT /api/cursos/{id}: Update a course. Expect JSON body (CursoDTO).
+ * - PUT /api/cursos/{id}: Update a course. Expect JSON body (CursoDTO). If the body carries
+ *   {@code versao}, the update is rejected with 409 Conflict when the course changed since that version.
+ * - PATCH /api/cursos/{id}: Partially update a course with a single UPDATE. Only the provided fields
+ *   of the JSON body (CursoPatchDTO) are changed; {@code versao} is optional.
  * - DELETE /api/cursos/{id}: Delete a course.
  * - GET /api/cursos/relatorio/engajamento: (Bonus) Get a course engagement report.
  * </p>
+ * <p>
+ * Bodies are JSON by default; Smile and CBOR are accepted and returned when the
+ * {@code Content-Type} / {@code Accept} headers ask for them (see {@link WireFormat}).
+ * </p>
  *
- * @version 1.1
+ * @version 1.7
  * @author FelipeCardoso
  */
 public class CursoController implements HttpHandler {
@@ -83,6 +92,7 @@ public class CursoController implements HttpHandler {
         Map<String, HttpExchangeHandler> cursosIdRoutes = new HashMap<>();
         cursosIdRoutes.put("GET", this::handleGetCursoById);
         cursosIdRoutes.put("PUT", this::handleUpdateCurso);
+        cursosIdRoutes.put("PATCH", this::handlePatchCurso);
         cursosIdRoutes.put("DELETE", this::handleDeleteCurso);
         routes.put(ID_PATH_PATTERN.pattern(), cursosIdRoutes); // Usa o padrão regex
 
@@ -104,6 +114,7 @@ public class CursoController implements HttpHandler {
             return;
         }
 
+        RequestContext.iniciar(method + " " + resolveRouteTemplate(path), exchange);
         // 2. Despacho da Requisição
         try {
             HttpExchangeHandler handler = findHandler(method, path);
@@ -122,6 +133,9 @@ public class CursoController implements HttpHandler {
         } catch (EntidadeNaoEncontradaException e) {
             logger.warn("Entidade não encontrada para a requisição {}: {}", path, e.getMessage());
             sendErrorResponse(exchange, e.getMessage(), 404); // Not Found
+        } catch (ConflitoDeVersaoException e) {
+            logger.warn("Conflito de versão para a requisição {}: {}", path, e.getMessage());
+            sendConflictResponse(exchange, e); // Conflict
         } catch (NumberFormatException e) { // Captura erros de parsing de ID, etc.
             logger.error("Erro de formato numérico na requisição {}: {}", path, e.getMessage(), e);
             sendErrorResponse(exchange, "ID ou parâmetro numérico inválido: " + e.getMessage(), 400); // Bad Request
@@ -131,6 +145,8 @@ public class CursoController implements HttpHandler {
         } catch (Exception e) { // Catch genérico para qualquer outra exceção inesperada
             logger.error("Erro interno inesperado ao processar a requisição {}: {}", path, e.getMessage(), e);
             sendErrorResponse(exchange, "Erro interno no servidor: " + e.getMessage(), 500); // Internal Server Error
+        } finally {
+            RequestContext.encerrar();
         }
     }
 
@@ -142,7 +158,7 @@ public class CursoController implements HttpHandler {
      * @param path   O caminho da URI da requisição.
      * @return Um {@link HttpExchangeHandler} representando o método handler, ou null se nenhum handler for encontrado.
      */
-    private HttpExchangeHandler findHandler(String method, String path) {
+    HttpExchangeHandler findHandler(String method, String path) {
         // Tenta corresponder o caminho exato primeiro
         Map<String, HttpExchangeHandler> methodHandlers = routes.get(path);
         if (methodHandlers != null) {
@@ -167,13 +183,26 @@ public class CursoController implements HttpHandler {
         return null; // Nenhum handler encontrado
     }
 
+    /**
+     * Resolve o template de rota de um caminho, usado para rotular métricas por requisição
+     * sem a cardinalidade ilimitada dos caminhos brutos.
+     *
+     * @param path O caminho da URI da requisição.
+     * @return O template de rota correspondente, ex: {@code /api/cursos/{id}}.
+     */
+    String resolveRouteTemplate(String path) {
+        if (routes.containsKey(path)) return path;
+        if (ID_PATH_PATTERN.matcher(path).matches()) return "/api/cursos/{id}";
+        return "/api/cursos/*";
+    }
+
     /**
      * Corresponde o caminho fornecido a padrões regex conhecidos e retorna um Matcher.
      *
      * @param path O caminho da URI da requisição.
      * @return Um objeto Matcher se um padrão regex corresponder, caso contrário, null.
      */
-    private Matcher matchPath(String path) {
+    Matcher matchPath(String path) {
         Matcher idMatcher = ID_PATH_PATTERN.matcher(path);
         if (idMatcher.matches()) {
             return idMatcher;
@@ -198,11 +227,8 @@ public class CursoController implements HttpHandler {
      */
     private void handleCreateCurso(HttpExchange exchange, Matcher matcher) throws IOException {
         logger.debug("Lidando com requisição POST /api/cursos.");
-        InputStream requestBodyStream = exchange.getRequestBody();
         // Usando CursoDTO diretamente para uma tipagem mais forte e menos casting
-        CursoDTO requestDTO = JsonMapper.fromJson(
-                new String(requestBodyStream.readAllBytes(), StandardCharsets.UTF_8), CursoDTO.class
-        );
+        CursoDTO requestDTO = ContentNegotiation.lerCorpo(exchange, CursoDTO.class);
 
         // Validação básica do DTO antes de passar para o serviço
         if (requestDTO.getNome() == null || requestDTO.getNome().trim().isEmpty() ||
@@ -215,7 +241,7 @@ public class CursoController implements HttpHandler {
                 requestDTO.getDescricao(),
                 requestDTO.getCargaHoraria()
         );
-        sendResponse(exchange, JsonMapper.toJson(createdCurso), 201); // Created
+        sendEntity(exchange, createdCurso, 201); // Created
     }
 
     /**
@@ -230,21 +256,27 @@ public class CursoController implements HttpHandler {
         String query = exchange.getRequestURI().getQuery();
         logger.debug("Lidando com requisição GET /api/cursos. Query: {}", query);
 
-        List<CursoDTO> cursos;
-        if (query != null && query.startsWith("nome=")) {
-            try {
-                String nomeQuery = query.substring(query.indexOf("nome=") + 5);
-                // Decodifica caracteres URL-encoded (ex: %20 para espaço)
-                nomeQuery = URLDecoder.decode(nomeQuery, StandardCharsets.UTF_8.name());
-                cursos = cursoService.buscarCursosPorNomeContendo(nomeQuery);
-            } catch (IllegalArgumentException e) {
-                // Erro de decodificação ou formato inválido
-                throw new ValidacaoException("Parâmetro 'nome' inválido na URL.");
+        if (query == null || !query.startsWith("nome=")) {
+            if (ContentNegotiation.formatoResposta(exchange) != WireFormat.JSON) {
+                sendEntity(exchange, cursoService.listarTodosCursos(), 200);
+                return;
             }
-        } else {
-            cursos = cursoService.listarTodosCursos();
+            // Full list: bytes pre-serialized by the course catalog snapshot
+            exchange.getResponseHeaders().set("Vary", "Accept");
+            sendResponse(exchange, cursoService.listarTodosCursosJson(), 200);
+            return;
+        }
+        List<CursoDTO> cursos;
+        try {
+            String nomeQuery = query.substring(query.indexOf("nome=") + 5);
+            // Decodifica caracteres URL-encoded (ex: %20 para espaço)
+            nomeQuery = URLDecoder.decode(nomeQuery, StandardCharsets.UTF_8.name());
+            cursos = cursoService.buscarCursosPorNomeContendo(nomeQuery);
+        } catch (IllegalArgumentException e) {
+            // Erro de decodificação ou formato inválido
+            throw new ValidacaoException("Parâmetro 'nome' inválido na URL.");
         }
-        sendResponse(exchange, JsonMapper.toJson(cursos), 200);
+        sendEntity(exchange, cursos, 200);
     }
 
     /**
@@ -258,7 +290,7 @@ public class CursoController implements HttpHandler {
         Long id = Long.parseLong(matcher.group(1));
         logger.debug("Lidando com requisição GET /api/cursos/{} (ID).", id);
         CursoDTO curso = cursoService.buscarCursoPorId(id);
-        sendResponse(exchange, JsonMapper.toJson(curso), 200);
+        sendEntity(exchange, curso, 200);
     }
 
     /**
@@ -272,10 +304,7 @@ public class CursoController implements HttpHandler {
     private void handleUpdateCurso(HttpExchange exchange, Matcher matcher) throws IOException {
         Long id = Long.parseLong(matcher.group(1));
         logger.debug("Lidando com requisição PUT /api/cursos/{} (ID).", id);
-        InputStream requestBodyStream = exchange.getRequestBody();
-        CursoDTO requestDTO = JsonMapper.fromJson(
-                new String(requestBodyStream.readAllBytes(), StandardCharsets.UTF_8), CursoDTO.class
-        );
+        CursoDTO requestDTO = ContentNegotiation.lerCorpo(exchange, CursoDTO.class);
 
         // Validação básica
         if (requestDTO.getNome() != null && requestDTO.getNome().trim().isEmpty()) {
@@ -287,11 +316,34 @@ public class CursoController implements HttpHandler {
 
         CursoDTO updatedCurso = cursoService.atualizarCurso(
                 id,
+                requestDTO.getVersao(),
                 requestDTO.getNome(),
                 requestDTO.getDescricao(),
                 requestDTO.getCargaHoraria()
         );
-        sendResponse(exchange, JsonMapper.toJson(updatedCurso), 200);
+        sendEntity(exchange, updatedCurso, 200);
+    }
+
+    /**
+     * Lida com requisições PATCH para /api/cursos/{id} para atualizar parcialmente um curso.
+     * Apenas os campos informados (não nulos em {@link CursoPatchDTO}) são gravados, com um único UPDATE.
+     *
+     * @param exchange O objeto HttpExchange.
+     * @param matcher  O Matcher contendo o ID capturado da URI.
+     * @throws IOException Se ocorrer um erro de I/O.
+     */
+    private void handlePatchCurso(HttpExchange exchange, Matcher matcher) throws IOException {
+        Long id = Long.parseLong(matcher.group(1));
+        logger.debug("Lidando com requisição PATCH /api/cursos/{} (ID).", id);
+        CursoPatchDTO requestDTO = ContentNegotiation.lerCorpo(exchange, CursoPatchDTO.class);
+        cursoService.atualizarCursoParcial(
+                id,
+                requestDTO.getVersao(),
+                requestDTO.getNome(),
+                requestDTO.getDescricao(),
+                requestDTO.getCargaHoraria()
+        );
+        sendEntity(exchange, Map.of("message", "Curso atualizado com sucesso."), 200);
     }
 
     /**
@@ -305,7 +357,7 @@ public class CursoController implements HttpHandler {
         Long id = Long.parseLong(matcher.group(1));
         logger.debug("Lidando com requisição DELETE /api/cursos/{} (ID).", id);
         cursoService.deletarCurso(id);
-        sendResponse(exchange, "{\"message\":\"Curso deletado com sucesso.\"}", 200); // Ou 204 No Content
+        sendEntity(exchange, Map.of("message", "Curso deletado com sucesso."), 200); // Ou 204 No Content
     }
 
     /**
@@ -319,7 +371,7 @@ public class CursoController implements HttpHandler {
     private void handleGetRelatorioEngajamento(HttpExchange exchange, Matcher matcher) throws IOException {
         logger.debug("Lidando com requisição GET /api/cursos/relatorio/engajamento.");
         List<RelatorioCursoDTO> relatorio = relatorioService.gerarRelatorioEngajamentoCursos();
-        sendResponse(exchange, JsonMapper.toJson(relatorio), 200);
+        sendEntity(exchange, relatorio, 200);
     }
 
     /**
@@ -342,7 +394,7 @@ public class CursoController implements HttpHandler {
      */
     private void addCorsHeaders(HttpExchange exchange) {
         exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
-        exchange.getResponseHeaders().add("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
+        exchange.getResponseHeaders().add("Access-Control-Allow-Methods", "GET, POST, PUT, PATCH, DELETE, OPTIONS");
         exchange.getResponseHeaders().add("Access-Control-Allow-Headers", "Content-Type,Authorization");
     }
 
@@ -355,8 +407,45 @@ public class CursoController implements HttpHandler {
      * @throws IOException Se ocorrer um erro de I/O durante a escrita da resposta.
      */
     private void sendResponse(HttpExchange exchange, String responseBody, int statusCode) throws IOException {
-        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
-        byte[] responseBytes = responseBody.getBytes(StandardCharsets.UTF_8);
+        sendResponse(exchange, responseBody.getBytes(StandardCharsets.UTF_8), statusCode);
+    }
+
+    /**
+     * Envia um DTO (ou outro payload) codificado no formato negociado com o cliente:
+     * JSON por padrão, Smile ou CBOR quando o cabeçalho {@code Accept} os pede.
+     *
+     * @param exchange   O objeto HttpExchange.
+     * @param body       O payload a ser codificado.
+     * @param statusCode O código de status HTTP a ser enviado.
+     * @throws IOException Se ocorrer um erro de I/O durante a codificação ou a escrita da resposta.
+     */
+    private void sendEntity(HttpExchange exchange, Object body, int statusCode) throws IOException {
+        byte[] responseBytes = ContentNegotiation.escreverResposta(exchange, body);
+        writeResponse(exchange, responseBytes, statusCode);
+    }
+
+    /**
+     * Envia uma resposta HTTP com um corpo JSON já serializado.
+     *
+     * @param exchange      O objeto HttpExchange.
+     * @param responseBytes O corpo da resposta em UTF-8; não é modificado.
+     * @param statusCode    O código de status HTTP a ser enviado.
+     * @throws IOException Se ocorrer um erro de I/O durante a escrita da resposta.
+     */
+    private void sendResponse(HttpExchange exchange, byte[] responseBytes, int statusCode) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", WireFormat.JSON.getContentType());
+        writeResponse(exchange, responseBytes, statusCode);
+    }
+
+    /**
+     * Escreve um corpo já codificado; o cabeçalho {@code Content-Type} deve ter sido definido.
+     */
+    private void writeResponse(HttpExchange exchange, byte[] responseBytes, int statusCode) throws IOException {
+        String serverTiming = RequestContext.serverTiming();
+        if (serverTiming != null) {
+            exchange.getResponseHeaders().set("Server-Timing", serverTiming);
+        }
+        RequestContext.registrarResposta(statusCode, responseBytes.length);
         exchange.sendResponseHeaders(statusCode, responseBytes.length);
         OutputStream os = exchange.getResponseBody();
         os.write(responseBytes);
@@ -376,4 +465,17 @@ public class CursoController implements HttpHandler {
         String errorJson = "{\"error\":\"" + errorMessage + "\"}";
         sendResponse(exchange, errorJson, statusCode);
     }
+
+    /**
+     * Envia uma resposta 409 Conflict incluindo a versão atual do curso,
+     * para que o cliente possa recarregá-lo e repetir a atualização.
+     *
+     * @param exchange O objeto HttpExchange.
+     * @param e        O conflito de versão detectado.
+     * @throws IOException Se ocorrer um erro de I/O durante a escrita da resposta.
+     */
+    private void sendConflictResponse(HttpExchange exchange, ConflitoDeVersaoException e) throws IOException {
+        String errorJson = "{\"error\":\"" + e.getMessage() + "\",\"versaoAtual\":" + e.getVersaoAtual() + "}";
+        sendResponse(exchange, errorJson, 409);
+    }
 }
\ No newline at end of file
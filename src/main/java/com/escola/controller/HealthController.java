@@ -0,0 +1,126 @@
+package com.escola.controller;
+
+import com.escola.dto.ApiResponse;
+import com.escola.monitoring.Readiness;
+import com.escola.monitoring.WarmUpTraffic;
+import com.escola.util.JsonMapper;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * HTTP Handler for the health probes under {@code /health}, for load balancers and orchestrators.
+ *
+ * <p>Supported Endpoints:</p>
+ * <ul>
+ * <li><b>GET /health/live</b>: 200 as soon as the process serves HTTP; the instance is alive.</li>
+ * <li><b>GET /health/ready</b>: 200 once every startup stage of the {@link Readiness} completed,
+ * 503 before that (or if a stage failed), with the state and duration of each stage.</li>
+ * </ul>
+ * {@link #aguardandoProntidao(HttpHandler)} provides the handler that answers API requests
+ * arriving before the instance is ready, and {@link #filtroProntidao()} the filter that keeps
+ * the API contexts closed until then.
+ *
+ * @version 1.2
+ * @author FelipeCardoso
+ */
+public class HealthController implements HttpHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(HealthController.class);
+
+    private static final String APPLICATION_JSON = "application/json; charset=UTF-8";
+
+    private final Readiness readiness;
+
+    /**
+     * @param readiness The startup stages of this instance.
+     */
+    public HealthController(Readiness readiness) {
+        this.readiness = readiness;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+            sendJsonResponse(exchange, 405, JsonMapper.toJson(ApiResponse.error("Método não permitido.")));
+        } else if ("/health/live".equals(path)) {
+            sendJsonResponse(exchange, 200, JsonMapper.toJson(Map.of("status", "UP")));
+        } else if ("/health/ready".equals(path)) {
+            sendJsonResponse(exchange, readiness.isPronto() ? 200 : 503, JsonMapper.toJson(readiness.estado()));
+        } else {
+            sendJsonResponse(exchange, 404, JsonMapper.toJson(ApiResponse.error("Endpoint de saúde não encontrado.")));
+        }
+    }
+
+    /**
+     * Handler for the {@code /api} context while the API controllers are not registered yet:
+     * 503 with {@code Retry-After} until the instance is ready, then {@code naoEncontrado}
+     * (the specific API contexts take precedence once registered).
+     *
+     * @param naoEncontrado Handler for unknown API paths after startup.
+     * @return The handler.
+     */
+    public HttpHandler aguardandoProntidao(HttpHandler naoEncontrado) {
+        return exchange -> {
+            if (readiness.isPronto()) {
+                naoEncontrado.handle(exchange);
+                return;
+            }
+            responderEmInicializacao(exchange);
+        };
+    }
+
+    /**
+     * Filter for the API contexts, registered before the instance is ready (the caches and the
+     * warm-up still run): 503 with {@code Retry-After} until then, as {@link #aguardandoProntidao}.
+     * Requests of the startup warm-up ({@link WarmUpTraffic}) go through, since they are what
+     * the {@code aquecimento} stage waits for.
+     *
+     * @return The filter, to be placed first in the chain of each API context.
+     */
+    public Filter filtroProntidao() {
+        return new Filter() {
+            @Override
+            public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+                if (readiness.isPronto() || WarmUpTraffic.isAquecimento(exchange)) {
+                    chain.doFilter(exchange);
+                } else {
+                    responderEmInicializacao(exchange);
+                }
+            }
+
+            @Override
+            public String description() {
+                return "503 até a instância ficar pronta";
+            }
+        };
+    }
+
+    private void responderEmInicializacao(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        sendJsonResponse(exchange, 503, JsonMapper.toJson(
+                ApiResponse.error("Serviço em inicialização. Tente novamente em instantes.")));
+    }
+
+    private void sendJsonResponse(HttpExchange exchange, int statusCode, String responseBody) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", APPLICATION_JSON);
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        byte[] responseBytes = responseBody.getBytes(StandardCharsets.UTF_8);
+        boolean head = "HEAD".equals(exchange.getRequestMethod());
+        exchange.sendResponseHeaders(statusCode, head ? -1 : responseBytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            if (!head) os.write(responseBytes);
+        } finally {
+            exchange.close();
+        }
+        logger.debug("Resposta enviada para {}: Status {}", exchange.getRequestURI().getPath(), statusCode);
+    }
+}
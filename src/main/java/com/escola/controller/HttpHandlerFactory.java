@@ -20,7 +20,7 @@ import java.nio.charset.StandardCharsets;
  * <p>By centralizing the creation of handlers, it promotes configuration consistency
  * and a single point for managing the service dependencies of each controller.</p>
  *
- * @version 1.1
+ * @version 1.3
  * @author FelipeCardoso
  */
 public final class HttpHandlerFactory {
@@ -106,6 +106,19 @@ public final class HttpHandlerFactory {
         return new RelatorioController(relatorioService);
     }
 
+    /**
+     * Provides a new instance of {@link AdminController}, which exposes the operational
+     * endpoints under {@code /admin} (e.g. SQL statistics). It needs no service, so it is
+     * available before the services exist (e.g. while a headless server starts up).
+     *
+     * @param token Token required in {@code Authorization: Bearer}, or {@code null} for none.
+     * @return A configured instance of {@link AdminController}.
+     */
+    public static HttpHandler getAdminHandler(String token) {
+        logger.debug("Criando e retornando AdminController.");
+        return new AdminController(token);
+    }
+
     /**
      * Provides a default HttpHandler to handle API contexts that are not found
      * or not mapped by the factory. This handler returns a 404 (Not Found) error response.
@@ -115,7 +128,7 @@ public final class HttpHandlerFactory {
      *
      * @return A generic {@link HttpHandler} that returns 404 Not Found.
      */
-    public HttpHandler getDefaultNotFoundHandler() {
+    public static HttpHandler getDefaultNotFoundHandler() {
         logger.warn("Creating and returning DefaultNotFoundHandler.");
         return exchange -> {
             String response = "{\"error\":\"Resource not found\"}";
@@ -2,11 +2,16 @@ package com.escola.controller;
 
 import com.escola.dto.ApiResponse;
 import com.escola.dto.MatriculaDTO;
+import com.escola.dto.MatriculaPatchDTO;
 import com.escola.dto.MatriculaRequestDTO;
+import com.escola.exception.ConflitoDeVersaoException;
 import com.escola.exception.EntidadeNaoEncontradaException;
 import com.escola.exception.OperacaoInvalidaException;
+import com.escola.monitoring.RequestContext;
 import com.escola.service.MatriculaService;
+import com.escola.util.JsonFragmentCache;
 import com.escola.util.JsonMapper;
+import com.escola.util.WireFormat;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import org.slf4j.Logger;
@@ -16,6 +21,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,10 +39,17 @@ import java.util.regex.Pattern;
  * <li><b>POST /api/matriculas</b>: Creates a new enrollment. Expects a JSON body (MatriculaRequestDTO).</li>
  * <li><b>GET /api/matriculas</b>: Lists all enrollments with student and course details.</li>
  * <li><b>GET /api/matriculas/{id}</b>: Fetches a specific enrollment by ID.</li>
+ * <li><b>PATCH /api/matriculas/{id}</b>: Partially updates an enrollment with a single UPDATE (MatriculaPatchDTO).</li>
  * <li><b>DELETE /api/matriculas/{id}</b>: Removes (cancels) an enrollment by ID.</li>
+ * <li><b>POST /api/matriculas/curso/{cursoId}/cancelar</b>: Cancels every active enrollment of a course in one bulk UPDATE.</li>
  * </ul>
  *
- * @version 1.1
+ * <p>Bodies are JSON by default; Smile and CBOR are accepted and returned when the
+ * {@code Content-Type} / {@code Accept} headers ask for them (see {@link WireFormat}).</p>
+ * <p>The full list is assembled from per-enrollment JSON fragments ({@link JsonFragmentCache}), so only
+ * enrollments that changed since they were last listed are serialized again.</p>
+ *
+ * @version 1.7
  * @author FelipeCardoso
  */
 public class MatriculaController implements HttpHandler {
@@ -45,8 +59,16 @@ public class MatriculaController implements HttpHandler {
     private static final String APPLICATION_JSON = "application/json; charset=UTF-8";
     // Regex pattern for paths that include an ID, e.g., /api/matriculas/{id}
     private static final Pattern ID_PATH_PATTERN = Pattern.compile("/api/matriculas/(\\d+)");
+    // Regex pattern for the bulk cancellation of a course's enrollments, e.g., /api/matriculas/curso/{cursoId}/cancelar
+    private static final Pattern CURSO_CANCELAR_PATH_PATTERN = Pattern.compile("/api/matriculas/curso/(\\d+)/cancelar");
+
+    private static final String MENSAGEM_LISTA = "Matrículas listadas com sucesso.";
 
     private final MatriculaService matriculaService;
+    // Fragments keyed by enrollment ID; the student and course names are part of the serialized content
+    private final JsonFragmentCache<MatriculaDTO> fragmentos = JsonFragmentCache.fromConfig(
+            "json.fragmentos.matriculas", MatriculaDTO::getId,
+            m -> m.getVersao() == null ? null : Arrays.asList(m.getVersao(), m.getAlunoNome(), m.getCursoNome()));
     // Route map to dispatch requests to specific handlers
     private final Map<String, Map<String, HttpExchangeHandler>> routes;
 
@@ -80,8 +102,14 @@ public class MatriculaController implements HttpHandler {
         // Routes for /api/matriculas/{id}
         Map<String, HttpExchangeHandler> matriculasIdRoutes = new HashMap<>();
         matriculasIdRoutes.put("GET", this::handleGetMatriculaById);
+        matriculasIdRoutes.put("PATCH", this::handlePatchMatricula);
         matriculasIdRoutes.put("DELETE", this::handleDeleteMatricula);
         routes.put(ID_PATH_PATTERN.pattern(), matriculasIdRoutes);
+
+        // Routes for /api/matriculas/curso/{cursoId}/cancelar
+        Map<String, HttpExchangeHandler> cursoCancelarRoutes = new HashMap<>();
+        cursoCancelarRoutes.put("POST", this::handleCancelarMatriculasDoCurso);
+        routes.put(CURSO_CANCELAR_PATH_PATTERN.pattern(), cursoCancelarRoutes);
     }
 
     @Override
@@ -99,6 +127,7 @@ public class MatriculaController implements HttpHandler {
             return;
         }
 
+        RequestContext.iniciar(method + " " + resolveRouteTemplate(path), exchange);
         // 3. Request dispatching and centralized exception handling
         try {
             HttpExchangeHandler handler = findHandler(method, path);
@@ -111,31 +140,26 @@ public class MatriculaController implements HttpHandler {
             }
         } catch (OperacaoInvalidaException e) {
             logger.warn("Operação inválida para {}: {}", path, e.getMessage());
-            sendJsonResponse(exchange, 400, JsonMapper.toJson(
-                    ApiResponse.error(e.getMessage()))
-            );
+            sendEntity(exchange, 400, ApiResponse.error(e.getMessage()));
         } catch (EntidadeNaoEncontradaException e) {
             logger.warn("Entidade não encontrada para {}: {}", path, e.getMessage());
-            sendJsonResponse(exchange, 404, JsonMapper.toJson(
-                    ApiResponse.error(e.getMessage()))
-            );
+            sendEntity(exchange, 404, ApiResponse.error(e.getMessage()));
+        } catch (ConflitoDeVersaoException e) {
+            logger.warn("Conflito de versão para {}: {}", path, e.getMessage());
+            sendEntity(exchange, 409, ApiResponse.error(e.getMessage(), Collections.singletonMap("versaoAtual", e.getVersaoAtual())));
         } catch (NumberFormatException e) {
             logger.warn("Formato de ID inválido no path {}: {}", path, e.getMessage());
             String invalidIdPart = path.substring(path.lastIndexOf('/') + 1);
-            sendJsonResponse(exchange, 400, JsonMapper.toJson(
-                    ApiResponse.error("ID inválido fornecido: " + invalidIdPart))
-            );
+            sendEntity(exchange, 400, ApiResponse.error("ID inválido fornecido: " + invalidIdPart));
         } catch (IllegalArgumentException e) {
             // Usually for deserialization errors (malformed JSON) or DTO validation
             logger.warn("Requisição mal formatada para {}: {}", path, e.getMessage());
-            sendJsonResponse(exchange, 400, JsonMapper.toJson(
-                    ApiResponse.error("Requisição mal formatada: " + e.getMessage()))
-            );
+            sendEntity(exchange, 400, ApiResponse.error("Requisição mal formatada: " + e.getMessage()));
         } catch (Exception e) {
             logger.error("Erro interno inesperado ao processar requisição {}: {}", path, e.getMessage(), e);
-            sendJsonResponse(exchange, 500, JsonMapper.toJson(
-                    ApiResponse.error("Erro interno no servidor. Por favor, tente novamente mais tarde."))
-            );
+            sendEntity(exchange, 500, ApiResponse.error("Erro interno no servidor. Por favor, tente novamente mais tarde."));
+        } finally {
+            RequestContext.encerrar();
         }
     }
 
@@ -146,7 +170,7 @@ public class MatriculaController implements HttpHandler {
      * @param path   The URI path of the request.
      * @return The corresponding HttpExchangeHandler, or null if no handler is found.
      */
-    private HttpExchangeHandler findHandler(String method, String path) {
+    HttpExchangeHandler findHandler(String method, String path) {
         // Tenta corresponder ao path exato primeiro
         Map<String, HttpExchangeHandler> methodHandlers = routes.get(path);
         if (methodHandlers != null) {
@@ -159,21 +183,44 @@ public class MatriculaController implements HttpHandler {
             if (idMethodHandlers != null) {
                 return idMethodHandlers.get(method);
             }
+        } else if (CURSO_CANCELAR_PATH_PATTERN.matcher(path).matches()) {
+            Map<String, HttpExchangeHandler> cancelarMethodHandlers = routes.get(CURSO_CANCELAR_PATH_PATTERN.pattern());
+            if (cancelarMethodHandlers != null) {
+                return cancelarMethodHandlers.get(method);
+            }
         }
         return null;
     }
 
+    /**
+     * Resolves the route template of a request path, used to label per-request metrics
+     * without the unbounded cardinality of raw paths.
+     *
+     * @param path The URI path.
+     * @return The matching route template, e.g. {@code /api/matriculas/{id}}.
+     */
+    String resolveRouteTemplate(String path) {
+        if (routes.containsKey(path)) return path;
+        if (ID_PATH_PATTERN.matcher(path).matches()) return "/api/matriculas/{id}";
+        if (CURSO_CANCELAR_PATH_PATTERN.matcher(path).matches()) return "/api/matriculas/curso/{cursoId}/cancelar";
+        return "/api/matriculas/*";
+    }
+
     /**
      * Attempts to obtain a Matcher for the URI path if it matches a regex pattern.
      *
      * @param path The URI path.
      * @return A Matcher if there is a match, otherwise null.
      */
-    private Matcher matchPath(String path) {
+    Matcher matchPath(String path) {
         Matcher idMatcher = ID_PATH_PATTERN.matcher(path);
         if (idMatcher.matches()) {
             return idMatcher;
         }
+        Matcher cancelarMatcher = CURSO_CANCELAR_PATH_PATTERN.matcher(path);
+        if (cancelarMatcher.matches()) {
+            return cancelarMatcher;
+        }
         return null;
     }
 
@@ -188,16 +235,14 @@ public class MatriculaController implements HttpHandler {
      */
     private void handleCreateMatricula(HttpExchange exchange, Matcher matcher) throws IOException {
         logger.debug("Lidando com POST /api/matriculas (criar matrícula).");
-        MatriculaRequestDTO requestDTO = JsonMapper.fromJson(readRequestBody(exchange), MatriculaRequestDTO.class);
+        MatriculaRequestDTO requestDTO = ContentNegotiation.lerCorpo(exchange, readRequestBody(exchange), MatriculaRequestDTO.class);
 
         if (requestDTO.getAlunoId() == null || requestDTO.getCursoId() == null) {
             throw new IllegalArgumentException("IDs de aluno e curso são obrigatórios para realizar a matrícula.");
         }
 
         MatriculaDTO matriculaDTO = matriculaService.realizarMatricula(requestDTO);
-        sendJsonResponse(exchange, 201, JsonMapper.toJson(
-                ApiResponse.success(matriculaDTO, "Matrícula realizada com sucesso."))
-        );
+        sendEntity(exchange, 201, ApiResponse.success(matriculaDTO, "Matrícula realizada com sucesso."));
     }
 
     /**
@@ -210,9 +255,29 @@ public class MatriculaController implements HttpHandler {
     private void handleListAllMatriculas(HttpExchange exchange, Matcher matcher) throws IOException {
         logger.debug("Lidando com GET /api/matriculas (listar todas as matrículas).");
         List<MatriculaDTO> matriculasDTO = matriculaService.listarTodasMatriculasComDetalhes();
-        sendJsonResponse(exchange, 200, JsonMapper.toJson(
-                ApiResponse.success(matriculasDTO, "Matrículas listadas com sucesso."))
-        );
+        if (fragmentos == null || ContentNegotiation.formatoResposta(exchange) != WireFormat.JSON) {
+            sendEntity(exchange, 200, ApiResponse.success(matriculasDTO, MENSAGEM_LISTA));
+            return;
+        }
+        // Same document as ApiResponse.success(list, message), with the array written fragment by fragment
+        byte[] inicio = ("{\"success\":true,\"message\":" + JsonMapper.toJson(MENSAGEM_LISTA) + ",\"data\":")
+                .getBytes(StandardCharsets.UTF_8);
+        JsonFragmentCache.ArrayJson dados = fragmentos.array(matriculasDTO);
+        exchange.getResponseHeaders().set("Content-Type", APPLICATION_JSON);
+        exchange.getResponseHeaders().set("Vary", "Accept");
+        String serverTiming = RequestContext.serverTiming();
+        if (serverTiming != null) {
+            exchange.getResponseHeaders().set("Server-Timing", serverTiming);
+        }
+        long comprimento = inicio.length + dados.comprimento() + 1;
+        RequestContext.registrarResposta(200, comprimento);
+        exchange.sendResponseHeaders(200, comprimento);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(inicio);
+            dados.escreverEm(os);
+            os.write('}');
+        }
+        logger.debug("Resposta enviada para {}: Status 200", exchange.getRequestURI().getPath());
     }
 
     /**
@@ -226,9 +291,38 @@ public class MatriculaController implements HttpHandler {
         long id = Long.parseLong(matcher.group(1)); // O ID é o primeiro grupo da regex
         logger.debug("Lidando com GET /api/matriculas/{} (buscar por ID).", id);
         MatriculaDTO matriculaDTO = matriculaService.buscarMatriculaPorIdComDetalhes(id);
-        sendJsonResponse(exchange, 200, JsonMapper.toJson(
-                ApiResponse.success(matriculaDTO, "Matrícula encontrada com sucesso."))
-        );
+        sendEntity(exchange, 200, ApiResponse.success(matriculaDTO, "Matrícula encontrada com sucesso."));
+    }
+
+    /**
+     * Handles PATCH requests to /api/matriculas/{id} to partially update an enrollment.
+     *
+     * @param exchange The HttpExchange object.
+     * @param matcher  The Matcher containing the ID captured from the URI.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void handlePatchMatricula(HttpExchange exchange, Matcher matcher) throws IOException {
+        long id = Long.parseLong(matcher.group(1));
+        logger.debug("Lidando com PATCH /api/matriculas/{} (atualização parcial).", id);
+        MatriculaPatchDTO patchDTO = ContentNegotiation.lerCorpo(exchange, readRequestBody(exchange), MatriculaPatchDTO.class);
+        matriculaService.atualizarParcial(id, patchDTO.getVersao(), patchDTO.getCancelada(), patchDTO.getDataMatricula());
+        sendEntity(exchange, 200, ApiResponse.success(null, "Matrícula com ID " + id + " atualizada com sucesso."));
+    }
+
+    /**
+     * Handles POST requests to /api/matriculas/curso/{cursoId}/cancelar to cancel
+     * every active enrollment of a course with a single set-based UPDATE.
+     *
+     * @param exchange The HttpExchange object.
+     * @param matcher  The Matcher containing the course ID captured from the URI.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void handleCancelarMatriculasDoCurso(HttpExchange exchange, Matcher matcher) throws IOException {
+        long cursoId = Long.parseLong(matcher.group(1));
+        logger.debug("Lidando com POST /api/matriculas/curso/{}/cancelar (cancelamento em lote).", cursoId);
+        int canceladas = matriculaService.cancelarMatriculasDoCurso(cursoId);
+        sendEntity(exchange, 200, ApiResponse.success(Collections.singletonMap("canceladas", canceladas),
+                        canceladas + " matrícula(s) do curso " + cursoId + " cancelada(s) com sucesso."));
     }
 
     /**
@@ -242,9 +336,7 @@ public class MatriculaController implements HttpHandler {
         long id = Long.parseLong(matcher.group(1)); // O ID é o primeiro grupo da regex
         logger.debug("Lidando com DELETE /api/matriculas/{} (cancelar matrícula).", id);
         matriculaService.cancelarMatricula(id);
-        sendJsonResponse(exchange, 200, JsonMapper.toJson(
-                ApiResponse.success(null, "Matrícula com ID " + id + " cancelada com sucesso."))
-        );
+        sendEntity(exchange, 200, ApiResponse.success(null, "Matrícula com ID " + id + " cancelada com sucesso."));
     }
 
     /**
@@ -257,9 +349,7 @@ public class MatriculaController implements HttpHandler {
         logger.warn("Endpoint não encontrado ou método não permitido: {} {}",
                 exchange.getRequestMethod(), exchange.getRequestURI().getPath()
         );
-        sendJsonResponse(exchange, 404, JsonMapper.toJson(
-                ApiResponse.error("Endpoint não encontrado ou Método Não Permitido."))
-        );
+        sendEntity(exchange, 404, ApiResponse.error("Endpoint não encontrado ou Método Não Permitido."));
     }
 
     // --- Helper Methods ---
@@ -268,10 +358,10 @@ public class MatriculaController implements HttpHandler {
      * Reads the body of the HTTP request.
      *
      * @param exchange The HttpExchange object.
-     * @return The request body as a String.
+     * @return The request body (UTF-8 JSON bytes).
      * @throws IOException If an I/O error occurs.
      */
-    private String readRequestBody(HttpExchange exchange) throws IOException {
+    private byte[] readRequestBody(HttpExchange exchange) throws IOException {
         try (InputStream requestBodyStream = exchange.getRequestBody()) {
             // If the body is very large, readAllBytes might be inefficient.
             // For small APIs, it is usually acceptable.
@@ -280,7 +370,7 @@ public class MatriculaController implements HttpHandler {
                 // Throw an exception if a body is expected but not received
                 throw new IllegalArgumentException("Request body is empty. A valid JSON is expected.");
             }
-            return new String(rawBytes, StandardCharsets.UTF_8);
+            return rawBytes;
         }
     }
 
@@ -291,7 +381,7 @@ public class MatriculaController implements HttpHandler {
      */
     private void addCorsHeaders(HttpExchange exchange) {
         exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
-        exchange.getResponseHeaders().add("Access-Control-Allow-Methods", "GET, POST, DELETE, OPTIONS");
+        exchange.getResponseHeaders().add("Access-Control-Allow-Methods", "GET, POST, PATCH, DELETE, OPTIONS");
         exchange.getResponseHeaders().add("Access-Control-Allow-Headers", "Content-Type, Authorization");
     }
 
@@ -305,7 +395,31 @@ public class MatriculaController implements HttpHandler {
      */
     private void sendJsonResponse(HttpExchange exchange, int statusCode, String responseBody) throws IOException {
         exchange.getResponseHeaders().set("Content-Type", APPLICATION_JSON);
-        byte[] responseBytes = responseBody.getBytes(StandardCharsets.UTF_8);
+        writeResponse(exchange, statusCode, responseBody.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends a DTO or {@link ApiResponse} encoded in the format negotiated with the client:
+     * JSON by default, Smile or CBOR when the {@code Accept} header asks for them.
+     *
+     * @param exchange   The HttpExchange object.
+     * @param statusCode The HTTP status code.
+     * @param body       The payload to encode.
+     * @throws IOException If an I/O error occurs during encoding or response writing.
+     */
+    private void sendEntity(HttpExchange exchange, int statusCode, Object body) throws IOException {
+        writeResponse(exchange, statusCode, ContentNegotiation.escreverResposta(exchange, body));
+    }
+
+    /**
+     * Writes an already encoded body; the {@code Content-Type} header must be set by the caller.
+     */
+    private void writeResponse(HttpExchange exchange, int statusCode, byte[] responseBytes) throws IOException {
+        String serverTiming = RequestContext.serverTiming();
+        if (serverTiming != null) {
+            exchange.getResponseHeaders().set("Server-Timing", serverTiming);
+        }
+        RequestContext.registrarResposta(statusCode, responseBytes.length);
         exchange.sendResponseHeaders(statusCode, responseBytes.length);
         try (OutputStream os = exchange.getResponseBody()) {
             os.write(responseBytes);
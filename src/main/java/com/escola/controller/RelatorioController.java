@@ -2,8 +2,8 @@ package com.escola.controller;
 
 import com.escola.dto.ApiResponse;
 import com.escola.dto.RelatorioCursoDTO;
+import com.escola.monitoring.RequestContext;
 import com.escola.service.RelatorioService;
-import com.escola.util.JsonMapper;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import org.slf4j.Logger;
@@ -23,8 +23,9 @@ import java.util.List;
  * <ul>
  * <li><b>GET /api/relatorios/engajamento-cursos</b>: Generates and returns a course engagement report.</li>
  * </ul>
+ * <p>The report is JSON by default, or Smile/CBOR when the {@code Accept} header asks for them.</p>
  *
- * @version 1.0
+ * @version 1.4
  * @author FelipeCardoso
  */
 public class RelatorioController implements HttpHandler {
@@ -63,6 +64,7 @@ public class RelatorioController implements HttpHandler {
             return;
         }
 
+        RequestContext.iniciar(method + " " + path, exchange);
         // 3. Request dispatching and centralized exception handling
         try {
             if ("GET".equalsIgnoreCase(method) && path.equals("/api/relatorios/engajamento-cursos")) {
@@ -72,9 +74,9 @@ public class RelatorioController implements HttpHandler {
             }
         } catch (Exception e) {
             logger.error("Erro interno inesperado ao processar requisição de relatório {}: {}", path, e.getMessage(), e);
-            sendJsonResponse(exchange, 500, JsonMapper.toJson(
-                    ApiResponse.error("Erro interno no servidor ao gerar relatório. Por favor, tente novamente mais tarde."))
-            );
+            sendEntity(exchange, 500, ApiResponse.error("Erro interno no servidor ao gerar relatório. Por favor, tente novamente mais tarde."));
+        } finally {
+            RequestContext.encerrar();
         }
     }
 
@@ -87,9 +89,7 @@ public class RelatorioController implements HttpHandler {
     private void handleGetEngajamentoReport(HttpExchange exchange) throws IOException {
         logger.debug("Lidando com GET /api/relatorios/engajamento-cursos.");
         List<RelatorioCursoDTO> relatorio = relatorioService.gerarRelatorioEngajamentoCursos();
-        sendJsonResponse(exchange, 200, JsonMapper.toJson(
-                ApiResponse.success(relatorio, "Relatório de engajamento de cursos gerado com sucesso."))
-        );
+        sendEntity(exchange, 200, ApiResponse.success(relatorio, "Relatório de engajamento de cursos gerado com sucesso."));
     }
 
     /**
@@ -102,9 +102,7 @@ public class RelatorioController implements HttpHandler {
         logger.warn("Endpoint de relatório não encontrado ou método não permitido: {} {}",
                 exchange.getRequestMethod(), exchange.getRequestURI().getPath()
         );
-        sendJsonResponse(exchange, 404, JsonMapper.toJson(
-                ApiResponse.error("Recurso de relatório não encontrado ou Método Não Permitido."))
-        );
+        sendEntity(exchange, 404, ApiResponse.error("Recurso de relatório não encontrado ou Método Não Permitido."));
     }
 
     // --- Helper Methods ---
@@ -130,7 +128,31 @@ public class RelatorioController implements HttpHandler {
      */
     private void sendJsonResponse(HttpExchange exchange, int statusCode, String responseBody) throws IOException {
         exchange.getResponseHeaders().set("Content-Type", APPLICATION_JSON);
-        byte[] responseBytes = responseBody.getBytes(StandardCharsets.UTF_8);
+        writeResponse(exchange, statusCode, responseBody.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends an {@link ApiResponse} encoded in the format negotiated with the client:
+     * JSON by default, Smile or CBOR when the {@code Accept} header asks for them.
+     *
+     * @param exchange   The HttpExchange object.
+     * @param statusCode The HTTP status code.
+     * @param body       The payload to encode.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void sendEntity(HttpExchange exchange, int statusCode, Object body) throws IOException {
+        writeResponse(exchange, statusCode, ContentNegotiation.escreverResposta(exchange, body));
+    }
+
+    /**
+     * Writes an already encoded body; the {@code Content-Type} header must be set by the caller.
+     */
+    private void writeResponse(HttpExchange exchange, int statusCode, byte[] responseBytes) throws IOException {
+        String serverTiming = RequestContext.serverTiming();
+        if (serverTiming != null) {
+            exchange.getResponseHeaders().set("Server-Timing", serverTiming);
+        }
+        RequestContext.registrarResposta(statusCode, responseBytes.length);
         exchange.sendResponseHeaders(statusCode, responseBytes.length);
         try (OutputStream os = exchange.getResponseBody()) {
             os.write(responseBytes);
@@ -0,0 +1,133 @@
+package com.escola.controller;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Serves the web front end from the {@code /web} classpath resources, and hands every path that
+ * is not a file to the JSON 404 handler. Registered on the catch-all {@code /} context.
+ * <p>
+ * {@link #preCarregar()} reads every asset into memory once, at startup, so requests no longer
+ * open a classpath resource (a jar entry, in the packaged application) each time. Files not
+ * preloaded are still read from the classpath.
+ * </p>
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public final class StaticFileHandler implements HttpHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(StaticFileHandler.class);
+    private static final String RAIZ = "/web";
+
+    private final HttpHandler naoEncontrado;
+    private final Map<String, byte[]> arquivos = new ConcurrentHashMap<>();
+
+    /**
+     * @param naoEncontrado Handler for the paths that are not static files.
+     */
+    public StaticFileHandler(HttpHandler naoEncontrado) {
+        this.naoEncontrado = naoEncontrado;
+    }
+
+    /**
+     * Loads every file under {@code /web} into memory.
+     *
+     * @return The number of files loaded.
+     * @throws IOException If the resources cannot be listed or read.
+     */
+    public int preCarregar() throws IOException {
+        URL url = StaticFileHandler.class.getResource(RAIZ);
+        if (url == null) return 0;
+        URI uri;
+        try {
+            uri = url.toURI();
+        } catch (URISyntaxException e) {
+            throw new IOException("URI inválida para os recursos estáticos: " + url, e);
+        }
+        if ("jar".equals(uri.getScheme())) {
+            FileSystem jar;
+            try {
+                jar = FileSystems.newFileSystem(uri, Collections.emptyMap());
+            } catch (FileSystemAlreadyExistsException e) {
+                jar = FileSystems.getFileSystem(uri);
+            }
+            carregar(jar.getPath(RAIZ));
+        } else {
+            carregar(Paths.get(uri));
+        }
+        logger.info("{} arquivo(s) estático(s) pré-carregado(s).", arquivos.size());
+        return arquivos.size();
+    }
+
+    private void carregar(Path raiz) throws IOException {
+        try (Stream<Path> caminhos = Files.walk(raiz)) {
+            for (Path arquivo : (Iterable<Path>) caminhos.filter(Files::isRegularFile)::iterator) {
+                String relativo = raiz.relativize(arquivo).toString().replace('\\', '/');
+                arquivos.put(RAIZ + "/" + relativo, Files.readAllBytes(arquivo));
+            }
+        }
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        logger.debug("Attempting to serve static file or handle unmapped path for: {}", path);
+        String resourcePath = path.equals("/") ? RAIZ + "/index.html" : RAIZ + path;
+        try {
+            byte[] data = arquivos.get(resourcePath);
+            if (data == null && !path.contains("..")) {
+                try (InputStream is = StaticFileHandler.class.getResourceAsStream(resourcePath)) {
+                    if (is != null) data = is.readAllBytes();
+                }
+            }
+            if (data != null) {
+                exchange.getResponseHeaders().set("Content-Type", contentType(resourcePath));
+                exchange.sendResponseHeaders(200, data.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(data);
+                }
+                logger.debug("Served static file: {}", resourcePath);
+                return;
+            }
+        } catch (IOException e) {
+            logger.error("Error serving static file {}: {}", resourcePath, e.getMessage(), e);
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+            return;
+        }
+        // Not a static file: consistent JSON 404 for every unhandled path
+        logger.warn("Path not found as static resource or specific API, delegating to default handler: {}", path);
+        naoEncontrado.handle(exchange);
+    }
+
+    private static String contentType(String caminho) {
+        if (caminho.endsWith(".css")) return "text/css; charset=UTF-8";
+        if (caminho.endsWith(".js")) return "application/javascript; charset=UTF-8";
+        if (caminho.endsWith(".html")) return "text/html; charset=UTF-8";
+        if (caminho.endsWith(".json")) return "application/json; charset=UTF-8";
+        if (caminho.endsWith(".png")) return "image/png";
+        if (caminho.endsWith(".svg")) return "image/svg+xml";
+        if (caminho.endsWith(".ico")) return "image/x-icon";
+        return "application/octet-stream";
+    }
+}
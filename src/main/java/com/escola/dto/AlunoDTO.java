@@ -16,6 +16,7 @@ public class AlunoDTO {
     private String nome;
     private String email;
     private LocalDate dataNascimento;
+    private Long versao;
 
     /**
      * Default constructor.
@@ -38,6 +39,20 @@ public class AlunoDTO {
         this.dataNascimento = dataNascimento;
     }
 
+    /**
+     * Parameterized constructor including the optimistic locking version.
+     *
+     * @param id              the unique identifier of the student
+     * @param nome            the name of the student
+     * @param email           the email of the student
+     * @param dataNascimento  the birth date of the student
+     * @param versao          the version of the student record
+     */
+    public AlunoDTO(Long id, String nome, String email, LocalDate dataNascimento, Long versao) {
+        this(id, nome, email, dataNascimento);
+        this.versao = versao;
+    }
+
     /**
      * Gets the student ID.
      *
@@ -110,6 +125,25 @@ public class AlunoDTO {
         this.dataNascimento = dataNascimento;
     }
 
+    /**
+     * Gets the version of the student record, used for optimistic locking.
+     * Clients send back the version they read so concurrent edits can be detected.
+     *
+     * @return the version, or null if unknown
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Sets the version of the student record.
+     *
+     * @param versao the version to set
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Returns a string representation of the student.
      *
@@ -122,6 +156,7 @@ public class AlunoDTO {
                 ", nome='" + nome + '\'' +
                 ", email='" + email + '\'' +
                 ", dataNascimento=" + dataNascimento +
+                ", versao=" + versao +
                 '}';
     }
 }
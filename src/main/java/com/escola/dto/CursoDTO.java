@@ -16,6 +16,7 @@ public class CursoDTO {
     private String nome;
     private String descricao;
     private int cargaHoraria;
+    private Long versao;
 
     /**
      * Default constructor.
@@ -38,6 +39,20 @@ public class CursoDTO {
         this.cargaHoraria = cargaHoraria;
     }
 
+    /**
+     * Parameterized constructor including the optimistic locking version.
+     *
+     * @param id           the unique identifier of the course
+     * @param nome         the name of the course
+     * @param descricao    a description of the course
+     * @param cargaHoraria the workload of the course in hours
+     * @param versao       the version of the course record
+     */
+    public CursoDTO(Long id, String nome, String descricao, int cargaHoraria, Long versao) {
+        this(id, nome, descricao, cargaHoraria);
+        this.versao = versao;
+    }
+
     // Getters and Setters
 
     public Long getId() {
@@ -72,6 +87,14 @@ public class CursoDTO {
         this.cargaHoraria = cargaHoraria;
     }
 
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -80,12 +103,13 @@ public class CursoDTO {
         return cargaHoraria == cursoDTO.cargaHoraria &&
                 Objects.equals(id, cursoDTO.id) &&
                 Objects.equals(nome, cursoDTO.nome) &&
-                Objects.equals(descricao, cursoDTO.descricao);
+                Objects.equals(descricao, cursoDTO.descricao) &&
+                Objects.equals(versao, cursoDTO.versao);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, nome, descricao, cargaHoraria);
+        return Objects.hash(id, nome, descricao, cargaHoraria, versao);
     }
 
     @Override
@@ -95,6 +119,7 @@ public class CursoDTO {
                 ", nome='" + nome + '\'' +
                 ", descricao='" + descricao + '\'' +
                 ", cargaHoraria=" + cargaHoraria +
+                ", versao=" + versao +
                 '}';
     }
 }
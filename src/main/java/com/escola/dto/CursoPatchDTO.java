@@ -0,0 +1,102 @@
+package com.escola.dto;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * DTO usado em requisições PATCH de curso.
+ * Todos os campos são opcionais: campos nulos não são alterados.
+ * <p>
+ * Ao contrário de {@link CursoDTO}, a carga horária é um {@code Integer}: um valor informado,
+ * mesmo 0, chega ao serviço e é validado, em vez de ser confundido com "não informado".
+ * O campo {@code versao}, quando informado, habilita o controle de concorrência otimista.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public class CursoPatchDTO implements Serializable {
+
+    private String nome;
+    private String descricao;
+    private Integer cargaHoraria;
+    private Long versao;
+
+    /**
+     * Construtor padrão necessário para desserialização.
+     */
+    public CursoPatchDTO() {
+    }
+
+    /**
+     * Construtor completo.
+     *
+     * @param nome         Novo nome, ou nulo.
+     * @param descricao    Nova descrição, ou nulo.
+     * @param cargaHoraria Nova carga horária, ou nulo.
+     * @param versao       Versão lida pelo cliente, ou nulo.
+     */
+    public CursoPatchDTO(String nome, String descricao, Integer cargaHoraria, Long versao) {
+        this.nome = nome;
+        this.descricao = descricao;
+        this.cargaHoraria = cargaHoraria;
+        this.versao = versao;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public void setNome(String nome) {
+        this.nome = nome;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+
+    public void setDescricao(String descricao) {
+        this.descricao = descricao;
+    }
+
+    public Integer getCargaHoraria() {
+        return cargaHoraria;
+    }
+
+    public void setCargaHoraria(Integer cargaHoraria) {
+        this.cargaHoraria = cargaHoraria;
+    }
+
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CursoPatchDTO)) return false;
+        CursoPatchDTO that = (CursoPatchDTO) o;
+        return Objects.equals(nome, that.nome) &&
+                Objects.equals(descricao, that.descricao) &&
+                Objects.equals(cargaHoraria, that.cargaHoraria) &&
+                Objects.equals(versao, that.versao);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(nome, descricao, cargaHoraria, versao);
+    }
+
+    @Override
+    public String toString() {
+        return "CursoPatchDTO{" +
+                "nome='" + nome + '\'' +
+                ", descricao='" + descricao + '\'' +
+                ", cargaHoraria=" + cargaHoraria +
+                ", versao=" + versao +
+                '}';
+    }
+}
@@ -34,6 +34,7 @@ public class MatriculaDTO implements Serializable {
     private String cursoNome;
     private LocalDate dataMatricula;
     private boolean cancelada;
+    private Long versao;
 
     /**
      * Construtor padrão.
@@ -64,6 +65,25 @@ public class MatriculaDTO implements Serializable {
         this.cancelada = cancelada;
     }
 
+    /**
+     * Construtor completo, incluindo a versão usada no controle de concorrência otimista.
+     *
+     * @param id             ID da matrícula.
+     * @param alunoId        ID do aluno.
+     * @param alunoNome      Nome do aluno.
+     * @param cursoId        ID do curso.
+     * @param cursoNome      Nome do curso.
+     * @param dataMatricula  Data da matrícula.
+     * @param cancelada      Flag indicando se a matrícula está cancelada.
+     * @param versao         Versão do registro da matrícula.
+     */
+    public MatriculaDTO(Long id, Long alunoId, String alunoNome,
+                        Long cursoId, String cursoNome,
+                        LocalDate dataMatricula, boolean cancelada, Long versao) {
+        this(id, alunoId, alunoNome, cursoId, cursoNome, dataMatricula, cancelada);
+        this.versao = versao;
+    }
+
     /**
      * Construtor baseado na entidade {@link Matricula}.
      *
@@ -77,6 +97,7 @@ public class MatriculaDTO implements Serializable {
         this.cursoNome = matricula.getCurso().getNome();
         this.dataMatricula = matricula.getDataMatricula();
         this.cancelada = matricula.isCancelada(); // Supondo que tenha este método
+        this.versao = matricula.getVersao();
     }
 
     public MatriculaDTO(Long id, Long id1, String nome, Long id2, String nome1, LocalDate dataMatricula) {
@@ -140,6 +161,14 @@ public class MatriculaDTO implements Serializable {
         this.cancelada = cancelada;
     }
 
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     // === equals, hashCode e toString ===
 
     @Override
@@ -153,12 +182,13 @@ public class MatriculaDTO implements Serializable {
                 Objects.equals(alunoNome, that.alunoNome) &&
                 Objects.equals(cursoId, that.cursoId) &&
                 Objects.equals(cursoNome, that.cursoNome) &&
-                Objects.equals(dataMatricula, that.dataMatricula);
+                Objects.equals(dataMatricula, that.dataMatricula) &&
+                Objects.equals(versao, that.versao);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, alunoId, alunoNome, cursoId, cursoNome, dataMatricula, cancelada);
+        return Objects.hash(id, alunoId, alunoNome, cursoId, cursoNome, dataMatricula, cancelada, versao);
     }
 
     @Override
@@ -171,6 +201,7 @@ public class MatriculaDTO implements Serializable {
                 ", cursoNome='" + cursoNome + '\'' +
                 ", dataMatricula=" + dataMatricula +
                 ", cancelada=" + cancelada +
+                ", versao=" + versao +
                 '}';
     }
 }
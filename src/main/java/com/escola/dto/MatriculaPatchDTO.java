@@ -0,0 +1,88 @@
+package com.escola.dto;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * DTO usado em requisições PATCH de matrícula.
+ * Todos os campos são opcionais: campos nulos não são alterados.
+ * <p>
+ * O campo {@code versao}, quando informado, habilita o controle de concorrência otimista.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public class MatriculaPatchDTO implements Serializable {
+
+    private Boolean cancelada;
+    private LocalDate dataMatricula;
+    private Long versao;
+
+    /**
+     * Construtor padrão necessário para desserialização.
+     */
+    public MatriculaPatchDTO() {
+    }
+
+    /**
+     * Construtor completo.
+     *
+     * @param cancelada     Novo estado de cancelamento, ou nulo.
+     * @param dataMatricula Nova data de matrícula, ou nulo.
+     * @param versao        Versão lida pelo cliente, ou nulo.
+     */
+    public MatriculaPatchDTO(Boolean cancelada, LocalDate dataMatricula, Long versao) {
+        this.cancelada = cancelada;
+        this.dataMatricula = dataMatricula;
+        this.versao = versao;
+    }
+
+    public Boolean getCancelada() {
+        return cancelada;
+    }
+
+    public void setCancelada(Boolean cancelada) {
+        this.cancelada = cancelada;
+    }
+
+    public LocalDate getDataMatricula() {
+        return dataMatricula;
+    }
+
+    public void setDataMatricula(LocalDate dataMatricula) {
+        this.dataMatricula = dataMatricula;
+    }
+
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MatriculaPatchDTO)) return false;
+        MatriculaPatchDTO that = (MatriculaPatchDTO) o;
+        return Objects.equals(cancelada, that.cancelada) &&
+                Objects.equals(dataMatricula, that.dataMatricula) &&
+                Objects.equals(versao, that.versao);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(cancelada, dataMatricula, versao);
+    }
+
+    @Override
+    public String toString() {
+        return "MatriculaPatchDTO{" +
+                "cancelada=" + cancelada +
+                ", dataMatricula=" + dataMatricula +
+                ", versao=" + versao +
+                '}';
+    }
+}
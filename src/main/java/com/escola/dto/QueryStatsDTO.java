@@ -0,0 +1,116 @@
+package com.escola.dto;
+
+import java.io.Serializable;
+
+/**
+ * DTO com as estatísticas acumuladas de uma consulta SQL normalizada (fingerprint),
+ * exposto pelo endpoint administrativo {@code /admin/queries}.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public class QueryStatsDTO implements Serializable {
+
+    private String fingerprint;
+    private long execucoes;
+    private double tempoTotalMs;
+    private double tempoMedioMs;
+    private double tempoMaximoMs;
+    private long linhas;
+    private String rotaMaisLenta;
+
+    /**
+     * Construtor padrão necessário para serialização.
+     */
+    public QueryStatsDTO() {
+    }
+
+    /**
+     * Construtor completo.
+     *
+     * @param fingerprint   SQL normalizado.
+     * @param execucoes     Número de execuções.
+     * @param tempoTotalMs  Tempo total de execução, em milissegundos.
+     * @param tempoMaximoMs Maior tempo de uma única execução, em milissegundos.
+     * @param linhas        Total de linhas lidas ou afetadas.
+     * @param rotaMaisLenta Rota que originou a execução mais lenta.
+     */
+    public QueryStatsDTO(String fingerprint, long execucoes, double tempoTotalMs, double tempoMaximoMs,
+                         long linhas, String rotaMaisLenta) {
+        this.fingerprint = fingerprint;
+        this.execucoes = execucoes;
+        this.tempoTotalMs = tempoTotalMs;
+        this.tempoMedioMs = execucoes == 0 ? 0 : tempoTotalMs / execucoes;
+        this.tempoMaximoMs = tempoMaximoMs;
+        this.linhas = linhas;
+        this.rotaMaisLenta = rotaMaisLenta;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public long getExecucoes() {
+        return execucoes;
+    }
+
+    public void setExecucoes(long execucoes) {
+        this.execucoes = execucoes;
+    }
+
+    public double getTempoTotalMs() {
+        return tempoTotalMs;
+    }
+
+    public void setTempoTotalMs(double tempoTotalMs) {
+        this.tempoTotalMs = tempoTotalMs;
+    }
+
+    public double getTempoMedioMs() {
+        return tempoMedioMs;
+    }
+
+    public void setTempoMedioMs(double tempoMedioMs) {
+        this.tempoMedioMs = tempoMedioMs;
+    }
+
+    public double getTempoMaximoMs() {
+        return tempoMaximoMs;
+    }
+
+    public void setTempoMaximoMs(double tempoMaximoMs) {
+        this.tempoMaximoMs = tempoMaximoMs;
+    }
+
+    public long getLinhas() {
+        return linhas;
+    }
+
+    public void setLinhas(long linhas) {
+        this.linhas = linhas;
+    }
+
+    public String getRotaMaisLenta() {
+        return rotaMaisLenta;
+    }
+
+    public void setRotaMaisLenta(String rotaMaisLenta) {
+        this.rotaMaisLenta = rotaMaisLenta;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryStatsDTO{" +
+                "fingerprint='" + fingerprint + '\'' +
+                ", execucoes=" + execucoes +
+                ", tempoTotalMs=" + tempoTotalMs +
+                ", tempoMaximoMs=" + tempoMaximoMs +
+                ", linhas=" + linhas +
+                ", rotaMaisLenta='" + rotaMaisLenta + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,52 @@
+package com.escola.exception;
+
+/**
+ * Unchecked exception thrown when an update is rejected by optimistic locking.
+ * <p>
+ * This exception indicates that the entity was modified by another transaction after
+ * the caller read it, so applying the caller's changes would silently overwrite that
+ * concurrent edit. It carries the version currently stored in the database so that
+ * clients can reload the entity and retry (typically translated into HTTP 409 Conflict).
+ * </p>
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public class ConflitoDeVersaoException extends RuntimeException {
+
+    private final Long versaoAtual;
+
+    /**
+     * Constructs a new {@code ConflitoDeVersaoException} with the specified detail message
+     * and the version currently stored for the entity.
+     *
+     * @param message     the detail message (which is saved for later retrieval by the {@link #getMessage()} method).
+     * @param versaoAtual the current version of the entity, or {@code null} if it no longer exists.
+     */
+    public ConflitoDeVersaoException(String message, Long versaoAtual) {
+        super(message);
+        this.versaoAtual = versaoAtual;
+    }
+
+    /**
+     * Constructs a new {@code ConflitoDeVersaoException} with the specified detail message,
+     * current version and cause.
+     *
+     * @param message     the detail message (which is saved for later retrieval by the {@link #getMessage()} method).
+     * @param versaoAtual the current version of the entity, or {@code null} if it no longer exists.
+     * @param cause       the cause (which is saved for later retrieval by the {@link #getCause()} method).
+     */
+    public ConflitoDeVersaoException(String message, Long versaoAtual, Throwable cause) {
+        super(message, cause);
+        this.versaoAtual = versaoAtual;
+    }
+
+    /**
+     * Gets the version currently stored in the database for the conflicting entity.
+     *
+     * @return The current version, or {@code null} if the entity no longer exists.
+     */
+    public Long getVersaoAtual() {
+        return versaoAtual;
+    }
+}
@@ -0,0 +1,120 @@
+package com.escola.loadtest;
+
+import com.escola.dto.AlunoDTO;
+import com.escola.dto.MatriculaRequestDTO;
+import com.escola.util.JsonMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The user journeys the load generator replays, each one a transaction of one or more
+ * requests. Every arrival of the open model starts one transaction of a scenario drawn from
+ * the configured mix.
+ * <p>
+ * Within a transaction, a request that depends on the previous response (enrolling the student
+ * just registered) is intended to start when that response arrives; only the first request of
+ * a transaction is bound to the arrival schedule.
+ * </p>
+ *
+ * @version 1.1
+ * @author FelipeCardoso
+ */
+enum Cenario {
+
+    /** Lists the courses, then opens one of them. */
+    NAVEGAR("GET /api/cursos") {
+        @Override
+        CompletableFuture<?> executar(ClienteCarga cliente, long inicioPretendido) {
+            return cliente.enviar(primeiroEndpoint, cliente.requisicao("/api/cursos").GET().build(), inicioPretendido)
+                    .thenCompose(lista -> {
+                        if (!sucesso(lista)) return CompletableFuture.completedFuture(lista);
+                        long id = cliente.cursoAleatorio();
+                        return cliente.enviar("GET /api/cursos/{id}",
+                                cliente.requisicao("/api/cursos/" + id).GET().build(), System.nanoTime());
+                    });
+        }
+    },
+
+    /** Registers a new student. */
+    CADASTRAR("POST /api/alunos") {
+        @Override
+        CompletableFuture<?> executar(ClienteCarga cliente, long inicioPretendido) {
+            return cadastrarAluno(cliente, inicioPretendido);
+        }
+    },
+
+    /** Registers a new student and enrolls them in a course. */
+    MATRICULAR("POST /api/alunos") {
+        @Override
+        CompletableFuture<?> executar(ClienteCarga cliente, long inicioPretendido) {
+            return cadastrarAluno(cliente, inicioPretendido).thenCompose(resposta -> {
+                if (!sucesso(resposta)) return CompletableFuture.completedFuture(resposta);
+                Long alunoId = ler(resposta, AlunoDTO.class).getId();
+                MatriculaRequestDTO matricula = new MatriculaRequestDTO(alunoId, cliente.cursoAleatorio());
+                return cliente.enviar("POST /api/matriculas", cliente.requisicao("/api/matriculas")
+                        .header("Content-Type", "application/json")
+                        .POST(corpo(matricula)).build(), System.nanoTime());
+            });
+        }
+    },
+
+    /** Opens the course engagement report. */
+    RELATORIO("GET /api/cursos/relatorio/engajamento") {
+        @Override
+        CompletableFuture<?> executar(ClienteCarga cliente, long inicioPretendido) {
+            return cliente.enviar(primeiroEndpoint,
+                    cliente.requisicao("/api/cursos/relatorio/engajamento").GET().build(), inicioPretendido);
+        }
+    };
+
+    /** Route template of the first request, the one bound to the arrival schedule. */
+    final String primeiroEndpoint;
+
+    Cenario(String primeiroEndpoint) {
+        this.primeiroEndpoint = primeiroEndpoint;
+    }
+
+    /**
+     * Starts one transaction of this scenario.
+     *
+     * @param cliente          The client that sends and records the requests.
+     * @param inicioPretendido Intended start of the first request ({@link System#nanoTime()}).
+     * @return Completes when the transaction ends, successfully or not.
+     */
+    abstract CompletableFuture<?> executar(ClienteCarga cliente, long inicioPretendido);
+
+    private static CompletableFuture<HttpResponse<byte[]>> cadastrarAluno(ClienteCarga cliente, long inicioPretendido) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDate nascimento = LocalDate.now().minusYears(16 + random.nextInt(45)).minusDays(random.nextInt(365));
+        AlunoDTO aluno = new AlunoDTO(null, "Aluno Carga " + random.nextInt(1_000_000), cliente.novoEmail(), nascimento);
+        return cliente.enviar("POST /api/alunos", cliente.requisicao("/api/alunos")
+                .header("Content-Type", "application/json")
+                .POST(corpo(aluno)).build(), inicioPretendido);
+    }
+
+    private static boolean sucesso(HttpResponse<?> resposta) {
+        return resposta.statusCode() >= 200 && resposta.statusCode() < 300;
+    }
+
+    private static HttpRequest.BodyPublisher corpo(Object dto) {
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(JsonMapper.toJsonBytes(dto));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> T ler(HttpResponse<byte[]> resposta, Class<T> clazz) {
+        try {
+            return JsonMapper.fromJson(resposta.body(), clazz);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
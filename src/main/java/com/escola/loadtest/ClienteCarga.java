@@ -0,0 +1,193 @@
+package com.escola.loadtest;
+
+import com.escola.dto.CursoDTO;
+import com.escola.util.JsonMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP side of the load tools: sends the requests of the scenarios and of traffic replays
+ * asynchronously and records each one against its endpoint.
+ * <p>
+ * The latency of a request is measured from its <em>intended</em> start, the instant the
+ * arrival schedule assigned to it, not from when it was actually sent. A request delayed by a
+ * stalled server, a full connection pool or a late scheduler is therefore charged the whole
+ * delay, which is what avoids coordinated omission. The same holds for requests that never get a
+ * response: timeouts and connection failures are recorded at the time they took to fail, and
+ * requests still in flight or dropped by the generator when the run ends are recorded at the time
+ * they had waited by then (see {@link #encerrarMedicao()}). The slowest outcomes are therefore
+ * never left out of the percentiles.
+ * </p>
+ *
+ * @version 1.2
+ * @author FelipeCardoso
+ */
+final class ClienteCarga {
+
+    private final HttpClient httpClient;
+    private final URI base;
+    private final Duration timeout;
+    private final String execucao = Long.toString(System.currentTimeMillis(), 36); // keeps e-mails unique across runs
+    private final AtomicLong sequencia = new AtomicLong();
+    private final ConcurrentHashMap<String, EstatisticasEndpoint> endpoints = new ConcurrentHashMap<>();
+    private final AtomicLong proximaMedida = new AtomicLong();
+    private final ConcurrentHashMap<Long, Pendente> emVoo = new ConcurrentHashMap<>(); // measured, no outcome yet
+    private final ConcurrentLinkedQueue<Pendente> descartadas = new ConcurrentLinkedQueue<>(); // measured, never sent
+    private volatile long inicioMedicao = Long.MAX_VALUE; // nanoTime; requests intended earlier are warm-up
+    private List<Long> cursoIds = List.of();
+
+    ClienteCarga(URI base, Duration timeout) {
+        this.base = base;
+        this.timeout = timeout;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    /**
+     * Loads the IDs of the existing courses, which the scenarios browse and enroll into.
+     *
+     * @throws IOException          If the instance cannot be reached or answers with an error.
+     * @throws InterruptedException If interrupted while waiting for the response.
+     */
+    void carregarCursos() throws IOException, InterruptedException {
+        HttpResponse<byte[]> resposta = httpClient.send(requisicao("/api/cursos").GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (resposta.statusCode() != 200) {
+            throw new IOException("GET /api/cursos respondeu " + resposta.statusCode());
+        }
+        List<Long> ids = new ArrayList<>();
+        for (CursoDTO curso : JsonMapper.fromJsonList(resposta.body(), CursoDTO.class)) {
+            ids.add(curso.getId());
+        }
+        if (ids.isEmpty()) {
+            throw new IOException("Nenhum curso cadastrado na instância; os cenários precisam de cursos.");
+        }
+        cursoIds = List.copyOf(ids);
+    }
+
+    /**
+     * From now on, requests intended to start at or after {@code nanoTime} are recorded.
+     */
+    void iniciarMedicao(long nanoTime) {
+        inicioMedicao = nanoTime;
+    }
+
+    long cursoAleatorio() {
+        return cursoIds.get(ThreadLocalRandom.current().nextInt(cursoIds.size()));
+    }
+
+    String novoEmail() {
+        return "carga." + execucao + "." + sequencia.incrementAndGet() + "@escola.com.br";
+    }
+
+    HttpRequest.Builder requisicao(String caminho) {
+        return HttpRequest.newBuilder(base.resolve(caminho))
+                .timeout(timeout)
+                .header("Accept", "application/json");
+    }
+
+    /**
+     * Sends a request and records its outcome under {@code endpoint}.
+     *
+     * @param endpoint          Route template used as the statistics key, e.g. {@code GET /api/cursos/{id}}.
+     * @param requisicao        The request.
+     * @param inicioPretendido  Intended start ({@link System#nanoTime()}).
+     * @return The response; completes exceptionally if none was received.
+     */
+    CompletableFuture<HttpResponse<byte[]>> enviar(String endpoint, HttpRequest requisicao, long inicioPretendido) {
+        Long medida = null;
+        if (inicioPretendido >= inicioMedicao) {
+            medida = proximaMedida.getAndIncrement();
+            emVoo.put(medida, new Pendente(endpoint, inicioPretendido));
+        }
+        Long chave = medida;
+        return httpClient.sendAsync(requisicao, HttpResponse.BodyHandlers.ofByteArray())
+                .whenComplete((resposta, erro) -> {
+                    // Not measured, or already charged by encerrarMedicao()
+                    if (chave == null || emVoo.remove(chave) == null) return;
+                    EstatisticasEndpoint estatisticas = estatisticas(endpoint);
+                    long latencia = desde(inicioPretendido);
+                    if (erro != null) {
+                        Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+                        estatisticas.registrarFalha(causa.getClass().getSimpleName(), latencia);
+                    } else {
+                        estatisticas.registrarResposta(latencia, resposta.statusCode());
+                    }
+                });
+    }
+
+    /**
+     * Records a request the caller decided not to send (too many in flight). It has no outcome
+     * yet; {@link #encerrarMedicao()} charges it the time it has waited by the end of the run.
+     *
+     * @param endpoint         Route template of the request that would have been sent.
+     * @param inicioPretendido Intended start ({@link System#nanoTime()}).
+     */
+    void descartar(String endpoint, long inicioPretendido) {
+        if (inicioPretendido >= inicioMedicao) {
+            descartadas.add(new Pendente(endpoint, inicioPretendido));
+        }
+    }
+
+    /**
+     * Ends the measurement: every measured request still in flight, and every dropped one, is
+     * recorded as a failure at the time elapsed since its intended start. Responses arriving
+     * later are ignored.
+     *
+     * @return The number of requests recorded this way.
+     */
+    int encerrarMedicao() {
+        int registradas = 0;
+        for (Long chave : emVoo.keySet()) {
+            Pendente pendente = emVoo.remove(chave);
+            if (pendente == null) continue; // completed meanwhile
+            estatisticas(pendente.endpoint).registrarFalha("Em voo ao encerrar", desde(pendente.inicioPretendido));
+            registradas++;
+        }
+        Pendente descartada;
+        while ((descartada = descartadas.poll()) != null) {
+            estatisticas(descartada.endpoint).registrarFalha("Descartada (limite em voo)", desde(descartada.inicioPretendido));
+            registradas++;
+        }
+        return registradas;
+    }
+
+    private EstatisticasEndpoint estatisticas(String endpoint) {
+        return endpoints.computeIfAbsent(endpoint, EstatisticasEndpoint::new);
+    }
+
+    private static long desde(long inicioPretendido) {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - inicioPretendido);
+    }
+
+    Collection<EstatisticasEndpoint> getEndpoints() {
+        return endpoints.values();
+    }
+
+    private static final class Pendente {
+        final String endpoint;
+        final long inicioPretendido;
+
+        Pendente(String endpoint, long inicioPretendido) {
+            this.endpoint = endpoint;
+            this.inicioPretendido = inicioPretendido;
+        }
+    }
+}
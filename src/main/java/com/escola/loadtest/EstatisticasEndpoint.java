@@ -0,0 +1,103 @@
+package com.escola.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Results of one endpoint during a load run: latency histogram (HDR, microseconds), response
+ * count and errors broken down by kind ({@code HTTP 409}, {@code HttpTimeoutException}...).
+ * Requests that got no response are in the histogram too, at the time they took to fail.
+ * <p>
+ * Latencies are recorded by the HTTP client threads into a {@link Recorder}; the reporter
+ * thread periodically swaps out the interval histogram and folds it into the cumulative one.
+ * </p>
+ *
+ * @version 1.1
+ * @author FelipeCardoso
+ */
+final class EstatisticasEndpoint {
+
+    private final String nome;
+    private final Recorder recorder = new Recorder(3);
+    private final Histogram acumulado = new Histogram(3); // reporter thread only
+    private Histogram intervalo; // recycled between swaps
+    private final LongAdder respostas = new LongAdder();
+    private final LongAdder erros = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> errosPorTipo = new ConcurrentHashMap<>();
+
+    EstatisticasEndpoint(String nome) {
+        this.nome = nome;
+    }
+
+    String getNome() {
+        return nome;
+    }
+
+    /**
+     * Records a response, successful or not.
+     *
+     * @param latenciaMicros Time since the intended start of the request.
+     * @param status         HTTP status code.
+     */
+    void registrarResposta(long latenciaMicros, int status) {
+        recorder.recordValue(Math.max(latenciaMicros, 0));
+        respostas.increment();
+        if (status < 200 || status >= 300) {
+            registrarErro("HTTP " + status);
+        }
+    }
+
+    /**
+     * Records a request that got no response (connection refused, timeout, still in flight or
+     * dropped when the run ended). Its latency is recorded like any other: leaving out the
+     * slowest outcomes would make the percentiles look better than what clients experienced.
+     *
+     * @param tipo           The kind of failure, e.g. the exception class.
+     * @param latenciaMicros Time from the intended start of the request until it failed.
+     */
+    void registrarFalha(String tipo, long latenciaMicros) {
+        recorder.recordValue(Math.max(latenciaMicros, 0));
+        registrarErro(tipo);
+    }
+
+    private void registrarErro(String tipo) {
+        erros.increment();
+        errosPorTipo.computeIfAbsent(tipo, t -> new LongAdder()).increment();
+    }
+
+    /**
+     * Takes the latencies recorded since the previous call and adds them to the totals.
+     * Called from the reporter thread only.
+     *
+     * @return The interval histogram; valid until the next call.
+     */
+    Histogram fecharIntervalo() {
+        intervalo = recorder.getIntervalHistogram(intervalo);
+        acumulado.add(intervalo);
+        return intervalo;
+    }
+
+    Histogram getAcumulado() {
+        return acumulado;
+    }
+
+    long getRespostas() {
+        return respostas.sum();
+    }
+
+    long getErros() {
+        return erros.sum();
+    }
+
+    /** @return Error counts by kind, sorted by kind. */
+    Map<String, Long> getErrosPorTipo() {
+        Map<String, Long> copia = new TreeMap<>();
+        errosPorTipo.forEach((tipo, contador) -> copia.put(tipo, contador.sum()));
+        return copia;
+    }
+}
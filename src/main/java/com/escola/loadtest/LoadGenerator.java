@@ -0,0 +1,275 @@
+package com.escola.loadtest;
+
+import com.escola.config.AppConfig;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator for a running instance of the application.
+ * <p>
+ * Transactions (see {@link Cenario}) arrive at a fixed rate, independently of how fast the
+ * instance answers: the schedule never waits for a response, so a slow server builds up
+ * requests in flight instead of silently lowering the offered load. Latencies are measured
+ * from each request's intended start (see {@link ClienteCarga}) into HDR histograms, failures
+ * and unfinished requests included, and the run ends with percentiles, throughput and errors
+ * per endpoint.
+ * </p>
+ * Configuration (environment variable, or the matching system property, e.g. {@code -Dloadtest.rate=200}):
+ * <ul>
+ * <li>{@code LOADTEST_URL}: base URL of the instance (default {@code http://localhost:8080}).</li>
+ * <li>{@code LOADTEST_RATE}: transactions per second (default 50).</li>
+ * <li>{@code LOADTEST_DURATION_S}: measured duration (default 60).</li>
+ * <li>{@code LOADTEST_WARMUP_S}: load applied before measuring, not reported (default 10).</li>
+ * <li>{@code LOADTEST_ARRIVALS}: {@code poisson} (default) or {@code constant} inter-arrival times.</li>
+ * <li>{@code LOADTEST_MIX}: scenario weights (default {@code navegar=50,cadastrar=15,matricular=25,relatorio=10}).</li>
+ * <li>{@code LOADTEST_TIMEOUT_MS}: per-request timeout (default 10000).</li>
+ * <li>{@code LOADTEST_MAX_IN_FLIGHT}: transactions in flight above which new arrivals are
+ * dropped, to protect the generator itself (default 10000). A dropped arrival is not sent, but
+ * it is recorded under its first endpoint at the time it has waited when the run ends.</li>
+ * <li>{@code LOADTEST_REPORT_S}: progress line interval (default 5).</li>
+ * <li>{@code LOADTEST_HGRM_DIR}: if set, one {@code .hgrm} percentile file per endpoint is written there.</li>
+ * </ul>
+ * Run it against a started instance with
+ * {@code java -Dloadtest.rate=200 -cp target/controle-cursos-app-1.0-SNAPSHOT.jar com.escola.loadtest.LoadGenerator}.
+ *
+ * @version 1.1
+ * @author FelipeCardoso
+ */
+public final class LoadGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+    private static final String MIX_PADRAO = "navegar=50,cadastrar=15,matricular=25,relatorio=10";
+    private static final double[] PERCENTIS = {50, 90, 99, 99.9};
+
+    private final ClienteCarga cliente;
+    private final double taxa;
+    private final boolean poisson;
+    private final long duracaoNanos;
+    private final long aquecimentoNanos;
+    private final int maxEmVoo;
+    private final Cenario[] sorteio; // one slot per unit of weight
+    private final AtomicInteger emVoo = new AtomicInteger();
+    private final AtomicLong descartadas = new AtomicLong();
+    private final Map<Cenario, AtomicLong> iniciadas = new EnumMap<>(Cenario.class);
+    private volatile long atrasoMaximoNanos; // scheduler thread only writes
+
+    private LoadGenerator(ClienteCarga cliente, double taxa, boolean poisson, long duracaoNanos,
+                          long aquecimentoNanos, int maxEmVoo, Map<Cenario, Integer> mix) {
+        this.cliente = cliente;
+        this.taxa = taxa;
+        this.poisson = poisson;
+        this.duracaoNanos = duracaoNanos;
+        this.aquecimentoNanos = aquecimentoNanos;
+        this.maxEmVoo = maxEmVoo;
+        List<Cenario> slots = new ArrayList<>();
+        mix.forEach((cenario, peso) -> {
+            for (int i = 0; i < peso; i++) slots.add(cenario);
+            iniciadas.put(cenario, new AtomicLong());
+        });
+        this.sorteio = slots.toArray(new Cenario[0]);
+    }
+
+    public static void main(String[] args) throws Exception {
+        URI base = URI.create(AppConfig.getString("LOADTEST_URL", "http://localhost:8080"));
+        double taxa = AppConfig.getInt("LOADTEST_RATE", 50);
+        long duracao = TimeUnit.SECONDS.toNanos(AppConfig.getLong("LOADTEST_DURATION_S", 60));
+        long aquecimento = TimeUnit.SECONDS.toNanos(AppConfig.getLong("LOADTEST_WARMUP_S", 10));
+        boolean poisson = !"constant".equalsIgnoreCase(AppConfig.getString("LOADTEST_ARRIVALS", "poisson"));
+        Duration timeout = Duration.ofMillis(AppConfig.getLong("LOADTEST_TIMEOUT_MS", 10_000));
+        int maxEmVoo = AppConfig.getInt("LOADTEST_MAX_IN_FLIGHT", 10_000);
+        long relatorioSegundos = AppConfig.getLong("LOADTEST_REPORT_S", 5);
+        String hgrm = AppConfig.getString("LOADTEST_HGRM_DIR", null);
+        Map<Cenario, Integer> mix = lerMix(AppConfig.getString("LOADTEST_MIX", MIX_PADRAO));
+        if (taxa <= 0 || mix.isEmpty()) {
+            throw new IllegalArgumentException("LOADTEST_RATE deve ser positivo e LOADTEST_MIX deve ter algum peso.");
+        }
+
+        ClienteCarga cliente = new ClienteCarga(base, timeout);
+        cliente.carregarCursos();
+        LoadGenerator gerador = new LoadGenerator(cliente, taxa, poisson, duracao, aquecimento, maxEmVoo, mix);
+        System.out.printf(Locale.ROOT, "Carga aberta em %s: %.1f transações/s (%s), aquecimento %ds, medição %ds, mix %s%n",
+                base, taxa, poisson ? "poisson" : "constante", TimeUnit.NANOSECONDS.toSeconds(aquecimento),
+                TimeUnit.NANOSECONDS.toSeconds(duracao), mix);
+
+        gerador.executar(relatorioSegundos, timeout);
+        gerador.imprimirResultado(System.out);
+        if (hgrm != null) {
+            gerador.gravarHistogramas(Path.of(hgrm));
+        }
+    }
+
+    /**
+     * Parses {@code cenario=peso} pairs; scenarios left out get no traffic.
+     */
+    static Map<Cenario, Integer> lerMix(String mix) {
+        Map<Cenario, Integer> pesos = new EnumMap<>(Cenario.class);
+        for (String par : mix.split(",")) {
+            String[] partes = par.split("=");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("LOADTEST_MIX inválido: '" + par + "' (esperado cenario=peso).");
+            }
+            int peso = Integer.parseInt(partes[1].trim());
+            if (peso > 0) {
+                pesos.put(Cenario.valueOf(partes[0].trim().toUpperCase(Locale.ROOT)), peso);
+            }
+        }
+        return pesos;
+    }
+
+    private void executar(long relatorioSegundos, Duration timeout) throws InterruptedException {
+        long inicio = System.nanoTime();
+        long inicioMedicao = inicio + aquecimentoNanos;
+        long fim = inicioMedicao + duracaoNanos;
+        cliente.iniciarMedicao(inicioMedicao);
+
+        ScheduledExecutorService relator = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "loadtest-relatorio");
+            t.setDaemon(true);
+            return t;
+        });
+        relator.scheduleAtFixedRate(() -> imprimirProgresso(inicio, relatorioSegundos),
+                relatorioSegundos, relatorioSegundos, TimeUnit.SECONDS);
+        try {
+            agendar(inicio, fim);
+            // Let what is in flight finish; nothing can take longer than the request timeouts of a transaction
+            long limite = System.nanoTime() + 2 * timeout.toNanos();
+            while (emVoo.get() > 0 && System.nanoTime() < limite) {
+                Thread.sleep(50);
+            }
+        } finally {
+            relator.shutdownNow();
+            relator.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        int semResultado = cliente.encerrarMedicao();
+        if (semResultado > 0) {
+            logger.warn("{} requisição(ões) em voo ou descartada(s) ao encerrar, registradas com o tempo decorrido desde o início pretendido.",
+                    semResultado);
+        }
+        for (EstatisticasEndpoint endpoint : cliente.getEndpoints()) {
+            endpoint.fecharIntervalo();
+        }
+    }
+
+    /**
+     * The arrival loop. Arrival times are computed up front from the rate; the thread parks
+     * until each one and never blocks on a response. When it runs late (GC, CPU starvation)
+     * it catches up at once, and the requests keep their intended start times.
+     */
+    private void agendar(long inicio, long fim) {
+        SplittableRandom random = new SplittableRandom(); // arrivals and scenario draws
+        double intervaloMedio = TimeUnit.SECONDS.toNanos(1) / taxa;
+        double proxima = inicio;
+        while (proxima < fim) {
+            long pretendido = (long) proxima;
+            long espera;
+            while ((espera = pretendido - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(espera);
+            }
+            if (pretendido >= inicio + aquecimentoNanos) {
+                atrasoMaximoNanos = Math.max(atrasoMaximoNanos, -espera);
+            }
+            Cenario cenario = sorteio[random.nextInt(sorteio.length)];
+            if (emVoo.get() >= maxEmVoo) {
+                descartadas.incrementAndGet();
+                cliente.descartar(cenario.primeiroEndpoint, pretendido);
+            } else {
+                disparar(cenario, pretendido);
+            }
+            proxima += poisson ? -Math.log(1 - random.nextDouble()) * intervaloMedio : intervaloMedio;
+        }
+    }
+
+    private void disparar(Cenario cenario, long pretendido) {
+        emVoo.incrementAndGet();
+        iniciadas.get(cenario).incrementAndGet();
+        try {
+            cenario.executar(cliente, pretendido).whenComplete((r, e) -> emVoo.decrementAndGet());
+        } catch (RuntimeException e) {
+            emVoo.decrementAndGet();
+            logger.error("Falha ao disparar transação {}: {}", cenario, e.getMessage());
+        }
+    }
+
+    private void imprimirProgresso(long inicio, long relatorioSegundos) {
+        long decorridoNanos = System.nanoTime() - inicio;
+        long decorrido = TimeUnit.NANOSECONDS.toSeconds(decorridoNanos);
+        if (decorridoNanos < aquecimentoNanos) {
+            System.out.printf("[%4ds] aquecendo, em voo %d%n", decorrido, emVoo.get());
+            return;
+        }
+        Histogram total = new Histogram(3);
+        long erros = 0;
+        for (EstatisticasEndpoint endpoint : cliente.getEndpoints()) {
+            total.add(endpoint.fecharIntervalo());
+            erros += endpoint.getErros();
+        }
+        // The first interval after the warm-up may be shorter than the others
+        double janela = Math.min(relatorioSegundos, (decorridoNanos - aquecimentoNanos) / 1e9);
+        System.out.printf(Locale.ROOT, "[%4ds] %7.1f resp/s, em voo %d, p50 %s ms, p99 %s ms, max %s ms, erros %d%n",
+                decorrido, total.getTotalCount() / janela, emVoo.get(),
+                ms(total.getValueAtPercentile(50)), ms(total.getValueAtPercentile(99)), ms(total.getMaxValue()), erros);
+    }
+
+    private void imprimirResultado(PrintStream out) {
+        double segundos = duracaoNanos / 1e9;
+        List<EstatisticasEndpoint> endpoints = new ArrayList<>(cliente.getEndpoints());
+        endpoints.sort(Comparator.comparing(EstatisticasEndpoint::getNome));
+
+        out.println();
+        out.printf(Locale.ROOT, "%-40s %9s %9s %8s %9s %9s %9s %9s %9s%n",
+                "Endpoint", "respostas", "resp/s", "erros", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (EstatisticasEndpoint endpoint : endpoints) {
+            Histogram h = endpoint.getAcumulado();
+            StringBuilder percentis = new StringBuilder();
+            for (double p : PERCENTIS) {
+                percentis.append(String.format(Locale.ROOT, " %9s", ms(h.getValueAtPercentile(p))));
+            }
+            out.printf(Locale.ROOT, "%-40s %9d %9.1f %8d%s %9s%n", endpoint.getNome(), endpoint.getRespostas(),
+                    endpoint.getRespostas() / segundos, endpoint.getErros(), percentis, ms(h.getMaxValue()));
+        }
+
+        out.println();
+        for (EstatisticasEndpoint endpoint : endpoints) {
+            endpoint.getErrosPorTipo().forEach((tipo, quantidade) ->
+                    out.printf("Erros %s: %s x%d%n", endpoint.getNome(), tipo, quantidade));
+        }
+        out.printf(Locale.ROOT, "Transações iniciadas: %s; descartadas (limite em voo): %d; atraso máximo do agendador: %s ms%n",
+                iniciadas, descartadas.get(), ms(TimeUnit.NANOSECONDS.toMicros(atrasoMaximoNanos)));
+    }
+
+    private void gravarHistogramas(Path diretorio) throws IOException {
+        Files.createDirectories(diretorio);
+        for (EstatisticasEndpoint endpoint : cliente.getEndpoints()) {
+            String arquivo = endpoint.getNome().replaceAll("[^A-Za-z0-9]+", "_").replaceAll("^_|_$", "") + ".hgrm";
+            try (PrintStream out = new PrintStream(Files.newOutputStream(diretorio.resolve(arquivo)), false, "UTF-8")) {
+                endpoint.getAcumulado().outputPercentileDistribution(out, 1000.0); // microseconds -> ms
+            }
+        }
+        System.out.println("Histogramas gravados em " + diretorio.toAbsolutePath());
+    }
+
+    private static String ms(long micros) {
+        return String.format(Locale.ROOT, "%.2f", micros / 1000.0);
+    }
+}
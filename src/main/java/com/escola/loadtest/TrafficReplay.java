@@ -0,0 +1,357 @@
+package com.escola.loadtest;
+
+import com.escola.config.AppConfig;
+import com.escola.monitoring.CapturedRequest;
+import com.escola.monitoring.RequestContext;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Re-issues traffic recorded by {@link com.escola.monitoring.TrafficCapture} against an instance,
+ * keeping the original spacing between requests divided by a speed factor (1x, 2x, 10x...), and
+ * compares the latency percentiles of each endpoint with the original run.
+ * <p>
+ * Requests are sent on their own schedule, like the {@link LoadGenerator} arrivals: the replay
+ * never waits for a response, and latency counts from each request's intended send time. The
+ * comparison is made on server time, the only figure both runs have: the capture recorded the
+ * {@code app} duration of each response's {@code Server-Timing} header, and the replay reads the
+ * same entry from the responses it gets. The replay's client-side latencies (queueing, network,
+ * coordinated omission included) are reported in a separate table. Requests whose body was not captured are skipped, and responses whose status differs from the
+ * original one are counted per endpoint (e.g. a 409 where the original run created the student).
+ * </p>
+ * Configuration (environment variable or system property, as in {@link LoadGenerator}):
+ * <ul>
+ * <li>{@code REPLAY_URL}: target instance (default {@code http://localhost:8080}).</li>
+ * <li>{@code REPLAY_SOURCE}: a capture file, or a directory of them (default {@code captura}).</li>
+ * <li>{@code REPLAY_SPEED}: speed factor, e.g. {@code 1}, {@code 2x}, {@code 10x} (default 1).</li>
+ * <li>{@code REPLAY_TIMEOUT_MS}: per-request timeout (default 10000).</li>
+ * <li>{@code REPLAY_MAX_IN_FLIGHT}: requests in flight above which new ones are dropped (default 10000);
+ * dropped requests are recorded at the time they have waited when the replay ends.</li>
+ * </ul>
+ * Run it with
+ * {@code java -Dreplay.speed=2x -Dreplay.url=http://staging:8080 -cp target/controle-cursos-app-1.0-SNAPSHOT.jar com.escola.loadtest.TrafficReplay}.
+ *
+ * @version 1.2
+ * @author FelipeCardoso
+ */
+public final class TrafficReplay {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrafficReplay.class);
+    private static final double[] PERCENTIS = {50, 90, 99, 99.9};
+    /** Capture files are written in completion order; requests are re-sorted within this window. */
+    private static final long JANELA_REORDENACAO_MICROS = TimeUnit.SECONDS.toMicros(60);
+    // Headers the HTTP client sets itself and refuses to take from the caller
+    private static final Set<String> CABECALHOS_RESTRITOS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    private final ClienteCarga cliente;
+    private final double velocidade;
+    private final int maxEmVoo;
+    private final Map<String, Histogram> originais = new TreeMap<>(); // scheduler thread only
+    private final ConcurrentHashMap<String, Histogram> servidorReplay = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> divergencias = new ConcurrentHashMap<>();
+    private final AtomicInteger emVoo = new AtomicInteger();
+    private final AtomicLong enviadas = new AtomicLong();
+    private final AtomicLong semCorpo = new AtomicLong();
+    private final AtomicLong descartadas = new AtomicLong();
+    private long duracaoOriginalMicros;
+    private long atrasoMaximoNanos;
+
+    private TrafficReplay(ClienteCarga cliente, double velocidade, int maxEmVoo) {
+        this.cliente = cliente;
+        this.velocidade = velocidade;
+        this.maxEmVoo = maxEmVoo;
+    }
+
+    public static void main(String[] args) throws Exception {
+        URI base = URI.create(AppConfig.getString("REPLAY_URL", "http://localhost:8080"));
+        Path origem = Paths.get(AppConfig.getString("REPLAY_SOURCE", "captura"));
+        String velocidadeTexto = AppConfig.getString("REPLAY_SPEED", "1").toLowerCase(Locale.ROOT);
+        double velocidade = Double.parseDouble(velocidadeTexto.endsWith("x")
+                ? velocidadeTexto.substring(0, velocidadeTexto.length() - 1) : velocidadeTexto);
+        Duration timeout = Duration.ofMillis(AppConfig.getLong("REPLAY_TIMEOUT_MS", 10_000));
+        int maxEmVoo = AppConfig.getInt("REPLAY_MAX_IN_FLIGHT", 10_000);
+        if (velocidade <= 0) {
+            throw new IllegalArgumentException("REPLAY_SPEED deve ser positivo.");
+        }
+
+        List<Path> arquivos = arquivosDeCaptura(origem);
+        if (arquivos.isEmpty()) {
+            throw new IOException("Nenhum arquivo de captura em " + origem.toAbsolutePath() + ".");
+        }
+        System.out.printf(Locale.ROOT, "Replay de %d arquivo(s) de %s em %s a %.1fx%n",
+                arquivos.size(), origem.toAbsolutePath(), base, velocidade);
+
+        ClienteCarga cliente = new ClienteCarga(base, timeout);
+        cliente.iniciarMedicao(Long.MIN_VALUE); // everything replayed is measured
+        TrafficReplay replay = new TrafficReplay(cliente, velocidade, maxEmVoo);
+        long inicio = System.nanoTime();
+        replay.reproduzir(new Leitor(arquivos));
+        long limite = System.nanoTime() + 2 * timeout.toNanos();
+        while (replay.emVoo.get() > 0 && System.nanoTime() < limite) {
+            Thread.sleep(50);
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        int semResultado = cliente.encerrarMedicao();
+        if (semResultado > 0) {
+            logger.warn("{} requisição(ões) em voo ou descartada(s) ao encerrar, registradas com o tempo decorrido desde o envio pretendido.",
+                    semResultado);
+        }
+        for (EstatisticasEndpoint endpoint : cliente.getEndpoints()) {
+            endpoint.fecharIntervalo();
+        }
+        replay.imprimirComparacao(System.out, segundos);
+    }
+
+    static List<Path> arquivosDeCaptura(Path origem) throws IOException {
+        if (!Files.isDirectory(origem)) {
+            return List.of(origem);
+        }
+        try (Stream<Path> arquivos = Files.list(origem)) {
+            return arquivos.filter(p -> p.getFileName().toString().endsWith(".bin"))
+                    .sorted() // names sort chronologically
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * The send loop: each request is due at the replay start plus its original offset divided
+     * by the speed. The thread parks until then and never blocks on a response.
+     */
+    private void reproduzir(Iterator<CapturedRequest> leitor) {
+        PriorityQueue<CapturedRequest> pendentes =
+                new PriorityQueue<>(Comparator.comparingLong(CapturedRequest::getInicioEpochMicros));
+        long maisRecenteLido = Long.MIN_VALUE;
+        long inicioOriginal = Long.MIN_VALUE;
+        long inicioReplay = 0;
+        long ultimoOriginal = 0;
+
+        while (true) {
+            while (leitor.hasNext() && (pendentes.isEmpty()
+                    || maisRecenteLido - pendentes.peek().getInicioEpochMicros() < JANELA_REORDENACAO_MICROS)) {
+                CapturedRequest lida = leitor.next();
+                pendentes.add(lida);
+                maisRecenteLido = Math.max(maisRecenteLido, lida.getInicioEpochMicros());
+            }
+            CapturedRequest requisicao = pendentes.poll();
+            if (requisicao == null) break;
+            if (inicioOriginal == Long.MIN_VALUE) {
+                inicioOriginal = requisicao.getInicioEpochMicros();
+                inicioReplay = System.nanoTime();
+            }
+            ultimoOriginal = Math.max(ultimoOriginal, requisicao.getInicioEpochMicros());
+
+            long deslocamento = (long) (TimeUnit.MICROSECONDS.toNanos(requisicao.getInicioEpochMicros() - inicioOriginal) / velocidade);
+            long pretendido = inicioReplay + Math.max(deslocamento, 0);
+            long espera;
+            while ((espera = pretendido - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(espera);
+            }
+            atrasoMaximoNanos = Math.max(atrasoMaximoNanos, -espera);
+            enviar(requisicao, pretendido);
+        }
+        duracaoOriginalMicros = ultimoOriginal - inicioOriginal;
+    }
+
+    private void enviar(CapturedRequest requisicao, long pretendido) {
+        if (requisicao.getCorpo() == null) {
+            semCorpo.incrementAndGet();
+            return;
+        }
+        originais.computeIfAbsent(requisicao.getEndpoint(), e -> new Histogram(3))
+                .recordValue(requisicao.getDuracaoMicros());
+        if (emVoo.get() >= maxEmVoo) {
+            descartadas.incrementAndGet();
+            cliente.descartar(requisicao.getEndpoint(), pretendido);
+            return;
+        }
+
+        HttpRequest.Builder builder = cliente.requisicao(requisicao.getUri());
+        for (String[] cabecalho : requisicao.getCabecalhos()) {
+            if (!CABECALHOS_RESTRITOS.contains(cabecalho[0].toLowerCase(Locale.ROOT))) {
+                builder.setHeader(cabecalho[0], cabecalho[1]);
+            }
+        }
+        byte[] corpo = requisicao.getCorpo();
+        builder.method(requisicao.getMetodo(), corpo.length == 0
+                ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(corpo));
+
+        emVoo.incrementAndGet();
+        enviadas.incrementAndGet();
+        try {
+            cliente.enviar(requisicao.getEndpoint(), builder.build(), pretendido).whenComplete((resposta, erro) -> {
+                emVoo.decrementAndGet();
+                long servidor = resposta == null ? -1
+                        : RequestContext.lerDuracaoApp(resposta.headers().firstValue("Server-Timing").orElse(null));
+                if (servidor >= 0) {
+                    servidorReplay.computeIfAbsent(requisicao.getEndpoint(), e -> new ConcurrentHistogram(3))
+                            .recordValue(servidor);
+                }
+                if (resposta != null && resposta.statusCode() != requisicao.getStatus()) {
+                    divergencias.computeIfAbsent(requisicao.getEndpoint() + ": " + requisicao.getStatus()
+                            + " -> " + resposta.statusCode(), k -> new LongAdder()).increment();
+                }
+            });
+        } catch (RuntimeException e) {
+            emVoo.decrementAndGet();
+            logger.error("Falha ao reenviar {} {}: {}", requisicao.getMetodo(), requisicao.getUri(), e.getMessage());
+        }
+    }
+
+    private void imprimirComparacao(PrintStream out, double segundos) {
+        Map<String, EstatisticasEndpoint> replay = new TreeMap<>();
+        cliente.getEndpoints().forEach(e -> replay.put(e.getNome(), e));
+        Set<String> endpoints = new TreeSet<>(originais.keySet());
+        endpoints.addAll(replay.keySet());
+
+        out.println();
+        out.println("Tempo no servidor em ms (Server-Timing app): original / replay / variação");
+        StringBuilder titulo = new StringBuilder(String.format("%-40s %8s %8s", "Endpoint", "reqs", "medidas"));
+        for (double p : PERCENTIS) {
+            titulo.append(String.format(Locale.ROOT, " %24s", percentil(p)));
+        }
+        out.println(titulo);
+        for (String endpoint : endpoints) {
+            Histogram original = originais.getOrDefault(endpoint, new Histogram(3));
+            Histogram reproduzido = servidorReplay.getOrDefault(endpoint, new Histogram(3));
+            StringBuilder linha = new StringBuilder(String.format("%-40s %8d %8d", endpoint,
+                    original.getTotalCount(), reproduzido.getTotalCount()));
+            for (double p : PERCENTIS) {
+                long antes = original.getValueAtPercentile(p);
+                long depois = reproduzido.getValueAtPercentile(p);
+                String variacao = antes == 0 || reproduzido.getTotalCount() == 0
+                        ? "-" : String.format(Locale.ROOT, "%+.0f%%", 100.0 * (depois - antes) / antes);
+                linha.append(String.format(Locale.ROOT, " %24s", ms(antes) + "/"
+                        + (reproduzido.getTotalCount() == 0 ? "-" : ms(depois)) + "/" + variacao));
+            }
+            out.println(linha);
+        }
+
+        out.println();
+        out.println("Latência no cliente em ms (replay, desde o envio pretendido; falhas incluídas)");
+        titulo = new StringBuilder(String.format("%-40s %8s %7s", "Endpoint", "reqs", "erros"));
+        for (double p : PERCENTIS) {
+            titulo.append(String.format(Locale.ROOT, " %9s", percentil(p)));
+        }
+        out.println(titulo.append(String.format(" %9s", "max")));
+        for (EstatisticasEndpoint estatisticas : replay.values()) {
+            Histogram h = estatisticas.getAcumulado();
+            StringBuilder linha = new StringBuilder(String.format("%-40s %8d %7d", estatisticas.getNome(),
+                    h.getTotalCount(), estatisticas.getErros()));
+            for (double p : PERCENTIS) {
+                linha.append(String.format(Locale.ROOT, " %9s", ms(h.getValueAtPercentile(p))));
+            }
+            out.println(linha.append(String.format(" %9s", ms(h.getMaxValue()))));
+        }
+
+        out.println();
+        for (EstatisticasEndpoint estatisticas : replay.values()) {
+            estatisticas.getErrosPorTipo().forEach((tipo, quantidade) ->
+                    out.printf("Erros %s: %s x%d%n", estatisticas.getNome(), tipo, quantidade));
+        }
+        new TreeMap<>(divergencias).forEach((chave, quantidade) ->
+                out.printf("Status divergente %s x%d%n", chave, quantidade.sum()));
+        out.printf(Locale.ROOT, "Enviadas: %d em %.1fs (original: %.1fs); sem corpo capturado: %d; descartadas (limite em voo): %d; "
+                        + "atraso máximo do agendador: %s ms%n",
+                enviadas.get(), segundos, duracaoOriginalMicros / 1e6, semCorpo.get(), descartadas.get(),
+                ms(TimeUnit.NANOSECONDS.toMicros(atrasoMaximoNanos)));
+    }
+
+    private static String percentil(double p) {
+        return "p" + (p == (long) p ? Long.toString((long) p) : Double.toString(p));
+    }
+
+    private static String ms(long micros) {
+        return String.format(Locale.ROOT, "%.2f", micros / 1000.0);
+    }
+
+    /**
+     * Reads the requests of several capture files in sequence, stopping each file at its end or
+     * at its first torn frame.
+     */
+    static final class Leitor implements Iterator<CapturedRequest> {
+        private final Iterator<Path> arquivos;
+        private DataInputStream atual;
+        private CapturedRequest proxima;
+
+        Leitor(List<Path> arquivos) {
+            this.arquivos = arquivos.iterator();
+            avancar();
+        }
+
+        private void avancar() {
+            proxima = null;
+            while (proxima == null) {
+                try {
+                    if (atual == null) {
+                        if (!arquivos.hasNext()) return;
+                        Path arquivo = arquivos.next();
+                        atual = new DataInputStream(new BufferedInputStream(Files.newInputStream(arquivo), 64 * 1024));
+                        CapturedRequest.lerCabecalho(atual);
+                    }
+                    proxima = CapturedRequest.ler(atual);
+                    if (proxima == null) {
+                        atual.close();
+                        atual = null;
+                    }
+                } catch (IOException e) {
+                    logger.warn("Arquivo de captura ignorado a partir deste ponto: {}", e.getMessage());
+                    fechar();
+                }
+            }
+        }
+
+        private void fechar() {
+            try {
+                if (atual != null) atual.close();
+            } catch (IOException ignorada) {
+                // read-only stream
+            }
+            atual = null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return proxima != null;
+        }
+
+        @Override
+        public CapturedRequest next() {
+            if (proxima == null) throw new NoSuchElementException();
+            CapturedRequest atualRequisicao = proxima;
+            avancar();
+            return atualRequisicao;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.escola.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import com.escola.monitoring.Tracing;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Samples the low-level events of chosen loggers: of the events at or below {@code nivelMaximo}
+ * (default DEBUG) from loggers whose names start with one of the {@code prefixo}s, only a
+ * fraction {@code taxa} is logged. Meant for per-request debug lines, which are useful on a
+ * sample of the traffic and a bottleneck on all of it.
+ * <p>
+ * The decision is made per request, not per line: it is derived from the trace ID in the MDC, so
+ * a sampled request keeps all its lines and the others keep none. Outside a request it is random.
+ * A turbo filter runs before the message is formatted, and also answers {@code isDebugEnabled()},
+ * so guarded code is skipped for the unsampled requests. Events the logger's level already
+ * rejects cost only a level comparison.
+ * </p>
+ * The rate can be changed at runtime through {@code POST /admin/loggers/amostragem}.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public class AmostragemTurboFilter extends TurboFilter {
+
+    private final List<String> prefixos = new CopyOnWriteArrayList<>();
+    private volatile Level nivelMaximo = Level.DEBUG;
+    private volatile double taxa = 1.0;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level == null || level.levelInt > nivelMaximo.levelInt || level.levelInt < logger.getEffectiveLevel().levelInt) {
+            return FilterReply.NEUTRAL; // not sampled here, or rejected by the level anyway
+        }
+        if (!corresponde(logger.getName())) {
+            return FilterReply.NEUTRAL;
+        }
+        return amostrado() ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private boolean corresponde(String nome) {
+        for (String prefixo : prefixos) {
+            if (nome.startsWith(prefixo)) return true;
+        }
+        return false;
+    }
+
+    private boolean amostrado() {
+        double atual = taxa;
+        if (atual >= 1.0) return true;
+        if (atual <= 0.0) return false;
+        String traceId = MDC.get(Tracing.MDC_TRACE_ID);
+        if (traceId == null) {
+            return ThreadLocalRandom.current().nextDouble() < atual;
+        }
+        return (traceId.hashCode() & Integer.MAX_VALUE) < atual * Integer.MAX_VALUE;
+    }
+
+    // --- Configuration (logback.xml and LogRuntime) ---
+
+    /** Adds a logger name prefix; repeat {@code <prefixo>} for several. */
+    public void addPrefixo(String prefixo) {
+        prefixos.add(prefixo.trim());
+    }
+
+    public List<String> getPrefixos() {
+        return List.copyOf(prefixos);
+    }
+
+    public void setNivelMaximo(String nivel) {
+        this.nivelMaximo = Level.toLevel(nivel, Level.DEBUG);
+    }
+
+    public Level getNivelMaximo() {
+        return nivelMaximo;
+    }
+
+    /**
+     * @param taxa Fraction of the requests logged, from 0 to 1.
+     */
+    public void setTaxa(double taxa) {
+        if (taxa < 0 || taxa > 1) {
+            throw new IllegalArgumentException("A taxa de amostragem deve estar entre 0 e 1: " + taxa);
+        }
+        this.taxa = taxa;
+    }
+
+    public double getTaxa() {
+        return taxa;
+    }
+}
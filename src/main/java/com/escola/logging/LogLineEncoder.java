@@ -0,0 +1,109 @@
+package com.escola.logging;
+
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.encoder.EncoderBase;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Encodes each event as one line, either JSON for log collectors ({@code formato} {@code json},
+ * the default) or text following {@code pattern} ({@code formato} {@code texto}). Having both in
+ * one encoder lets {@code LOG_FORMAT} pick the output without a second, unused appender.
+ * <p>
+ * The JSON line looks like:
+ * <pre>{@code
+ * {"ts":"2024-05-01T12:00:00.123Z","level":"WARN","logger":"com.escola.controller.AlunoController",
+ *  "thread":"pool-1-thread-3","traceId":"4bf92f35...","msg":"...","exception":"..."}
+ * }</pre>
+ * Every MDC entry (such as the {@code traceId} set by the request tracing) becomes a top-level
+ * field; {@code exception} holds the stack trace, when there is one.
+ * </p>
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public class LogLineEncoder extends EncoderBase<ILoggingEvent> {
+
+    private static final JsonFactory FABRICA = new JsonFactory();
+    private static final byte[] VAZIO = new byte[0];
+    private static final String FORMATO_TEXTO = "texto";
+
+    private String formato = "json";
+    private String pattern = "%d{HH:mm:ss.SSS} [%thread] %-5level %logger{36} [%X{traceId}] -- %msg%n";
+    private PatternLayoutEncoder texto; // only for formato=texto
+
+    public void setFormato(String formato) {
+        this.formato = formato.trim().toLowerCase();
+    }
+
+    public void setPattern(String pattern) {
+        this.pattern = pattern;
+    }
+
+    @Override
+    public void start() {
+        if (FORMATO_TEXTO.equals(formato)) {
+            texto = new PatternLayoutEncoder();
+            texto.setContext(getContext());
+            texto.setPattern(pattern);
+            texto.start();
+        } else if (!"json".equals(formato)) {
+            addWarn("Formato de log desconhecido [" + formato + "]; usando json.");
+        }
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        if (texto != null) texto.stop();
+        super.stop();
+    }
+
+    @Override
+    public byte[] headerBytes() {
+        return VAZIO;
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent evento) {
+        if (texto != null) {
+            return texto.encode(evento);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (JsonGenerator json = FABRICA.createGenerator(bytes, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeStringField("ts", Instant.ofEpochMilli(evento.getTimeStamp()).toString());
+            json.writeStringField("level", evento.getLevel().toString());
+            json.writeStringField("logger", evento.getLoggerName());
+            json.writeStringField("thread", evento.getThreadName());
+            for (Map.Entry<String, String> entrada : evento.getMDCPropertyMap().entrySet()) {
+                json.writeStringField(entrada.getKey(), entrada.getValue());
+            }
+            json.writeStringField("msg", evento.getFormattedMessage());
+            IThrowableProxy erro = evento.getThrowableProxy();
+            if (erro != null) {
+                json.writeStringField("exception", ThrowableProxyUtil.asString(erro));
+            }
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // in-memory stream: cannot happen
+        }
+        bytes.write('\n');
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return VAZIO;
+    }
+}
@@ -0,0 +1,145 @@
+package com.escola.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.Appender;
+import com.escola.monitoring.MetricsRegistry;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runtime view and control of the logging pipeline, for {@code /admin/loggers}: logger levels,
+ * sampling rates of the {@link AmostragemTurboFilter}s and the counters of the
+ * {@link RingBufferAppender}s. Changes apply immediately and last until the next restart.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public final class LogRuntime {
+
+    private static final String PREFIXO_METRICAS = "logging.";
+
+    private LogRuntime() {}
+
+    /**
+     * @return The loggers with an explicitly set level (including ROOT), name → level.
+     */
+    public static Map<String, String> niveis() {
+        Map<String, String> niveis = new LinkedHashMap<>();
+        for (Logger logger : contexto().getLoggerList()) {
+            if (logger.getLevel() != null) {
+                niveis.put(logger.getName(), logger.getLevel().toString());
+            }
+        }
+        return niveis;
+    }
+
+    /**
+     * Sets the level of a logger.
+     *
+     * @param nome  Logger name, e.g. {@code com.escola.controller}, or {@code ROOT}.
+     * @param nivel TRACE, DEBUG, INFO, WARN, ERROR or OFF; empty to inherit from the parent again.
+     * @return The resulting effective level.
+     * @throws IllegalArgumentException If the name is missing or the level is unknown.
+     */
+    public static String definirNivel(String nome, String nivel) {
+        if (nome == null || nome.isBlank()) {
+            throw new IllegalArgumentException("Informe o nome do logger.");
+        }
+        Logger logger = contexto().getLogger(nome.trim());
+        if (nivel == null || nivel.isBlank()) {
+            if (Logger.ROOT_LOGGER_NAME.equalsIgnoreCase(logger.getName())) {
+                throw new IllegalArgumentException("O logger ROOT precisa de um nível.");
+            }
+            logger.setLevel(null);
+        } else {
+            Level novo = Level.toLevel(nivel.trim(), null);
+            if (novo == null) {
+                throw new IllegalArgumentException("Nível de log desconhecido: " + nivel);
+            }
+            logger.setLevel(novo);
+        }
+        return logger.getEffectiveLevel().toString();
+    }
+
+    /**
+     * @return The sampling filters: their prefixes, maximum level and rate.
+     */
+    public static List<Map<String, Object>> amostragens() {
+        List<Map<String, Object>> resultado = new ArrayList<>();
+        for (TurboFilter filtro : contexto().getTurboFilterList()) {
+            if (filtro instanceof AmostragemTurboFilter) {
+                AmostragemTurboFilter amostragem = (AmostragemTurboFilter) filtro;
+                Map<String, Object> m = new LinkedHashMap<>();
+                m.put("prefixos", amostragem.getPrefixos());
+                m.put("nivelMaximo", amostragem.getNivelMaximo().toString());
+                m.put("taxa", amostragem.getTaxa());
+                resultado.add(m);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Changes the rate of the sampling filter that covers a prefix.
+     *
+     * @param prefixo One of the filter's prefixes.
+     * @param taxa    Fraction of the requests logged, from 0 to 1.
+     * @throws IllegalArgumentException If no filter has the prefix or the rate is out of range.
+     */
+    public static void definirTaxa(String prefixo, double taxa) {
+        for (TurboFilter filtro : contexto().getTurboFilterList()) {
+            if (filtro instanceof AmostragemTurboFilter
+                    && ((AmostragemTurboFilter) filtro).getPrefixos().contains(prefixo)) {
+                ((AmostragemTurboFilter) filtro).setTaxa(taxa);
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Nenhum filtro de amostragem para o prefixo: " + prefixo);
+    }
+
+    /**
+     * Publishes the counters of the asynchronous appenders of the root logger in the
+     * {@link MetricsRegistry}, as {@code logging.<appender name>}.
+     */
+    public static void registrarMetricas() {
+        ILoggerFactory fabrica = LoggerFactory.getILoggerFactory();
+        if (!(fabrica instanceof LoggerContext)) return;
+        Iterator<Appender<ILoggingEvent>> appenders =
+                ((LoggerContext) fabrica).getLogger(Logger.ROOT_LOGGER_NAME).iteratorForAppenders();
+        while (appenders.hasNext()) {
+            Appender<ILoggingEvent> appender = appenders.next();
+            if (appender instanceof RingBufferAppender) {
+                MetricsRegistry.getInstance().registrar(PREFIXO_METRICAS + appender.getName(),
+                        ((RingBufferAppender) appender)::metricas);
+            }
+        }
+    }
+
+    /**
+     * Stops the logging context, writing the events still buffered. Call it last at shutdown.
+     */
+    public static void encerrar() {
+        ILoggerFactory fabrica = LoggerFactory.getILoggerFactory();
+        if (fabrica instanceof LoggerContext) {
+            ((LoggerContext) fabrica).stop();
+        }
+    }
+
+    private static LoggerContext contexto() {
+        ILoggerFactory fabrica = LoggerFactory.getILoggerFactory();
+        if (!(fabrica instanceof LoggerContext)) {
+            throw new IllegalStateException("O backend de logging não é o Logback: " + fabrica.getClass().getName());
+        }
+        return (LoggerContext) fabrica;
+    }
+}
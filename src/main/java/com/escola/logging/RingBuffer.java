@@ -0,0 +1,90 @@
+package com.escola.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer (D. Vyukov's bounded MPMC
+ * algorithm, reduced to one consumer). Each slot has a sequence number telling whether it is free
+ * for the producer claiming position {@code p} ({@code seq == p}) or holds an element for the
+ * consumer ({@code seq == p + 1}). A producer never waits: when the buffer is full,
+ * {@link #offer(Object)} fails at once.
+ *
+ * @param <E> The element type.
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+final class RingBuffer<E> {
+
+    private final int mascara;
+    private final AtomicReferenceArray<E> elementos;
+    private final AtomicLongArray sequencias;
+    private final AtomicLong cauda = new AtomicLong(); // next position to claim (producers)
+    private volatile long cabeca; // next position to read; written by the consumer only
+
+    /**
+     * @param capacidade Requested capacity; rounded up to a power of two.
+     */
+    RingBuffer(int capacidade) {
+        int tamanho = Integer.highestOneBit(Math.max(2, capacidade) - 1) << 1;
+        this.mascara = tamanho - 1;
+        this.elementos = new AtomicReferenceArray<>(tamanho);
+        this.sequencias = new AtomicLongArray(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            sequencias.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an element, if there is room.
+     *
+     * @return {@code false} when the buffer is full.
+     */
+    boolean offer(E elemento) {
+        long posicao = cauda.get();
+        while (true) {
+            int indice = (int) (posicao & mascara);
+            long diferenca = sequencias.get(indice) - posicao;
+            if (diferenca == 0) {
+                if (cauda.compareAndSet(posicao, posicao + 1)) {
+                    elementos.lazySet(indice, elemento);
+                    sequencias.set(indice, posicao + 1); // publishes the element
+                    return true;
+                }
+                posicao = cauda.get();
+            } else if (diferenca < 0) {
+                return false; // the slot still holds an element a lap behind
+            } else {
+                posicao = cauda.get(); // another producer claimed it
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest element. Consumer thread only.
+     *
+     * @return The element, or {@code null} when the buffer is empty.
+     */
+    E poll() {
+        long posicao = cabeca;
+        int indice = (int) (posicao & mascara);
+        if (sequencias.get(indice) != posicao + 1) {
+            return null;
+        }
+        E elemento = elementos.get(indice);
+        elementos.lazySet(indice, null);
+        sequencias.set(indice, posicao + mascara + 1); // free for the producer one lap ahead
+        cabeca = posicao + 1;
+        return elemento;
+    }
+
+    /** @return Elements waiting; approximate while producers are active. */
+    int tamanho() {
+        return (int) Math.max(0, cauda.get() - cabeca);
+    }
+
+    int capacidade() {
+        return mascara + 1;
+    }
+}
@@ -0,0 +1,222 @@
+package com.escola.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous appender that never blocks the logging thread. Events go to a lock-free
+ * {@link RingBuffer}, and one worker thread hands them to the attached appenders (the console,
+ * typically), so a slow stdout no longer holds request threads on its lock.
+ * <p>
+ * Drop policy: once the buffer is fuller than {@code 1 - reservaPreservada} (default 90%),
+ * events below {@code nivelPreservado} (default WARN) are dropped, so the remaining room is kept
+ * for warnings and errors; those are only dropped when the buffer is completely full. Dropped
+ * events are counted per level and exposed under {@code logging.<appender name>} in
+ * {@code /admin/metrics} (see {@link LogRuntime#registrarMetricas()}).
+ * </p>
+ * <p>
+ * The message, MDC and thread name are captured on the logging thread; caller data is not.
+ * On {@link #stop()} the worker writes what is still buffered, for at most
+ * {@code tempoMaximoDescargaMs} (default 1000).
+ * </p>
+ * Configured in {@code logback.xml}:
+ * <pre>{@code
+ * <appender name="ASYNC" class="com.escola.logging.RingBufferAppender">
+ *     <capacidade>8192</capacidade>
+ *     <appender-ref ref="console"/>
+ * </appender>
+ * }</pre>
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public class RingBufferAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    private static final long OCIOSIDADE_MINIMA_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long OCIOSIDADE_MAXIMA_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final Level[] NIVEIS = {Level.TRACE, Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR};
+
+    private final AppenderAttachableImpl<ILoggingEvent> anexados = new AppenderAttachableImpl<>();
+    private int capacidade = 8192;
+    private Level nivelPreservado = Level.WARN;
+    private double reservaPreservada = 0.1;
+    private long tempoMaximoDescargaMs = 1000;
+
+    private RingBuffer<ILoggingEvent> buffer;
+    private int limiteComuns; // occupancy from which events below nivelPreservado are dropped
+    private Thread trabalhador;
+    private volatile boolean executando;
+
+    private final LongAdder enfileirados = new LongAdder();
+    private final LongAdder escritos = new LongAdder();
+    private final LongAdder[] descartados = new LongAdder[NIVEIS.length];
+
+    public RingBufferAppender() {
+        for (int i = 0; i < descartados.length; i++) {
+            descartados[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void start() {
+        if (isStarted()) return;
+        if (!anexados.iteratorForAppenders().hasNext()) {
+            addError("Nenhum appender anexado a [" + getName() + "]; use <appender-ref>.");
+            return;
+        }
+        buffer = new RingBuffer<>(capacidade);
+        limiteComuns = (int) (buffer.capacidade() * (1 - Math.max(0, Math.min(1, reservaPreservada))));
+        executando = true;
+        trabalhador = new Thread(this::consumir, "log-" + getName());
+        trabalhador.setDaemon(true);
+        trabalhador.start();
+        super.start();
+    }
+
+    @Override
+    protected void append(ILoggingEvent evento) {
+        if (!evento.getLevel().isGreaterOrEqual(nivelPreservado) && buffer.tamanho() >= limiteComuns) {
+            descartar(evento);
+            return;
+        }
+        evento.prepareForDeferredProcessing();
+        if (buffer.offer(evento)) {
+            enfileirados.increment();
+        } else {
+            descartar(evento);
+        }
+    }
+
+    private void descartar(ILoggingEvent evento) {
+        int nivel = evento.getLevel().toInt();
+        for (int i = NIVEIS.length - 1; i >= 0; i--) {
+            if (nivel >= NIVEIS[i].toInt()) {
+                descartados[i].increment();
+                return;
+            }
+        }
+        descartados[0].increment();
+    }
+
+    private void consumir() {
+        long ociosidade = OCIOSIDADE_MINIMA_NANOS;
+        while (true) {
+            ILoggingEvent evento = buffer.poll();
+            if (evento != null) {
+                anexados.appendLoopOnAppenders(evento);
+                escritos.increment();
+                ociosidade = OCIOSIDADE_MINIMA_NANOS;
+            } else if (!executando) {
+                return; // stopped and drained
+            } else {
+                LockSupport.parkNanos(this, ociosidade);
+                ociosidade = Math.min(ociosidade * 2, OCIOSIDADE_MAXIMA_NANOS);
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) return;
+        super.stop(); // new events are ignored from here on
+        executando = false;
+        LockSupport.unpark(trabalhador);
+        try {
+            trabalhador.join(tempoMaximoDescargaMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (trabalhador.isAlive()) {
+            addWarn("Tempo de descarga esgotado; " + buffer.tamanho() + " eventos não foram escritos.");
+        }
+        anexados.detachAndStopAllAppenders();
+    }
+
+    /**
+     * @return Buffer occupancy and the number of events queued, written and dropped per level.
+     */
+    public Map<String, Object> metricas() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("capacidade", buffer == null ? capacidade : buffer.capacidade());
+        m.put("pendentes", buffer == null ? 0 : buffer.tamanho());
+        m.put("enfileirados", enfileirados.sum());
+        m.put("escritos", escritos.sum());
+        long total = 0;
+        Map<String, Long> porNivel = new LinkedHashMap<>();
+        for (int i = 0; i < NIVEIS.length; i++) {
+            long n = descartados[i].sum();
+            porNivel.put(NIVEIS[i].toString(), n);
+            total += n;
+        }
+        m.put("descartados", total);
+        m.put("descartadosPorNivel", porNivel);
+        return m;
+    }
+
+    // --- Configuration (logback.xml) ---
+
+    public void setCapacidade(int capacidade) {
+        this.capacidade = capacidade;
+    }
+
+    public void setNivelPreservado(String nivel) {
+        this.nivelPreservado = Level.toLevel(nivel, Level.WARN);
+    }
+
+    public void setReservaPreservada(double reservaPreservada) {
+        this.reservaPreservada = reservaPreservada;
+    }
+
+    public void setTempoMaximoDescargaMs(long tempoMaximoDescargaMs) {
+        this.tempoMaximoDescargaMs = tempoMaximoDescargaMs;
+    }
+
+    // --- AppenderAttachable ---
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> appender) {
+        anexados.addAppender(appender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return anexados.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String nome) {
+        return anexados.getAppender(nome);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return anexados.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        anexados.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return anexados.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String nome) {
+        return anexados.detachAppender(nome);
+    }
+}
@@ -49,6 +49,14 @@ public class Aluno {
     @Column(nullable = false, name = "data_nascimento")
     private LocalDate dataNascimento;
 
+    /**
+     * Optimistic locking version, incremented by the persistence provider on every update.
+     * Concurrent writers holding a stale version are rejected instead of silently overwriting each other.
+     */
+    @Version
+    @Column(name = "versao", nullable = false, columnDefinition = "bigint default 0")
+    private long versao;
+
     /**
      * The set of enrollments associated with this student.
      * This represents the courses the student is enrolled in.
@@ -162,6 +170,23 @@ public class Aluno {
         this.matriculas = matriculas;
     }
 
+    /**
+     * Gets the optimistic locking version of this entity.
+     * @return The current version.
+     */
+    public long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Sets the optimistic locking version of this entity.
+     * Typically only used by JPA, or to carry the version a client read before an update.
+     * @param versao The version.
+     */
+    public void setVersao(long versao) {
+        this.versao = versao;
+    }
+
     // equals, hashCode, and toString
 
     @Override
@@ -47,6 +47,14 @@ public class Curso {
     @Column(name = "carga_horaria", nullable = false)
     private int cargaHoraria;
 
+    /**
+     * Optimistic locking version, incremented by the persistence provider on every update.
+     * Concurrent writers holding a stale version are rejected instead of silently overwriting each other.
+     */
+    @Version
+    @Column(name = "versao", nullable = false, columnDefinition = "bigint default 0")
+    private long versao;
+
     /**
      * The set of enrollments associated with this course.
      * This represents the students enrolled in this course.
@@ -157,6 +165,23 @@ public class Curso {
         this.matriculas = matriculas;
     }
 
+    /**
+     * Gets the optimistic locking version of this entity.
+     * @return The current version.
+     */
+    public long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Sets the optimistic locking version of this entity.
+     * Typically only used by JPA, or to carry the version a client read before an update.
+     * @param versao The version.
+     */
+    public void setVersao(long versao) {
+        this.versao = versao;
+    }
+
     // equals, hashCode, and toString
     @Override
     public boolean equals(Object o) {
@@ -56,6 +56,14 @@ public class Matricula {
     @Column(name = "data_matricula", nullable = false)
     private LocalDate dataMatricula;
 
+    /**
+     * Optimistic locking version, incremented by the persistence provider on every update.
+     * Concurrent writers holding a stale version are rejected instead of silently overwriting each other.
+     */
+    @Version
+    @Column(name = "versao", nullable = false, columnDefinition = "bigint default 0")
+    private long versao;
+
     /**
      * Default constructor required by JPA.
      */
@@ -154,6 +162,23 @@ public class Matricula {
         this.dataMatricula = dataMatricula;
     }
 
+    /**
+     * Gets the optimistic locking version of this entity.
+     * @return The current version.
+     */
+    public long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Sets the optimistic locking version of this entity.
+     * Typically only used by JPA, or to carry the version a client read before an update.
+     * @param versao The version.
+     */
+    public void setVersao(long versao) {
+        this.versao = versao;
+    }
+
     // equals, hashCode, and toString
     @Override
     public boolean equals(Object o) {
@@ -0,0 +1,52 @@
+package com.escola.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one cache operation. Disabled by default, since a busy cache produces one per
+ * lookup; {@link FlightRecording} enables it on request.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+@Name(CacheOperationEvent.NOME)
+@Label("Cache Operation")
+@Category({"Escola", "Cache"})
+@Description("Busca, gravação, invalidação ou despejo em um cache")
+@StackTrace(false)
+@Enabled(false)
+public final class CacheOperationEvent extends jdk.jfr.Event {
+
+    static final String NOME = "com.escola.CacheOperation";
+
+    @Label("Cache")
+    String cache;
+
+    @Label("Operação")
+    String operacao;
+
+    @Label("Resultado")
+    String resultado;
+
+    /**
+     * Records an operation, if the event is enabled in some recording.
+     *
+     * @param cache     The cache name, e.g. {@code "alunos.porId"}.
+     * @param operacao  {@code buscar}, {@code guardar}, {@code invalidar} or {@code despejar}.
+     * @param resultado E.g. {@code acerto}, {@code falha}, {@code expirado}, {@code descartado}.
+     */
+    public static void registrar(String cache, String operacao, String resultado) {
+        CacheOperationEvent evento = new CacheOperationEvent();
+        if (evento.isEnabled()) {
+            evento.cache = cache;
+            evento.operacao = operacao;
+            evento.resultado = resultado;
+            evento.commit();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.escola.monitoring;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * One request recorded by {@link TrafficCapture}, and its binary encoding in the capture files.
+ * <p>
+ * Every record is a frame {@code [int length][int crc32][payload]}, as in the repository journal:
+ * a frame that ends early or fails its CRC marks the end of the valid data, so a file cut short
+ * by a crash is still readable up to its last complete request. Files start with
+ * {@link #MAGICO}.
+ * </p>
+ *
+ * @version 1.1
+ * @author FelipeCardoso
+ */
+public final class CapturedRequest {
+
+    /** First bytes of every capture file (format name and version). */
+    public static final byte[] MAGICO = "ESCCAP1\n".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int TAMANHO_MAXIMO = 64 * 1024 * 1024;
+
+    private final long inicioEpochMicros;
+    private final long duracaoMicros;
+    private final int status;
+    private final String metodo;
+    private final String rota;
+    private final String uri;
+    private final List<String[]> cabecalhos;
+    private final byte[] corpo;
+
+    /**
+     * @param inicioEpochMicros When the request arrived (microseconds since the epoch).
+     * @param duracaoMicros     Server time: the {@code app} entry of the response's {@code Server-Timing}
+     *                          header, or the capture filter's own measurement when the response has none.
+     * @param status            Response status code.
+     * @param metodo            HTTP method.
+     * @param rota              Route template, e.g. {@code /api/alunos/{id}}, used to group statistics.
+     * @param uri               Raw path and query, as sent (already masked).
+     * @param cabecalhos        Request headers as name/value pairs (already masked).
+     * @param corpo             Request body (already masked), or {@code null} if it was not captured.
+     */
+    public CapturedRequest(long inicioEpochMicros, long duracaoMicros, int status, String metodo, String rota,
+                           String uri, List<String[]> cabecalhos, byte[] corpo) {
+        this.inicioEpochMicros = inicioEpochMicros;
+        this.duracaoMicros = duracaoMicros;
+        this.status = status;
+        this.metodo = metodo;
+        this.rota = rota;
+        this.uri = uri;
+        this.cabecalhos = Collections.unmodifiableList(cabecalhos);
+        this.corpo = corpo;
+    }
+
+    public long getInicioEpochMicros() {
+        return inicioEpochMicros;
+    }
+
+    public long getDuracaoMicros() {
+        return duracaoMicros;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getMetodo() {
+        return metodo;
+    }
+
+    public String getRota() {
+        return rota;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public List<String[]> getCabecalhos() {
+        return cabecalhos;
+    }
+
+    /** @return The body, or {@code null} when it was too large or not text and was left out. */
+    public byte[] getCorpo() {
+        return corpo;
+    }
+
+    /** @return {@code "METHOD /route/template"}, the key replay statistics are grouped by. */
+    public String getEndpoint() {
+        return metodo + " " + rota;
+    }
+
+    // --- Encoding ---
+
+    /**
+     * @return This request as a complete frame, ready to be appended to a capture file.
+     */
+    byte[] quadro() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128 + (corpo == null ? 0 : corpo.length));
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0); // length and CRC are patched below
+            out.writeInt(0);
+            out.writeLong(inicioEpochMicros);
+            out.writeLong(duracaoMicros);
+            out.writeShort(status);
+            escreverTexto(out, metodo);
+            escreverTexto(out, rota);
+            escreverTexto(out, uri);
+            out.writeShort(cabecalhos.size());
+            for (String[] cabecalho : cabecalhos) {
+                escreverTexto(out, cabecalho[0]);
+                escreverTexto(out, cabecalho[1]);
+            }
+            if (corpo == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(corpo.length);
+                out.write(corpo);
+            }
+            out.flush();
+            byte[] quadro = bytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(quadro, 8, quadro.length - 8);
+            ByteBuffer.wrap(quadro).putInt(quadro.length - 8).putInt((int) crc.getValue());
+            return quadro;
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in-memory stream: cannot happen
+        }
+    }
+
+    private static void escreverTexto(DataOutputStream out, String texto) throws IOException {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // --- Decoding ---
+
+    /**
+     * Checks the header of a capture file.
+     *
+     * @param in The file, positioned at its start.
+     * @throws IOException If the file is not a capture file.
+     */
+    public static void lerCabecalho(DataInputStream in) throws IOException {
+        byte[] magico = new byte[MAGICO.length];
+        try {
+            in.readFully(magico);
+        } catch (EOFException e) {
+            throw new IOException("Arquivo de captura vazio ou truncado.");
+        }
+        if (!Arrays.equals(magico, MAGICO)) {
+            throw new IOException("Não é um arquivo de captura de tráfego.");
+        }
+    }
+
+    /**
+     * Reads the next request of a capture file.
+     *
+     * @param in The file, after its header.
+     * @return The request, or {@code null} at the end of the file or at a torn/corrupt frame.
+     * @throws IOException If the underlying stream fails.
+     */
+    public static CapturedRequest ler(DataInputStream in) throws IOException {
+        int tamanho;
+        int crcEsperado;
+        try {
+            tamanho = in.readInt();
+            crcEsperado = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (tamanho < 1 || tamanho > TAMANHO_MAXIMO) return null;
+        byte[] payload = new byte[tamanho];
+        try {
+            in.readFully(payload);
+        } catch (EOFException e) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        if ((int) crc.getValue() != crcEsperado) return null;
+
+        DataInputStream dados = new DataInputStream(new ByteArrayInputStream(payload));
+        long inicio = dados.readLong();
+        long duracao = dados.readLong();
+        int status = dados.readUnsignedShort();
+        String metodo = lerTexto(dados);
+        String rota = lerTexto(dados);
+        String uri = lerTexto(dados);
+        int quantidade = dados.readUnsignedShort();
+        List<String[]> cabecalhos = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            cabecalhos.add(new String[]{lerTexto(dados), lerTexto(dados)});
+        }
+        int tamanhoCorpo = dados.readInt();
+        byte[] corpo = null;
+        if (tamanhoCorpo >= 0) {
+            corpo = new byte[tamanhoCorpo];
+            dados.readFully(corpo);
+        }
+        return new CapturedRequest(inicio, duracao, status, metodo, rota, uri, cabecalhos, corpo);
+    }
+
+    private static String lerTexto(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,177 @@
+package com.escola.monitoring;
+
+import com.escola.config.AppConfig;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * On-demand JFR recording of the running instance, driven by {@code /admin/jfr}.
+ * <p>
+ * A recording combines the JDK events of the chosen configuration ({@code default}, about 1%
+ * overhead, or {@code profile}, with more frequent sampling) with the application events:
+ * {@link HttpRequestEvent}, {@link UnitOfWorkEvent}, {@link RepositoryCallEvent} and, when asked
+ * for, {@link CacheOperationEvent}. One file therefore shows a request, its repository calls,
+ * its transactions and the GC, JIT and lock activity around them on a single timeline.
+ * </p>
+ * <p>
+ * Files are written to {@code JFR_DIR} (default {@code jfr}) when the recording stops: on
+ * {@code POST /admin/jfr/stop}, when its maximum duration elapses, or at shutdown.
+ * Only one recording runs at a time. Every recording is bounded: it lasts at most
+ * {@code JFR_MAX_SECONDS} (default 600) and keeps at most {@code JFR_MAX_SIZE_MB} (default 256)
+ * of data, dropping the oldest chunks beyond that, so a forgotten recording cannot fill the disk.
+ * </p>
+ *
+ * @version 1.1
+ * @author FelipeCardoso
+ */
+public final class FlightRecording {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecording.class);
+    private static final FlightRecording INSTANCE = new FlightRecording();
+    private static final DateTimeFormatter CARIMBO = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path diretorio = Paths.get(AppConfig.getString("JFR_DIR", "jfr"));
+    private final long duracaoMaxima = Math.max(1, AppConfig.getLong("JFR_MAX_SECONDS", 600));
+    private final long tamanhoMaximo = Math.max(1, AppConfig.getLong("JFR_MAX_SIZE_MB", 256)) * 1024 * 1024;
+
+    // Guarded by this
+    private Recording gravacao;
+    private Path destino;
+    private String configuracao;
+    private boolean cache;
+
+    private FlightRecording() {}
+
+    public static FlightRecording getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts a recording.
+     *
+     * @param nomeConfiguracao JFR configuration: {@code default} or {@code profile}.
+     * @param comCache         Whether to record every cache operation (high volume).
+     * @param maxSegundos      Stops the recording by itself after this many seconds; 0 for the
+     *                         longest allowed ({@code JFR_MAX_SECONDS}).
+     * @return The recording status, as in {@link #estado()}.
+     * @throws IllegalStateException    If a recording is already running.
+     * @throws IllegalArgumentException If the configuration does not exist or the duration is out of range.
+     */
+    public synchronized Map<String, Object> iniciar(String nomeConfiguracao, boolean comCache, long maxSegundos) {
+        if (gravacao != null && gravacao.getState() == RecordingState.RUNNING) {
+            throw new IllegalStateException("Já existe uma gravação JFR em andamento: " + destino);
+        }
+        if (maxSegundos < 0 || maxSegundos > duracaoMaxima) {
+            throw new IllegalArgumentException("maxSegundos deve estar entre 1 e " + duracaoMaxima + " (JFR_MAX_SECONDS).");
+        }
+        long duracao = maxSegundos == 0 ? duracaoMaxima : maxSegundos;
+        descartarEncerrada();
+        Configuration config;
+        try {
+            config = Configuration.getConfiguration(nomeConfiguracao);
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Configuração JFR desconhecida: " + nomeConfiguracao);
+        }
+        try {
+            Files.createDirectories(diretorio);
+            Path arquivo = diretorio.resolve("escola-" + LocalDateTime.now().format(CARIMBO) + ".jfr").toAbsolutePath();
+            Recording nova = new Recording(config);
+            nova.setName("escola");
+            nova.setToDisk(true);
+            nova.setDestination(arquivo);
+            if (comCache) {
+                nova.enable(CacheOperationEvent.NOME);
+            }
+            nova.setDuration(Duration.ofSeconds(duracao));
+            nova.setMaxSize(tamanhoMaximo);
+            nova.start();
+            gravacao = nova;
+            destino = arquivo;
+            configuracao = nomeConfiguracao;
+            cache = comCache;
+        } catch (IOException e) {
+            throw new RuntimeException("Não foi possível iniciar a gravação JFR: " + e.getMessage(), e);
+        }
+        logger.info("Gravação JFR iniciada (configuração '{}', cache {}): {}", nomeConfiguracao, comCache, destino);
+        return estado();
+    }
+
+    /**
+     * Stops the recording and writes its file. A recording that already ended by reaching its
+     * maximum duration is just reported.
+     *
+     * @return The file and its size.
+     * @throws IllegalStateException If no recording was started.
+     */
+    public synchronized Map<String, Object> parar() {
+        if (gravacao == null) {
+            throw new IllegalStateException("Nenhuma gravação JFR em andamento.");
+        }
+        if (gravacao.getState() == RecordingState.RUNNING) {
+            gravacao.stop(); // writes the destination file
+        }
+        Map<String, Object> resultado = estado();
+        descartarEncerrada();
+        logger.info("Gravação JFR encerrada: {} ({} bytes)", resultado.get("arquivo"), resultado.get("bytes"));
+        return resultado;
+    }
+
+    /**
+     * @return Whether a recording exists, its state, configuration, file and size so far.
+     */
+    public synchronized Map<String, Object> estado() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("estado", gravacao == null ? "NENHUMA" : gravacao.getState().name());
+        if (gravacao != null) {
+            m.put("configuracao", configuracao);
+            m.put("cache", cache);
+            m.put("inicio", gravacao.getStartTime() == null ? null : gravacao.getStartTime().toString());
+            m.put("duracaoMaximaSegundos", gravacao.getDuration() == null ? 0 : gravacao.getDuration().getSeconds());
+            m.put("tamanhoMaximoBytes", gravacao.getMaxSize());
+            m.put("arquivo", destino.toString());
+            m.put("bytes", tamanho());
+        }
+        return m;
+    }
+
+    /**
+     * Stops a running recording at shutdown, so its file is not lost.
+     */
+    public synchronized void encerrar() {
+        if (gravacao != null && gravacao.getState() == RecordingState.RUNNING) {
+            parar();
+        }
+    }
+
+    private long tamanho() {
+        try {
+            if (gravacao.getState() != RecordingState.RUNNING && Files.exists(destino)) {
+                return Files.size(destino);
+            }
+        } catch (IOException e) {
+            logger.debug("Falha ao ler o tamanho de {}: {}", destino, e.getMessage());
+        }
+        return gravacao.getSize(); // data written to the repository so far
+    }
+
+    private void descartarEncerrada() {
+        if (gravacao != null) {
+            gravacao.close();
+            gravacao = null;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.escola.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for one API request, from dispatch until the controller returns.
+ * Begun and committed by {@link RequestContext}.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+@Name("com.escola.HttpRequest")
+@Label("HTTP Request")
+@Category({"Escola", "HTTP"})
+@Description("Requisição da API, do despacho até o retorno do controller")
+@StackTrace(false)
+final class HttpRequestEvent extends jdk.jfr.Event {
+
+    @Label("Rota")
+    @Description("Método e template da rota, e.g. GET /api/alunos/{id}")
+    String rota;
+
+    @Label("Status")
+    int status;
+
+    @Label("Bytes")
+    @Description("Tamanho do corpo da resposta")
+    @DataAmount
+    long bytes;
+
+    @Label("Consultas")
+    @Description("Comandos SQL executados pela requisição")
+    int consultas;
+
+    @Label("Tempo no Banco")
+    @Timespan
+    long tempoBanco;
+}
@@ -0,0 +1,36 @@
+package com.escola.monitoring;
+
+import org.hibernate.engine.jdbc.connections.internal.DriverManagerConnectionProviderImpl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Hibernate connection provider that keeps the built-in driver-manager pool but hands out
+ * instrumented connections, so every statement is timed and recorded by {@link SqlStatistics}.
+ * Registered through {@code hibernate.connection.provider_class} by the PersistenceManager.
+ * <p>
+ * The pool only ever stores the physical connections: proxies are created on checkout and
+ * unwrapped on release.
+ * </p>
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public class InstrumentedConnectionProvider extends DriverManagerConnectionProviderImpl {
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return JdbcProxies.wrap(super.getConnection());
+    }
+
+    @Override
+    public void closeConnection(Connection conn) throws SQLException {
+        super.closeConnection(JdbcProxies.unwrap(conn));
+    }
+
+    @Override
+    public boolean isValid(Connection connection) throws SQLException {
+        return super.isValid(JdbcProxies.unwrap(connection));
+    }
+}
@@ -0,0 +1,152 @@
+package com.escola.monitoring;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Dynamic JDBC proxies that time every statement execution and count the rows it returns,
+ * reporting both to {@link SqlStatistics}. Only the {@code execute*} calls and
+ * {@link ResultSet#next()} are intercepted; everything else is passed straight to the driver.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+final class JdbcProxies {
+
+    private JdbcProxies() {}
+
+    /**
+     * Wraps a physical connection.
+     *
+     * @param conexao The driver connection.
+     * @return An instrumented proxy.
+     */
+    static Connection wrap(Connection conexao) {
+        return (Connection) Proxy.newProxyInstance(JdbcProxies.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(conexao));
+    }
+
+    /**
+     * Returns the physical connection behind a proxy created by {@link #wrap(Connection)}.
+     *
+     * @param conexao A proxy or a plain connection.
+     * @return The driver connection.
+     */
+    static Connection unwrap(Connection conexao) {
+        if (conexao != null && Proxy.isProxyClass(conexao.getClass())
+                && Proxy.getInvocationHandler(conexao) instanceof ConnectionHandler) {
+            return ((ConnectionHandler) Proxy.getInvocationHandler(conexao)).delegate;
+        }
+        return conexao;
+    }
+
+    private static Object invocar(Object alvo, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(alvo, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection delegate;
+
+        ConnectionHandler(Connection delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object resultado = invocar(delegate, method, args);
+            String nome = method.getName();
+            if (resultado instanceof Statement
+                    && ("prepareStatement".equals(nome) || "prepareCall".equals(nome) || "createStatement".equals(nome))) {
+                String sql = (args != null && args.length > 0 && args[0] instanceof String) ? (String) args[0] : null;
+                return Proxy.newProxyInstance(JdbcProxies.class.getClassLoader(),
+                        new Class<?>[]{method.getReturnType()}, new StatementHandler((Statement) resultado, sql));
+            }
+            return resultado;
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement delegate;
+        private final String sql;
+
+        StatementHandler(Statement delegate, String sql) {
+            this.delegate = delegate;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nome = method.getName();
+            if (nome.startsWith("execute")) {
+                // Plain statements carry their SQL in the execute call itself
+                String sqlExecutado = (args != null && args.length > 0 && args[0] instanceof String) ? (String) args[0] : sql;
+                long inicio = System.nanoTime();
+                Object resultado = invocar(delegate, method, args);
+                long nanos = System.nanoTime() - inicio;
+                SqlStatistics.getInstance().registrarExecucao(sqlExecutado, nanos, linhasAfetadas(resultado));
+                return resultado instanceof ResultSet ? wrapResultSet((ResultSet) resultado, sqlExecutado) : resultado;
+            }
+            if ("getResultSet".equals(nome)) {
+                Object resultado = invocar(delegate, method, args);
+                return resultado instanceof ResultSet ? wrapResultSet((ResultSet) resultado, sql) : resultado;
+            }
+            return invocar(delegate, method, args);
+        }
+
+        private static long linhasAfetadas(Object resultado) {
+            if (resultado instanceof Number) {
+                return ((Number) resultado).longValue();
+            }
+            if (resultado instanceof int[]) {
+                long total = 0;
+                for (int n : (int[]) resultado) if (n > 0) total += n;
+                return total;
+            }
+            if (resultado instanceof long[]) {
+                long total = 0;
+                for (long n : (long[]) resultado) if (n > 0) total += n;
+                return total;
+            }
+            return -1;
+        }
+
+        private static ResultSet wrapResultSet(ResultSet resultSet, String sql) {
+            return (ResultSet) Proxy.newProxyInstance(JdbcProxies.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, new ResultSetHandler(resultSet, sql));
+        }
+    }
+
+    private static final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet delegate;
+        private final String sql;
+        private long linhas;
+        private boolean reportado;
+
+        ResultSetHandler(ResultSet delegate, String sql) {
+            this.delegate = delegate;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object resultado = invocar(delegate, method, args);
+            String nome = method.getName();
+            if ("next".equals(nome)) {
+                if (Boolean.TRUE.equals(resultado)) linhas++;
+            } else if ("close".equals(nome) && !reportado) {
+                reportado = true;
+                SqlStatistics.getInstance().registrarLinhas(sql, linhas);
+            }
+            return resultado;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.escola.monitoring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide registry of named metric sources, exposed through {@code GET /admin/metrics}.
+ * Components (write queues, caches, filters, the journal) register a supplier that returns a
+ * point-in-time view of their counters; nothing is computed until the endpoint is called.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public final class MetricsRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsRegistry.class);
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    private final ConcurrentSkipListMap<String, Supplier<Map<String, Object>>> fontes = new ConcurrentSkipListMap<>();
+
+    private MetricsRegistry() {}
+
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers (or replaces) a metric source.
+     *
+     * @param nome  Unique name, e.g. {@code "matriculas.group-commit"}.
+     * @param fonte Supplier of the current values; called on every collection, so it must be cheap.
+     */
+    public void registrar(String nome, Supplier<Map<String, Object>> fonte) {
+        fontes.put(nome, fonte);
+    }
+
+    /**
+     * Removes a metric source, e.g. when its component is closed.
+     *
+     * @param nome The name used at registration.
+     */
+    public void remover(String nome) {
+        fontes.remove(nome);
+    }
+
+    /**
+     * Collects the current values of every source, ordered by name.
+     * A failing source is reported with its error instead of breaking the whole collection.
+     *
+     * @return Source name → metric name → value.
+     */
+    public Map<String, Map<String, Object>> coletar() {
+        Map<String, Map<String, Object>> resultado = new LinkedHashMap<>();
+        fontes.forEach((nome, fonte) -> {
+            try {
+                resultado.put(nome, fonte.get());
+            } catch (RuntimeException e) {
+                logger.warn("Falha ao coletar métricas de {}: {}", nome, e.getMessage());
+                Map<String, Object> erro = new LinkedHashMap<>();
+                erro.put("erro", e.getMessage());
+                resultado.put(nome, erro);
+            }
+        });
+        return resultado;
+    }
+}
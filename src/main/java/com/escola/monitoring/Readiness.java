@@ -0,0 +1,116 @@
+package com.escola.monitoring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Startup stages the instance must complete before it takes traffic, reported by
+ * {@code GET /health/ready}. Every stage is declared up front with {@link #registrar(String)}, so
+ * the instance cannot look ready while a stage that has not started yet is missing; it is ready
+ * once all of them have {@link #concluir(String) completed}. A {@link #falhar(String, Throwable) failed}
+ * stage keeps it not ready for good.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public final class Readiness {
+
+    private static final Logger logger = LoggerFactory.getLogger(Readiness.class);
+
+    private final long inicioNanos = System.nanoTime();
+    private final Map<String, Etapa> etapas = new LinkedHashMap<>(); // guarded by this
+    private final AtomicInteger pendentes = new AtomicInteger();
+    private volatile boolean falhou;
+    private volatile long prontoEmNanos = -1;
+
+    /**
+     * Declares a stage that must complete before the instance is ready.
+     *
+     * @param nome Stage name, e.g. {@code "persistencia"}.
+     */
+    public synchronized void registrar(String nome) {
+        if (etapas.putIfAbsent(nome, new Etapa()) == null) {
+            pendentes.incrementAndGet();
+        }
+    }
+
+    /**
+     * Marks a stage as started, for the elapsed time reported per stage.
+     */
+    public synchronized void iniciar(String nome) {
+        etapa(nome).inicio = System.nanoTime();
+    }
+
+    /**
+     * Marks a stage as completed; the instance becomes ready with the last one.
+     */
+    public void concluir(String nome) {
+        synchronized (this) {
+            Etapa etapa = etapa(nome);
+            if (etapa.fim != 0) return;
+            etapa.fim = System.nanoTime();
+        }
+        if (pendentes.decrementAndGet() == 0 && !falhou) {
+            prontoEmNanos = System.nanoTime();
+            logger.info("Instância pronta em {} ms.", TimeUnit.NANOSECONDS.toMillis(prontoEmNanos - inicioNanos));
+        }
+    }
+
+    /**
+     * Marks a stage as failed: the instance will not become ready.
+     */
+    public synchronized void falhar(String nome, Throwable erro) {
+        Etapa etapa = etapa(nome);
+        etapa.fim = System.nanoTime();
+        etapa.erro = erro.getMessage() == null ? erro.getClass().getSimpleName() : erro.getMessage();
+        falhou = true;
+    }
+
+    public boolean isPronto() {
+        return prontoEmNanos >= 0;
+    }
+
+    /**
+     * @return {@code UP}, {@code STARTING} or {@code DOWN}, the time to ready, and each stage with its
+     * state and duration, for {@code /health/ready}.
+     */
+    public synchronized Map<String, Object> estado() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("status", falhou ? "DOWN" : isPronto() ? "UP" : "STARTING");
+        if (isPronto()) {
+            m.put("prontoEmMs", TimeUnit.NANOSECONDS.toMillis(prontoEmNanos - inicioNanos));
+        }
+        Map<String, Object> porEtapa = new LinkedHashMap<>();
+        etapas.forEach((nome, etapa) -> {
+            Map<String, Object> e = new LinkedHashMap<>();
+            e.put("estado", etapa.erro != null ? "falhou" : etapa.fim != 0 ? "concluida" : etapa.inicio != 0 ? "executando" : "aguardando");
+            if (etapa.inicio != 0) {
+                long fim = etapa.fim != 0 ? etapa.fim : System.nanoTime();
+                e.put("duracaoMs", TimeUnit.NANOSECONDS.toMillis(fim - etapa.inicio));
+            }
+            if (etapa.erro != null) e.put("erro", etapa.erro);
+            porEtapa.put(nome, e);
+        });
+        m.put("etapas", porEtapa);
+        return m;
+    }
+
+    private Etapa etapa(String nome) {
+        Etapa etapa = etapas.get(nome);
+        if (etapa == null) {
+            throw new IllegalStateException("Etapa de inicialização não registrada: " + nome);
+        }
+        return etapa;
+    }
+
+    private static final class Etapa {
+        long inicio;
+        long fim;
+        String erro;
+    }
+}
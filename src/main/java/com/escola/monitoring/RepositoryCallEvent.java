@@ -0,0 +1,35 @@
+package com.escola.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one call to a repository method. Emitted by {@link RepositoryEvents}.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+@Name("com.escola.RepositoryCall")
+@Label("Repository Call")
+@Category({"Escola", "Persistência"})
+@Description("Chamada a um método de repositório")
+@StackTrace(false)
+final class RepositoryCallEvent extends jdk.jfr.Event {
+
+    @Label("Repositório")
+    String repositorio;
+
+    @Label("Método")
+    String metodo;
+
+    @Label("Linhas")
+    @Description("Elementos da lista, 0/1 para Optional, o valor de retornos numéricos; -1 quando não se aplica")
+    long linhas;
+
+    @Label("Erro")
+    @Description("Classe da exceção lançada, se houve")
+    String erro;
+}
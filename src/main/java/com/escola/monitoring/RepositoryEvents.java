@@ -0,0 +1,91 @@
+package com.escola.monitoring;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Dynamic proxies that emit a {@link RepositoryCallEvent} for every call to a repository,
+ * whatever its backend (JPA, in memory or journaled). The number of rows is taken from the
+ * result: the size of a collection, 0 or 1 for an {@link Optional}, the value itself for a
+ * numeric result (counts, affected rows).
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public final class RepositoryEvents {
+
+    private RepositoryEvents() {}
+
+    /**
+     * Wraps a repository.
+     *
+     * @param tipo        The repository interface, e.g. {@code AlunoRepository.class}.
+     * @param repositorio The implementation.
+     * @param <T>         The repository type.
+     * @return An instrumented proxy implementing {@code tipo}.
+     */
+    public static <T> T instrumentar(Class<T> tipo, T repositorio) {
+        return tipo.cast(Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo},
+                new Handler(tipo.getSimpleName(), repositorio)));
+    }
+
+    private static long linhas(Object resultado) {
+        if (resultado instanceof Collection) return ((Collection<?>) resultado).size();
+        if (resultado instanceof Map) return ((Map<?, ?>) resultado).size();
+        if (resultado instanceof Optional) return ((Optional<?>) resultado).isPresent() ? 1 : 0;
+        if (resultado instanceof Integer || resultado instanceof Long) return ((Number) resultado).longValue();
+        if (resultado instanceof Boolean) return (Boolean) resultado ? 1 : 0;
+        return -1;
+    }
+
+    private static final class Handler implements InvocationHandler {
+        private final String nome;
+        private final Object delegate;
+
+        Handler(String nome, Object delegate) {
+            this.nome = nome;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return invocar(method, args);
+            }
+            RepositoryCallEvent evento = new RepositoryCallEvent();
+            if (!evento.isEnabled()) {
+                return invocar(method, args);
+            }
+            evento.begin();
+            try {
+                Object resultado = invocar(method, args);
+                evento.linhas = linhas(resultado);
+                return resultado;
+            } catch (Throwable e) {
+                evento.linhas = -1;
+                evento.erro = e.getClass().getName();
+                throw e;
+            } finally {
+                evento.end();
+                if (evento.shouldCommit()) {
+                    evento.repositorio = nome;
+                    evento.metodo = method.getName();
+                    evento.commit();
+                }
+            }
+        }
+
+        private Object invocar(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(delegate, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.escola.monitoring;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-request context bound to the HTTP worker thread while a controller dispatches a request.
+ * Lets lower layers (e.g. JDBC instrumentation) attribute their work to the originating route
+ * without threading it through every service and repository signature.
+ * <p>
+ * Controllers call {@link #iniciar(String)} right before dispatching and {@link #encerrar()}
+ * in a {@code finally} block, since the server's worker threads are pooled.
+ * </p>
+ * <p>
+ * The context also keeps the request's database accounting (statements executed, time spent in
+ * JDBC and executions per SQL fingerprint). On close it logs a warning when the route exceeded the
+ * query budget ({@code QUERY_BUDGET}, default 10 statements; 0 disables it) or executed the same
+ * fingerprint at least {@code QUERY_REPEAT_THRESHOLD} times (default 5), the usual N+1 symptom.
+ * The settings are given by the application at startup ({@link #configurarOrcamento(int, int)}).
+ * The accounting is only touched by the owning thread, so it needs no synchronization.
+ * </p>
+ * <p>
+ * Each context is also a JFR {@link HttpRequestEvent}: begun by {@link #iniciar(String)} and
+ * committed by {@link #encerrar()}, with the status and size given to
+ * {@link #registrarResposta(int, long)} when the response headers are sent. The route also names
+ * the root span of the request's trace, when it is sampled (see {@link Tracing}).
+ * </p>
+ * <p>
+ * Requests of the startup warm-up ({@link WarmUpTraffic}) are flagged, so that
+ * {@link SqlStatistics} keeps their statements out of the statistics of real traffic.
+ * </p>
+ *
+ * @version 1.6
+ * @author FelipeCardoso
+ */
+public final class RequestContext {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestContext.class);
+
+    /** Route label used for work done outside an HTTP request (startup, console UI, background threads). */
+    public static final String SEM_ROTA = "-";
+
+    private static volatile int orcamentoConsultas = 10;
+    private static volatile int limiteRepeticoes = 5;
+
+    private static final ThreadLocal<RequestContext> ATUAL = new ThreadLocal<>();
+
+    private final String rota;
+    private final boolean aquecimento;
+    private final long inicioNanos = System.nanoTime();
+    private final Map<String, Integer> execucoesPorFingerprint = new HashMap<>();
+    private final HttpRequestEvent evento = new HttpRequestEvent();
+    private int consultas;
+    private long nanosBanco;
+    private int status;
+    private long bytes;
+
+    private RequestContext(String rota, boolean aquecimento) {
+        this.rota = rota;
+        this.aquecimento = aquecimento;
+        evento.begin();
+    }
+
+    /**
+     * Sets the query budget checked when each request closes.
+     *
+     * @param consultas  Statements per request above which a warning is logged; 0 disables it.
+     * @param repeticoes Executions of one fingerprint from which a possible N+1 is logged; 0 disables it.
+     */
+    public static void configurarOrcamento(int consultas, int repeticoes) {
+        orcamentoConsultas = consultas;
+        limiteRepeticoes = repeticoes;
+    }
+
+    /**
+     * Binds a new context to the current thread.
+     *
+     * @param rota The route template being dispatched, e.g. {@code "GET /api/alunos/{id}"}.
+     * @return The bound context.
+     */
+    public static RequestContext iniciar(String rota) {
+        return iniciar(rota, false);
+    }
+
+    /**
+     * Binds a new context to the current thread for an HTTP request, flagging it when it comes
+     * from the startup warm-up.
+     *
+     * @param rota     The route template being dispatched, e.g. {@code "GET /api/alunos/{id}"}.
+     * @param exchange The request.
+     * @return The bound context.
+     */
+    public static RequestContext iniciar(String rota, HttpExchange exchange) {
+        return iniciar(rota, WarmUpTraffic.isAquecimento(exchange));
+    }
+
+    static RequestContext iniciar(String rota, boolean aquecimento) {
+        RequestContext contexto = new RequestContext(rota, aquecimento);
+        ATUAL.set(contexto);
+        Tracing.nomearRequisicao(rota);
+        return contexto;
+    }
+
+    /**
+     * Returns the context bound to the current thread.
+     *
+     * @return The current context, or {@code null} outside an HTTP request.
+     */
+    public static RequestContext atual() {
+        return ATUAL.get();
+    }
+
+    /**
+     * Returns the route of the current request.
+     *
+     * @return The route template, or {@link #SEM_ROTA} outside an HTTP request.
+     */
+    public static String rotaAtual() {
+        RequestContext contexto = ATUAL.get();
+        return contexto == null ? SEM_ROTA : contexto.rota;
+    }
+
+    /**
+     * Builds the {@code Server-Timing} header value for the current request, e.g.
+     * {@code db;dur=12.4;desc="3 queries", app;dur=30.1}.
+     * Must be called before the response headers are sent.
+     *
+     * @return The header value, or {@code null} outside an HTTP request.
+     */
+    public static String serverTiming() {
+        RequestContext contexto = ATUAL.get();
+        if (contexto == null) return null;
+        double dbMs = contexto.nanosBanco / 1_000_000.0;
+        double totalMs = (System.nanoTime() - contexto.inicioNanos) / 1_000_000.0;
+        return String.format(Locale.ROOT, "db;dur=%.1f;desc=\"%d queries\", app;dur=%.1f",
+                dbMs, contexto.consultas, totalMs);
+    }
+
+    /**
+     * Reads the {@code app} duration back from a {@code Server-Timing} header value, such as the
+     * one built by {@link #serverTiming()}.
+     *
+     * @param serverTiming The header value, or {@code null}.
+     * @return The duration in microseconds, or -1 if the header has no {@code app;dur} entry.
+     */
+    public static long lerDuracaoApp(String serverTiming) {
+        if (serverTiming == null) return -1;
+        for (String metrica : serverTiming.split(",")) {
+            String[] parametros = metrica.trim().split(";");
+            if (!"app".equals(parametros[0].trim())) continue;
+            for (int i = 1; i < parametros.length; i++) {
+                String parametro = parametros[i].trim();
+                if (parametro.startsWith("dur=")) {
+                    try {
+                        return Math.round(Double.parseDouble(parametro.substring(4)) * 1000);
+                    } catch (NumberFormatException e) {
+                        return -1;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Records the response of the current request, for its JFR event.
+     * Called with the same arguments as {@code sendResponseHeaders}; a no-op outside an HTTP request.
+     *
+     * @param status The HTTP status code.
+     * @param bytes  The response body length.
+     */
+    public static void registrarResposta(int status, long bytes) {
+        RequestContext contexto = ATUAL.get();
+        if (contexto != null) {
+            contexto.status = status;
+            contexto.bytes = bytes;
+        }
+    }
+
+    /**
+     * Unbinds the context from the current thread, checking the query budget first.
+     */
+    public static void encerrar() {
+        RequestContext contexto = ATUAL.get();
+        ATUAL.remove();
+        if (contexto != null) {
+            contexto.verificarOrcamento();
+            contexto.emitirEvento();
+        }
+    }
+
+    /**
+     * Restores a previously bound context (or none), for code that temporarily binds its own
+     * context around a unit of work, such as the {@code QueryAssertions} test helper.
+     *
+     * @param anterior The context to restore, or {@code null}.
+     */
+    static void restaurar(RequestContext anterior) {
+        if (anterior == null) {
+            ATUAL.remove();
+        } else {
+            ATUAL.set(anterior);
+        }
+    }
+
+    /**
+     * Records one statement executed on behalf of this request.
+     *
+     * @param fingerprint The statement fingerprint.
+     * @param nanos       The execution time.
+     */
+    void registrarConsulta(String fingerprint, long nanos) {
+        consultas++;
+        nanosBanco += nanos;
+        execucoesPorFingerprint.merge(fingerprint, 1, Integer::sum);
+    }
+
+    private void emitirEvento() {
+        evento.end();
+        if (evento.shouldCommit()) {
+            evento.rota = rota;
+            evento.status = status;
+            evento.bytes = bytes;
+            evento.consultas = consultas;
+            evento.tempoBanco = nanosBanco;
+            evento.commit();
+        }
+    }
+
+    private void verificarOrcamento() {
+        int orcamento = orcamentoConsultas;
+        if (orcamento > 0 && consultas > orcamento) {
+            logger.warn("Rota [{}] excedeu o orçamento de consultas: {} comandos SQL (limite {}), {} ms no banco.",
+                    rota, consultas, orcamento, nanosBanco / 1_000_000L);
+        }
+        int limite = limiteRepeticoes;
+        if (limite > 0) {
+            execucoesPorFingerprint.forEach((fingerprint, vezes) -> {
+                if (vezes >= limite) {
+                    logger.warn("Possível N+1 na rota [{}]: {} execuções de: {}", rota, vezes, fingerprint);
+                }
+            });
+        }
+    }
+
+    public String getRota() {
+        return rota;
+    }
+
+    /**
+     * @return Whether this request comes from the startup warm-up.
+     */
+    public boolean isAquecimento() {
+        return aquecimento;
+    }
+
+    /**
+     * @return The number of JDBC statements executed so far in this request.
+     */
+    public int getConsultas() {
+        return consultas;
+    }
+
+    /**
+     * @return The time spent executing JDBC statements so far, in nanoseconds.
+     */
+    public long getNanosBanco() {
+        return nanosBanco;
+    }
+
+    /**
+     * @return Executions per SQL fingerprint so far in this request.
+     */
+    public Map<String, Integer> getExecucoesPorFingerprint() {
+        return new HashMap<>(execucoesPorFingerprint);
+    }
+}
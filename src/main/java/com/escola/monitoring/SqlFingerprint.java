@@ -0,0 +1,58 @@
+package com.escola.monitoring;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes SQL statements into fingerprints, so that executions differing only in literal
+ * values or IN-list length are aggregated under the same key.
+ * <p>
+ * Statements generated by Hibernate are already parameterized and repeat verbatim, so the
+ * normalized form is memoized in a bounded map to keep the per-execution cost to a lookup.
+ * </p>
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public final class SqlFingerprint {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMERIC_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final int MAX_CACHE = 4096;
+    private static final Map<String, String> CACHE = new ConcurrentHashMap<>();
+
+    private SqlFingerprint() {}
+
+    /**
+     * Returns the fingerprint of a SQL statement.
+     *
+     * @param sql The SQL as sent to the driver.
+     * @return The normalized statement: lower case, single-spaced, literals replaced by {@code ?}
+     * and IN-lists collapsed to {@code in (?)}.
+     */
+    public static String of(String sql) {
+        if (sql == null) return "<batch>";
+        String fingerprint = CACHE.get(sql);
+        if (fingerprint == null) {
+            fingerprint = normalizar(sql);
+            // Unbounded distinct SQL (e.g. literals concatenated by hand) must not grow the cache forever
+            if (CACHE.size() < MAX_CACHE) {
+                CACHE.put(sql, fingerprint);
+            }
+        }
+        return fingerprint;
+    }
+
+    private static String normalizar(String sql) {
+        String s = STRING_LITERAL.matcher(sql).replaceAll("?");
+        s = NUMERIC_LITERAL.matcher(s).replaceAll("?");
+        s = IN_LIST.matcher(s).replaceAll("in (?)");
+        s = WHITESPACE.matcher(s).replaceAll(" ");
+        return s.trim().toLowerCase(Locale.ROOT);
+    }
+}
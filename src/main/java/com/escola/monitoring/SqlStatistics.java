@@ -0,0 +1,174 @@
+package com.escola.monitoring;
+
+import com.escola.config.AppConfig;
+import com.escola.dto.QueryStatsDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide aggregation of JDBC statement executions, keyed by {@link SqlFingerprint}.
+ * Fed by the instrumented connection provider and exposed through {@code /admin/queries}.
+ * Each execution is also charged to the current {@link RequestContext}, if any; those of the
+ * startup warm-up are charged to it only, leaving the statistics to real traffic.
+ * <p>
+ * Besides aggregating, it implements the two SQL logging modes:
+ * </p>
+ * <ul>
+ * <li><b>Slow query log</b>: executions slower than {@code SQL_SLOW_QUERY_MS} (default 200 ms;
+ * 0 disables it) are logged at WARN with the originating route.</li>
+ * <li><b>Sampled SQL log</b>: replaces the always-on {@code hibernate.show_sql}. A fraction
+ * {@code SQL_LOG_SAMPLE_RATE} (0.0 to 1.0, default 0) of all executions is logged at INFO with
+ * its duration and route; 1.0 logs every statement.</li>
+ * </ul>
+ *
+ * @version 1.1
+ * @author FelipeCardoso
+ */
+public final class SqlStatistics {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatistics.class);
+    private static final SqlStatistics INSTANCE = new SqlStatistics(
+            AppConfig.getLong("SQL_SLOW_QUERY_MS", 200),
+            parseTaxa(AppConfig.getString("SQL_LOG_SAMPLE_RATE", "0")));
+
+    private final ConcurrentHashMap<String, Acumulador> porFingerprint = new ConcurrentHashMap<>();
+    private final long limiteLentaNanos;
+    private final double taxaAmostragem;
+
+    private SqlStatistics(long limiteLentaMs, double taxaAmostragem) {
+        this.limiteLentaNanos = limiteLentaMs <= 0 ? Long.MAX_VALUE : limiteLentaMs * 1_000_000L;
+        this.taxaAmostragem = taxaAmostragem;
+    }
+
+    public static SqlStatistics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Records one statement execution.
+     *
+     * @param sql    The SQL sent to the driver ({@code null} for a plain-statement batch).
+     * @param nanos  The execution time.
+     * @param linhas Rows affected, or -1 when unknown at this point (queries count rows while fetching).
+     */
+    public void registrarExecucao(String sql, long nanos, long linhas) {
+        String fingerprint = SqlFingerprint.of(sql);
+        RequestContext contexto = RequestContext.atual();
+        String rota = contexto == null ? RequestContext.SEM_ROTA : contexto.getRota();
+        if (contexto != null) {
+            contexto.registrarConsulta(fingerprint, nanos);
+            // Warm-up requests count for their own budget, not for the statistics of real traffic
+            if (contexto.isAquecimento()) return;
+        }
+        Acumulador acumulador = porFingerprint.computeIfAbsent(fingerprint, k -> new Acumulador());
+        acumulador.registrar(nanos, linhas, rota);
+
+        if (nanos >= limiteLentaNanos) {
+            logger.warn("Consulta lenta ({} ms) na rota [{}]: {}", nanos / 1_000_000L, rota, sql);
+        } else if (taxaAmostragem > 0 && ThreadLocalRandom.current().nextDouble() < taxaAmostragem) {
+            logger.info("SQL ({} µs) na rota [{}]: {}", nanos / 1_000L, rota, sql);
+        }
+    }
+
+    /**
+     * Adds the rows fetched from a result set to the statement's totals.
+     *
+     * @param sql    The SQL that produced the result set.
+     * @param linhas The number of rows read.
+     */
+    public void registrarLinhas(String sql, long linhas) {
+        if (linhas <= 0) return;
+        RequestContext contexto = RequestContext.atual();
+        if (contexto != null && contexto.isAquecimento()) return;
+        Acumulador acumulador = porFingerprint.get(SqlFingerprint.of(sql));
+        if (acumulador != null) {
+            acumulador.linhas.add(linhas);
+        }
+    }
+
+    /**
+     * Returns the statistics of every fingerprint seen since start-up or the last reset.
+     *
+     * @param ordem  Sort key: "total" (default), "max", "count", "media" or "linhas".
+     * @param limite Maximum number of entries returned.
+     * @return The statistics, most expensive first.
+     */
+    public List<QueryStatsDTO> snapshot(String ordem, int limite) {
+        List<QueryStatsDTO> resultado = new ArrayList<>(porFingerprint.size());
+        porFingerprint.forEach((fingerprint, a) -> resultado.add(a.toDTO(fingerprint)));
+        resultado.sort(comparador(ordem).reversed());
+        return resultado.size() > limite ? new ArrayList<>(resultado.subList(0, Math.max(0, limite))) : resultado;
+    }
+
+    /**
+     * Discards all accumulated statistics.
+     */
+    public void reset() {
+        porFingerprint.clear();
+        logger.info("Estatísticas de SQL reiniciadas.");
+    }
+
+    private static Comparator<QueryStatsDTO> comparador(String ordem) {
+        if (ordem == null) ordem = "total";
+        switch (ordem) {
+            case "max":
+                return Comparator.comparingDouble(QueryStatsDTO::getTempoMaximoMs);
+            case "count":
+                return Comparator.comparingLong(QueryStatsDTO::getExecucoes);
+            case "media":
+                return Comparator.comparingDouble(QueryStatsDTO::getTempoMedioMs);
+            case "linhas":
+                return Comparator.comparingLong(QueryStatsDTO::getLinhas);
+            default:
+                return Comparator.comparingDouble(QueryStatsDTO::getTempoTotalMs);
+        }
+    }
+
+    private static double parseTaxa(String valor) {
+        try {
+            double taxa = Double.parseDouble(valor);
+            return Math.max(0, Math.min(1, taxa));
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid SQL_LOG_SAMPLE_RATE '{}'. SQL sampling disabled.", valor);
+            return 0;
+        }
+    }
+
+    /**
+     * Lock-free counters for one fingerprint; only a new maximum takes the monitor,
+     * to keep the maximum and its route consistent.
+     */
+    private static final class Acumulador {
+        final LongAdder execucoes = new LongAdder();
+        final LongAdder nanosTotal = new LongAdder();
+        final LongAdder linhas = new LongAdder();
+        volatile long nanosMaximo;
+        volatile String rotaMaisLenta = RequestContext.SEM_ROTA;
+
+        void registrar(long nanos, long linhasAfetadas, String rota) {
+            execucoes.increment();
+            nanosTotal.add(nanos);
+            if (linhasAfetadas > 0) linhas.add(linhasAfetadas);
+            if (nanos > nanosMaximo) {
+                synchronized (this) {
+                    if (nanos > nanosMaximo) {
+                        nanosMaximo = nanos;
+                        rotaMaisLenta = rota;
+                    }
+                }
+            }
+        }
+
+        QueryStatsDTO toDTO(String fingerprint) {
+            return new QueryStatsDTO(fingerprint, execucoes.sum(), nanosTotal.sum() / 1_000_000.0,
+                    nanosMaximo / 1_000_000.0, linhas.sum(), rotaMaisLenta);
+        }
+    }
+}
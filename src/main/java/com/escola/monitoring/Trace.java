@@ -0,0 +1,88 @@
+package com.escola.monitoring;
+
+import java.util.Arrays;
+
+/**
+ * Spans of one sampled request, recorded by the request thread and exported by {@link Tracing}.
+ * <p>
+ * Spans are kept in parallel arrays indexed by position, the root being 0, so opening a span
+ * allocates nothing once the arrays have grown. Span IDs are only derived from the positions at
+ * export time, on the writer thread. Only the owning thread touches a trace until it is handed to
+ * the exporter.
+ * </p>
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+final class Trace {
+
+    private static final int CAPACIDADE_INICIAL = 16;
+
+    final String traceId;
+    final long spanRaiz; // 64-bit ID of span 0, echoed in the traceparent response header
+    final String paiExterno; // span ID of the caller, from its traceparent, or null
+    final long tid = Thread.currentThread().getId();
+    final long baseEpochMicros = System.currentTimeMillis() * 1000;
+    final long baseNanos = System.nanoTime();
+    private final int maximoSpans;
+
+    String[] nomes = new String[CAPACIDADE_INICIAL];
+    String[] categorias = new String[CAPACIDADE_INICIAL];
+    int[] pais = new int[CAPACIDADE_INICIAL];
+    long[] inicios = new long[CAPACIDADE_INICIAL];
+    long[] duracoes = new long[CAPACIDADE_INICIAL];
+    int tamanho;
+    int status;
+    int descartados; // spans beyond maximoSpans
+    private int atual = -1;
+
+    Trace(String traceId, long spanRaiz, String paiExterno, int maximoSpans) {
+        this.traceId = traceId;
+        this.spanRaiz = spanRaiz;
+        this.paiExterno = paiExterno;
+        this.maximoSpans = maximoSpans;
+    }
+
+    /**
+     * Opens a span as a child of the innermost open span.
+     *
+     * @return The span position, to pass to {@link #fechar(int)}, or -1 when the trace is full.
+     */
+    int abrir(String nome, String categoria) {
+        if (tamanho == maximoSpans) {
+            descartados++;
+            return -1;
+        }
+        if (tamanho == nomes.length) {
+            int novo = Math.min(tamanho * 2, maximoSpans);
+            nomes = Arrays.copyOf(nomes, novo);
+            categorias = Arrays.copyOf(categorias, novo);
+            pais = Arrays.copyOf(pais, novo);
+            inicios = Arrays.copyOf(inicios, novo);
+            duracoes = Arrays.copyOf(duracoes, novo);
+        }
+        int span = tamanho++;
+        nomes[span] = nome;
+        categorias[span] = categoria;
+        pais[span] = atual;
+        duracoes[span] = -1;
+        inicios[span] = System.nanoTime();
+        atual = span;
+        return span;
+    }
+
+    void fechar(int span) {
+        if (span < 0) return;
+        duracoes[span] = System.nanoTime() - inicios[span];
+        atual = pais[span];
+    }
+
+    void renomearRaiz(String nome) {
+        if (tamanho > 0) nomes[0] = nome;
+    }
+
+    /** @return The 64-bit ID of the span at a position; unique within the trace. */
+    long spanId(int span) {
+        return span == 0 ? spanRaiz : spanRaiz ^ (0x9E3779B97F4A7C15L * span);
+    }
+}
@@ -0,0 +1,389 @@
+package com.escola.monitoring;
+
+import com.escola.config.AppConfig;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Request tracing: a {@link Filter} for the API contexts that gives every request a trace ID, and
+ * proxies ({@link #instrumentar(Class, Object, String)}) that record a span around each service
+ * and repository call of the sampled requests.
+ * <p>
+ * The trace ID follows W3C Trace Context. It is taken from the request's {@code traceparent}
+ * header when there is a valid one (the caller's span becomes the parent of the root span),
+ * generated otherwise, and returned in the {@code traceparent} and {@code X-Trace-Id} response
+ * headers. While the request runs it is in the SLF4J {@link MDC} as {@value #MDC_TRACE_ID}, so
+ * the log lines of the controller, the service and the repository of one request can be tied together.
+ * </p>
+ * <p>
+ * Spans are only recorded for sampled requests: a fraction {@code TRACE_SAMPLE_RATE} (default
+ * 0.01), plus every request whose {@code traceparent} has the sampled flag. For the others a
+ * proxied call costs a thread-local read. Sampled traces are handed to a bounded queue when the
+ * request ends and a writer thread appends them to {@code TRACE_DIR} (default {@code traces})
+ * in the Chrome Trace Event JSON format, which Perfetto and {@code chrome://tracing} open
+ * directly. A full queue or a file past {@code TRACE_MAX_FILE_BYTES} drops traces (counted under
+ * {@code tracing} in {@code /admin/metrics}) instead of slowing requests down.
+ * </p>
+ * Enabled by default; {@code TRACE_ENABLED=false} removes the filter and the proxies.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public final class Tracing extends Filter implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(Tracing.class);
+
+    /** MDC key holding the trace ID of the current request. */
+    public static final String MDC_TRACE_ID = "traceId";
+
+    private static final Pattern TRACEPARENT = Pattern.compile("00-([0-9a-f]{32})-([0-9a-f]{16})-([0-9a-f]{2})");
+    private static final String ZEROS_TRACE = "00000000000000000000000000000000";
+    private static final String ZEROS_SPAN = "0000000000000000";
+    private static final String METRICAS = "tracing";
+
+    private static final ThreadLocal<Trace> ATUAL = new ThreadLocal<>();
+
+    private final double taxaAmostragem;
+    private final int maximoSpans;
+    private final long tamanhoMaximoArquivo;
+    private final Path arquivo;
+    private final BlockingQueue<Trace> fila;
+    private final Thread escritor;
+    private final long pid = ProcessHandle.current().pid();
+    private volatile boolean encerrado;
+
+    private final AtomicLong requisicoes = new AtomicLong();
+    private final AtomicLong amostradas = new AtomicLong();
+    private final AtomicLong exportadas = new AtomicLong();
+    private final AtomicLong descartadas = new AtomicLong();
+    private final AtomicLong spansExportados = new AtomicLong();
+    private final AtomicLong spansDescartados = new AtomicLong();
+    private final AtomicLong bytesGravados = new AtomicLong();
+
+    // Writer thread only
+    private Writer saida;
+    private boolean primeiroEvento = true;
+    private boolean falhou; // after a write error the file is left as is
+
+    /**
+     * @param diretorio            Where the trace file is written.
+     * @param taxaAmostragem       Fraction of requests traced, from 0 to 1.
+     * @param maximoSpans          Spans kept per request; further ones are dropped.
+     * @param tamanhoMaximoArquivo Size after which further traces are dropped.
+     * @param capacidadeFila       Traces waiting for the writer before new ones are dropped.
+     */
+    public Tracing(Path diretorio, double taxaAmostragem, int maximoSpans, long tamanhoMaximoArquivo, int capacidadeFila) {
+        this.taxaAmostragem = Math.max(0.0, Math.min(1.0, taxaAmostragem));
+        this.maximoSpans = Math.max(maximoSpans, 1);
+        this.tamanhoMaximoArquivo = tamanhoMaximoArquivo;
+        this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+        String sessao = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        this.arquivo = diretorio.resolve("trace-" + sessao + ".json");
+        try {
+            Files.createDirectories(diretorio);
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao criar o diretório de traces " + diretorio + ".", e);
+        }
+        this.escritor = new Thread(this::gravar, "trace-exporter");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+        MetricsRegistry.getInstance().registrar(METRICAS, this::metricas);
+        logger.info("Tracing ativo: amostragem de {}% das requisições, exportadas para {}.",
+                this.taxaAmostragem * 100, arquivo.toAbsolutePath());
+    }
+
+    /**
+     * @return The tracing filter configured by {@code TRACE_*}, or {@code null} when
+     * {@code TRACE_ENABLED} is {@code false}.
+     */
+    public static Tracing fromConfig() {
+        if (!AppConfig.getBoolean("TRACE_ENABLED", true)) {
+            return null;
+        }
+        return new Tracing(
+                Paths.get(AppConfig.getString("TRACE_DIR", "traces")),
+                Double.parseDouble(AppConfig.getString("TRACE_SAMPLE_RATE", "0.01")),
+                AppConfig.getInt("TRACE_MAX_SPANS", 256),
+                AppConfig.getLong("TRACE_MAX_FILE_BYTES", 256L * 1024 * 1024),
+                AppConfig.getInt("TRACE_QUEUE", 1000));
+    }
+
+    @Override
+    public String description() {
+        return "Tracing de requisições (W3C traceparent)";
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        requisicoes.incrementAndGet();
+        String traceId = null;
+        String paiExterno = null;
+        boolean amostrada = false;
+        String traceparent = exchange.getRequestHeaders().getFirst("traceparent");
+        if (traceparent != null && TRACEPARENT.matcher(traceparent).matches()
+                && !traceparent.regionMatches(3, ZEROS_TRACE, 0, 32) && !traceparent.regionMatches(36, ZEROS_SPAN, 0, 16)) {
+            traceId = traceparent.substring(3, 35);
+            paiExterno = traceparent.substring(36, 52);
+            amostrada = (Character.digit(traceparent.charAt(54), 16) & 1) == 1;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (traceId == null) {
+            traceId = hex(random.nextLong() | 1) + hex(random.nextLong());
+        }
+        amostrada = amostrada || (taxaAmostragem > 0 && random.nextDouble() < taxaAmostragem);
+        long spanRaiz = random.nextLong() | 1;
+
+        exchange.getResponseHeaders().set("traceparent", "00-" + traceId + "-" + hex(spanRaiz) + (amostrada ? "-01" : "-00"));
+        exchange.getResponseHeaders().set("X-Trace-Id", traceId);
+        MDC.put(MDC_TRACE_ID, traceId);
+        Trace trace = null;
+        if (amostrada) {
+            amostradas.incrementAndGet();
+            trace = new Trace(traceId, spanRaiz, paiExterno, maximoSpans);
+            trace.abrir(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath(), "http");
+            ATUAL.set(trace);
+        }
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            MDC.remove(MDC_TRACE_ID);
+            if (trace != null) {
+                ATUAL.remove();
+                trace.fechar(0);
+                trace.status = exchange.getResponseCode();
+                exportar(trace);
+            }
+        }
+    }
+
+    private void exportar(Trace trace) {
+        if (encerrado || !fila.offer(trace)) {
+            descartadas.incrementAndGet();
+        }
+    }
+
+    /**
+     * Names the root span of the current trace after the route template, e.g.
+     * {@code GET /api/alunos/{id}}, so spans of the same route group together.
+     * Called by {@link RequestContext#iniciar(String)}.
+     */
+    static void nomearRequisicao(String rota) {
+        Trace trace = ATUAL.get();
+        if (trace != null) trace.renomearRaiz(rota);
+    }
+
+    /**
+     * Wraps a service or repository so its calls become spans of the sampled requests.
+     *
+     * @param tipo      The interface, e.g. {@code AlunoService.class}.
+     * @param alvo      The implementation.
+     * @param categoria Span category, e.g. {@code "service"} or {@code "repository"}.
+     * @param <T>       The interface type.
+     * @return A proxy implementing {@code tipo}.
+     */
+    public static <T> T instrumentar(Class<T> tipo, T alvo, String categoria) {
+        return tipo.cast(Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo},
+                new SpanHandler(tipo.getSimpleName(), alvo, categoria)));
+    }
+
+    private static String hex(long valor) {
+        String digitos = Long.toHexString(valor);
+        return digitos.length() == 16 ? digitos : ZEROS_SPAN.substring(digitos.length()) + digitos;
+    }
+
+    private static final class SpanHandler implements InvocationHandler {
+        private final String tipo;
+        private final Object delegate;
+        private final String categoria;
+        private final Map<Method, String> nomes = new ConcurrentHashMap<>(); // no per-call concatenation
+
+        SpanHandler(String tipo, Object delegate, String categoria) {
+            this.tipo = tipo;
+            this.delegate = delegate;
+            this.categoria = categoria;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Trace trace = ATUAL.get();
+            if (trace == null || method.getDeclaringClass() == Object.class) {
+                return invocar(method, args);
+            }
+            int span = trace.abrir(nomes.computeIfAbsent(method, m -> tipo + "." + m.getName()), categoria);
+            try {
+                return invocar(method, args);
+            } finally {
+                trace.fechar(span);
+            }
+        }
+
+        private Object invocar(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(delegate, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // --- Writer thread ---
+
+    private void gravar() {
+        List<Trace> lote = new ArrayList<>();
+        StringBuilder json = new StringBuilder(4096);
+        while (!encerrado || !fila.isEmpty()) {
+            try {
+                Trace primeiro = fila.poll(200, TimeUnit.MILLISECONDS);
+                if (primeiro == null) continue;
+                lote.add(primeiro);
+                fila.drainTo(lote);
+                for (Trace trace : lote) {
+                    json.setLength(0);
+                    escreverEventos(trace, json);
+                    escrever(trace, json);
+                }
+                if (saida != null) saida.flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                descartadas.addAndGet(lote.size());
+                logger.error("Erro ao gravar traces em {}; exportação interrompida: {}", arquivo, e.getMessage());
+                falhou = true;
+                fecharArquivo();
+            } finally {
+                lote.clear();
+            }
+        }
+        fecharArquivo();
+    }
+
+    private void escrever(Trace trace, StringBuilder json) throws IOException {
+        if (falhou || json.length() == 0 || bytesGravados.get() + json.length() > tamanhoMaximoArquivo) {
+            descartadas.incrementAndGet();
+            return;
+        }
+        if (saida == null) {
+            saida = Files.newBufferedWriter(arquivo, StandardCharsets.UTF_8);
+            saida.write("[\n");
+            bytesGravados.addAndGet(2);
+        }
+        if (!primeiroEvento) {
+            saida.write(",\n");
+        }
+        primeiroEvento = false;
+        saida.append(json);
+        bytesGravados.addAndGet(json.length() + 2);
+        exportadas.incrementAndGet();
+        spansExportados.addAndGet(trace.tamanho);
+        spansDescartados.addAndGet(trace.descartados);
+    }
+
+    /**
+     * Appends the spans of a trace as Chrome "complete" events ({@code "ph":"X"}, times in
+     * microseconds); IDs and status go in {@code args}.
+     */
+    private void escreverEventos(Trace trace, StringBuilder json) {
+        for (int span = 0; span < trace.tamanho; span++) {
+            if (span > 0) json.append(",\n");
+            long duracao = trace.duracoes[span] < 0 ? 0 : trace.duracoes[span]; // left open by an exception path
+            json.append("{\"name\":");
+            texto(json, trace.nomes[span]);
+            json.append(",\"cat\":\"").append(trace.categorias[span])
+                    .append("\",\"ph\":\"X\",\"ts\":")
+                    .append(trace.baseEpochMicros + (trace.inicios[span] - trace.baseNanos) / 1000)
+                    .append(",\"dur\":").append(duracao / 1000).append('.').append(duracao / 100 % 10)
+                    .append(",\"pid\":").append(pid)
+                    .append(",\"tid\":").append(trace.tid)
+                    .append(",\"args\":{\"traceId\":\"").append(trace.traceId)
+                    .append("\",\"spanId\":\"").append(hex(trace.spanId(span))).append('"');
+            String pai = span == 0 ? trace.paiExterno : hex(trace.spanId(trace.pais[span]));
+            if (pai != null) json.append(",\"parentId\":\"").append(pai).append('"');
+            if (span == 0) json.append(",\"status\":").append(trace.status);
+            json.append("}}");
+        }
+    }
+
+    private static void texto(StringBuilder json, String valor) {
+        json.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    private void fecharArquivo() {
+        if (saida == null) return;
+        try {
+            saida.write("\n]\n"); // optional in the format: a file cut short still loads
+            saida.close();
+        } catch (IOException e) {
+            logger.warn("Erro ao fechar arquivo de traces: {}", e.getMessage());
+        }
+        saida = null;
+    }
+
+    /**
+     * Stops exporting and waits for the queued traces to be written.
+     */
+    @Override
+    public void close() {
+        encerrado = true;
+        try {
+            escritor.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        MetricsRegistry.getInstance().remover(METRICAS);
+        logger.info("Tracing encerrado: {} traces exportados para {}.", exportadas.get(), arquivo.toAbsolutePath());
+    }
+
+    private Map<String, Object> metricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("taxaAmostragem", taxaAmostragem);
+        metricas.put("requisicoes", requisicoes.get());
+        metricas.put("amostradas", amostradas.get());
+        metricas.put("exportadas", exportadas.get());
+        metricas.put("descartadas", descartadas.get());
+        metricas.put("spansExportados", spansExportados.get());
+        metricas.put("spansDescartados", spansDescartados.get());
+        metricas.put("fila", fila.size());
+        metricas.put("bytesGravados", bytesGravados.get());
+        metricas.put("arquivo", arquivo.toAbsolutePath().toString());
+        return metricas;
+    }
+}
@@ -0,0 +1,349 @@
+package com.escola.monitoring;
+
+import com.escola.config.AppConfig;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Optional {@link Filter} for the API contexts that records the traffic the server receives:
+ * method, path and query, headers, body, arrival time, server time ({@code app} in the response's
+ * {@code Server-Timing} header) and status of every request, in compact binary files ({@link CapturedRequest}) that the replay tool
+ * ({@code com.escola.loadtest.TrafficReplay}) re-issues against another instance.
+ * <p>
+ * The request thread only encodes the record and offers it to a bounded queue; a single writer
+ * thread appends to the current file and rotates it at {@code CAPTURE_MAX_FILE_BYTES}, keeping the
+ * newest {@code CAPTURE_MAX_FILES}. When the writer falls behind, records are dropped (and
+ * counted) rather than slowing requests down.
+ * </p>
+ * <p>
+ * E-mail addresses are masked in the URI, the headers and the body before anything is written.
+ * The mask is a keyed hash with a key drawn per capture, so the same address always gets the
+ * same pseudonym within a capture (a replayed {@code GET /api/alunos/email/...} still finds the
+ * student a replayed {@code POST} created) but cannot be traced back to the address.
+ * Credentials ({@code Authorization}, {@code Cookie}) are never recorded. Bodies that are not
+ * text, or larger than {@code CAPTURE_MAX_BODY_BYTES}, are left out: they cannot be masked
+ * safely, and replay skips those requests.
+ * </p>
+ * Requests of the startup warm-up ({@link WarmUpTraffic}) are not recorded.
+ * Enabled with {@code CAPTURE_ENABLED=true}; files go to {@code CAPTURE_DIR} (default {@code captura}).
+ *
+ * @version 1.3
+ * @author FelipeCardoso
+ */
+public final class TrafficCapture extends Filter implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrafficCapture.class);
+
+    static final Pattern EMAIL = Pattern.compile("[A-Za-z0-9._%+-]+(?:@|%40)[A-Za-z0-9.-]+\\.[A-Za-z]{2,}");
+    private static final Pattern SEGMENTO_NUMERICO = Pattern.compile("/\\d+(?=/|$)");
+    private static final Set<String> CABECALHOS_OMITIDOS = Set.of("authorization", "cookie", "proxy-authorization");
+    private static final String PREFIXO = "captura-";
+    private static final String EXTENSAO = ".bin";
+
+    private final Path diretorio;
+    private final long tamanhoMaximoArquivo;
+    private final int maximoArquivos;
+    private final int tamanhoMaximoCorpo;
+    private final Mac mascara;
+    private final BlockingQueue<byte[]> fila;
+    private final Thread escritor;
+    private final String sessao = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+    private volatile boolean encerrado;
+
+    private final AtomicLong capturadas = new AtomicLong();
+    private final AtomicLong descartadas = new AtomicLong();
+    private final AtomicLong corposOmitidos = new AtomicLong();
+    private final AtomicLong bytesGravados = new AtomicLong();
+    private final AtomicLong arquivos = new AtomicLong();
+
+    // Writer thread only
+    private OutputStream atual;
+    private long tamanhoAtual;
+    private int sequencia;
+
+    /**
+     * @param diretorio            Where the capture files are written.
+     * @param tamanhoMaximoArquivo Size at which the current file is closed and a new one started.
+     * @param maximoArquivos       Files kept; the oldest are deleted on rotation.
+     * @param tamanhoMaximoCorpo   Larger bodies are not captured.
+     * @param capacidadeFila       Records waiting for the writer before new ones are dropped.
+     */
+    public TrafficCapture(Path diretorio, long tamanhoMaximoArquivo, int maximoArquivos,
+                          int tamanhoMaximoCorpo, int capacidadeFila) {
+        this.diretorio = diretorio;
+        this.tamanhoMaximoArquivo = tamanhoMaximoArquivo;
+        this.maximoArquivos = Math.max(maximoArquivos, 1);
+        this.tamanhoMaximoCorpo = Math.max(0, Math.min(tamanhoMaximoCorpo, Integer.MAX_VALUE - 16)); // + 1 is read
+        this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+        try {
+            byte[] chave = new byte[32];
+            new SecureRandom().nextBytes(chave);
+            this.mascara = Mac.getInstance("HmacSHA256");
+            this.mascara.init(new SecretKeySpec(chave, "HmacSHA256"));
+            Files.createDirectories(diretorio);
+        } catch (GeneralSecurityException | IOException e) {
+            throw new RuntimeException("Erro ao iniciar a captura de tráfego em " + diretorio + ".", e);
+        }
+        this.escritor = new Thread(this::gravar, "traffic-capture");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+        MetricsRegistry.getInstance().registrar("captura.trafego", this::metricas);
+        logger.info("Captura de tráfego ativa em {} (rotação a cada {} bytes, {} arquivos).",
+                diretorio.toAbsolutePath(), tamanhoMaximoArquivo, this.maximoArquivos);
+    }
+
+    /**
+     * @return The capture filter configured by {@code CAPTURE_*}, or {@code null} when
+     * {@code CAPTURE_ENABLED} is not {@code true}.
+     */
+    public static TrafficCapture fromConfig() {
+        if (!AppConfig.getBoolean("CAPTURE_ENABLED", false)) {
+            return null;
+        }
+        return new TrafficCapture(
+                Paths.get(AppConfig.getString("CAPTURE_DIR", "captura")),
+                AppConfig.getLong("CAPTURE_MAX_FILE_BYTES", 64L * 1024 * 1024),
+                AppConfig.getInt("CAPTURE_MAX_FILES", 10),
+                AppConfig.getInt("CAPTURE_MAX_BODY_BYTES", 256 * 1024),
+                AppConfig.getInt("CAPTURE_QUEUE", 10_000));
+    }
+
+    @Override
+    public String description() {
+        return "Captura de tráfego para replay";
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if (WarmUpTraffic.isAquecimento(exchange)) {
+            chain.doFilter(exchange); // synthetic traffic of this instance's own startup
+            return;
+        }
+        long inicioEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        long inicio = System.nanoTime();
+        // Read just enough to know whether the body fits the capture; the handler gets those bytes
+        // back followed by the rest of the stream, so a large upload is never held in memory here
+        InputStream original = exchange.getRequestBody();
+        byte[] corpo = original.readNBytes(tamanhoMaximoCorpo + 1);
+        exchange.setStreams(new SequenceInputStream(new ByteArrayInputStream(corpo), original), null);
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            // The handler's own figure, which a replay can read back from its responses too
+            long duracaoMicros = RequestContext.lerDuracaoApp(exchange.getResponseHeaders().getFirst("Server-Timing"));
+            if (duracaoMicros < 0) {
+                duracaoMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - inicio);
+            }
+            if (!encerrado) {
+                registrar(exchange, corpo, inicioEpochMicros, duracaoMicros);
+            }
+        }
+    }
+
+    private void registrar(HttpExchange exchange, byte[] corpo, long inicioEpochMicros, long duracaoMicros) {
+        try {
+            String caminho = exchange.getRequestURI().getRawPath();
+            String query = exchange.getRequestURI().getRawQuery();
+            String uri = mascarar(query == null ? caminho : caminho + "?" + query);
+
+            List<String[]> cabecalhos = new ArrayList<>();
+            exchange.getRequestHeaders().forEach((nome, valores) -> {
+                if (CABECALHOS_OMITIDOS.contains(nome.toLowerCase(Locale.ROOT))) return;
+                for (String valor : valores) {
+                    cabecalhos.add(new String[]{nome, mascarar(valor)});
+                }
+            });
+
+            byte[] corpoCapturado = null;
+            if (corpo.length <= tamanhoMaximoCorpo && textual(exchange.getRequestHeaders().getFirst("Content-Type"))) {
+                corpoCapturado = mascarar(new String(corpo, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+            } else {
+                corposOmitidos.incrementAndGet();
+            }
+
+            CapturedRequest requisicao = new CapturedRequest(inicioEpochMicros, duracaoMicros,
+                    Math.max(exchange.getResponseCode(), 0), exchange.getRequestMethod(), rota(mascarar(caminho)),
+                    uri, cabecalhos, corpoCapturado);
+            if (fila.offer(requisicao.quadro())) {
+                capturadas.incrementAndGet();
+            } else {
+                descartadas.incrementAndGet();
+            }
+        } catch (RuntimeException e) {
+            // Capturing must never break the request it observes
+            descartadas.incrementAndGet();
+            logger.warn("Falha ao capturar requisição: {}", e.getMessage());
+        }
+    }
+
+    private static boolean textual(String contentType) {
+        if (contentType == null) return true; // the API defaults to JSON
+        String tipo = contentType.toLowerCase(Locale.ROOT);
+        return tipo.startsWith("application/json") || tipo.startsWith("text/")
+                || tipo.startsWith("application/x-www-form-urlencoded");
+    }
+
+    /**
+     * Replaces every e-mail address in a text by its pseudonym.
+     */
+    String mascarar(String texto) {
+        if (texto.indexOf('@') < 0 && !texto.contains("%40")) return texto;
+        Matcher matcher = EMAIL.matcher(texto);
+        StringBuilder resultado = new StringBuilder(texto.length());
+        while (matcher.find()) {
+            matcher.appendReplacement(resultado, pseudonimo(matcher.group()));
+        }
+        matcher.appendTail(resultado);
+        return resultado.toString();
+    }
+
+    private String pseudonimo(String email) {
+        String normalizado = email.replace("%40", "@").toLowerCase(Locale.ROOT);
+        byte[] hash;
+        synchronized (mascara) { // Mac is not thread-safe
+            hash = mascara.doFinal(normalizado.getBytes(StandardCharsets.UTF_8));
+        }
+        StringBuilder local = new StringBuilder("u");
+        for (int i = 0; i < 8; i++) {
+            local.append(String.format("%02x", hash[i]));
+        }
+        return local + (email.contains("%40") ? "%40" : "@") + "mascarado.invalid";
+    }
+
+    /**
+     * Route template of a path, so statistics group {@code /api/alunos/12} with {@code /api/alunos/13}.
+     */
+    static String rota(String caminho) {
+        String rota = SEGMENTO_NUMERICO.matcher(caminho).replaceAll("/{id}");
+        return EMAIL.matcher(rota).replaceAll("{email}");
+    }
+
+    // --- Writer thread ---
+
+    private void gravar() {
+        List<byte[]> lote = new ArrayList<>();
+        while (!encerrado || !fila.isEmpty()) {
+            try {
+                byte[] primeiro = fila.poll(200, TimeUnit.MILLISECONDS);
+                if (primeiro == null) continue;
+                lote.add(primeiro);
+                fila.drainTo(lote);
+                for (byte[] quadro : lote) {
+                    escrever(quadro);
+                }
+                atual.flush(); // whatever is in the file is complete frames once the queue is drained
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                descartadas.addAndGet(lote.size());
+                logger.error("Erro ao gravar captura de tráfego em {}: {}", diretorio, e.getMessage());
+                fecharArquivo();
+            } finally {
+                lote.clear();
+            }
+        }
+        fecharArquivo();
+    }
+
+    private void escrever(byte[] quadro) throws IOException {
+        if (atual == null || tamanhoAtual >= tamanhoMaximoArquivo) {
+            rotacionar();
+        }
+        atual.write(quadro);
+        tamanhoAtual += quadro.length;
+        bytesGravados.addAndGet(quadro.length);
+    }
+
+    private void rotacionar() throws IOException {
+        fecharArquivo();
+        Path arquivo = diretorio.resolve(String.format("%s%s-%04d%s", PREFIXO, sessao, ++sequencia, EXTENSAO));
+        atual = new BufferedOutputStream(Files.newOutputStream(arquivo), 64 * 1024);
+        atual.write(CapturedRequest.MAGICO);
+        tamanhoAtual = CapturedRequest.MAGICO.length;
+        arquivos.incrementAndGet();
+        removerAntigos();
+    }
+
+    private void removerAntigos() throws IOException {
+        List<Path> existentes;
+        try (Stream<Path> arquivosNoDiretorio = Files.list(diretorio)) {
+            existentes = arquivosNoDiretorio
+                    .filter(p -> p.getFileName().toString().startsWith(PREFIXO) && p.toString().endsWith(EXTENSAO))
+                    .sorted() // names sort chronologically
+                    .collect(Collectors.toList());
+        }
+        for (int i = 0; i < existentes.size() - maximoArquivos; i++) {
+            Files.deleteIfExists(existentes.get(i));
+        }
+    }
+
+    private void fecharArquivo() {
+        if (atual == null) return;
+        try {
+            atual.close();
+        } catch (IOException e) {
+            logger.warn("Erro ao fechar arquivo de captura: {}", e.getMessage());
+        }
+        atual = null;
+    }
+
+    /**
+     * Stops capturing and waits for the queued records to be written.
+     */
+    @Override
+    public void close() {
+        encerrado = true;
+        try {
+            escritor.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        MetricsRegistry.getInstance().remover("captura.trafego");
+        logger.info("Captura de tráfego encerrada: {} requisições em {}.", capturadas.get(), diretorio.toAbsolutePath());
+    }
+
+    private Map<String, Object> metricas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("capturadas", capturadas.get());
+        metricas.put("descartadas", descartadas.get());
+        metricas.put("corposOmitidos", corposOmitidos.get());
+        metricas.put("bytesGravados", bytesGravados.get());
+        metricas.put("arquivos", arquivos.get());
+        metricas.put("fila", fila.size());
+        return metricas;
+    }
+}
@@ -0,0 +1,44 @@
+package com.escola.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for one unit of work: a Hibernate session, from the {@code EntityManager} being
+ * opened until it is closed. Emitted by {@link UnitOfWorkListener}.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+@Name("com.escola.UnitOfWork")
+@Label("Unit of Work")
+@Category({"Escola", "Persistência"})
+@Description("EntityManager aberto e fechado, com as transações executadas nele")
+@StackTrace(false)
+final class UnitOfWorkEvent extends jdk.jfr.Event {
+
+    @Label("Rota")
+    String rota;
+
+    @Label("Transações")
+    int transacoes;
+
+    @Label("Rollbacks")
+    int rollbacks;
+
+    @Label("Tempo de Commit")
+    @Description("Flush final mais o commit JDBC, somado sobre as transações")
+    @Timespan
+    long tempoCommit;
+
+    @Label("Entidades Gravadas")
+    @Description("Entidades verificadas nos flushes")
+    int entidades;
+
+    @Label("Comandos SQL")
+    int comandos;
+}
@@ -0,0 +1,75 @@
+package com.escola.monitoring;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Hibernate session listener that emits a {@link UnitOfWorkEvent} per {@code EntityManager}.
+ * {@code PersistenceManager} registers it through {@code hibernate.session.events.auto}, so
+ * Hibernate creates one instance per session, when the session opens, and calls
+ * {@link #end()} when it closes.
+ * <p>
+ * Hibernate has no "commit started" callback, but a commit always flushes first: the commit time
+ * of a transaction is measured from the last full flush to its completion, i.e. the final flush
+ * plus the JDBC commit.
+ * </p>
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public class UnitOfWorkListener extends BaseSessionEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient UnitOfWorkEvent evento = new UnitOfWorkEvent();
+    private final boolean habilitado = evento.isEnabled();
+    private long inicioFlush;
+
+    /**
+     * Called by Hibernate when a session opens.
+     */
+    public UnitOfWorkListener() {
+        if (habilitado) {
+            evento.rota = RequestContext.rotaAtual();
+            evento.begin();
+        }
+    }
+
+    @Override
+    public void flushStart() {
+        if (habilitado) inicioFlush = System.nanoTime();
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        if (habilitado) evento.entidades += numberOfEntities;
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        if (habilitado) evento.comandos++;
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        if (habilitado) evento.comandos++;
+    }
+
+    @Override
+    public void transactionCompletion(boolean successful) {
+        if (!habilitado) return;
+        evento.transacoes++;
+        if (!successful) {
+            evento.rollbacks++;
+        } else if (inicioFlush != 0) {
+            evento.tempoCommit += System.nanoTime() - inicioFlush;
+        }
+        inicioFlush = 0;
+    }
+
+    @Override
+    public void end() {
+        if (habilitado) {
+            evento.commit();
+        }
+    }
+}
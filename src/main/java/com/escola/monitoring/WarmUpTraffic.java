@@ -0,0 +1,63 @@
+package com.escola.monitoring;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Identifies the synthetic requests of the startup warm-up, which the readiness gate lets through
+ * and which traffic capture and the SQL statistics leave out.
+ * <p>
+ * The warm-up sends {@link #CABECALHO} with {@link #token()}, random per process, so a client
+ * cannot claim to be warm-up traffic by setting the header: a request only counts as such when it
+ * carries that exact value and comes from a loopback address, as the warm-up connects over it.
+ * </p>
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public final class WarmUpTraffic {
+
+    /** Header sent with every warm-up request, valued {@link #token()}. */
+    public static final String CABECALHO = "X-Warmup";
+
+    private static final String TOKEN = gerarToken();
+
+    private WarmUpTraffic() {
+    }
+
+    /**
+     * @return The value the warm-up of this process sends in {@link #CABECALHO}.
+     */
+    public static String token() {
+        return TOKEN;
+    }
+
+    /**
+     * Tells whether a request comes from the warm-up of this process.
+     *
+     * @param exchange The request.
+     * @return {@code true} if it carries this process' token and comes from a loopback address.
+     */
+    public static boolean isAquecimento(HttpExchange exchange) {
+        String valor = exchange.getRequestHeaders().getFirst(CABECALHO);
+        if (valor == null || !loopback(exchange.getRemoteAddress())) {
+            return false;
+        }
+        return MessageDigest.isEqual(valor.getBytes(StandardCharsets.US_ASCII), TOKEN.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static boolean loopback(InetSocketAddress endereco) {
+        return endereco != null && endereco.getAddress() != null && endereco.getAddress().isLoopbackAddress();
+    }
+
+    private static String gerarToken() {
+        byte[] bytes = new byte[24];
+        new SecureRandom().nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
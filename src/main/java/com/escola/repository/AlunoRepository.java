@@ -1,6 +1,7 @@
 package com.escola.repository;
 
 import com.escola.model.Aluno;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -45,14 +46,37 @@ public interface AlunoRepository {
      */
     List<Aluno> listarTodos();
 
+    /**
+     * Retrieves the email addresses of all students, without loading the entities.
+     * Used to build in-process indexes (e.g. the email Bloom filter) at startup.
+     *
+     * @return A {@link List} of all emails, in no particular order.
+     */
+    List<String> listarEmails();
+
     /**
      * Updates an existing Aluno entity in the database.
      *
      * @param aluno The {@link Aluno} entity with updated information. Must not be null.
      * @return The updated Aluno entity.
+     * @throws com.escola.exception.ConflitoDeVersaoException if the entity's version is stale.
      */
     Aluno atualizar(Aluno aluno);
 
+    /**
+     * Updates only the given columns of an Aluno with a single UPDATE statement, without loading it first.
+     * Null arguments mean "unchanged"; the version is incremented.
+     *
+     * @param id The ID of the Aluno to update. Must not be null.
+     * @param versaoEsperada The version the caller read, or null to update unconditionally.
+     * @param nome The new name, or null.
+     * @param email The new email, or null.
+     * @param dataNascimento The new date of birth, or null.
+     * @return The number of affected rows (0 if no Aluno exists with the given ID).
+     * @throws com.escola.exception.ConflitoDeVersaoException if the Aluno exists with a different version.
+     */
+    int atualizarCampos(Long id, Long versaoEsperada, String nome, String email, LocalDate dataNascimento);
+
     /**
      * Deletes an Aluno entity from the database by its unique identifier.
      *
@@ -58,9 +58,24 @@ public interface CursoRepository {
      *
      * @param curso The {@link Curso} entity with updated information. Must not be null.
      * @return The updated Curso entity.
+     * @throws com.escola.exception.ConflitoDeVersaoException if the entity's version is stale.
      */
     Curso atualizar(Curso curso);
 
+    /**
+     * Updates only the given columns of a Curso with a single UPDATE statement, without loading it first.
+     * Null arguments mean "unchanged"; the version is incremented.
+     *
+     * @param id The ID of the Curso to update. Must not be null.
+     * @param versaoEsperada The version the caller read, or null to update unconditionally.
+     * @param nome The new name, or null.
+     * @param descricao The new description, or null.
+     * @param cargaHoraria The new workload, or null.
+     * @return The number of affected rows (0 if no Curso exists with the given ID).
+     * @throws com.escola.exception.ConflitoDeVersaoException if the Curso exists with a different version.
+     */
+    int atualizarCampos(Long id, Long versaoEsperada, String nome, String descricao, Integer cargaHoraria);
+
     /**
      * Deletes a Curso entity from the database by its unique identifier.
      *
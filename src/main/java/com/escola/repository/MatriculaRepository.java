@@ -2,6 +2,7 @@ package com.escola.repository;
 
 import com.escola.model.Matricula;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -9,7 +10,7 @@ import java.util.Optional;
  * Interface de repositório para operações com a entidade {@link Matricula}.
  * Foco em acesso a dados, sem regras de negócio.
  *
- * @version 1.1
+ * @version 1.2
  * @author FelipeCardoso
  */
 public interface MatriculaRepository {
@@ -21,13 +22,41 @@ public interface MatriculaRepository {
      */
     Matricula salvar(Matricula matricula);
 
+    /**
+     * Salva várias matrículas novas de forma atômica (uma única transação): ou todas são salvas, ou nenhuma.
+     * Usado pela fila de gravação em lote para pagar um único commit por lote.
+     * @param matriculas As novas matrículas.
+     * @return As matrículas salvas, na mesma ordem, com ID preenchido.
+     */
+    List<Matricula> salvarTodas(List<Matricula> matriculas);
+
     /**
      * Atualiza uma matrícula existente no banco de dados.
      * @param matricula A entidade Matricula a ser atualizada.
      * @return A entidade Matricula atualizada.
+     * @throws com.escola.exception.ConflitoDeVersaoException se a versão da entidade estiver desatualizada.
      */
     Matricula atualizar(Matricula matricula);
 
+    /**
+     * Atualiza apenas as colunas informadas de uma matrícula com um único UPDATE, sem carregá-la antes.
+     * Argumentos nulos significam "sem alteração"; a versão é incrementada.
+     * @param id O ID da matrícula.
+     * @param versaoEsperada A versão lida pelo chamador, ou nulo para atualizar incondicionalmente.
+     * @param cancelada O novo estado de cancelamento, ou nulo.
+     * @param dataMatricula A nova data de matrícula, ou nulo.
+     * @return O número de linhas afetadas (0 se a matrícula não existir).
+     * @throws com.escola.exception.ConflitoDeVersaoException se a matrícula existir com outra versão.
+     */
+    int atualizarCampos(Long id, Long versaoEsperada, Boolean cancelada, LocalDate dataMatricula);
+
+    /**
+     * Cancela, com um único UPDATE em lote, todas as matrículas ativas de um curso.
+     * @param cursoId O ID do curso.
+     * @return O número de matrículas canceladas.
+     */
+    int cancelarTodasPorCursoId(Long cursoId);
+
     /**
      * Remove uma matrícula do banco de dados com base na entidade fornecida.
      * @param matricula A entidade Matricula a ser removida.
@@ -103,4 +132,12 @@ public interface MatriculaRepository {
      */
     Optional<Matricula> buscarPorIdComDetalhes(Long id);
 
+    /**
+     * Lista os alunos com matrícula ativa (não cancelada) nos dois cursos.
+     * @param cursoA O ID de um dos cursos.
+     * @param cursoB O ID do outro curso.
+     * @return Os IDs dos alunos, em ordem crescente.
+     */
+    List<Long> listarAlunosAtivosEmAmbosOsCursos(Long cursoA, Long cursoB);
+
 }
\ No newline at end of file
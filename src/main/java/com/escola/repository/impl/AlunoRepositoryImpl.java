@@ -1,6 +1,7 @@
 package com.escola.repository.impl;
 
 import com.escola.config.PersistenceManager;
+import com.escola.exception.ConflitoDeVersaoException;
 import com.escola.model.Aluno;
 import com.escola.repository.AlunoRepository;
 
@@ -8,7 +9,10 @@ import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
 import javax.persistence.NoResultException;
 import javax.persistence.TypedQuery;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -84,6 +88,21 @@ public class AlunoRepositoryImpl implements AlunoRepository {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> listarEmails() {
+        EntityManager em = PersistenceManager.getEntityManager();
+        try {
+            return em.createQuery("SELECT a.email FROM Aluno a", String.class).getResultList();
+        } finally {
+            if (em != null) {
+                em.close();
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -117,6 +136,11 @@ public class AlunoRepositoryImpl implements AlunoRepository {
             if (transaction != null && transaction.isActive()) {
                 transaction.rollback();
             }
+            if (OptimisticLockSupport.isConflito(e)) {
+                throw new ConflitoDeVersaoException(
+                        "Aluno com ID " + aluno.getId() + " foi alterado por outra operação.",
+                        OptimisticLockSupport.versaoAtual("Aluno", aluno.getId()), e);
+            }
             throw new RuntimeException("Erro ao atualizar aluno: " + e.getMessage(), e);
         } finally {
             if (em != null) {
@@ -125,6 +149,18 @@ public class AlunoRepositoryImpl implements AlunoRepository {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int atualizarCampos(Long id, Long versaoEsperada, String nome, String email, LocalDate dataNascimento) {
+        Map<String, Object> campos = new LinkedHashMap<>();
+        if (nome != null) campos.put("nome", nome);
+        if (email != null) campos.put("email", email);
+        if (dataNascimento != null) campos.put("dataNascimento", dataNascimento);
+        return PartialUpdateSupport.atualizarCampos("Aluno", id, versaoEsperada, campos);
+    }
+
     /**
      * {@inheritDoc}
      */
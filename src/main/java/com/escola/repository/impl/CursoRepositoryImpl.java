@@ -1,6 +1,7 @@
 package com.escola.repository.impl;
 
 import com.escola.config.PersistenceManager;
+import com.escola.exception.ConflitoDeVersaoException;
 import com.escola.model.Curso;
 import com.escola.repository.CursoRepository;
 
@@ -9,7 +10,9 @@ import javax.persistence.EntityTransaction;
 import javax.persistence.NoResultException;
 import javax.persistence.TypedQuery;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -136,6 +139,11 @@ public class CursoRepositoryImpl implements CursoRepository {
             if (transaction != null && transaction.isActive()) {
                 transaction.rollback();
             }
+            if (OptimisticLockSupport.isConflito(e)) {
+                throw new ConflitoDeVersaoException(
+                        "Curso com ID " + curso.getId() + " foi alterado por outra operação.",
+                        OptimisticLockSupport.versaoAtual("Curso", curso.getId()), e);
+            }
             throw new RuntimeException("Erro ao atualizar curso: " + e.getMessage(), e);
         } finally {
             if (em != null) {
@@ -144,6 +152,18 @@ public class CursoRepositoryImpl implements CursoRepository {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int atualizarCampos(Long id, Long versaoEsperada, String nome, String descricao, Integer cargaHoraria) {
+        Map<String, Object> campos = new LinkedHashMap<>();
+        if (nome != null) campos.put("nome", nome);
+        if (descricao != null) campos.put("descricao", descricao);
+        if (cargaHoraria != null) campos.put("cargaHoraria", cargaHoraria);
+        return PartialUpdateSupport.atualizarCampos("Curso", id, versaoEsperada, campos);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,386 @@
+package com.escola.repository.impl;
+
+import com.escola.config.AppConfig;
+import com.escola.config.PersistenceManager;
+import com.escola.monitoring.MetricsRegistry;
+import com.escola.util.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide in-memory index of the enrollments, kept as compressed bitmaps
+ * ({@link RoaringBitmap}): course → students and student → courses.
+ * <p>
+ * Both sides hold every enrollment: the repository contracts they answer count cancelled
+ * enrollments and must see them in the duplicate check (the unique constraint covers them too).
+ * Each course also has the set of its active (not cancelled) students, a subset of the former,
+ * for intersections such as "students in both course A and B".
+ * </p>
+ * <p>
+ * The index is loaded with one projection query when the first {@link MatriculaRepositoryImpl} is
+ * created (at startup) and then updated by the repository after each successful commit, in commit
+ * order: the repository commits and updates the index under {@link #emOrdemDeCommit(Runnable)}, so
+ * a delete and a re-insert of the same pair cannot reach the index swapped. Bulk updates re-read
+ * the rows they changed under the same lock instead of describing their effect. It only
+ * sees writes made through this process: other instances or manual SQL make it stale, exactly as
+ * with the e-mail Bloom filter. The unique constraint still rejects a duplicate the index missed,
+ * and the repository then has the index rebuilt. Whenever the index cannot apply a write it marks itself unavailable, the repository falls back to
+ * SQL, and it is rebuilt in the background; writes made during a rebuild are replayed, in commit
+ * order, on the new index before the swap, so none is lost.
+ * </p>
+ * <p>
+ * Settings: {@code MATRICULA_INDEX_ENABLED} (default true). Ids must fit in 32 bits (unsigned).
+ * </p>
+ *
+ * @version 1.3
+ * @author FelipeCardoso
+ */
+final class MatriculaIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatriculaIndex.class);
+    private static final String METRICAS = "matriculas.indice";
+    private static final long MAIOR_ID = 0xFFFF_FFFFL;
+
+    private static MatriculaIndex instancia;
+    private static boolean inicializado;
+
+    private final Supplier<List<Object[]>> fonte; // (aluno id, curso id, cancelada) of every enrollment
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock ordemDeCommit = new ReentrantLock(); // held by writers from commit to index update
+    private Conteudo atual = new Conteudo(); // guarded by lock
+    private List<Consumer<Conteudo>> pendentes; // non-null while rebuilding; guarded by lock
+    private volatile boolean disponivel;
+    private final AtomicBoolean reconstruindo = new AtomicBoolean();
+
+    private final LongAdder consultas = new LongAdder();
+    private final LongAdder consultasSemIndice = new LongAdder();
+    private final LongAdder buscasEvitadas = new LongAdder();
+    private final LongAdder reconstrucoes = new LongAdder();
+    private volatile long ultimaReconstrucaoMs;
+
+    /**
+     * @param fonte Reads every enrollment as {@code (aluno id, curso id, cancelada)}, for each (re)build.
+     */
+    MatriculaIndex(Supplier<List<Object[]>> fonte) {
+        this.fonte = fonte;
+    }
+
+    /**
+     * Returns the shared index, loading it on the first call.
+     *
+     * @return The index, or {@code null} when disabled by {@code MATRICULA_INDEX_ENABLED=false}.
+     */
+    static synchronized MatriculaIndex compartilhado() {
+        if (!inicializado) {
+            inicializado = true;
+            if (AppConfig.getBoolean("MATRICULA_INDEX_ENABLED", true)) {
+                instancia = new MatriculaIndex(MatriculaIndex::lerMatriculas);
+                try {
+                    instancia.reconstruir();
+                } catch (RuntimeException e) {
+                    // The index is only an optimization: queries go to the database until a rebuild succeeds
+                    logger.warn("Índice de matrículas indisponível: {}", e.getMessage());
+                }
+                MetricsRegistry.getInstance().registrar(METRICAS, instancia::metricas);
+            }
+        }
+        return instancia;
+    }
+
+    // ===================== Consultas ===================== //
+
+    /**
+     * @return {@code false} if the student is certainly not enrolled in the course (cancelled
+     * enrollments included); {@code true} if they may be, or if the index is unavailable.
+     */
+    boolean podeExistir(Long alunoId, Long cursoId) {
+        Boolean contem = ler(c -> {
+            RoaringBitmap cursos = c.cursosPorAluno.get(chave(alunoId));
+            return cursos != null && cursos.contem(chave(cursoId));
+        }, alunoId, cursoId);
+        if (Boolean.FALSE.equals(contem)) {
+            buscasEvitadas.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /** @return Number of enrollments of the student (cancelled included), if the index is available. */
+    OptionalLong contarPorAluno(Long alunoId) {
+        return cardinalidade(ler(c -> tamanho(c.cursosPorAluno.get(chave(alunoId))), alunoId));
+    }
+
+    /** @return Number of enrollments in the course (cancelled included), if the index is available. */
+    OptionalLong contarPorCurso(Long cursoId) {
+        return cardinalidade(ler(c -> tamanho(c.alunosPorCurso.get(chave(cursoId))), cursoId));
+    }
+
+    /**
+     * Intersects the active students of two courses.
+     *
+     * @return The student IDs in ascending order, if the index is available.
+     */
+    Optional<List<Long>> alunosAtivosEmAmbos(Long cursoA, Long cursoB) {
+        return Optional.ofNullable(ler(c -> {
+            RoaringBitmap a = c.alunosAtivosPorCurso.get(chave(cursoA));
+            RoaringBitmap b = c.alunosAtivosPorCurso.get(chave(cursoB));
+            List<Long> ids = new ArrayList<>();
+            if (a != null && b != null) {
+                RoaringBitmap.e(a, b).paraCada(id -> ids.add(Integer.toUnsignedLong(id)));
+            }
+            return ids;
+        }, cursoA, cursoB));
+    }
+
+    // ===================== Escritas (após o commit) ===================== //
+
+    /**
+     * Runs a commit together with the index update that describes it, so that index updates are
+     * applied (and recorded for replay during a rebuild) in the order the writes committed.
+     * The writes below must be called from within it. Readers do not take this lock.
+     *
+     * @param commitEAtualizacao Commits the transaction, then updates the index.
+     */
+    void emOrdemDeCommit(Runnable commitEAtualizacao) {
+        ordemDeCommit.lock();
+        try {
+            commitEAtualizacao.run();
+        } finally {
+            ordemDeCommit.unlock();
+        }
+    }
+
+    void gravada(Long alunoId, Long cursoId, boolean cancelada) {
+        aplicar(c -> c.gravar(chave(alunoId), chave(cursoId), !cancelada));
+    }
+
+    void removida(Long alunoId, Long cursoId) {
+        aplicar(c -> c.remover(chave(alunoId), chave(cursoId)));
+    }
+
+    /**
+     * Marks the index unavailable and rebuilds it in the background, e.g. after a write whose
+     * effect on the index cannot be determined.
+     */
+    void invalidar() {
+        disponivel = false;
+        reconstruirEmSegundoPlano();
+    }
+
+    private void aplicar(Consumer<Conteudo> operacao) {
+        assert ordemDeCommit.isHeldByCurrentThread() : "escrita no índice fora de emOrdemDeCommit";
+        lock.writeLock().lock();
+        try {
+            if (pendentes != null) pendentes.add(operacao);
+            if (disponivel) operacao.accept(atual);
+        } catch (RuntimeException e) {
+            logger.warn("Falha ao atualizar o índice de matrículas: {}", e.getMessage());
+            invalidar();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private <R> R ler(Function<Conteudo, R> consulta, Long... ids) {
+        consultas.increment();
+        for (Long id : ids) {
+            if (id == null || id < 0 || id > MAIOR_ID) {
+                consultasSemIndice.increment();
+                return null;
+            }
+        }
+        lock.readLock().lock();
+        try {
+            if (!disponivel) {
+                consultasSemIndice.increment();
+                return null;
+            }
+            return consulta.apply(atual);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===================== Reconstrução ===================== //
+
+    private void reconstruirEmSegundoPlano() {
+        if (reconstruindo.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    reconstruir();
+                } catch (RuntimeException e) {
+                    logger.warn("Falha ao reconstruir o índice de matrículas: {}", e.getMessage());
+                } finally {
+                    reconstruindo.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Loads a new index from {@link #fonte} and swaps it in, replaying the writes that committed
+     * while it loaded.
+     */
+    void reconstruir() {
+        long inicio = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pendentes = new ArrayList<>(); // from here on, writes are recorded for replay
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Conteudo novo = new Conteudo();
+        long total;
+        try {
+            total = carregar(novo);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendentes = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            // Every write sets the state of its pairs, and they are replayed in commit order:
+            // replaying one the query already saw is harmless
+            for (Consumer<Conteudo> operacao : pendentes) {
+                operacao.accept(novo);
+            }
+            atual = novo;
+            disponivel = true;
+        } finally {
+            pendentes = null;
+            lock.writeLock().unlock();
+        }
+        ultimaReconstrucaoMs = (System.nanoTime() - inicio) / 1_000_000L;
+        reconstrucoes.increment();
+        logger.info("Índice de matrículas construído: {} matrícula(s), {} KiB em {} ms.",
+                total, novo.memoriaBytes() / 1024, ultimaReconstrucaoMs);
+    }
+
+    private long carregar(Conteudo conteudo) {
+        List<Object[]> linhas = fonte.get();
+        for (Object[] linha : linhas) {
+            conteudo.gravar(chave((Long) linha[0]), chave((Long) linha[1]), !(Boolean) linha[2]);
+        }
+        return linhas.size();
+    }
+
+    private static List<Object[]> lerMatriculas() {
+        EntityManager em = PersistenceManager.getEntityManager();
+        try {
+            return em.createQuery("SELECT m.aluno.id, m.curso.id, m.cancelada FROM Matricula m", Object[].class)
+                    .getResultList();
+        } finally {
+            if (em != null) em.close();
+        }
+    }
+
+    private static int chave(Long id) {
+        if (id == null || id < 0 || id > MAIOR_ID) {
+            throw new IllegalArgumentException("ID fora do intervalo do índice: " + id);
+        }
+        return (int) id.longValue();
+    }
+
+    private static Long tamanho(RoaringBitmap conjunto) {
+        return conjunto == null ? 0L : conjunto.cardinalidade();
+    }
+
+    private static OptionalLong cardinalidade(Long valor) {
+        return valor == null ? OptionalLong.empty() : OptionalLong.of(valor);
+    }
+
+    private Map<String, Object> metricas() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            m.put("disponivel", disponivel);
+            m.put("matriculas", atual.total);
+            m.put("ativas", atual.ativas);
+            m.put("alunos", atual.cursosPorAluno.size());
+            m.put("cursos", atual.alunosPorCurso.size());
+            m.put("memoriaBytes", atual.memoriaBytes());
+        } finally {
+            lock.readLock().unlock();
+        }
+        m.put("consultas", consultas.sum());
+        m.put("consultasSemIndice", consultasSemIndice.sum());
+        m.put("buscasEvitadas", buscasEvitadas.sum());
+        m.put("reconstrucoes", reconstrucoes.sum());
+        m.put("ultimaReconstrucaoMs", ultimaReconstrucaoMs);
+        return m;
+    }
+
+    /**
+     * The three bitmap maps. Every operation keeps the student-side and course-side views in step.
+     */
+    private static final class Conteudo {
+        final Map<Integer, RoaringBitmap> alunosPorCurso = new HashMap<>();
+        final Map<Integer, RoaringBitmap> alunosAtivosPorCurso = new HashMap<>();
+        final Map<Integer, RoaringBitmap> cursosPorAluno = new HashMap<>();
+        long total;
+        long ativas;
+
+        void gravar(int aluno, int curso, boolean ativa) {
+            if (adicionar(alunosPorCurso, curso, aluno)) {
+                adicionar(cursosPorAluno, aluno, curso);
+                total++;
+            }
+            if (ativa) {
+                if (adicionar(alunosAtivosPorCurso, curso, aluno)) ativas++;
+            } else if (retirar(alunosAtivosPorCurso, curso, aluno)) {
+                ativas--;
+            }
+        }
+
+        void remover(int aluno, int curso) {
+            if (retirar(alunosPorCurso, curso, aluno)) {
+                retirar(cursosPorAluno, aluno, curso);
+                total--;
+            }
+            if (retirar(alunosAtivosPorCurso, curso, aluno)) ativas--;
+        }
+
+        long memoriaBytes() {
+            long bytes = 0;
+            for (Map<Integer, RoaringBitmap> mapa : List.of(alunosPorCurso, alunosAtivosPorCurso, cursosPorAluno)) {
+                for (RoaringBitmap conjunto : mapa.values()) {
+                    bytes += conjunto.getMemoriaBytes();
+                }
+            }
+            return bytes;
+        }
+
+        private static boolean adicionar(Map<Integer, RoaringBitmap> mapa, int chave, int valor) {
+            return mapa.computeIfAbsent(chave, k -> new RoaringBitmap()).adicionar(valor);
+        }
+
+        private static boolean retirar(Map<Integer, RoaringBitmap> mapa, int chave, int valor) {
+            RoaringBitmap conjunto = mapa.get(chave);
+            if (conjunto == null || !conjunto.remover(valor)) return false;
+            if (conjunto.vazio()) mapa.remove(chave);
+            return true;
+        }
+    }
+}
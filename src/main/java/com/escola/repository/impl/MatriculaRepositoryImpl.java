@@ -1,6 +1,7 @@
 package com.escola.repository.impl;
 
 import com.escola.config.PersistenceManager;
+import com.escola.exception.ConflitoDeVersaoException;
 import com.escola.model.Matricula;
 import com.escola.repository.MatriculaRepository;
 
@@ -8,18 +9,38 @@ import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
 import javax.persistence.TypedQuery;
 import javax.persistence.NoResultException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 /**
  * JPA implementation of the {@link MatriculaRepository}.
  * Handles the persistence operations for {@link Matricula} entities.
+ * <p>
+ * Counts and the (student, course) duplicate check are answered by the shared in-memory
+ * {@link MatriculaIndex} when it is available; every write path updates the index right after its
+ * commit, in commit order. An insert rejected by the unique constraint means the index missed the
+ * pair, so it is rebuilt.
+ * </p>
  *
- * @version 1.1
+ * @version 1.3
  * @author FelipeCardoso
  */
 public class MatriculaRepositoryImpl implements MatriculaRepository {
 
+    private final MatriculaIndex indice;
+
+    /**
+     * Constructs the repository. The first instance loads the shared enrollment index.
+     */
+    public MatriculaRepositoryImpl() {
+        this.indice = MatriculaIndex.compartilhado();
+    }
+
     @Override
     public Matricula salvar(Matricula matricula) {
         EntityManager em = PersistenceManager.getEntityManager();
@@ -28,16 +49,42 @@ public class MatriculaRepositoryImpl implements MatriculaRepository {
             tx = em.getTransaction();
             tx.begin();
             em.persist(matricula);
-            tx.commit();
+            confirmar(em, tx, () -> indexar(matricula));
             return matricula;
         } catch (Exception e) {
             if (tx != null && tx.isActive()) tx.rollback();
+            verificarUnicidade(e);
             throw new RuntimeException("Erro ao salvar matrícula: " + e.getMessage(), e);
         } finally {
             if (em != null) em.close();
         }
     }
 
+    @Override
+    public List<Matricula> salvarTodas(List<Matricula> matriculas) {
+        EntityManager em = PersistenceManager.getEntityManager();
+        EntityTransaction tx = null;
+        try {
+            tx = em.getTransaction();
+            tx.begin();
+            for (Matricula matricula : matriculas) {
+                em.persist(matricula);
+            }
+            confirmar(em, tx, () -> matriculas.forEach(this::indexar));
+            return matriculas;
+        } catch (Exception e) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            verificarUnicidade(e);
+            // IDENTITY inserts already assigned IDs that the rollback discarded: leave the entities new again
+            for (Matricula matricula : matriculas) {
+                matricula.setId(null);
+            }
+            throw new RuntimeException("Erro ao salvar lote de matrículas: " + e.getMessage(), e);
+        } finally {
+            if (em != null) em.close();
+        }
+    }
+
     @Override
     public Matricula atualizar(Matricula matricula) {
         EntityManager em = PersistenceManager.getEntityManager();
@@ -45,17 +92,52 @@ public class MatriculaRepositoryImpl implements MatriculaRepository {
         try {
             tx = em.getTransaction();
             tx.begin();
+            // merge() loads the row anyway; read the indexed pair before it is overwritten
+            Matricula anterior = matricula.getId() == null ? null : em.find(Matricula.class, matricula.getId());
+            Long alunoAnterior = anterior == null ? null : idDoAluno(anterior);
+            Long cursoAnterior = anterior == null ? null : idDoCurso(anterior);
             Matricula updated = em.merge(matricula);
-            tx.commit();
+            confirmar(em, tx, () -> {
+                if (anterior != null) indice.removida(alunoAnterior, cursoAnterior);
+                indexar(updated);
+            });
             return updated;
         } catch (Exception e) {
             if (tx != null && tx.isActive()) tx.rollback();
+            if (OptimisticLockSupport.isConflito(e)) {
+                throw new ConflitoDeVersaoException(
+                        "Matrícula com ID " + matricula.getId() + " foi alterada por outra operação.",
+                        OptimisticLockSupport.versaoAtual("Matricula", matricula.getId()), e);
+            }
             throw new RuntimeException("Erro ao atualizar matrícula: " + e.getMessage(), e);
         } finally {
             if (em != null) em.close();
         }
     }
 
+    @Override
+    public int atualizarCampos(Long id, Long versaoEsperada, Boolean cancelada, LocalDate dataMatricula) {
+        Map<String, Object> campos = new LinkedHashMap<>();
+        if (cancelada != null) campos.put("cancelada", cancelada);
+        if (dataMatricula != null) campos.put("dataMatricula", dataMatricula);
+        int linhas = PartialUpdateSupport.atualizarCampos("Matricula", id, versaoEsperada, campos);
+        if (linhas > 0 && cancelada != null) {
+            reindexar(id);
+        }
+        return linhas;
+    }
+
+    @Override
+    public int cancelarTodasPorCursoId(Long cursoId) {
+        String jpql = "UPDATE Matricula m SET m.cancelada = true, m.versao = m.versao + 1 " +
+                "WHERE m.curso.id = :cursoId AND m.cancelada = false";
+        int linhas = PartialUpdateSupport.executar(jpql, query -> query.setParameter("cursoId", cursoId), "Matricula");
+        if (linhas > 0) {
+            reindexarCurso(cursoId);
+        }
+        return linhas;
+    }
+
     @Override
     public void remover(Matricula matricula) {
         EntityManager em = PersistenceManager.getEntityManager();
@@ -64,8 +146,10 @@ public class MatriculaRepositoryImpl implements MatriculaRepository {
             tx = em.getTransaction();
             tx.begin();
             Matricula attached = em.contains(matricula) ? matricula : em.merge(matricula);
+            Long alunoId = idDoAluno(attached);
+            Long cursoId = idDoCurso(attached);
             em.remove(attached);
-            tx.commit();
+            confirmar(em, tx, () -> indice.removida(alunoId, cursoId));
         } catch (Exception e) {
             if (tx != null && tx.isActive()) tx.rollback();
             throw new RuntimeException("Erro ao remover matrícula: " + e.getMessage(), e);
@@ -86,6 +170,9 @@ public class MatriculaRepositoryImpl implements MatriculaRepository {
 
     @Override
     public Optional<Matricula> buscarPorAlunoIdECursoId(Long alunoId, Long cursoId) {
+        if (indice != null && !indice.podeExistir(alunoId, cursoId)) {
+            return Optional.empty();
+        }
         EntityManager em = PersistenceManager.getEntityManager();
         try {
             String jpql = "SELECT m FROM Matricula m WHERE m.aluno.id = :alunoId AND m.curso.id = :cursoId";
@@ -102,6 +189,8 @@ public class MatriculaRepositoryImpl implements MatriculaRepository {
 
     @Override
     public long contarPorAlunoId(Long alunoId) {
+        OptionalLong indexado = indice == null ? OptionalLong.empty() : indice.contarPorAluno(alunoId);
+        if (indexado.isPresent()) return indexado.getAsLong();
         EntityManager em = PersistenceManager.getEntityManager();
         try {
             String jpql = "SELECT COUNT(m) FROM Matricula m WHERE m.aluno.id = :alunoId";
@@ -115,6 +204,8 @@ public class MatriculaRepositoryImpl implements MatriculaRepository {
 
     @Override
     public long contarPorCursoId(Long cursoId) {
+        OptionalLong indexado = indice == null ? OptionalLong.empty() : indice.contarPorCurso(cursoId);
+        if (indexado.isPresent()) return indexado.getAsLong();
         EntityManager em = PersistenceManager.getEntityManager();
         try {
             String jpql = "SELECT COUNT(m) FROM Matricula m WHERE m.curso.id = :cursoId";
@@ -141,7 +232,8 @@ public class MatriculaRepositoryImpl implements MatriculaRepository {
     public List<Matricula> listarPorCursoId(Long cursoId) {
         EntityManager em = PersistenceManager.getEntityManager();
         try {
-            String jpql = "SELECT m FROM Matricula m WHERE m.curso.id = :cursoId";
+            // The student comes in the same statement: the report reads it for every enrollment
+            String jpql = "SELECT m FROM Matricula m JOIN FETCH m.aluno WHERE m.curso.id = :cursoId";
             return em.createQuery(jpql, Matricula.class)
                     .setParameter("cursoId", cursoId)
                     .getResultList();
@@ -172,8 +264,10 @@ public class MatriculaRepositoryImpl implements MatriculaRepository {
             tx.begin();
             Matricula matricula = em.find(Matricula.class, id);
             if (matricula != null) {
+                Long alunoId = idDoAluno(matricula);
+                Long cursoId = idDoCurso(matricula);
                 em.remove(matricula);
-                tx.commit();
+                confirmar(em, tx, () -> indice.removida(alunoId, cursoId));
                 return true;
             }
             tx.commit(); // Commit mesmo se não encontrar
@@ -216,4 +310,122 @@ public class MatriculaRepositoryImpl implements MatriculaRepository {
             if (em != null) em.close();
         }
     }
+
+    /**
+     * Intersects the index bitmaps when available; otherwise joins the two courses' enrollments in SQL.
+     */
+    @Override
+    public List<Long> listarAlunosAtivosEmAmbosOsCursos(Long cursoA, Long cursoB) {
+        Optional<List<Long>> indexado = indice == null ? Optional.empty() : indice.alunosAtivosEmAmbos(cursoA, cursoB);
+        if (indexado.isPresent()) return indexado.get();
+        EntityManager em = PersistenceManager.getEntityManager();
+        try {
+            String jpql = "SELECT a.aluno.id FROM Matricula a, Matricula b " +
+                    "WHERE a.aluno.id = b.aluno.id AND a.curso.id = :cursoA AND b.curso.id = :cursoB " +
+                    "AND a.cancelada = false AND b.cancelada = false ORDER BY a.aluno.id";
+            return em.createQuery(jpql, Long.class)
+                    .setParameter("cursoA", cursoA)
+                    .setParameter("cursoB", cursoB)
+                    .getResultList();
+        } finally {
+            if (em != null) em.close();
+        }
+    }
+
+    // ===================== Índice ===================== //
+
+    /**
+     * Commits the transaction and then applies its effect on the index, both under the index's
+     * commit-order lock. The pending statements are flushed first, so that no row lock is waited
+     * for while holding it; only the commit itself runs under the lock.
+     *
+     * @param atualizarIndice The index update; only run when there is an index.
+     */
+    private void confirmar(EntityManager em, EntityTransaction tx, Runnable atualizarIndice) {
+        if (indice == null) {
+            tx.commit();
+            return;
+        }
+        em.flush();
+        indice.emOrdemDeCommit(() -> {
+            tx.commit();
+            atualizarIndice.run();
+        });
+    }
+
+    /**
+     * The duplicate check trusts the index's "certainly absent": a unique violation on insert
+     * means it missed the pair, so it is rebuilt rather than left wrong.
+     */
+    private void verificarUnicidade(Throwable e) {
+        if (indice != null && violaUnicidade(e)) {
+            indice.invalidar();
+        }
+    }
+
+    private static boolean violaUnicidade(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException && "23505".equals(((SQLException) t).getSQLState())) {
+                return true; // unique_violation, in both H2 and PostgreSQL
+            }
+        }
+        return false;
+    }
+
+    private void indexar(Matricula matricula) {
+        if (indice == null) return;
+        Long alunoId = idDoAluno(matricula);
+        Long cursoId = idDoCurso(matricula);
+        if (alunoId == null || cursoId == null) {
+            indice.invalidar(); // should not happen: the service always sets both; reload from the database
+            return;
+        }
+        indice.gravada(alunoId, cursoId, matricula.isCancelada());
+    }
+
+    /**
+     * Re-reads the pair and the cancelled flag after a bulk update that changed them.
+     */
+    private void reindexar(Long id) {
+        reler("SELECT m.aluno.id, m.curso.id, m.cancelada FROM Matricula m WHERE m.id = :id", "id", id);
+    }
+
+    /**
+     * Re-reads every enrollment of a course after its enrollments were cancelled in bulk.
+     */
+    private void reindexarCurso(Long cursoId) {
+        reler("SELECT m.aluno.id, m.curso.id, m.cancelada FROM Matricula m WHERE m.curso.id = :cursoId", "cursoId", cursoId);
+    }
+
+    /**
+     * Bulk updates commit on their own, so their rows are read back under the commit-order lock:
+     * no other write can commit between the read and the index update, and the state read
+     * already includes whatever committed since the bulk update.
+     */
+    private void reler(String jpql, String parametro, Long valor) {
+        if (indice == null) return;
+        indice.emOrdemDeCommit(() -> {
+            EntityManager em = PersistenceManager.getEntityManager();
+            try {
+                List<Object[]> linhas = em.createQuery(jpql, Object[].class)
+                        .setParameter(parametro, valor)
+                        .getResultList();
+                for (Object[] linha : linhas) {
+                    indice.gravada((Long) linha[0], (Long) linha[1], (Boolean) linha[2]);
+                }
+            } catch (RuntimeException e) {
+                indice.invalidar();
+            } finally {
+                if (em != null) em.close();
+            }
+        });
+    }
+
+    private static Long idDoAluno(Matricula matricula) {
+        return matricula.getAluno() == null ? null : matricula.getAluno().getId();
+    }
+
+    private static Long idDoCurso(Matricula matricula) {
+        return matricula.getCurso() == null ? null : matricula.getCurso().getId();
+    }
 }
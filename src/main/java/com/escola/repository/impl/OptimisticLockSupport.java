@@ -0,0 +1,60 @@
+package com.escola.repository.impl;
+
+import com.escola.config.PersistenceManager;
+import org.hibernate.StaleStateException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.OptimisticLockException;
+import java.util.List;
+
+/**
+ * Helper shared by the JPA repositories to recognise optimistic locking failures.
+ * <p>
+ * Hibernate reports a stale {@code @Version} either directly as an {@link OptimisticLockException}
+ * or wrapped inside a {@code RollbackException}/{@code PersistenceException} at commit time,
+ * so the whole cause chain is inspected.
+ * </p>
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+final class OptimisticLockSupport {
+
+    private OptimisticLockSupport() {}
+
+    /**
+     * Checks whether the given exception (or any of its causes) is an optimistic locking failure.
+     *
+     * @param e The exception raised by the persistence provider.
+     * @return {@code true} if the failure was caused by a version mismatch.
+     */
+    static boolean isConflito(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof OptimisticLockException || t instanceof StaleStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the version currently stored in the database for an entity, in a fresh EntityManager.
+     *
+     * @param entityName The JPQL entity name (e.g. "Aluno").
+     * @param id         The entity identifier.
+     * @return The current version, or {@code null} if the entity no longer exists.
+     */
+    static Long versaoAtual(String entityName, Long id) {
+        if (id == null) return null;
+        EntityManager em = PersistenceManager.getEntityManager();
+        try {
+            List<Long> versoes = em.createQuery(
+                            "SELECT e.versao FROM " + entityName + " e WHERE e.id = :id", Long.class)
+                    .setParameter("id", id)
+                    .getResultList();
+            return versoes.isEmpty() ? null : versoes.get(0);
+        } finally {
+            if (em != null) em.close();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.escola.repository.impl;
+
+import com.escola.config.PersistenceManager;
+import com.escola.exception.ConflitoDeVersaoException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import javax.persistence.Query;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Helper shared by the JPA repositories to apply partial updates with a single
+ * {@code UPDATE ... SET changed_columns WHERE id = ? [AND versao = ?]} statement,
+ * instead of loading the entity and merging every column back.
+ * <p>
+ * Bulk JPQL updates bypass the automatic {@code @Version} handling, so the version
+ * column is incremented explicitly to keep optimistic locking consistent with
+ * {@code merge}-based updates.
+ * </p>
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+final class PartialUpdateSupport {
+
+    private PartialUpdateSupport() {}
+
+    /**
+     * Executes a partial update of one entity.
+     *
+     * @param entityName     The JPQL entity name (e.g. "Aluno").
+     * @param id             The entity identifier.
+     * @param versaoEsperada The version the caller read, or {@code null} to update unconditionally.
+     * @param campos         Attribute name → new value, for the attributes that changed only. Must not be empty.
+     * @return The number of affected rows: 1 if updated, 0 if no entity exists with the given ID.
+     * @throws ConflitoDeVersaoException if the entity exists but its version differs from {@code versaoEsperada}.
+     */
+    static int atualizarCampos(String entityName, Long id, Long versaoEsperada, Map<String, Object> campos) {
+        if (campos.isEmpty()) {
+            throw new IllegalArgumentException("Nenhum campo informado para atualização parcial.");
+        }
+        StringBuilder jpql = new StringBuilder("UPDATE ").append(entityName).append(" e SET ");
+        for (String campo : campos.keySet()) {
+            jpql.append("e.").append(campo).append(" = :").append(campo).append(", ");
+        }
+        jpql.append("e.versao = e.versao + 1 WHERE e.id = :id");
+        if (versaoEsperada != null) {
+            jpql.append(" AND e.versao = :versao");
+        }
+
+        int linhas = executar(jpql.toString(), query -> {
+            campos.forEach(query::setParameter);
+            query.setParameter("id", id);
+            if (versaoEsperada != null) query.setParameter("versao", versaoEsperada);
+        }, entityName);
+
+        if (linhas == 0 && versaoEsperada != null) {
+            // Zero rows is either "not found" or "stale version"; only the failure path pays for this lookup.
+            Long versaoAtual = OptimisticLockSupport.versaoAtual(entityName, id);
+            if (versaoAtual != null) {
+                throw new ConflitoDeVersaoException(
+                        entityName + " com ID " + id + " foi alterado por outra operação.", versaoAtual);
+            }
+        }
+        return linhas;
+    }
+
+    /**
+     * Executes a bulk JPQL update/delete statement in its own transaction.
+     *
+     * @param jpql       The statement.
+     * @param parametros Callback that binds the statement parameters.
+     * @param entityName The entity name, used in error messages.
+     * @return The number of affected rows.
+     */
+    static int executar(String jpql, Consumer<Query> parametros, String entityName) {
+        EntityManager em = PersistenceManager.getEntityManager();
+        EntityTransaction tx = null;
+        try {
+            tx = em.getTransaction();
+            tx.begin();
+            Query query = em.createQuery(jpql);
+            parametros.accept(query);
+            int linhas = query.executeUpdate();
+            tx.commit();
+            return linhas;
+        } catch (Exception e) {
+            if (tx != null && tx.isActive()) tx.rollback();
+            throw new RuntimeException("Erro ao atualizar " + entityName + ": " + e.getMessage(), e);
+        } finally {
+            if (em != null) em.close();
+        }
+    }
+}
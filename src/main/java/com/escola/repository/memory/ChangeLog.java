@@ -0,0 +1,64 @@
+package com.escola.repository.memory;
+
+import com.escola.model.Aluno;
+import com.escola.model.Curso;
+import com.escola.model.Matricula;
+
+/**
+ * Receives the record changes of an {@link InMemoryStore}, in commit order.
+ * <p>
+ * The change callbacks, {@link #confirmar()} and {@link #descartar()} are invoked while the store's write lock is held,
+ * so they must be cheap (typically: encode and buffer). {@link #aguardar(long)} is invoked after
+ * the lock is released and may block until the changes are durable.
+ * </p>
+ *
+ * @version 1.1
+ * @author FelipeCardoso
+ */
+interface ChangeLog {
+
+    /** Change log of a purely in-memory store: records nothing, never blocks. */
+    ChangeLog NENHUM = new ChangeLog() {
+        @Override public void gravado(Aluno registro) {}
+        @Override public void alunoRemovido(long id) {}
+        @Override public void gravado(Curso registro) {}
+        @Override public void cursoRemovido(long id) {}
+        @Override public void gravado(Matricula registro) {}
+        @Override public void matriculaRemovida(long id) {}
+        @Override public long confirmar() { return 0L; }
+        @Override public void descartar() {}
+        @Override public void aguardar(long ticket) {}
+    };
+
+    void gravado(Aluno registro);
+
+    void alunoRemovido(long id);
+
+    void gravado(Curso registro);
+
+    void cursoRemovido(long id);
+
+    void gravado(Matricula registro);
+
+    void matriculaRemovida(long id);
+
+    /**
+     * Closes the changes of the current mutation into one unit.
+     *
+     * @return A ticket to pass to {@link #aguardar(long)}, or 0 if the mutation changed nothing.
+     */
+    long confirmar();
+
+    /**
+     * Drops the changes of the current mutation, which failed and was rolled back in memory:
+     * none of them may become durable.
+     */
+    void descartar();
+
+    /**
+     * Blocks until the changes identified by the ticket are durable.
+     *
+     * @param ticket Value returned by {@link #confirmar()}.
+     */
+    void aguardar(long ticket);
+}
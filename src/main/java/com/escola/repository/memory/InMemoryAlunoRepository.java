@@ -0,0 +1,161 @@
+package com.escola.repository.memory;
+
+import com.escola.exception.ConflitoDeVersaoException;
+import com.escola.model.Aluno;
+import com.escola.repository.AlunoRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * In-memory implementation of the {@link AlunoRepository} interface, backed by an {@link InMemoryStore}.
+ * Mirrors the JPA implementation's contract: unique e-mail, optimistic versioning and
+ * a foreign-key check that refuses to delete a student who still has enrollments.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public class InMemoryAlunoRepository implements AlunoRepository {
+
+    private final InMemoryStore store;
+
+    /**
+     * Constructs the repository over a shared store.
+     *
+     * @param store The backing store, shared with the other in-memory repositories.
+     */
+    public InMemoryAlunoRepository(InMemoryStore store) {
+        this.store = store;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Aluno salvar(Aluno aluno) {
+        return store.escrever(() -> {
+            if (aluno.getEmail() != null && store.alunoPorEmail.containsKey(aluno.getEmail())) {
+                throw new RuntimeException("Erro ao salvar aluno: e-mail " + aluno.getEmail() + " já cadastrado.");
+            }
+            aluno.setId(store.alunoSeq.incrementAndGet());
+            aluno.setVersao(0);
+            store.gravar(InMemoryStore.copiar(aluno));
+            return aluno;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Aluno> buscarPorId(Long id) {
+        Aluno registro = id == null ? null : store.alunos.get(id);
+        return Optional.ofNullable(registro).map(InMemoryStore::copiar);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Aluno> buscarPorEmail(String email) {
+        Long id = email == null ? null : store.alunoPorEmail.get(email);
+        return id == null ? Optional.empty() : buscarPorId(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Aluno> listarTodos() {
+        List<Aluno> todos = store.lerConsistente(() -> new ArrayList<>(store.alunos.values()));
+        todos.sort(Comparator.comparing(Aluno::getNome, Comparator.nullsLast(Comparator.naturalOrder())));
+        todos.replaceAll(InMemoryStore::copiar);
+        return todos;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> listarEmails() {
+        return new ArrayList<>(store.alunoPorEmail.keySet());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Aluno atualizar(Aluno aluno) {
+        return store.escrever(() -> {
+            Aluno atual = store.alunos.get(aluno.getId());
+            if (atual == null) {
+                throw new RuntimeException("Erro ao atualizar aluno: aluno com ID " + aluno.getId() + " não existe.");
+            }
+            if (aluno.getVersao() != atual.getVersao()) {
+                throw new ConflitoDeVersaoException(
+                        "Aluno com ID " + aluno.getId() + " foi alterado por outra operação.", atual.getVersao());
+            }
+            Aluno novo = InMemoryStore.copiar(aluno);
+            novo.setVersao(atual.getVersao() + 1);
+            substituir(atual, novo);
+            return InMemoryStore.copiar(novo);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int atualizarCampos(Long id, Long versaoEsperada, String nome, String email, LocalDate dataNascimento) {
+        if (nome == null && email == null && dataNascimento == null) {
+            throw new IllegalArgumentException("Nenhum campo informado para atualização parcial.");
+        }
+        return store.escrever(() -> {
+            Aluno atual = store.alunos.get(id);
+            if (atual == null) return 0;
+            if (versaoEsperada != null && versaoEsperada != atual.getVersao()) {
+                throw new ConflitoDeVersaoException(
+                        "Aluno com ID " + id + " foi alterado por outra operação.", atual.getVersao());
+            }
+            Aluno novo = InMemoryStore.copiar(atual);
+            if (nome != null) novo.setNome(nome);
+            if (email != null) novo.setEmail(email);
+            if (dataNascimento != null) novo.setDataNascimento(dataNascimento);
+            novo.setVersao(atual.getVersao() + 1);
+            substituir(atual, novo);
+            return 1;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deletarPorId(Long id) {
+        store.escrever(() -> {
+            Aluno atual = store.alunos.get(id);
+            if (atual == null) return null;
+            if (!store.indice(store.matriculasPorAluno, id).isEmpty()) {
+                // Same outcome as the foreign key violation raised by the database
+                throw new RuntimeException("Erro ao deletar aluno: existem matrículas vinculadas ao aluno com ID " + id + ".");
+            }
+            store.removerAluno(id);
+            return null;
+        });
+    }
+
+    /**
+     * Replaces a stored record after checking e-mail uniqueness. Must run inside {@link InMemoryStore#escrever}.
+     */
+    private void substituir(Aluno atual, Aluno novo) {
+        if (!Objects.equals(atual.getEmail(), novo.getEmail())
+                && novo.getEmail() != null && store.alunoPorEmail.containsKey(novo.getEmail())) {
+            throw new RuntimeException("Erro ao atualizar aluno: e-mail " + novo.getEmail() + " já cadastrado.");
+        }
+        store.gravar(novo);
+    }
+}
@@ -0,0 +1,170 @@
+package com.escola.repository.memory;
+
+import com.escola.exception.ConflitoDeVersaoException;
+import com.escola.model.Curso;
+import com.escola.repository.CursoRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory implementation of the {@link CursoRepository} interface, backed by an {@link InMemoryStore}.
+ * Mirrors the JPA implementation's contract: unique course name, optimistic versioning and
+ * a foreign-key check that refuses to delete a course that still has enrollments.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public class InMemoryCursoRepository implements CursoRepository {
+
+    private final InMemoryStore store;
+
+    /**
+     * Constructs the repository over a shared store.
+     *
+     * @param store The backing store, shared with the other in-memory repositories.
+     */
+    public InMemoryCursoRepository(InMemoryStore store) {
+        this.store = store;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Curso salvar(Curso curso) {
+        return store.escrever(() -> {
+            if (curso.getNome() != null && store.cursoPorNome.containsKey(curso.getNome())) {
+                throw new RuntimeException("Erro ao salvar curso: nome " + curso.getNome() + " já cadastrado.");
+            }
+            curso.setId(store.cursoSeq.incrementAndGet());
+            curso.setVersao(0);
+            store.gravar(InMemoryStore.copiar(curso));
+            return curso;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Curso> buscarPorId(Long id) {
+        Curso registro = id == null ? null : store.cursos.get(id);
+        return Optional.ofNullable(registro).map(InMemoryStore::copiar);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Curso> buscarPorNomeExato(String nome) {
+        Long id = nome == null ? null : store.cursoPorNome.get(nome);
+        return id == null ? Optional.empty() : buscarPorId(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Curso> buscarPorNomeContendo(String nomeParcial) {
+        if (nomeParcial == null || nomeParcial.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        String termo = nomeParcial.toLowerCase(Locale.ROOT);
+        return store.lerConsistente(() -> new ArrayList<>(store.cursos.values())).stream()
+                .filter(c -> c.getNome() != null && c.getNome().toLowerCase(Locale.ROOT).contains(termo))
+                .map(InMemoryStore::copiar)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Curso> listarTodos() {
+        List<Curso> todos = store.lerConsistente(() -> new ArrayList<>(store.cursos.values()));
+        todos.sort(Comparator.comparing(Curso::getNome, Comparator.nullsLast(Comparator.naturalOrder())));
+        todos.replaceAll(InMemoryStore::copiar);
+        return todos;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Curso atualizar(Curso curso) {
+        return store.escrever(() -> {
+            Curso atual = store.cursos.get(curso.getId());
+            if (atual == null) {
+                throw new RuntimeException("Erro ao atualizar curso: curso com ID " + curso.getId() + " não existe.");
+            }
+            if (curso.getVersao() != atual.getVersao()) {
+                throw new ConflitoDeVersaoException(
+                        "Curso com ID " + curso.getId() + " foi alterado por outra operação.", atual.getVersao());
+            }
+            Curso novo = InMemoryStore.copiar(curso);
+            novo.setVersao(atual.getVersao() + 1);
+            substituir(atual, novo);
+            return InMemoryStore.copiar(novo);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int atualizarCampos(Long id, Long versaoEsperada, String nome, String descricao, Integer cargaHoraria) {
+        if (nome == null && descricao == null && cargaHoraria == null) {
+            throw new IllegalArgumentException("Nenhum campo informado para atualização parcial.");
+        }
+        return store.escrever(() -> {
+            Curso atual = store.cursos.get(id);
+            if (atual == null) return 0;
+            if (versaoEsperada != null && versaoEsperada != atual.getVersao()) {
+                throw new ConflitoDeVersaoException(
+                        "Curso com ID " + id + " foi alterado por outra operação.", atual.getVersao());
+            }
+            Curso novo = InMemoryStore.copiar(atual);
+            if (nome != null) novo.setNome(nome);
+            if (descricao != null) novo.setDescricao(descricao);
+            if (cargaHoraria != null) novo.setCargaHoraria(cargaHoraria);
+            novo.setVersao(atual.getVersao() + 1);
+            substituir(atual, novo);
+            return 1;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean deletarPorId(Long id) {
+        return store.escrever(() -> {
+            Curso atual = store.cursos.get(id);
+            if (atual == null) return false;
+            if (!store.indice(store.matriculasPorCurso, id).isEmpty()) {
+                // Same outcome as the foreign key violation raised by the database
+                throw new RuntimeException("Erro ao deletar curso: existem matrículas vinculadas ao curso com ID " + id + ".");
+            }
+            store.removerCurso(id);
+            return true;
+        });
+    }
+
+    /**
+     * Replaces a stored record after checking name uniqueness. Must run inside {@link InMemoryStore#escrever}.
+     */
+    private void substituir(Curso atual, Curso novo) {
+        if (!Objects.equals(atual.getNome(), novo.getNome())
+                && novo.getNome() != null && store.cursoPorNome.containsKey(novo.getNome())) {
+            throw new RuntimeException("Erro ao atualizar curso: nome " + novo.getNome() + " já cadastrado.");
+        }
+        store.gravar(novo);
+    }
+}
@@ -0,0 +1,261 @@
+package com.escola.repository.memory;
+
+import com.escola.exception.ConflitoDeVersaoException;
+import com.escola.model.Matricula;
+import com.escola.repository.MatriculaRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * In-memory implementation of the {@link MatriculaRepository} interface, backed by an {@link InMemoryStore}.
+ * Lookups by aluno, by curso and by the (aluno, curso) pair are served from secondary indexes
+ * instead of scans. Aluno and curso must exist when an enrollment is stored, and each pair may
+ * only be enrolled once, as enforced by the database schema in the JPA backend.
+ * <p>
+ * Every enrollment returned carries its current aluno and curso, so the "com detalhes" variants
+ * are equivalent to the plain ones.
+ * </p>
+ *
+ * @version 1.1
+ * @author FelipeCardoso
+ */
+public class InMemoryMatriculaRepository implements MatriculaRepository {
+
+    private final InMemoryStore store;
+
+    /**
+     * Constructs the repository over a shared store.
+     *
+     * @param store The backing store, shared with the other in-memory repositories.
+     */
+    public InMemoryMatriculaRepository(InMemoryStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public Matricula salvar(Matricula matricula) {
+        return store.escrever(() -> {
+            validarReferencias(matricula, "salvar");
+            InMemoryStore.Par par = InMemoryStore.Par.de(matricula);
+            if (store.matriculaPorPar.containsKey(par)) {
+                throw new RuntimeException("Erro ao salvar matrícula: aluno " + matricula.getAluno().getId()
+                        + " já matriculado no curso " + matricula.getCurso().getId() + ".");
+            }
+            long id = store.matriculaSeq.incrementAndGet();
+            Matricula registro = InMemoryStore.registro(matricula, id, 0);
+            store.gravar(registro);
+            matricula.setId(id);
+            matricula.setVersao(0);
+            return matricula;
+        });
+    }
+
+    @Override
+    public List<Matricula> salvarTodas(List<Matricula> matriculas) {
+        return store.escrever(() -> {
+            // Validate the whole batch first, so a failure leaves the store untouched
+            Set<InMemoryStore.Par> novos = new HashSet<>();
+            for (Matricula matricula : matriculas) {
+                validarReferencias(matricula, "salvar");
+                InMemoryStore.Par par = InMemoryStore.Par.de(matricula);
+                if (store.matriculaPorPar.containsKey(par) || !novos.add(par)) {
+                    throw new RuntimeException("Erro ao salvar matrícula: aluno " + matricula.getAluno().getId()
+                            + " já matriculado no curso " + matricula.getCurso().getId() + ".");
+                }
+            }
+            for (Matricula matricula : matriculas) {
+                long id = store.matriculaSeq.incrementAndGet();
+                store.gravar(InMemoryStore.registro(matricula, id, 0));
+                matricula.setId(id);
+                matricula.setVersao(0);
+            }
+            return matriculas;
+        });
+    }
+
+    @Override
+    public Matricula atualizar(Matricula matricula) {
+        return store.escrever(() -> {
+            Matricula atual = store.matriculas.get(matricula.getId());
+            if (atual == null) {
+                throw new RuntimeException("Erro ao atualizar matrícula: matrícula com ID " + matricula.getId() + " não existe.");
+            }
+            if (matricula.getVersao() != atual.getVersao()) {
+                throw new ConflitoDeVersaoException(
+                        "Matricula com ID " + matricula.getId() + " foi alterado por outra operação.", atual.getVersao());
+            }
+            validarReferencias(matricula, "atualizar");
+            InMemoryStore.Par par = InMemoryStore.Par.de(matricula);
+            Long donoDoPar = store.matriculaPorPar.get(par);
+            if (donoDoPar != null && !donoDoPar.equals(atual.getId())) {
+                throw new RuntimeException("Erro ao atualizar matrícula: aluno " + matricula.getAluno().getId()
+                        + " já matriculado no curso " + matricula.getCurso().getId() + ".");
+            }
+            Matricula novo = InMemoryStore.registro(matricula, atual.getId(), atual.getVersao() + 1);
+            store.gravar(novo);
+            return store.resolver(novo);
+        });
+    }
+
+    @Override
+    public int atualizarCampos(Long id, Long versaoEsperada, Boolean cancelada, LocalDate dataMatricula) {
+        if (cancelada == null && dataMatricula == null) {
+            throw new IllegalArgumentException("Nenhum campo informado para atualização parcial.");
+        }
+        return store.escrever(() -> {
+            Matricula atual = store.matriculas.get(id);
+            if (atual == null) return 0;
+            if (versaoEsperada != null && versaoEsperada != atual.getVersao()) {
+                throw new ConflitoDeVersaoException(
+                        "Matricula com ID " + id + " foi alterado por outra operação.", atual.getVersao());
+            }
+            Matricula novo = InMemoryStore.registro(atual, id, atual.getVersao() + 1);
+            if (cancelada != null) novo.setCancelada(cancelada);
+            if (dataMatricula != null) novo.setDataMatricula(dataMatricula);
+            store.gravar(novo);
+            return 1;
+        });
+    }
+
+    @Override
+    public int cancelarTodasPorCursoId(Long cursoId) {
+        return store.escrever(() -> {
+            int canceladas = 0;
+            for (Long id : store.indice(store.matriculasPorCurso, cursoId)) {
+                Matricula atual = store.matriculas.get(id);
+                if (atual != null && !atual.isCancelada()) {
+                    Matricula novo = InMemoryStore.registro(atual, id, atual.getVersao() + 1);
+                    novo.setCancelada(true);
+                    store.gravar(novo);
+                    canceladas++;
+                }
+            }
+            return canceladas;
+        });
+    }
+
+    @Override
+    public void remover(Matricula matricula) {
+        deletarPorId(matricula.getId());
+    }
+
+    @Override
+    public boolean deletarPorId(Long id) {
+        return store.escrever(() -> {
+            if (!store.matriculas.containsKey(id)) return false;
+            store.removerMatricula(id);
+            return true;
+        });
+    }
+
+    @Override
+    public Optional<Matricula> buscarPorId(Long id) {
+        Matricula registro = id == null ? null : store.matriculas.get(id);
+        return Optional.ofNullable(registro).map(store::resolver);
+    }
+
+    @Override
+    public List<Matricula> listarTodas() {
+        return store.lerConsistente(() -> {
+            List<Matricula> todas = new ArrayList<>(store.matriculas.size());
+            for (Matricula registro : store.matriculas.values()) {
+                todas.add(store.resolver(registro));
+            }
+            return todas;
+        });
+    }
+
+    @Override
+    public Optional<Matricula> buscarPorAlunoIdECursoId(Long alunoId, Long cursoId) {
+        if (alunoId == null || cursoId == null) return Optional.empty();
+        Long id = store.matriculaPorPar.get(new InMemoryStore.Par(alunoId, cursoId));
+        return id == null ? Optional.empty() : buscarPorId(id);
+    }
+
+    @Override
+    public long contarPorAlunoId(Long alunoId) {
+        return store.indice(store.matriculasPorAluno, alunoId).size();
+    }
+
+    @Override
+    public long contarPorCursoId(Long cursoId) {
+        return store.indice(store.matriculasPorCurso, cursoId).size();
+    }
+
+    @Override
+    public List<Matricula> listarPorCursoId(Long cursoId) {
+        return listarPorIds(store.indice(store.matriculasPorCurso, cursoId));
+    }
+
+    @Override
+    public List<Matricula> listarPorAlunoId(Long alunoId) {
+        return listarPorIds(store.indice(store.matriculasPorAluno, alunoId));
+    }
+
+    @Override
+    public List<Matricula> listarTodasComDetalhes() {
+        return listarTodas();
+    }
+
+    @Override
+    public Optional<Matricula> buscarPorIdComDetalhes(Long id) {
+        return buscarPorId(id);
+    }
+
+    @Override
+    public List<Long> listarAlunosAtivosEmAmbosOsCursos(Long cursoA, Long cursoB) {
+        return store.lerConsistente(() -> {
+            Set<Long> matriculasA = store.indice(store.matriculasPorCurso, cursoA);
+            Set<Long> matriculasB = store.indice(store.matriculasPorCurso, cursoB);
+            // Students of the smaller course, then probe them with the larger one
+            boolean aMenor = matriculasA.size() <= matriculasB.size();
+            Set<Long> candidatos = alunosAtivos(aMenor ? matriculasA : matriculasB);
+            List<Long> resultado = new ArrayList<>();
+            for (Long id : aMenor ? matriculasB : matriculasA) {
+                Matricula registro = store.matriculas.get(id);
+                if (registro != null && !registro.isCancelada() && candidatos.contains(registro.getAluno().getId())) {
+                    resultado.add(registro.getAluno().getId());
+                }
+            }
+            Collections.sort(resultado);
+            return resultado;
+        });
+    }
+
+    private Set<Long> alunosAtivos(Set<Long> ids) {
+        Set<Long> alunos = new HashSet<>(ids.size() * 2);
+        for (Long id : ids) {
+            Matricula registro = store.matriculas.get(id);
+            if (registro != null && !registro.isCancelada()) alunos.add(registro.getAluno().getId());
+        }
+        return alunos;
+    }
+
+    private List<Matricula> listarPorIds(Set<Long> ids) {
+        return store.lerConsistente(() -> {
+            List<Matricula> resultado = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                Matricula registro = store.matriculas.get(id);
+                if (registro != null) resultado.add(store.resolver(registro));
+            }
+            return resultado;
+        });
+    }
+
+    private void validarReferencias(Matricula matricula, String operacao) {
+        if (matricula.getAluno() == null || matricula.getAluno().getId() == null
+                || !store.alunos.containsKey(matricula.getAluno().getId())) {
+            throw new RuntimeException("Erro ao " + operacao + " matrícula: aluno inexistente.");
+        }
+        if (matricula.getCurso() == null || matricula.getCurso().getId() == null
+                || !store.cursos.containsKey(matricula.getCurso().getId())) {
+            throw new RuntimeException("Erro ao " + operacao + " matrícula: curso inexistente.");
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.escola.repository.memory;
+
+import com.escola.model.Aluno;
+import com.escola.model.Curso;
+import com.escola.model.Matricula;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Shared state of the in-memory repository backend: primary storage, secondary indexes and
+ * ID sequences for alunos, cursos and matriculas.
+ * <p>
+ * Concurrency model:
+ * </p>
+ * <ul>
+ * <li>Primary storage and indexes are {@link ConcurrentHashMap}s holding records that are never
+ * mutated after being stored; an update replaces the record. Point lookups are therefore lock-free.</li>
+ * <li>Mutations run under the write side of a {@link StampedLock}, so a record and all of its
+ * index entries change together and uniqueness checks (e-mail, course name, aluno+curso pair)
+ * cannot race.</li>
+ * <li>Full scans run under an optimistic read stamp and are retried under the read lock if a
+ * mutation happened meanwhile, so list results are snapshot-consistent.</li>
+ * </ul>
+ * Callers only ever see copies, as they would see detached entities from the JPA backend.
+ * Every record write goes through the {@code gravar}/{@code remover*} methods, which also feed
+ * the optional {@link ChangeLog} (see {@link Journal}).
+ * <p>
+ * A mutation is atomic: if it throws after writing some records, those writes are undone in
+ * memory and dropped from the change log, as a rolled-back transaction would be. Only the ID
+ * sequences keep the values it consumed.
+ * </p>
+ *
+ * @version 1.2
+ * @author FelipeCardoso
+ */
+public final class InMemoryStore {
+
+    final ConcurrentHashMap<Long, Aluno> alunos = new ConcurrentHashMap<>();
+    final ConcurrentHashMap<Long, Curso> cursos = new ConcurrentHashMap<>();
+    final ConcurrentHashMap<Long, Matricula> matriculas = new ConcurrentHashMap<>();
+
+    final ConcurrentHashMap<String, Long> alunoPorEmail = new ConcurrentHashMap<>();
+    final ConcurrentHashMap<String, Long> cursoPorNome = new ConcurrentHashMap<>();
+    final ConcurrentHashMap<Long, Set<Long>> matriculasPorAluno = new ConcurrentHashMap<>();
+    final ConcurrentHashMap<Long, Set<Long>> matriculasPorCurso = new ConcurrentHashMap<>();
+    final ConcurrentHashMap<Par, Long> matriculaPorPar = new ConcurrentHashMap<>();
+
+    final AtomicLong alunoSeq = new AtomicLong();
+    final AtomicLong cursoSeq = new AtomicLong();
+    final AtomicLong matriculaSeq = new AtomicLong();
+
+    private final StampedLock lock = new StampedLock();
+    private ChangeLog changeLog = ChangeLog.NENHUM; // guarded by the write lock
+    // Undo actions of the running mutation, newest last; null outside escrever(). Guarded by the write lock
+    private List<Runnable> desfazer;
+
+    /**
+     * Runs a mutation exclusively. When a change log is installed, the call returns only after
+     * the changes made by the mutation are durable. If the mutation throws, the records it wrote
+     * are restored and its changes never reach the change log.
+     */
+    <T> T escrever(Supplier<T> mutacao) {
+        T resultado;
+        ChangeLog log;
+        long ticket;
+        long stamp = lock.writeLock();
+        try {
+            desfazer = new ArrayList<>();
+            try {
+                resultado = mutacao.get();
+            } catch (RuntimeException | Error e) {
+                reverter();
+                throw e;
+            } finally {
+                desfazer = null;
+            }
+            log = changeLog;
+            ticket = log.confirmar();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        // Durability wait happens outside the lock, so concurrent writers share one fsync (group commit)
+        log.aguardar(ticket);
+        return resultado;
+    }
+
+    /**
+     * Runs a multi-record read against a consistent snapshot: first optimistically, without
+     * blocking writers, then under the read lock if a write interleaved.
+     */
+    <T> T lerConsistente(Supplier<T> leitura) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                T resultado = leitura.get();
+                if (lock.validate(stamp)) {
+                    return resultado;
+                }
+            } catch (RuntimeException e) {
+                // Torn read caused by a concurrent write; retried below under the read lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return leitura.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Installs the change log that receives every committed record change. The in-memory backend
+     * runs with none; the journal engine installs itself after recovery.
+     *
+     * @param changeLog The change log, or {@code null} to detach it.
+     */
+    void setChangeLog(ChangeLog changeLog) {
+        escrever(() -> {
+            this.changeLog = changeLog == null ? ChangeLog.NENHUM : changeLog;
+            return null;
+        });
+    }
+
+    /**
+     * Rolls a failed mutation back: restores the records it replaced or removed, removes the ones
+     * it created, and drops its pending changes from the change log.
+     */
+    private void reverter() {
+        for (int i = desfazer.size() - 1; i >= 0; i--) {
+            desfazer.get(i).run();
+        }
+        changeLog.descartar();
+    }
+
+    Set<Long> indice(ConcurrentHashMap<Long, Set<Long>> indice, Long chave) {
+        Set<Long> ids = indice.get(chave);
+        return ids == null ? Collections.emptySet() : ids;
+    }
+
+    // --- Record writes: keep primary storage, indexes, sequences and the change log in step.
+    // --- Must run inside escrever(), except during recovery (before the store is shared).
+
+    void gravar(Aluno registro) {
+        Aluno anterior = colocar(registro);
+        aoDesfazer(() -> {
+            if (anterior == null) retirarAluno(registro.getId());
+            else colocar(anterior);
+        });
+        changeLog.gravado(registro);
+    }
+
+    void removerAluno(Long id) {
+        Aluno anterior = retirarAluno(id);
+        if (anterior == null) return;
+        aoDesfazer(() -> colocar(anterior));
+        changeLog.alunoRemovido(id);
+    }
+
+    void gravar(Curso registro) {
+        Curso anterior = colocar(registro);
+        aoDesfazer(() -> {
+            if (anterior == null) retirarCurso(registro.getId());
+            else colocar(anterior);
+        });
+        changeLog.gravado(registro);
+    }
+
+    void removerCurso(Long id) {
+        Curso anterior = retirarCurso(id);
+        if (anterior == null) return;
+        aoDesfazer(() -> colocar(anterior));
+        changeLog.cursoRemovido(id);
+    }
+
+    void gravar(Matricula registro) {
+        Matricula anterior = colocar(registro);
+        aoDesfazer(() -> {
+            if (anterior == null) retirarMatricula(registro.getId());
+            else colocar(anterior);
+        });
+        changeLog.gravado(registro);
+    }
+
+    void removerMatricula(Long id) {
+        Matricula anterior = retirarMatricula(id);
+        if (anterior == null) return;
+        aoDesfazer(() -> colocar(anterior));
+        changeLog.matriculaRemovida(id);
+    }
+
+    private void aoDesfazer(Runnable acao) {
+        if (desfazer != null) desfazer.add(acao); // null during recovery: nothing to roll back
+    }
+
+    // --- Storage and indexes only, without change log or undo: shared by writes and rollback ---
+
+    private Aluno colocar(Aluno registro) {
+        Aluno anterior = alunos.put(registro.getId(), registro);
+        if (anterior != null && anterior.getEmail() != null && !anterior.getEmail().equals(registro.getEmail())) {
+            alunoPorEmail.remove(anterior.getEmail(), registro.getId());
+        }
+        if (registro.getEmail() != null) alunoPorEmail.put(registro.getEmail(), registro.getId());
+        avancar(alunoSeq, registro.getId());
+        return anterior;
+    }
+
+    private Aluno retirarAluno(Long id) {
+        Aluno anterior = alunos.remove(id);
+        if (anterior != null && anterior.getEmail() != null) alunoPorEmail.remove(anterior.getEmail(), id);
+        return anterior;
+    }
+
+    private Curso colocar(Curso registro) {
+        Curso anterior = cursos.put(registro.getId(), registro);
+        if (anterior != null && anterior.getNome() != null && !anterior.getNome().equals(registro.getNome())) {
+            cursoPorNome.remove(anterior.getNome(), registro.getId());
+        }
+        if (registro.getNome() != null) cursoPorNome.put(registro.getNome(), registro.getId());
+        avancar(cursoSeq, registro.getId());
+        return anterior;
+    }
+
+    private Curso retirarCurso(Long id) {
+        Curso anterior = cursos.remove(id);
+        if (anterior != null && anterior.getNome() != null) cursoPorNome.remove(anterior.getNome(), id);
+        return anterior;
+    }
+
+    private Matricula colocar(Matricula registro) {
+        Matricula anterior = matriculas.put(registro.getId(), registro);
+        Par par = Par.de(registro);
+        if (anterior == null || !Par.de(anterior).equals(par)) {
+            // Status and date changes keep aluno and curso: the indexes are only touched when they move
+            if (anterior != null) desindexar(anterior);
+            indexar(matriculasPorAluno, registro.getAluno().getId(), registro.getId());
+            indexar(matriculasPorCurso, registro.getCurso().getId(), registro.getId());
+            matriculaPorPar.put(par, registro.getId());
+        }
+        avancar(matriculaSeq, registro.getId());
+        return anterior;
+    }
+
+    private Matricula retirarMatricula(Long id) {
+        Matricula anterior = matriculas.remove(id);
+        if (anterior != null) desindexar(anterior);
+        return anterior;
+    }
+
+    private void desindexar(Matricula registro) {
+        desindexar(matriculasPorAluno, registro.getAluno().getId(), registro.getId());
+        desindexar(matriculasPorCurso, registro.getCurso().getId(), registro.getId());
+        matriculaPorPar.remove(Par.de(registro), registro.getId());
+    }
+
+    private void indexar(ConcurrentHashMap<Long, Set<Long>> indice, Long chave, Long id) {
+        indice.computeIfAbsent(chave, k -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    private void desindexar(ConcurrentHashMap<Long, Set<Long>> indice, Long chave, Long id) {
+        indice.computeIfPresent(chave, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /** Keeps a sequence ahead of IDs assigned elsewhere (replayed records). */
+    private static void avancar(AtomicLong seq, long id) {
+        seq.accumulateAndGet(id, Math::max);
+    }
+
+    // --- Copies: stored records are private to the store ---
+
+    static Aluno copiar(Aluno origem) {
+        Aluno copia = new Aluno(origem.getNome(), origem.getEmail(), origem.getDataNascimento());
+        copia.setId(origem.getId());
+        copia.setVersao(origem.getVersao());
+        return copia;
+    }
+
+    static Curso copiar(Curso origem) {
+        Curso copia = new Curso(origem.getNome(), origem.getDescricao(), origem.getCargaHoraria());
+        copia.setId(origem.getId());
+        copia.setVersao(origem.getVersao());
+        return copia;
+    }
+
+    /**
+     * Builds the stored form of an enrollment: aluno and curso are kept as ID-only references,
+     * so later changes to them are visible through {@link #resolver(Matricula)}.
+     */
+    static Matricula registro(Matricula origem, long id, long versao) {
+        Aluno aluno = new Aluno();
+        aluno.setId(origem.getAluno().getId());
+        Curso curso = new Curso();
+        curso.setId(origem.getCurso().getId());
+        Matricula registro = new Matricula(aluno, curso, origem.getDataMatricula());
+        registro.setId(id);
+        registro.setCancelada(origem.isCancelada());
+        registro.setVersao(versao);
+        return registro;
+    }
+
+    /**
+     * Returns a caller-owned copy of a stored enrollment with its current aluno and curso.
+     */
+    Matricula resolver(Matricula registro) {
+        Aluno aluno = alunos.get(registro.getAluno().getId());
+        Curso curso = cursos.get(registro.getCurso().getId());
+        Matricula copia = new Matricula(
+                aluno != null ? copiar(aluno) : registro.getAluno(),
+                curso != null ? copiar(curso) : registro.getCurso(),
+                registro.getDataMatricula());
+        copia.setId(registro.getId());
+        copia.setCancelada(registro.isCancelada());
+        copia.setVersao(registro.getVersao());
+        return copia;
+    }
+
+    /**
+     * Key of the unique (aluno, curso) pair index.
+     */
+    static final class Par {
+        private final long alunoId;
+        private final long cursoId;
+
+        Par(long alunoId, long cursoId) {
+            this.alunoId = alunoId;
+            this.cursoId = cursoId;
+        }
+
+        static Par de(Matricula matricula) {
+            return new Par(matricula.getAluno().getId(), matricula.getCurso().getId());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Par)) return false;
+            Par par = (Par) o;
+            return alunoId == par.alunoId && cursoId == par.cursoId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(alunoId, cursoId);
+        }
+    }
+}
@@ -0,0 +1,692 @@
+package com.escola.repository.memory;
+
+import com.escola.config.AppConfig;
+import com.escola.model.Aluno;
+import com.escola.model.Curso;
+import com.escola.model.Matricula;
+import com.escola.monitoring.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Durable persistence for an {@link InMemoryStore}: an append-only, checksummed journal of record
+ * changes plus periodic snapshots. The store keeps serving reads from memory; the journal only
+ * makes writes survive a restart or a crash.
+ * <p>
+ * Write path: while the store's write lock is held, each changed record is encoded into a frame
+ * (see {@link JournalCodec}) and collected for the running mutation. When the mutation succeeds,
+ * its frames and a commit marker that closes them are appended to an in-memory buffer; when it
+ * fails, they are dropped, so the journal only ever holds whole mutations. A single writer thread
+ * drains the buffer to the current journal file through a {@link FileChannel} and calls
+ * {@link FileChannel#force(boolean)}; callers block outside the lock until their mutation is on disk. Every writer that committed while the
+ * previous {@code force} was running is made durable by the next one (group commit), so the
+ * fsync cost is shared instead of paid per request.
+ * </p>
+ * <p>
+ * Snapshots: after {@code JOURNAL_SNAPSHOT_RECORDS} journal records, the full state is written to
+ * {@code snapshot.dat} (temporary file + atomic rename) and the journal files it covers are
+ * deleted, which bounds both disk usage and recovery time.
+ * </p>
+ * <p>
+ * Recovery: the snapshot is loaded, then every later journal file is replayed in order. Only
+ * mutations followed by their commit marker are applied; a torn or corrupt tail of the last file
+ * (crash during a write) is discarded and truncated, so a mutation is either fully recovered or
+ * not at all. Corruption anywhere else aborts startup instead of silently losing data.
+ * </p>
+ * <p>
+ * Settings: {@code JOURNAL_DIR} (default {@code ./data/journal}), {@code JOURNAL_FSYNC}
+ * (default true; false keeps the write but skips {@code force}, trading durability on power loss
+ * for latency), {@code JOURNAL_GROUP_COMMIT_MS} (extra wait to gather a larger batch, default 0)
+ * and {@code JOURNAL_SNAPSHOT_RECORDS} (default 100000).
+ * </p>
+ *
+ * @version 1.1
+ * @author FelipeCardoso
+ */
+public final class Journal implements ChangeLog, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(Journal.class);
+
+    private static final String METRICAS = "journal";
+    private static final String SNAPSHOT = "snapshot.dat";
+    private static final String PREFIXO = "journal-";
+    private static final String SUFIXO = ".log";
+    private static final int MAGICO = 0x45534E50; // "ESNP"
+    private static final int FORMATO = 1;
+    private static final byte[] QUADRO_CONFIRMACAO = JournalCodec.quadroConfirmacao();
+
+    private final Path diretorio;
+    private final InMemoryStore store;
+    private final boolean fsync;
+    private final long janelaMillis;
+    private final long registrosPorSnapshot;
+
+    // Frames of the running mutation; guarded by the store's write lock
+    private byte[] mutacao = new byte[4 * 1024];
+    private int tamanhoMutacao;
+    private int registrosMutacao;
+
+    // Encoded frames of confirmed mutations not yet written; guarded by 'this'
+    private byte[] pendente = new byte[64 * 1024];
+    private byte[] reserva = new byte[64 * 1024];
+    private int tamanhoPendente;
+    private int registrosPendentes;
+    private long ultimoTicket;
+    private long ticketDuravel;
+    private IOException falha;
+    private boolean fechando;
+
+    // Current journal file; guarded by 'arquivo'
+    private final Object arquivo = new Object();
+    private FileChannel canal;
+    private volatile long geracao;
+
+    private final Thread gravador;
+    private final ExecutorService snapshots;
+    private final AtomicBoolean snapshotEmAndamento = new AtomicBoolean();
+    private final AtomicBoolean fechado = new AtomicBoolean();
+
+    // Written by the writer thread only
+    private volatile long registrosGravados;
+    private volatile long lotes;
+    private volatile long bytesGravados;
+    private volatile long registrosDesdeSnapshot; // published by contarDesdeSnapshot()
+    private long geracaoContada; // generation of the last batch counted
+    private long registrosNaGeracao; // records written to that generation
+    private long registrosAnteriores; // records in older generations that no snapshot covers yet
+
+    // Set by snapshot(): every journal file below this generation is covered by snapshot.dat
+    private volatile long geracaoCoberta;
+
+    private Journal(Path diretorio, InMemoryStore store, boolean fsync, long janelaMillis, long registrosPorSnapshot) {
+        this.diretorio = diretorio;
+        this.store = store;
+        this.fsync = fsync;
+        this.janelaMillis = Math.max(0, janelaMillis);
+        this.registrosPorSnapshot = Math.max(1, registrosPorSnapshot);
+        this.gravador = new Thread(this::gravarContinuamente, "journal-writer");
+        this.gravador.setDaemon(true);
+        this.snapshots = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "journal-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Opens the journal configured by the {@code JOURNAL_*} settings.
+     *
+     * @param store An empty store, not yet shared with any repository call.
+     * @return The open journal, already recovered into the store and attached to it.
+     * @throws RuntimeException if the journal cannot be read or is corrupt.
+     */
+    public static Journal fromConfig(InMemoryStore store) {
+        return abrir(Paths.get(AppConfig.getString("JOURNAL_DIR", "./data/journal")), store,
+                AppConfig.getBoolean("JOURNAL_FSYNC", true),
+                AppConfig.getLong("JOURNAL_GROUP_COMMIT_MS", 0),
+                AppConfig.getLong("JOURNAL_SNAPSHOT_RECORDS", 100_000));
+    }
+
+    /**
+     * Recovers the store from the snapshot and journal found in a directory, then attaches a journal
+     * that records every later change.
+     *
+     * @param diretorio            Directory holding the snapshot and journal files (created if missing).
+     * @param store                An empty store, not yet shared with any repository call.
+     * @param fsync                Whether each batch is forced to the storage device.
+     * @param janelaMillis         Extra time the writer waits to gather a larger batch (0 = none).
+     * @param registrosPorSnapshot Journal records after which a snapshot is taken.
+     * @return The open journal.
+     * @throws RuntimeException if the journal cannot be read or is corrupt.
+     */
+    public static Journal abrir(Path diretorio, InMemoryStore store, boolean fsync, long janelaMillis,
+                                long registrosPorSnapshot) {
+        Journal journal = new Journal(diretorio, store, fsync, janelaMillis, registrosPorSnapshot);
+        try {
+            Files.createDirectories(diretorio);
+            journal.recuperar();
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao recuperar journal em " + diretorio + ": " + e.getMessage(), e);
+        }
+        store.setChangeLog(journal);
+        journal.gravador.start();
+        MetricsRegistry.getInstance().registrar(METRICAS, journal::metricas);
+        if (journal.registrosDesdeSnapshot >= journal.registrosPorSnapshot) {
+            journal.agendarSnapshot(); // long replay: make the next startup fast again
+        }
+        return journal;
+    }
+
+    // --- ChangeLog: called under the store's write lock ---
+
+    @Override
+    public void gravado(Aluno registro) {
+        anexar(JournalCodec.quadro(registro));
+    }
+
+    @Override
+    public void alunoRemovido(long id) {
+        anexar(JournalCodec.quadroRemocao(JournalCodec.ALUNO_REMOVIDO, id));
+    }
+
+    @Override
+    public void gravado(Curso registro) {
+        anexar(JournalCodec.quadro(registro));
+    }
+
+    @Override
+    public void cursoRemovido(long id) {
+        anexar(JournalCodec.quadroRemocao(JournalCodec.CURSO_REMOVIDO, id));
+    }
+
+    @Override
+    public void gravado(Matricula registro) {
+        anexar(JournalCodec.quadro(registro));
+    }
+
+    @Override
+    public void matriculaRemovida(long id) {
+        anexar(JournalCodec.quadroRemocao(JournalCodec.MATRICULA_REMOVIDA, id));
+    }
+
+    @Override
+    public long confirmar() {
+        if (registrosMutacao == 0) return 0L;
+        long ticket;
+        synchronized (this) {
+            copiarParaPendente(mutacao, tamanhoMutacao);
+            copiarParaPendente(QUADRO_CONFIRMACAO, QUADRO_CONFIRMACAO.length);
+            registrosPendentes += registrosMutacao;
+            ticket = ++ultimoTicket;
+            notifyAll();
+        }
+        limparMutacao();
+        return ticket;
+    }
+
+    @Override
+    public void descartar() {
+        limparMutacao();
+    }
+
+    @Override
+    public void aguardar(long ticket) {
+        if (ticket == 0L) return;
+        boolean interrompido = false;
+        synchronized (this) {
+            while (ticketDuravel < ticket && falha == null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrompido = true; // the change is already visible: wait for the outcome anyway
+                }
+            }
+            if (interrompido) Thread.currentThread().interrupt();
+            if (ticketDuravel < ticket) {
+                throw new RuntimeException("Erro ao gravar journal: " + falha.getMessage(), falha);
+            }
+        }
+    }
+
+    private void anexar(byte[] quadro) {
+        if (tamanhoMutacao + quadro.length > mutacao.length) {
+            mutacao = Arrays.copyOf(mutacao, Math.max(mutacao.length * 2, tamanhoMutacao + quadro.length));
+        }
+        System.arraycopy(quadro, 0, mutacao, tamanhoMutacao, quadro.length);
+        tamanhoMutacao += quadro.length;
+        registrosMutacao++;
+    }
+
+    private void limparMutacao() {
+        tamanhoMutacao = 0;
+        registrosMutacao = 0;
+        if (mutacao.length > 1024 * 1024) mutacao = new byte[4 * 1024]; // do not keep a bulk write's buffer
+    }
+
+    private void copiarParaPendente(byte[] origem, int tamanho) {
+        if (tamanhoPendente + tamanho > pendente.length) {
+            pendente = Arrays.copyOf(pendente, Math.max(pendente.length * 2, tamanhoPendente + tamanho));
+        }
+        System.arraycopy(origem, 0, pendente, tamanhoPendente, tamanho);
+        tamanhoPendente += tamanho;
+    }
+
+    // --- Writer thread ---
+
+    private void gravarContinuamente() {
+        while (true) {
+            byte[] lote;
+            int tamanho;
+            int registros;
+            long ticket;
+            synchronized (this) {
+                while (tamanhoPendente == 0 && !fechando) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (tamanhoPendente == 0) return; // closing and fully drained
+                if (janelaMillis > 0 && !fechando) {
+                    try {
+                        wait(janelaMillis); // releases the monitor: writers keep appending to this batch
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                lote = pendente;
+                tamanho = tamanhoPendente;
+                registros = registrosPendentes;
+                ticket = ultimoTicket;
+                pendente = reserva;
+                reserva = lote;
+                tamanhoPendente = 0;
+                registrosPendentes = 0;
+            }
+            long geracaoDoLote;
+            try {
+                synchronized (arquivo) {
+                    geracaoDoLote = geracao;
+                    ByteBuffer buffer = ByteBuffer.wrap(lote, 0, tamanho);
+                    while (buffer.hasRemaining()) {
+                        canal.write(buffer);
+                    }
+                    if (fsync) canal.force(false);
+                }
+            } catch (IOException e) {
+                logger.error("Falha ao gravar journal. Alterações posteriores não serão persistidas.", e);
+                synchronized (this) {
+                    falha = e;
+                    notifyAll();
+                }
+                return;
+            }
+            synchronized (this) {
+                ticketDuravel = ticket;
+                notifyAll();
+            }
+            registrosGravados += registros;
+            bytesGravados += tamanho;
+            lotes++;
+            if (contarDesdeSnapshot(geracaoDoLote, registros) >= registrosPorSnapshot) {
+                agendarSnapshot();
+            }
+        }
+    }
+
+    /**
+     * Counts a written batch towards the next snapshot. Only the writer thread changes the count;
+     * a snapshot just publishes the generation it covers, and the records of the generations
+     * below it are dropped from the count here. Records written while a snapshot is being taken
+     * land in the new generation, so they are never lost from the count.
+     *
+     * @return Records not covered by any snapshot.
+     */
+    private long contarDesdeSnapshot(long geracaoDoLote, int registros) {
+        if (geracaoDoLote != geracaoContada) {
+            registrosAnteriores += registrosNaGeracao;
+            registrosNaGeracao = 0;
+            geracaoContada = geracaoDoLote;
+        }
+        registrosNaGeracao += registros;
+        if (geracaoCoberta >= geracaoContada) {
+            registrosAnteriores = 0;
+        }
+        registrosDesdeSnapshot = registrosAnteriores + registrosNaGeracao;
+        return registrosDesdeSnapshot;
+    }
+
+    // --- Snapshots ---
+
+    private void agendarSnapshot() {
+        if (snapshotEmAndamento.compareAndSet(false, true)) {
+            snapshots.execute(() -> {
+                try {
+                    snapshot();
+                } catch (RuntimeException e) {
+                    logger.error("Falha ao gerar snapshot do journal.", e);
+                } finally {
+                    snapshotEmAndamento.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Writes a snapshot of the current state and deletes the journal files it makes redundant.
+     * Writers are paused only while pending changes are flushed and the journal file is switched;
+     * the snapshot itself is written from an immutable image, concurrently with new writes.
+     *
+     * @throws RuntimeException if the snapshot cannot be written; the journal stays valid.
+     */
+    public void snapshot() {
+        long inicio = System.nanoTime();
+        Imagem imagem = store.escrever(() -> {
+            long ticket;
+            synchronized (this) {
+                ticket = ultimoTicket;
+            }
+            aguardar(ticket); // everything before the cut is in the old journal file
+            try {
+                rotacionar();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new Imagem(geracao, store);
+        });
+        try {
+            escreverSnapshot(imagem);
+            apagarJournaisAnteriores(imagem.geracao);
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao gravar snapshot do journal: " + e.getMessage(), e);
+        }
+        geracaoCoberta = imagem.geracao;
+        logger.info("Snapshot do journal gravado: {} aluno(s), {} curso(s), {} matrícula(s) em {} ms.",
+                imagem.alunos.size(), imagem.cursos.size(), imagem.matriculas.size(),
+                (System.nanoTime() - inicio) / 1_000_000L);
+    }
+
+    private void rotacionar() throws IOException {
+        synchronized (arquivo) {
+            canal.force(true);
+            canal.close();
+            geracao++;
+            canal = abrirGeracao(geracao);
+        }
+        sincronizarDiretorio();
+    }
+
+    private void escreverSnapshot(Imagem imagem) throws IOException {
+        Path temporario = diretorio.resolve(SNAPSHOT + ".tmp");
+        try (FileChannel destino = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(destino), 64 * 1024));
+            out.writeInt(MAGICO);
+            out.writeInt(FORMATO);
+            out.writeLong(imagem.geracao);
+            out.writeLong(imagem.alunoSeq);
+            out.writeLong(imagem.cursoSeq);
+            out.writeLong(imagem.matriculaSeq);
+            for (Aluno registro : imagem.alunos) out.write(JournalCodec.quadro(registro));
+            for (Curso registro : imagem.cursos) out.write(JournalCodec.quadro(registro));
+            for (Matricula registro : imagem.matriculas) out.write(JournalCodec.quadro(registro));
+            out.write(JournalCodec.quadroFim(imagem.registros()));
+            out.flush();
+            destino.force(true);
+        }
+        Files.move(temporario, diretorio.resolve(SNAPSHOT), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        sincronizarDiretorio();
+    }
+
+    private void apagarJournaisAnteriores(long geracaoInicial) throws IOException {
+        for (long anterior : listarGeracoes()) {
+            if (anterior < geracaoInicial) Files.deleteIfExists(arquivoDaGeracao(anterior));
+        }
+    }
+
+    // --- Recovery ---
+
+    private void recuperar() throws IOException {
+        long inicio = System.nanoTime();
+        long geracaoInicial = 1;
+        Path snapshot = diretorio.resolve(SNAPSHOT);
+        if (Files.exists(snapshot)) {
+            geracaoInicial = lerSnapshot(snapshot);
+        }
+        // Files older than the snapshot survive only if a crash hit between rename and delete
+        apagarJournaisAnteriores(geracaoInicial);
+
+        List<Long> geracoes = listarGeracoes();
+        long reproduzidos = 0;
+        long noUltimo = 0;
+        for (int i = 0; i < geracoes.size(); i++) {
+            noUltimo = reproduzir(arquivoDaGeracao(geracoes.get(i)), i == geracoes.size() - 1);
+            reproduzidos += noUltimo;
+        }
+        geracao = geracoes.isEmpty() ? geracaoInicial : geracoes.get(geracoes.size() - 1);
+        canal = abrirGeracao(geracao);
+        // Nothing replayed is covered by the snapshot; the writer thread counts on from here
+        geracaoCoberta = geracaoInicial;
+        geracaoContada = geracao;
+        registrosNaGeracao = noUltimo;
+        registrosAnteriores = reproduzidos - noUltimo;
+        registrosDesdeSnapshot = reproduzidos;
+
+        logger.info("Journal recuperado de {}: {} aluno(s), {} curso(s), {} matrícula(s); {} registro(s) reproduzido(s) em {} ms.",
+                diretorio, store.alunos.size(), store.cursos.size(), store.matriculas.size(), reproduzidos,
+                (System.nanoTime() - inicio) / 1_000_000L);
+    }
+
+    private long lerSnapshot(Path snapshot) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot), 64 * 1024))) {
+            if (in.readInt() != MAGICO || in.readInt() != FORMATO) {
+                throw new IOException("Snapshot inválido: " + snapshot);
+            }
+            long geracaoInicial = in.readLong();
+            long alunoSeq = in.readLong();
+            long cursoSeq = in.readLong();
+            long matriculaSeq = in.readLong();
+            long registros = 0;
+            byte[] payload;
+            while ((payload = JournalCodec.lerQuadro(in)) != null) {
+                if (payload[0] == JournalCodec.FIM) {
+                    if (JournalCodec.lerFim(payload) != registros) break;
+                    // Sequences may be ahead of the highest stored ID (deleted rows): never reuse an ID
+                    store.alunoSeq.accumulateAndGet(alunoSeq, Math::max);
+                    store.cursoSeq.accumulateAndGet(cursoSeq, Math::max);
+                    store.matriculaSeq.accumulateAndGet(matriculaSeq, Math::max);
+                    return geracaoInicial;
+                }
+                JournalCodec.aplicar(payload, store);
+                registros++;
+            }
+            throw new IOException("Snapshot corrompido: " + snapshot + " (" + registros + " registro(s) legíveis).");
+        }
+    }
+
+    /**
+     * Replays one journal file, applying only committed mutations.
+     *
+     * @return The number of records applied.
+     */
+    private long reproduzir(Path journal, boolean ultimo) throws IOException {
+        long aplicados = 0;
+        try (FileChannel origem = FileChannel.open(journal, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(origem), 64 * 1024));
+            List<byte[]> mutacao = new ArrayList<>();
+            long posicao = 0;
+            long confirmado = 0;
+            byte[] payload;
+            while ((payload = JournalCodec.lerQuadro(in)) != null) {
+                posicao += JournalCodec.CABECALHO + payload.length;
+                if (payload[0] == JournalCodec.CONFIRMACAO) {
+                    for (byte[] registro : mutacao) {
+                        JournalCodec.aplicar(registro, store);
+                    }
+                    aplicados += mutacao.size();
+                    mutacao.clear();
+                    confirmado = posicao;
+                } else {
+                    mutacao.add(payload);
+                }
+            }
+            long tamanho = origem.size();
+            if (confirmado < tamanho) {
+                if (!ultimo) {
+                    throw new IOException("Journal corrompido: " + journal + " na posição " + confirmado + ".");
+                }
+                logger.warn("Descartando {} byte(s) não confirmados no fim de {} (escrita interrompida).",
+                        tamanho - confirmado, journal);
+                origem.truncate(confirmado);
+                origem.force(true);
+            }
+        }
+        return aplicados;
+    }
+
+    // --- Files ---
+
+    private List<Long> listarGeracoes() throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos.map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith(PREFIXO) && n.endsWith(SUFIXO))
+                    .map(n -> n.substring(PREFIXO.length(), n.length() - SUFIXO.length()))
+                    .filter(n -> !n.isEmpty() && n.chars().allMatch(Character::isDigit))
+                    .map(Long::parseLong)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path arquivoDaGeracao(long numero) {
+        return diretorio.resolve(String.format("%s%010d%s", PREFIXO, numero, SUFIXO));
+    }
+
+    private FileChannel abrirGeracao(long numero) throws IOException {
+        return FileChannel.open(arquivoDaGeracao(numero), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /** Makes file creations and renames durable; not supported on every platform. */
+    private void sincronizarDiretorio() {
+        try (FileChannel dir = FileChannel.open(diretorio, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            logger.debug("Sincronização do diretório {} não suportada: {}", diretorio, e.getMessage());
+        }
+    }
+
+    // --- Lifecycle and statistics ---
+
+    /**
+     * Detaches the journal from the store, writes every pending change and closes the journal file.
+     * Later writes to the store are no longer persisted.
+     */
+    @Override
+    public void close() {
+        if (!fechado.compareAndSet(false, true)) return;
+        MetricsRegistry.getInstance().remover(METRICAS);
+        snapshots.shutdown();
+        try {
+            snapshots.awaitTermination(30, TimeUnit.SECONDS); // a running snapshot still needs the writer
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        store.setChangeLog(null);
+        synchronized (this) {
+            fechando = true;
+            notifyAll();
+        }
+        try {
+            gravador.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (arquivo) {
+            try {
+                canal.force(true);
+                canal.close();
+            } catch (IOException e) {
+                logger.error("Erro ao fechar journal.", e);
+            }
+        }
+        logger.info("Journal fechado: {} registro(s) em {} lote(s) (média {}/fsync), {} KiB.",
+                registrosGravados, lotes, String.format("%.1f", getRegistrosPorLote()), bytesGravados / 1024);
+    }
+
+    /** @return Records written since the journal was opened. */
+    public long getRegistrosGravados() {
+        return registrosGravados;
+    }
+
+    /** @return Write batches (one {@code force} each when fsync is enabled) since the journal was opened. */
+    public long getLotes() {
+        return lotes;
+    }
+
+    /** @return Journal bytes written since the journal was opened. */
+    public long getBytesGravados() {
+        return bytesGravados;
+    }
+
+    /** @return Journal records that no snapshot covers yet; a snapshot is taken when it reaches the threshold. */
+    public long getRegistrosDesdeSnapshot() {
+        return registrosDesdeSnapshot;
+    }
+
+    /** @return Average records per batch: how much group commit is amortizing each fsync. */
+    public double getRegistrosPorLote() {
+        long n = lotes;
+        return n == 0 ? 0.0 : (double) registrosGravados / n;
+    }
+
+    private Map<String, Object> metricas() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("geracao", geracao);
+        m.put("fsync", fsync);
+        m.put("registros", registrosGravados);
+        m.put("lotes", lotes);
+        m.put("registrosPorLote", getRegistrosPorLote());
+        m.put("bytes", bytesGravados);
+        m.put("registrosDesdeSnapshot", registrosDesdeSnapshot);
+        return m;
+    }
+
+    /**
+     * Point-in-time copy of the store taken under its write lock; records are immutable, so the
+     * lists can be serialized without holding the lock.
+     */
+    private static final class Imagem {
+        final long geracao;
+        final long alunoSeq;
+        final long cursoSeq;
+        final long matriculaSeq;
+        final List<Aluno> alunos;
+        final List<Curso> cursos;
+        final List<Matricula> matriculas;
+
+        Imagem(long geracao, InMemoryStore store) {
+            this.geracao = geracao;
+            this.alunoSeq = store.alunoSeq.get();
+            this.cursoSeq = store.cursoSeq.get();
+            this.matriculaSeq = store.matriculaSeq.get();
+            this.alunos = new ArrayList<>(store.alunos.values());
+            this.cursos = new ArrayList<>(store.cursos.values());
+            this.matriculas = new ArrayList<>(store.matriculas.values());
+        }
+
+        long registros() {
+            return (long) alunos.size() + cursos.size() + matriculas.size();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.escola.repository.memory;
+
+import com.escola.model.Aluno;
+import com.escola.model.Curso;
+import com.escola.model.Matricula;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.CRC32;
+
+/**
+ * Binary encoding shared by the journal and the snapshot files.
+ * <p>
+ * Every record is a frame {@code [int length][int crc32][payload]}, where the payload starts with
+ * a one-byte record type. A frame whose length is implausible, whose bytes end early or whose
+ * CRC does not match marks the end of the valid data (a torn write).
+ * Records carry the full stored state of a row, so replaying them is idempotent.
+ * </p>
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+final class JournalCodec {
+
+    static final byte FIM = 0; // snapshot trailer: payload = record count
+    static final byte ALUNO = 1;
+    static final byte ALUNO_REMOVIDO = 2;
+    static final byte CURSO = 3;
+    static final byte CURSO_REMOVIDO = 4;
+    static final byte MATRICULA = 5;
+    static final byte MATRICULA_REMOVIDA = 6;
+    static final byte CONFIRMACAO = 7; // journal only: closes the records of one mutation
+
+    static final int CABECALHO = 8;
+    private static final int TAMANHO_MAXIMO = 16 * 1024 * 1024;
+    private static final long SEM_DATA = Long.MIN_VALUE;
+
+    private JournalCodec() {}
+
+    // --- Encoding ---
+
+    static byte[] quadro(Aluno registro) {
+        return quadro(ALUNO, out -> {
+            out.writeLong(registro.getId());
+            out.writeLong(registro.getVersao());
+            escreverTexto(out, registro.getNome());
+            escreverTexto(out, registro.getEmail());
+            escreverData(out, registro.getDataNascimento());
+        });
+    }
+
+    static byte[] quadro(Curso registro) {
+        return quadro(CURSO, out -> {
+            out.writeLong(registro.getId());
+            out.writeLong(registro.getVersao());
+            escreverTexto(out, registro.getNome());
+            escreverTexto(out, registro.getDescricao());
+            out.writeInt(registro.getCargaHoraria());
+        });
+    }
+
+    static byte[] quadro(Matricula registro) {
+        return quadro(MATRICULA, out -> {
+            out.writeLong(registro.getId());
+            out.writeLong(registro.getVersao());
+            out.writeLong(registro.getAluno().getId());
+            out.writeLong(registro.getCurso().getId());
+            escreverData(out, registro.getDataMatricula());
+            out.writeBoolean(registro.isCancelada());
+        });
+    }
+
+    static byte[] quadroRemocao(byte tipo, long id) {
+        return quadro(tipo, out -> out.writeLong(id));
+    }
+
+    static byte[] quadroConfirmacao() {
+        return quadro(CONFIRMACAO, out -> {});
+    }
+
+    static byte[] quadroFim(long registros) {
+        return quadro(FIM, out -> out.writeLong(registros));
+    }
+
+    private static byte[] quadro(byte tipo, Corpo corpo) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0); // length and CRC are patched below
+            out.writeInt(0);
+            out.writeByte(tipo);
+            corpo.escrever(out);
+            out.flush();
+            byte[] quadro = bytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(quadro, CABECALHO, quadro.length - CABECALHO);
+            ByteBuffer.wrap(quadro).putInt(quadro.length - CABECALHO).putInt((int) crc.getValue());
+            return quadro;
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in-memory stream: cannot happen
+        }
+    }
+
+    private static void escreverTexto(DataOutputStream out, String texto) throws IOException {
+        if (texto == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void escreverData(DataOutputStream out, LocalDate data) throws IOException {
+        out.writeLong(data == null ? SEM_DATA : data.toEpochDay());
+    }
+
+    // --- Decoding ---
+
+    /**
+     * Reads the next frame.
+     *
+     * @return The payload (type byte first), or {@code null} at a clean end of stream or at a torn/corrupt frame.
+     * @throws IOException if the underlying stream fails.
+     */
+    static byte[] lerQuadro(DataInputStream in) throws IOException {
+        int tamanho;
+        int crcEsperado;
+        try {
+            tamanho = in.readInt();
+            crcEsperado = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (tamanho < 1 || tamanho > TAMANHO_MAXIMO) return null;
+        byte[] payload = new byte[tamanho];
+        try {
+            in.readFully(payload);
+        } catch (EOFException e) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue() == crcEsperado ? payload : null;
+    }
+
+    /**
+     * Applies a decoded record to the store. Must run before the store is shared (recovery).
+     *
+     * @return The record type.
+     */
+    static byte aplicar(byte[] payload, InMemoryStore store) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte tipo = in.readByte();
+        switch (tipo) {
+            case ALUNO: {
+                long id = in.readLong();
+                long versao = in.readLong();
+                Aluno aluno = new Aluno(lerTexto(in), lerTexto(in), lerData(in));
+                aluno.setId(id);
+                aluno.setVersao(versao);
+                store.gravar(aluno);
+                break;
+            }
+            case CURSO: {
+                long id = in.readLong();
+                long versao = in.readLong();
+                Curso curso = new Curso(lerTexto(in), lerTexto(in), in.readInt());
+                curso.setId(id);
+                curso.setVersao(versao);
+                store.gravar(curso);
+                break;
+            }
+            case MATRICULA: {
+                long id = in.readLong();
+                long versao = in.readLong();
+                Aluno aluno = new Aluno();
+                aluno.setId(in.readLong());
+                Curso curso = new Curso();
+                curso.setId(in.readLong());
+                Matricula matricula = new Matricula(aluno, curso, lerData(in));
+                matricula.setCancelada(in.readBoolean());
+                store.gravar(InMemoryStore.registro(matricula, id, versao));
+                break;
+            }
+            case ALUNO_REMOVIDO:
+                store.removerAluno(in.readLong());
+                break;
+            case CURSO_REMOVIDO:
+                store.removerCurso(in.readLong());
+                break;
+            case MATRICULA_REMOVIDA:
+                store.removerMatricula(in.readLong());
+                break;
+            case FIM:
+                break;
+            default:
+                throw new IOException("Tipo de registro desconhecido: " + tipo);
+        }
+        return tipo;
+    }
+
+    static long lerFim(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload, 1, payload.length - 1));
+        return in.readLong();
+    }
+
+    private static String lerTexto(DataInputStream in) throws IOException {
+        int tamanho = in.readInt();
+        if (tamanho < 0) return null;
+        byte[] bytes = new byte[tamanho];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static LocalDate lerData(DataInputStream in) throws IOException {
+        long dia = in.readLong();
+        return dia == SEM_DATA ? null : LocalDate.ofEpochDay(dia);
+    }
+
+    @FunctionalInterface
+    private interface Corpo {
+        void escrever(DataOutputStream out) throws IOException;
+    }
+}
@@ -1,6 +1,7 @@
 package com.escola.service;
 
 import com.escola.dto.AlunoDTO;
+import com.escola.exception.ConflitoDeVersaoException;
 import com.escola.exception.EntidadeNaoEncontradaException;
 import com.escola.exception.OperacaoInvalidaException;
 import com.escola.exception.ValidacaoException;
@@ -13,7 +14,7 @@ import java.util.List;
  * Defines business operations related to students, such as creation, retrieval,
  * updates, and deletion, including necessary validations.
  *
- * @version 1.1
+ * @version 1.2
  * @author FelipeCardoso
  */
 public interface AlunoService {
@@ -54,6 +55,15 @@ public interface AlunoService {
      */
     List<AlunoDTO> listarTodosAlunos();
 
+    /**
+     * Pre-loads the student cache (by ID and by e-mail), so the first requests of a freshly
+     * started instance do not all go to the database.
+     *
+     * @param limite Maximum number of students to load.
+     * @return How many students were cached; 0 when the cache is disabled.
+     */
+    int aquecerCache(int limite);
+
     /**
      * Updates an existing student.
      *
@@ -67,6 +77,37 @@ public interface AlunoService {
      */
     AlunoDTO atualizarAluno(Long id, String nome, String email, LocalDate dataNascimento) throws EntidadeNaoEncontradaException, ValidacaoException;
 
+    /**
+     * Updates an existing student, guarded by optimistic locking.
+     *
+     * @param id The ID of the student to update.
+     * @param versaoEsperada The version the client read (if null, only concurrent writes during this call are detected).
+     * @param nome The new name (if null, not changed).
+     * @param email The new email (if null, not changed, must remain unique if changed).
+     * @param dataNascimento The new date of birth (if null, not changed).
+     * @return The updated {@link AlunoDTO}, carrying the new version.
+     * @throws EntidadeNaoEncontradaException if the student to update is not found.
+     * @throws ValidacaoException if updated, data is invalid.
+     * @throws ConflitoDeVersaoException if the student was modified since the expected version.
+     */
+    AlunoDTO atualizarAluno(Long id, Long versaoEsperada, String nome, String email, LocalDate dataNascimento)
+            throws EntidadeNaoEncontradaException, ValidacaoException, ConflitoDeVersaoException;
+
+    /**
+     * Partially updates a student with a single UPDATE of the provided fields, without loading it first.
+     *
+     * @param id The ID of the student to update.
+     * @param versaoEsperada The version the client read, or null to update unconditionally.
+     * @param nome The new name (if null, not changed).
+     * @param email The new email (if null, not changed, must remain unique if changed).
+     * @param dataNascimento The new date of birth (if null, not changed).
+     * @throws EntidadeNaoEncontradaException if no student exists with the given ID.
+     * @throws ValidacaoException if no field is provided or a provided field is invalid.
+     * @throws ConflitoDeVersaoException if the student was modified since the expected version.
+     */
+    void atualizarAlunoParcial(Long id, Long versaoEsperada, String nome, String email, LocalDate dataNascimento)
+            throws EntidadeNaoEncontradaException, ValidacaoException, ConflitoDeVersaoException;
+
     /**
      * Deletes a student by their ID.
      *
@@ -33,6 +33,14 @@ public interface CursoService {
      */
     List<CursoDTO> listarTodosCursos();
 
+    /**
+     * Retrieves all registered courses already serialized as a JSON array, in the same order
+     * as {@link #listarTodosCursos()}.
+     *
+     * @return The JSON bytes (UTF-8). Callers must not modify the array.
+     */
+    byte[] listarTodosCursosJson();
+
     /**
      * Searches for courses whose name contains the specified query string (case-insensitive).
      * This method is useful for filtering or finding courses based on partial name matches.
@@ -65,6 +73,34 @@ public interface CursoService {
      */
     CursoDTO atualizarCurso(Long id, String nome, String descricao, Integer cargaHoraria);
 
+    /**
+     * Updates the information of an existing course, guarded by optimistic locking.
+     *
+     * @param id The unique ID of the course to be updated.
+     * @param versaoEsperada The version the client read. If null, only concurrent writes during this call are detected.
+     * @param nome The new name for the course. Can be null if not updating the name.
+     * @param descricao The new description for the course. Can be null if not updating the description.
+     * @param cargaHoraria The new workload for the course. Can be null if not updating the workload.
+     * @return A {@link CursoDTO} representing the updated course, carrying the new version.
+     * @throws com.escola.exception.EntidadeNaoEncontradaException If the course with the specified ID does not exist.
+     * @throws com.escola.exception.ConflitoDeVersaoException If the course was modified since the expected version.
+     */
+    CursoDTO atualizarCurso(Long id, Long versaoEsperada, String nome, String descricao, Integer cargaHoraria);
+
+    /**
+     * Partially updates a course with a single UPDATE of the provided fields, without loading it first.
+     *
+     * @param id The unique ID of the course to be updated.
+     * @param versaoEsperada The version the client read, or null to update unconditionally.
+     * @param nome The new name, or null if not updating the name.
+     * @param descricao The new description, or null if not updating the description.
+     * @param cargaHoraria The new workload, or null if not updating the workload.
+     * @throws com.escola.exception.EntidadeNaoEncontradaException If the course with the specified ID does not exist.
+     * @throws com.escola.exception.ValidacaoException If no field is provided or a provided field is invalid.
+     * @throws com.escola.exception.ConflitoDeVersaoException If the course was modified since the expected version.
+     */
+    void atualizarCursoParcial(Long id, Long versaoEsperada, String nome, String descricao, Integer cargaHoraria);
+
     /**
      * Deletes a course from the system based on its unique identifier.
      * This operation permanently removes the course record.
@@ -6,6 +6,7 @@ import com.escola.exception.EntidadeNaoEncontradaException;
 import com.escola.exception.OperacaoInvalidaException;
 import com.escola.model.Matricula;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,7 +16,7 @@ import java.util.Optional;
  * including creating, retrieving, updating, and deleting enrollments,
  * as well as specific actions like listing with details or canceling.
  *
- * @version 1.0
+ * @version 1.2
  * @author FelipeCardoso
  */
 public interface MatriculaService {
@@ -62,10 +63,47 @@ public interface MatriculaService {
      * @return A {@link MatriculaDTO} representing the updated enrollment with its details.
      * @throws EntidadeNaoEncontradaException If the enrollment to be updated does not exist.
      * @throws OperacaoInvalidaException      If the update operation violates any business rules.
+     * @throws com.escola.exception.ConflitoDeVersaoException If the enrollment was modified during this call.
      */
     MatriculaDTO atualizar(Matricula matriculaInput)
             throws EntidadeNaoEncontradaException, OperacaoInvalidaException;
 
+    /**
+     * Updates an existing enrollment, guarded by optimistic locking.
+     *
+     * @param matriculaInput The {@link Matricula} object containing the updated data for an existing enrollment.
+     * @param versaoEsperada The version the client read. If null, only concurrent writes during this call are detected.
+     * @return A {@link MatriculaDTO} representing the updated enrollment, carrying the new version.
+     * @throws EntidadeNaoEncontradaException If the enrollment to be updated does not exist.
+     * @throws OperacaoInvalidaException      If the update operation violates any business rules.
+     * @throws com.escola.exception.ConflitoDeVersaoException If the enrollment was modified since the expected version.
+     */
+    MatriculaDTO atualizar(Matricula matriculaInput, Long versaoEsperada)
+            throws EntidadeNaoEncontradaException, OperacaoInvalidaException;
+
+    /**
+     * Partially updates an enrollment with a single UPDATE of the provided fields, without loading it first.
+     *
+     * @param id The unique ID of the enrollment.
+     * @param versaoEsperada The version the client read, or null to update unconditionally.
+     * @param cancelada The new cancellation flag, or null if unchanged.
+     * @param dataMatricula The new enrollment date, or null if unchanged.
+     * @throws EntidadeNaoEncontradaException If the enrollment does not exist.
+     * @throws OperacaoInvalidaException      If no field is provided or a provided field is invalid.
+     * @throws com.escola.exception.ConflitoDeVersaoException If the enrollment was modified since the expected version.
+     */
+    void atualizarParcial(Long id, Long versaoEsperada, Boolean cancelada, LocalDate dataMatricula)
+            throws EntidadeNaoEncontradaException, OperacaoInvalidaException;
+
+    /**
+     * Cancels, in one set-based operation, every active enrollment of a course.
+     *
+     * @param cursoId The unique ID of the course.
+     * @return The number of enrollments that were canceled.
+     * @throws EntidadeNaoEncontradaException If no enrollment was affected and the course does not exist.
+     */
+    int cancelarMatriculasDoCurso(Long cursoId) throws EntidadeNaoEncontradaException;
+
     /**
      * Removes an enrollment from the system by its unique identifier.
      * This operation typically implies a hard delete of the enrollment record.
@@ -101,13 +139,24 @@ public interface MatriculaService {
     /**
      * Cancels an existing student enrollment based on its unique identifier.
      * This operation typically involves updating the enrollment status to "canceled" rather than a hard delete,
-     * allowing for historical tracking.
+     * allowing for historical tracking. Optimistic locking conflicts are retried with backoff.
      *
      * @param id The unique ID of the enrollment to be canceled.
      * @throws EntidadeNaoEncontradaException If the enrollment to be canceled does not exist.
      * @throws OperacaoInvalidaException      If the enrollment cannot be canceled due to
      * business rules (e.g., already canceled, course completed).
+     * @throws com.escola.exception.ConflitoDeVersaoException If the enrollment kept changing after all retries.
      */
     void cancelarMatricula(Long id) throws EntidadeNaoEncontradaException, OperacaoInvalidaException;
 
+    /**
+     * Lists the students with an active (not canceled) enrollment in both courses.
+     *
+     * @param cursoA The unique ID of one course.
+     * @param cursoB The unique ID of the other course.
+     * @return The IDs of the students, in ascending order.
+     * @throws EntidadeNaoEncontradaException If no student was found and one of the courses does not exist.
+     */
+    List<Long> listarAlunosAtivosEmAmbosOsCursos(Long cursoA, Long cursoB) throws EntidadeNaoEncontradaException;
+
 }
\ No newline at end of file
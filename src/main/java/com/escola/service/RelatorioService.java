@@ -8,7 +8,7 @@ import java.util.List;
  * This interface defines the contract for operations that provide analytical insights
  * into the educational data, rather than direct data manipulation.
  *
- * @version 1.0
+ * @version 1.1
  * @author FelipeCardoso
  */
 public interface RelatorioService {
@@ -24,4 +24,10 @@ public interface RelatorioService {
      * or if no engagement data is available.
      */
     List<RelatorioCursoDTO> gerarRelatorioEngajamentoCursos();
+
+    /**
+     * Discards any report kept for reuse, so the next request reflects every write made so far.
+     * Called by the services whose writes change the reports (e.g. enrollments).
+     */
+    void invalidar();
 }
\ No newline at end of file
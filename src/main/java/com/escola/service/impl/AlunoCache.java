@@ -0,0 +1,92 @@
+package com.escola.service.impl;
+
+import com.escola.config.AppConfig;
+import com.escola.dto.AlunoDTO;
+import com.escola.monitoring.MetricsRegistry;
+import com.escola.util.TinyLfuCache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lookup caches used by {@link AlunoServiceImpl}: ID → student and e-mail → student ID, both
+ * {@link TinyLfuCache W-TinyLFU} bounded. "Not found" is cached as well (as an empty
+ * {@link Optional}) for a short TTL, because checking an e-mail that is not registered yet is the
+ * most common lookup.
+ * <p>
+ * The e-mail cache stores only the ID and resolves it through the ID cache, checking that the
+ * student still has that e-mail. Invalidating a student's ID is therefore enough to refresh every
+ * e-mail that pointed to it, including an old e-mail the caller no longer knows (partial updates).
+ * </p>
+ * <p>
+ * Settings: {@code ALUNO_CACHE_ENABLED} (default true), {@code ALUNO_CACHE_MAX_ENTRIES} (default 10000
+ * per cache), {@code ALUNO_CACHE_TTL_SECONDS} (default 300; bounds staleness from writes made by other
+ * instances) and {@code ALUNO_CACHE_NEGATIVE_TTL_MS} (default 2000).
+ * </p>
+ *
+ * @version 1.1
+ * @author FelipeCardoso
+ */
+final class AlunoCache {
+
+    private static final String METRICAS = "alunos.cache";
+
+    final TinyLfuCache<Long, Optional<AlunoDTO>> porId;
+    final TinyLfuCache<String, Optional<Long>> porEmail;
+    private final long ttlNanos;
+    private final long ttlNegativoNanos;
+    private final LongAdder acertosNegativos = new LongAdder();
+
+    private AlunoCache(long capacidade, long ttlSegundos, long ttlNegativoMillis) {
+        this.porId = new TinyLfuCache<>(METRICAS + ".porId", capacidade);
+        this.porEmail = new TinyLfuCache<>(METRICAS + ".porEmail", capacidade);
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(0, ttlSegundos));
+        this.ttlNegativoNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, ttlNegativoMillis));
+        MetricsRegistry.getInstance().registrar(METRICAS, this::metricas);
+    }
+
+    /**
+     * @return The caches configured by the {@code ALUNO_CACHE_*} settings, or {@code null} when disabled.
+     */
+    static AlunoCache fromConfig() {
+        if (!AppConfig.getBoolean("ALUNO_CACHE_ENABLED", true)) {
+            return null;
+        }
+        return new AlunoCache(AppConfig.getLong("ALUNO_CACHE_MAX_ENTRIES", 10_000),
+                AppConfig.getLong("ALUNO_CACHE_TTL_SECONDS", 300),
+                AppConfig.getLong("ALUNO_CACHE_NEGATIVE_TTL_MS", 2_000));
+    }
+
+    /** @return The TTL for a lookup result: short for "not found". */
+    long ttl(Optional<?> resultado) {
+        return resultado.isPresent() ? ttlNanos : ttlNegativoNanos;
+    }
+
+    void registrarAcertoNegativo() {
+        acertosNegativos.increment();
+    }
+
+    /**
+     * Forgets everything cached about a student after a write.
+     *
+     * @param id     The student ID (may be null).
+     * @param emails E-mails whose lookup result may have changed (nulls ignored).
+     */
+    void invalidar(Long id, String... emails) {
+        if (id != null) porId.invalidar(id);
+        for (String email : emails) {
+            if (email != null) porEmail.invalidar(email);
+        }
+    }
+
+    private Map<String, Object> metricas() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("porId", porId.metricas());
+        m.put("porEmail", porEmail.metricas());
+        m.put("acertosNegativos", acertosNegativos.sum());
+        return m;
+    }
+}
@@ -1,6 +1,7 @@
 package com.escola.service.impl;
 
 import com.escola.dto.AlunoDTO;
+import com.escola.exception.ConflitoDeVersaoException;
 import com.escola.exception.EntidadeNaoEncontradaException;
 import com.escola.exception.OperacaoInvalidaException;
 import com.escola.exception.ValidacaoException;
@@ -10,8 +11,10 @@ import com.escola.repository.MatriculaRepository; // Needed to check for existin
 import com.escola.repository.impl.AlunoRepositoryImpl;
 import com.escola.repository.impl.MatriculaRepositoryImpl; // Example instantiation
 import com.escola.service.AlunoService;
+import com.escola.util.SingleFlight;
 
 import java.time.LocalDate;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.regex.Pattern;
@@ -21,14 +24,26 @@ import java.util.stream.Collectors;
  * Implementation of the {@link AlunoService} interface.
  * Handles business logic for student management, coordinating with the
  * {@link AlunoRepository}.
+ * <p>
+ * E-mail uniqueness checks consult an in-process Bloom filter ({@link EmailFilter}) first:
+ * a negative answer skips the repository lookup, a positive one falls back to it.
+ * </p>
+ * <p>
+ * Lookups by ID and by e-mail are served from bounded {@link AlunoCache W-TinyLFU caches}, including
+ * short-lived "not found" results; every write through this service invalidates the affected entries.
+ * Concurrent identical listings share one query ({@link SingleFlight}).
+ * </p>
  *
- * @version 1.1
+ * @version 1.6
  * @author FelipeCardoso
  */
 public class AlunoServiceImpl implements AlunoService {
 
     private final AlunoRepository alunoRepository;
     private final MatriculaRepository matriculaRepository; // Dependency for validation
+    private final EmailFilter emailFilter; // null when EMAIL_BLOOM_ENABLED=false
+    private final AlunoCache cache; // null when ALUNO_CACHE_ENABLED=false
+    private final SingleFlight consultas = SingleFlight.fromConfig("alunos.single-flight", "LISTAS_FRESH_MS", "LISTAS_SWR_MS"); // null when disabled
 
     // Basic email validation pattern
     private static final Pattern EMAIL_PATTERN = Pattern.compile(
@@ -43,18 +58,37 @@ public class AlunoServiceImpl implements AlunoService {
         // Manual instantiation (replace with DI if a simple DI mechanism is used)
         this.alunoRepository = new AlunoRepositoryImpl();
         this.matriculaRepository = new MatriculaRepositoryImpl(); // Assuming it exists
+        this.emailFilter = EmailFilter.fromConfig(alunoRepository);
+        this.cache = AlunoCache.fromConfig();
     }
 
     // Constructor for injecting dependencies (better for testability)
     public AlunoServiceImpl(AlunoRepository alunoRepository, MatriculaRepository matriculaRepository) {
         this.alunoRepository = alunoRepository;
         this.matriculaRepository = matriculaRepository;
+        this.emailFilter = EmailFilter.fromConfig(alunoRepository);
+        this.cache = AlunoCache.fromConfig();
+    }
+
+    /**
+     * Looks a student up by e-mail, skipping the repository when the Bloom filter proves the e-mail is unused.
+     */
+    private Optional<Aluno> buscarPorEmail(String email) {
+        if (emailFilter == null) {
+            return alunoRepository.buscarPorEmail(email);
+        }
+        if (!emailFilter.podeExistir(email)) {
+            return Optional.empty();
+        }
+        Optional<Aluno> aluno = alunoRepository.buscarPorEmail(email);
+        if (!aluno.isPresent()) emailFilter.registrarFalsoPositivo();
+        return aluno;
     }
 
 
-    private AlunoDTO convertToDTO(Aluno aluno) {
+    AlunoDTO convertToDTO(Aluno aluno) {
         if (aluno == null) return null;
-        return new AlunoDTO(aluno.getId(), aluno.getNome(), aluno.getEmail(), aluno.getDataNascimento());
+        return new AlunoDTO(aluno.getId(), aluno.getNome(), aluno.getEmail(), aluno.getDataNascimento(), aluno.getVersao());
     }
 
     private void validarAluno(String nome, String email, LocalDate dataNascimento) throws ValidacaoException {
@@ -74,43 +108,149 @@ public class AlunoServiceImpl implements AlunoService {
         validarAluno(nome, email, dataNascimento);
 
         // Check for email uniqueness
-        if (alunoRepository.buscarPorEmail(email).isPresent()) {
+        if (buscarPorEmail(email).isPresent()) {
             throw new ValidacaoException("Email já cadastrado: " + email);
         }
 
         Aluno aluno = new Aluno(nome, email, dataNascimento);
-        Aluno alunoSalvo = alunoRepository.salvar(aluno);
+        Aluno alunoSalvo;
+        try {
+            alunoSalvo = alunoRepository.salvar(aluno);
+        } catch (RuntimeException e) {
+            // The unique constraint is the source of truth: a concurrent or external insert of the
+            // same e-mail (which the filter could not know about) still becomes a validation error.
+            if (emailFilter != null && alunoRepository.buscarPorEmail(email).isPresent()) {
+                emailFilter.adicionar(email);
+                throw new ValidacaoException("Email já cadastrado: " + email);
+            }
+            throw e;
+        }
+        if (emailFilter != null) emailFilter.adicionar(email);
+        // A "not found" for this e-mail (or for the new ID) may be cached
+        if (cache != null) cache.invalidar(alunoSalvo.getId(), email);
+        if (consultas != null) consultas.invalidar();
         return convertToDTO(alunoSalvo);
     }
 
     @Override
     public AlunoDTO buscarAlunoPorId(Long id) throws EntidadeNaoEncontradaException {
-        Aluno aluno = alunoRepository.buscarPorId(id)
+        return buscarPorIdCacheado(id)
                 .orElseThrow(() -> new EntidadeNaoEncontradaException("Aluno não encontrado com ID: " + id));
-        return convertToDTO(aluno);
     }
 
     @Override
     public AlunoDTO buscarAlunoPorEmail(String email) throws EntidadeNaoEncontradaException {
-        Aluno aluno = alunoRepository.buscarPorEmail(email)
-                .orElseThrow(() -> new EntidadeNaoEncontradaException("Aluno não encontrado com email: " + email));
-        return convertToDTO(aluno);
+        if (cache == null || email == null) {
+            Aluno aluno = buscarPorEmail(email)
+                    .orElseThrow(() -> new EntidadeNaoEncontradaException("Aluno não encontrado com email: " + email));
+            return convertToDTO(aluno);
+        }
+        Optional<Long> idEmCache = cache.porEmail.buscar(email);
+        if (idEmCache != null) {
+            if (!idEmCache.isPresent()) {
+                cache.registrarAcertoNegativo();
+                throw new EntidadeNaoEncontradaException("Aluno não encontrado com email: " + email);
+            }
+            // The e-mail cache holds only the ID: confirm the student still has this e-mail
+            Optional<AlunoDTO> aluno = buscarPorIdCacheado(idEmCache.get());
+            if (aluno.isPresent() && email.equals(aluno.get().getEmail())) {
+                return aluno.get();
+            }
+            cache.porEmail.invalidar(email);
+        }
+        long geracao = cache.porEmail.geracao();
+        long geracaoId = cache.porId.geracao();
+        Optional<Aluno> aluno = buscarPorEmail(email);
+        Optional<Long> id = aluno.map(Aluno::getId);
+        cache.porEmail.guardar(email, id, cache.ttl(id), geracao);
+        if (aluno.isPresent()) {
+            AlunoDTO dto = convertToDTO(aluno.get());
+            cache.porId.guardar(dto.getId(), Optional.of(dto), cache.ttl(id), geracaoId);
+            return copiar(dto);
+        }
+        throw new EntidadeNaoEncontradaException("Aluno não encontrado com email: " + email);
+    }
+
+    /**
+     * Looks a student up by ID through the cache, caching "not found" as well.
+     *
+     * @return A copy of the cached DTO, so callers cannot change the cached one.
+     */
+    private Optional<AlunoDTO> buscarPorIdCacheado(Long id) {
+        if (cache == null || id == null) {
+            return alunoRepository.buscarPorId(id).map(this::convertToDTO);
+        }
+        Optional<AlunoDTO> emCache = cache.porId.buscar(id);
+        if (emCache == null) {
+            long geracao = cache.porId.geracao();
+            emCache = alunoRepository.buscarPorId(id).map(this::convertToDTO);
+            cache.porId.guardar(id, emCache, cache.ttl(emCache), geracao);
+        } else if (!emCache.isPresent()) {
+            cache.registrarAcertoNegativo();
+        }
+        return emCache.map(this::copiar);
+    }
+
+    private AlunoDTO copiar(AlunoDTO aluno) {
+        return new AlunoDTO(aluno.getId(), aluno.getNome(), aluno.getEmail(), aluno.getDataNascimento(), aluno.getVersao());
     }
 
     @Override
     public List<AlunoDTO> listarTodosAlunos() {
-        return alunoRepository.listarTodos().stream()
+        if (consultas == null) {
+            return carregarTodosAlunos();
+        }
+        return consultas.executar("listarTodosAlunos", this::carregarTodosAlunos);
+    }
+
+    @Override
+    public int aquecerCache(int limite) {
+        if (cache == null || limite <= 0) {
+            return 0;
+        }
+        long geracaoId = cache.porId.geracao();
+        long geracaoEmail = cache.porEmail.geracao();
+        int carregados = 0;
+        for (Aluno aluno : alunoRepository.listarTodos()) {
+            if (carregados == limite) break;
+            Optional<AlunoDTO> dto = Optional.of(convertToDTO(aluno));
+            cache.porId.guardar(aluno.getId(), dto, cache.ttl(dto), geracaoId);
+            if (aluno.getEmail() != null) {
+                Optional<Long> id = Optional.of(aluno.getId());
+                cache.porEmail.guardar(aluno.getEmail(), id, cache.ttl(id), geracaoEmail);
+            }
+            carregados++;
+        }
+        return carregados;
+    }
+
+    private List<AlunoDTO> carregarTodosAlunos() {
+        return Collections.unmodifiableList(alunoRepository.listarTodos().stream()
                 .map(this::convertToDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     @Override
     public AlunoDTO atualizarAluno(Long id, String nome, String email, LocalDate dataNascimento)
             throws EntidadeNaoEncontradaException, ValidacaoException {
+        return atualizarAluno(id, null, nome, email, dataNascimento);
+    }
+
+    @Override
+    public AlunoDTO atualizarAluno(Long id, Long versaoEsperada, String nome, String email, LocalDate dataNascimento)
+            throws EntidadeNaoEncontradaException, ValidacaoException, ConflitoDeVersaoException {
         Aluno alunoExistente = alunoRepository.buscarPorId(id)
                 .orElseThrow(() -> new EntidadeNaoEncontradaException("Aluno não encontrado com ID: " + id + " para atualização."));
 
+        // Fail fast if the client edited an older version; the repository's versioned UPDATE
+        // still guards against writes that happen between this read and the merge.
+        if (versaoEsperada != null && versaoEsperada != alunoExistente.getVersao()) {
+            throw new ConflitoDeVersaoException(
+                    "Aluno com ID " + id + " foi alterado por outra operação.", alunoExistente.getVersao());
+        }
+
         boolean modificado = false;
+        String emailAnterior = alunoExistente.getEmail();
 
         if (nome != null && !nome.trim().isEmpty() && !nome.equals(alunoExistente.getNome())) {
             alunoExistente.setNome(nome);
@@ -121,7 +261,7 @@ public class AlunoServiceImpl implements AlunoService {
                 throw new ValidacaoException("Novo email inválido.");
             }
             // Check if a new email is already taken by another student
-            Optional<Aluno> alunoComNovoEmail = alunoRepository.buscarPorEmail(email);
+            Optional<Aluno> alunoComNovoEmail = buscarPorEmail(email);
             if (alunoComNovoEmail.isPresent() && !alunoComNovoEmail.get().getId().equals(id)) {
                 throw new ValidacaoException("Novo email '" + email + "' já está em uso por outro aluno.");
             }
@@ -138,11 +278,50 @@ public class AlunoServiceImpl implements AlunoService {
 
         if (modificado) {
             Aluno alunoAtualizado = alunoRepository.atualizar(alunoExistente);
+            registrarTrocaDeEmail(emailAnterior, alunoAtualizado.getEmail());
+            if (cache != null) cache.invalidar(id, emailAnterior, alunoAtualizado.getEmail());
+            if (consultas != null) consultas.invalidar();
             return convertToDTO(alunoAtualizado);
         }
         return convertToDTO(alunoExistente); // No changes made
     }
 
+    @Override
+    public void atualizarAlunoParcial(Long id, Long versaoEsperada, String nome, String email, LocalDate dataNascimento)
+            throws EntidadeNaoEncontradaException, ValidacaoException, ConflitoDeVersaoException {
+        if (nome == null && email == null && dataNascimento == null) {
+            throw new ValidacaoException("Nenhum campo informado para atualização.");
+        }
+        if (nome != null && nome.trim().isEmpty()) {
+            throw new ValidacaoException("Nome do aluno não pode ser vazio.");
+        }
+        if (email != null) {
+            if (!EMAIL_PATTERN.matcher(email).matches()) {
+                throw new ValidacaoException("Novo email inválido.");
+            }
+            Optional<Aluno> alunoComNovoEmail = buscarPorEmail(email);
+            if (alunoComNovoEmail.isPresent() && !alunoComNovoEmail.get().getId().equals(id)) {
+                throw new ValidacaoException("Novo email '" + email + "' já está em uso por outro aluno.");
+            }
+        }
+        if (dataNascimento != null && dataNascimento.isAfter(LocalDate.now())) {
+            throw new ValidacaoException("Nova data de nascimento inválida.");
+        }
+
+        // Single UPDATE of the changed columns; zero affected rows means the student does not exist.
+        if (alunoRepository.atualizarCampos(id, versaoEsperada, nome, email, dataNascimento) == 0) {
+            throw new EntidadeNaoEncontradaException("Aluno não encontrado com ID: " + id + " para atualização.");
+        }
+        // The old e-mail is unknown here; its cache entry points to this ID and is rejected once the ID is reloaded
+        if (cache != null) cache.invalidar(id, email);
+        if (consultas != null) consultas.invalidar();
+        if (email != null && emailFilter != null) {
+            // The previous e-mail was not loaded; it may or may not have changed, so count it as stale
+            emailFilter.adicionar(email);
+            emailFilter.registrarObsoleto();
+        }
+    }
+
     @Override
     public void deletarAluno(Long id) throws EntidadeNaoEncontradaException, OperacaoInvalidaException {
         Aluno aluno = alunoRepository.buscarPorId(id)
@@ -161,5 +340,17 @@ public class AlunoServiceImpl implements AlunoService {
         // should clarify this behavior. For now, we proceed with deletion.
 
         alunoRepository.deletarPorId(id);
+        if (emailFilter != null) emailFilter.registrarObsoleto();
+        if (cache != null) cache.invalidar(id, aluno.getEmail());
+        if (consultas != null) consultas.invalidar();
+    }
+
+    /**
+     * Keeps the e-mail filter in step after a full update.
+     */
+    private void registrarTrocaDeEmail(String emailAnterior, String emailNovo) {
+        if (emailFilter == null || emailNovo == null || emailNovo.equals(emailAnterior)) return;
+        emailFilter.adicionar(emailNovo);
+        if (emailAnterior != null) emailFilter.registrarObsoleto();
     }
 }
\ No newline at end of file
@@ -0,0 +1,246 @@
+package com.escola.service.impl;
+
+import com.escola.config.AppConfig;
+import com.escola.dto.CursoDTO;
+import com.escola.model.Curso;
+import com.escola.monitoring.MetricsRegistry;
+import com.escola.repository.CursoRepository;
+import com.escola.util.JsonFragmentCache;
+import com.escola.util.JsonMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Immutable, copy-on-write snapshot of the course catalog, used by {@link CursoServiceImpl}
+ * to answer every read without locks or database queries.
+ * <p>
+ * A snapshot holds the courses sorted by name, an id → position map, the lower-case names
+ * for substring search, and the full list already serialized to JSON. It is never modified:
+ * {@link #recarregar()} builds a new one from the repository and publishes it with a single
+ * volatile write, so readers see either the old or the new catalog, never a mix. Reloads are
+ * serialized, so the last one always reflects every write committed before it started.
+ * The JSON is assembled from per-course fragments ({@link JsonFragmentCache}), so a reload only
+ * serializes the courses whose version changed.
+ * </p>
+ * <p>
+ * Only writes made through this process trigger a reload. With several instances, set
+ * {@code CURSO_CATALOG_REFRESH_SECONDS} so that an older snapshot is reloaded in the background
+ * (the stale one keeps being served meanwhile). Settings: {@code CURSO_CATALOG_ENABLED} (default true),
+ * {@code CURSO_CATALOG_REFRESH_SECONDS} (default 0: reload on writes only).
+ * </p>
+ *
+ * @version 1.1
+ * @author FelipeCardoso
+ */
+final class CursoCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(CursoCatalog.class);
+    private static final String METRICAS = "cursos.catalogo";
+    private static final Comparator<CursoDTO> POR_NOME = Comparator
+            .comparing(CursoDTO::getNome, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(CursoDTO::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final CursoRepository cursoRepository;
+    private final long intervaloRecargaNanos;
+    private final JsonFragmentCache<CursoDTO> fragmentos =
+            JsonFragmentCache.fromConfig("json.fragmentos.cursos", CursoDTO::getId, CursoDTO::getVersao);
+    private final AtomicBoolean recarregando = new AtomicBoolean();
+    private volatile Snapshot atual;
+
+    private final LongAdder leituras = new LongAdder();
+    private final LongAdder recargas = new LongAdder();
+
+    private CursoCatalog(CursoRepository cursoRepository, long intervaloRecargaSegundos) {
+        this.cursoRepository = cursoRepository;
+        this.intervaloRecargaNanos = TimeUnit.SECONDS.toNanos(Math.max(0, intervaloRecargaSegundos));
+        recarregar();
+        MetricsRegistry.getInstance().registrar(METRICAS, this::metricas);
+    }
+
+    /**
+     * Builds the catalog configured by the {@code CURSO_CATALOG_*} settings, loading every course.
+     *
+     * @param cursoRepository The repository that holds the courses.
+     * @return The catalog, or {@code null} when disabled or when the courses cannot be loaded.
+     */
+    static CursoCatalog fromConfig(CursoRepository cursoRepository) {
+        if (!AppConfig.getBoolean("CURSO_CATALOG_ENABLED", true)) {
+            return null;
+        }
+        try {
+            return new CursoCatalog(cursoRepository, AppConfig.getLong("CURSO_CATALOG_REFRESH_SECONDS", 0));
+        } catch (RuntimeException e) {
+            // The snapshot is only an optimization: without it every read goes to the repository
+            logger.warn("Catálogo de cursos em memória desabilitado: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return A copy of every course, sorted by name.
+     */
+    List<CursoDTO> listarTodos() {
+        Snapshot snapshot = ler();
+        List<CursoDTO> cursos = new ArrayList<>(snapshot.cursos.length);
+        for (CursoDTO curso : snapshot.cursos) {
+            cursos.add(copiar(curso));
+        }
+        return cursos;
+    }
+
+    /**
+     * @return The full list as JSON (UTF-8), serialized when the snapshot was built. Must not be modified.
+     */
+    byte[] listarTodosJson() {
+        return ler().json;
+    }
+
+    /**
+     * @return A copy of the course, or {@code null} if no course has this ID.
+     */
+    CursoDTO buscarPorId(Long id) {
+        Snapshot snapshot = ler();
+        Integer posicao = snapshot.posicaoPorId.get(id);
+        return posicao == null ? null : copiar(snapshot.cursos[posicao]);
+    }
+
+    /**
+     * Case-insensitive substring search on the name, with the same empty-query rule as the repositories.
+     *
+     * @return Copies of the matching courses, sorted by name.
+     */
+    List<CursoDTO> buscarPorNomeContendo(String nomeParcial) {
+        Snapshot snapshot = ler();
+        List<CursoDTO> encontrados = new ArrayList<>();
+        if (nomeParcial == null || nomeParcial.trim().isEmpty()) {
+            return encontrados;
+        }
+        String termo = nomeParcial.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < snapshot.cursos.length; i++) {
+            String nome = snapshot.nomesMinusculos[i];
+            if (nome != null && nome.contains(termo)) {
+                encontrados.add(copiar(snapshot.cursos[i]));
+            }
+        }
+        return encontrados;
+    }
+
+    /**
+     * Publishes a new snapshot after a course write. A failed reload does not fail the write:
+     * the previous snapshot keeps being served and the reload is retried in the background.
+     */
+    void registrarAlteracao() {
+        try {
+            recarregar();
+        } catch (RuntimeException e) {
+            logger.warn("Falha ao recarregar o catálogo de cursos após alteração: {}", e.getMessage());
+            recarregarEmSegundoPlano();
+        }
+    }
+
+    /**
+     * Replaces the snapshot with a fresh one read from the repository.
+     */
+    private synchronized void recarregar() {
+        long inicio = System.nanoTime();
+        List<Curso> cursos = cursoRepository.listarTodos();
+        CursoDTO[] ordenados = new CursoDTO[cursos.size()];
+        for (int i = 0; i < ordenados.length; i++) {
+            Curso curso = cursos.get(i);
+            ordenados[i] = new CursoDTO(curso.getId(), curso.getNome(), curso.getDescricao(),
+                    curso.getCargaHoraria(), curso.getVersao());
+        }
+        Arrays.sort(ordenados, POR_NOME);
+
+        Map<Long, Integer> posicaoPorId = new HashMap<>(ordenados.length * 2);
+        String[] nomesMinusculos = new String[ordenados.length];
+        for (int i = 0; i < ordenados.length; i++) {
+            posicaoPorId.put(ordenados[i].getId(), i);
+            String nome = ordenados[i].getNome();
+            nomesMinusculos[i] = nome == null ? null : nome.toLowerCase(Locale.ROOT);
+        }
+        byte[] json;
+        try {
+            json = fragmentos != null
+                    ? fragmentos.array(Arrays.asList(ordenados)).paraBytes()
+                    : JsonMapper.toJsonBytes(Arrays.asList(ordenados));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Erro ao serializar o catálogo de cursos: " + e.getMessage(), e);
+        }
+        atual = new Snapshot(ordenados, posicaoPorId, nomesMinusculos, json, System.nanoTime());
+        recargas.increment();
+        logger.debug("Catálogo de cursos recarregado: {} curso(s), {} bytes de JSON em {} ms.",
+                ordenados.length, json.length, (System.nanoTime() - inicio) / 1_000_000L);
+    }
+
+    private Snapshot ler() {
+        leituras.increment();
+        Snapshot snapshot = atual;
+        if (intervaloRecargaNanos > 0 && System.nanoTime() - snapshot.criadoEm > intervaloRecargaNanos) {
+            recarregarEmSegundoPlano();
+        }
+        return snapshot;
+    }
+
+    private void recarregarEmSegundoPlano() {
+        if (recarregando.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    recarregar();
+                } catch (RuntimeException e) {
+                    logger.warn("Falha ao recarregar o catálogo de cursos: {}", e.getMessage());
+                } finally {
+                    recarregando.set(false);
+                }
+            });
+        }
+    }
+
+    private static CursoDTO copiar(CursoDTO curso) {
+        return new CursoDTO(curso.getId(), curso.getNome(), curso.getDescricao(), curso.getCargaHoraria(), curso.getVersao());
+    }
+
+    private Map<String, Object> metricas() {
+        Snapshot snapshot = atual;
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("cursos", snapshot.cursos.length);
+        m.put("jsonBytes", snapshot.json.length);
+        m.put("idadeMs", (System.nanoTime() - snapshot.criadoEm) / 1_000_000L);
+        m.put("leituras", leituras.sum());
+        m.put("recargas", recargas.sum());
+        return m;
+    }
+
+    /**
+     * One published version of the catalog. All fields are effectively immutable.
+     */
+    private static final class Snapshot {
+        final CursoDTO[] cursos;
+        final Map<Long, Integer> posicaoPorId;
+        final String[] nomesMinusculos;
+        final byte[] json;
+        final long criadoEm;
+
+        Snapshot(CursoDTO[] cursos, Map<Long, Integer> posicaoPorId, String[] nomesMinusculos, byte[] json, long criadoEm) {
+            this.cursos = cursos;
+            this.posicaoPorId = posicaoPorId;
+            this.nomesMinusculos = nomesMinusculos;
+            this.json = json;
+            this.criadoEm = criadoEm;
+        }
+    }
+}
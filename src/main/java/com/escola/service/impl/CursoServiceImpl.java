@@ -1,10 +1,14 @@
 package com.escola.service.impl;
 
 import com.escola.dto.CursoDTO;
+import com.escola.exception.ConflitoDeVersaoException;
 import com.escola.exception.EntidadeNaoEncontradaException;
+import com.escola.exception.ValidacaoException;
 import com.escola.model.Curso;
 import com.escola.repository.CursoRepository;
 import com.escola.service.CursoService;
+import com.escola.util.JsonMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -15,13 +19,18 @@ import java.util.Objects; // Used for Objects.requireNonNull
  * This class provides the business logic for course-related operations,
  * acting as an intermediary between the controllers (or presentation layer)
  * and the data access layer (repository).
+ * <p>
+ * Reads are served from an immutable in-memory {@link CursoCatalog} snapshot; every write
+ * through this service replaces the snapshot once it is committed.
+ * </p>
  *
- * @version 1.1
+ * @version 1.2
  * @author FelipeCardoso
  */
 public final class CursoServiceImpl implements CursoService {
 
     private final CursoRepository cursoRepository;
+    private final CursoCatalog catalogo; // null when CURSO_CATALOG_ENABLED=false
 
     /**
      * Constructs a new CursoServiceImpl with the provided CursoRepository.
@@ -34,6 +43,7 @@ public final class CursoServiceImpl implements CursoService {
     public CursoServiceImpl(CursoRepository cursoRepository) {
         // Ensures that the injected repository is not null, providing a fail-fast mechanism.
         this.cursoRepository = Objects.requireNonNull(cursoRepository, "CursoRepository cannot be null.");
+        this.catalogo = CursoCatalog.fromConfig(cursoRepository);
     }
 
     /**
@@ -46,7 +56,7 @@ public final class CursoServiceImpl implements CursoService {
      */
     private CursoDTO toDTO(Curso curso) {
         if (curso == null) return null;
-        return new CursoDTO(curso.getId(), curso.getNome(), curso.getDescricao(), curso.getCargaHoraria());
+        return new CursoDTO(curso.getId(), curso.getNome(), curso.getDescricao(), curso.getCargaHoraria(), curso.getVersao());
     }
 
     /**
@@ -103,6 +113,7 @@ public final class CursoServiceImpl implements CursoService {
     public CursoDTO criarCurso(String nome, String descricao, int cargaHoraria) {
         Curso curso = toEntity(nome, descricao, cargaHoraria);
         Curso salvo = cursoRepository.salvar(curso);
+        if (catalogo != null) catalogo.registrarAlteracao();
         return toDTO(salvo);
     }
 
@@ -115,11 +126,28 @@ public final class CursoServiceImpl implements CursoService {
      */
     @Override
     public List<CursoDTO> listarTodosCursos() {
+        if (catalogo != null) return catalogo.listarTodos();
         List<Curso> cursos = cursoRepository.listarTodos();
         // Uses Java Streams to efficiently convert each Curso entity to a CursoDTO.
         return cursos.stream().map(this::toDTO).collect(Collectors.toList());
     }
 
+    /**
+     * Retrieves all courses as a JSON array. With the catalog snapshot enabled, these are the
+     * bytes serialized when the snapshot was built, so no serialization happens per request.
+     *
+     * @return The JSON bytes (UTF-8).
+     */
+    @Override
+    public byte[] listarTodosCursosJson() {
+        if (catalogo != null) return catalogo.listarTodosJson();
+        try {
+            return JsonMapper.toJsonBytes(listarTodosCursos());
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Erro ao serializar a lista de cursos: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Searches for courses whose names contain the specified query string (case-insensitive).
      * This method leverages the repository to perform the name-based search and
@@ -131,6 +159,7 @@ public final class CursoServiceImpl implements CursoService {
      */
     @Override
     public List<CursoDTO> buscarCursosPorNomeContendo(String nomeQuery) {
+        if (catalogo != null) return catalogo.buscarPorNomeContendo(nomeQuery);
         List<Curso> cursos = cursoRepository.buscarPorNomeContendo(nomeQuery);
         // Converts the list of Curso entities to a list of CursoDTOs.
         return cursos.stream().map(this::toDTO).collect(Collectors.toList());
@@ -146,6 +175,13 @@ public final class CursoServiceImpl implements CursoService {
      */
     @Override
     public CursoDTO buscarCursoPorId(Long id) {
+        if (catalogo != null) {
+            CursoDTO curso = catalogo.buscarPorId(id);
+            if (curso == null) {
+                throw new EntidadeNaoEncontradaException("Curso com ID " + id + " não encontrado.");
+            }
+            return curso;
+        }
         // Attempts to find the course by ID; if not present, throws an exception.
         Curso curso = cursoRepository.buscarPorId(id)
                 .orElseThrow(() -> new EntidadeNaoEncontradaException("Curso com ID " + id + " não encontrado."));
@@ -167,19 +203,75 @@ public final class CursoServiceImpl implements CursoService {
      */
     @Override
     public CursoDTO atualizarCurso(Long id, String nome, String descricao, Integer cargaHoraria) {
+        return atualizarCurso(id, null, nome, descricao, cargaHoraria);
+    }
+
+    /**
+     * Updates the information of an existing course, rejecting the change if the course
+     * was modified after the version the caller read.
+     *
+     * @param id The unique ID of the course to be updated.
+     * @param versaoEsperada The version the caller read, or null to skip the up-front check.
+     * @param nome The new name for the course. If null, the name is not updated.
+     * @param descricao The new description for the course. If null, the description is not updated.
+     * @param cargaHoraria The new workload for the course. If null, the workload is not updated.
+     * @return A {@link CursoDTO} representing the updated course.
+     * @throws EntidadeNaoEncontradaException If the course with the specified ID does not exist.
+     * @throws ConflitoDeVersaoException If the stored version differs from the expected one.
+     */
+    @Override
+    public CursoDTO atualizarCurso(Long id, Long versaoEsperada, String nome, String descricao, Integer cargaHoraria) {
         // Retrieves the existing course; throws an exception if not found.
         Curso cursoExistente = cursoRepository.buscarPorId(id)
                 .orElseThrow(() -> new EntidadeNaoEncontradaException("Curso com ID " + id + " não encontrado."));
 
+        // Rejects edits based on an outdated read; the versioned merge covers races after this point.
+        if (versaoEsperada != null && versaoEsperada != cursoExistente.getVersao()) {
+            throw new ConflitoDeVersaoException(
+                    "Curso com ID " + id + " foi alterado por outra operação.", cursoExistente.getVersao());
+        }
+
         // Updates only the fields that are provided (not null).
         if (nome != null) cursoExistente.setNome(nome);
         if (descricao != null) cursoExistente.setDescricao(descricao);
         if (cargaHoraria != null) cursoExistente.setCargaHoraria(cargaHoraria);
 
         Curso atualizado = cursoRepository.atualizar(cursoExistente);
+        if (catalogo != null) catalogo.registrarAlteracao();
         return toDTO(atualizado);
     }
 
+    /**
+     * Partially updates a course with a single UPDATE of the provided fields.
+     * Unlike {@link #atualizarCurso(Long, Long, String, String, Integer)}, the course is not loaded first:
+     * the number of affected rows tells whether it exists.
+     *
+     * @param id The unique ID of the course to be updated.
+     * @param versaoEsperada The version the caller read, or null to update unconditionally.
+     * @param nome The new name for the course, or null.
+     * @param descricao The new description for the course, or null.
+     * @param cargaHoraria The new workload for the course, or null.
+     * @throws EntidadeNaoEncontradaException If the course with the specified ID does not exist.
+     * @throws ValidacaoException If no field is provided or a provided field is invalid.
+     * @throws ConflitoDeVersaoException If the stored version differs from the expected one.
+     */
+    @Override
+    public void atualizarCursoParcial(Long id, Long versaoEsperada, String nome, String descricao, Integer cargaHoraria) {
+        if (nome == null && descricao == null && cargaHoraria == null) {
+            throw new ValidacaoException("Nenhum campo informado para atualização.");
+        }
+        if (nome != null && nome.trim().isEmpty()) {
+            throw new ValidacaoException("Nome do curso não pode ser vazio se fornecido.");
+        }
+        if (cargaHoraria != null && cargaHoraria <= 0) {
+            throw new ValidacaoException("Carga horária deve ser um valor positivo.");
+        }
+        if (cursoRepository.atualizarCampos(id, versaoEsperada, nome, descricao, cargaHoraria) == 0) {
+            throw new EntidadeNaoEncontradaException("Curso com ID " + id + " não encontrado.");
+        }
+        if (catalogo != null) catalogo.registrarAlteracao();
+    }
+
     /**
      * Deletes a course from the system by its unique identifier.
      * Before deletion, it verifies the existence of the course to ensure a valid operation.
@@ -193,5 +285,6 @@ public final class CursoServiceImpl implements CursoService {
         Curso cursoExistente = cursoRepository.buscarPorId(id)
                 .orElseThrow(() -> new EntidadeNaoEncontradaException("Curso com ID " + id + " não encontrado."));
         cursoRepository.deletarPorId(id);
+        if (catalogo != null) catalogo.registrarAlteracao();
     }
 }
\ No newline at end of file
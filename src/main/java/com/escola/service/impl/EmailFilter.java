@@ -0,0 +1,203 @@
+package com.escola.service.impl;
+
+import com.escola.config.AppConfig;
+import com.escola.monitoring.MetricsRegistry;
+import com.escola.repository.AlunoRepository;
+import com.escola.util.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process Bloom filter over the normalized e-mails of all students, used by
+ * {@link AlunoServiceImpl} to skip the "is this e-mail taken?" query when the answer is certainly no.
+ * <p>
+ * A negative answer is definitive for every e-mail written through this process. A positive answer
+ * falls back to the repository. The unique constraint in the database remains the source of truth
+ * for writes that bypass the filter, such as other instances or manual SQL.
+ * </p>
+ * <p>
+ * Bloom filters cannot forget: changed and deleted e-mails stay set and only raise the
+ * false-positive rate. The filter is therefore rebuilt from the repository in the background
+ * when the stale share exceeds 20% or the filter outgrows its capacity. E-mails added during the
+ * rebuild go to both filters, so the swap never loses one.
+ * </p>
+ * <p>
+ * Settings: {@code EMAIL_BLOOM_ENABLED} (default true), {@code EMAIL_BLOOM_CAPACITY}
+ * (default 100000; doubled automatically as needed) and {@code EMAIL_BLOOM_FPP} (default 0.01).
+ * </p>
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+final class EmailFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailFilter.class);
+    private static final String METRICAS = "alunos.email-bloom";
+    private static final double LIMITE_OBSOLETOS = 0.2;
+    private static final long MINIMO_OBSOLETOS = 100; // small filters: not worth a full reload per delete
+
+    private final AlunoRepository alunoRepository;
+    private final long capacidadeMinima;
+    private final double taxaFalsoPositivo;
+
+    private volatile BloomFilter atual;
+    private volatile BloomFilter emConstrucao;
+    private final AtomicBoolean reconstruindo = new AtomicBoolean();
+
+    private final LongAdder consultas = new LongAdder();
+    private final LongAdder consultasEvitadas = new LongAdder();
+    private final LongAdder falsosPositivos = new LongAdder();
+    private final LongAdder obsoletos = new LongAdder();
+    private final LongAdder reconstrucoes = new LongAdder();
+
+    private EmailFilter(AlunoRepository alunoRepository, long capacidadeMinima, double taxaFalsoPositivo) {
+        this.alunoRepository = alunoRepository;
+        this.capacidadeMinima = Math.max(1, capacidadeMinima);
+        this.taxaFalsoPositivo = taxaFalsoPositivo;
+        reconstruir();
+        MetricsRegistry.getInstance().registrar(METRICAS, this::metricas);
+    }
+
+    /**
+     * Builds the filter configured by the {@code EMAIL_BLOOM_*} settings, loading every e-mail from the repository.
+     *
+     * @param alunoRepository The repository that holds the students.
+     * @return The filter, or {@code null} when disabled or when the e-mails cannot be loaded.
+     */
+    static EmailFilter fromConfig(AlunoRepository alunoRepository) {
+        if (!AppConfig.getBoolean("EMAIL_BLOOM_ENABLED", true)) {
+            return null;
+        }
+        try {
+            double fpp = Double.parseDouble(AppConfig.getString("EMAIL_BLOOM_FPP", "0.01"));
+            return new EmailFilter(alunoRepository, AppConfig.getLong("EMAIL_BLOOM_CAPACITY", 100_000), fpp);
+        } catch (RuntimeException e) {
+            // The filter is only an optimization: without it every check goes to the repository
+            logger.warn("Filtro de e-mails desabilitado: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    static String normalizar(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param email The e-mail to check.
+     * @return {@code false} if no student has this e-mail (no query needed); {@code true} if one may have.
+     */
+    boolean podeExistir(String email) {
+        consultas.increment();
+        if (atual.talvezContenha(normalizar(email))) {
+            return true;
+        }
+        consultasEvitadas.increment();
+        return false;
+    }
+
+    /**
+     * Records that a positive answer was not confirmed by the repository.
+     */
+    void registrarFalsoPositivo() {
+        falsosPositivos.increment();
+    }
+
+    /**
+     * Adds an e-mail that was just stored.
+     */
+    void adicionar(String email) {
+        String normalizado = normalizar(email);
+        // Read order matters: reconstruir() publishes 'atual' before clearing 'emConstrucao',
+        // so one of the two reads always sees the filter that survives the swap.
+        BloomFilter novo = emConstrucao;
+        if (novo != null) novo.adicionar(normalizado);
+        BloomFilter filtro = atual;
+        filtro.adicionar(normalizado);
+        if (filtro.getInseridos() > filtro.getCapacidade()) {
+            reconstruirEmSegundoPlano();
+        }
+    }
+
+    /**
+     * Records that an e-mail stopped being used (student deleted or e-mail changed).
+     */
+    void registrarObsoleto() {
+        obsoletos.increment();
+        long limite = Math.max(MINIMO_OBSOLETOS, (long) (atual.getInseridos() * LIMITE_OBSOLETOS));
+        if (obsoletos.sum() > limite) {
+            reconstruirEmSegundoPlano();
+        }
+    }
+
+    private void reconstruirEmSegundoPlano() {
+        if (reconstruindo.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    reconstruir();
+                } catch (RuntimeException e) {
+                    logger.warn("Falha ao reconstruir o filtro de e-mails: {}", e.getMessage());
+                } finally {
+                    reconstruindo.set(false);
+                }
+            });
+        }
+    }
+
+    private void reconstruir() {
+        long inicio = System.nanoTime();
+        BloomFilter anterior = atual;
+        long estimativa = anterior == null ? 0 : anterior.getInseridos() - obsoletos.sum();
+        BloomFilter novo = new BloomFilter(Math.max(capacidadeMinima, 2 * estimativa), taxaFalsoPositivo);
+        emConstrucao = novo; // from here on, new e-mails are added to both filters
+        try {
+            List<String> emails = alunoRepository.listarEmails();
+            for (String email : emails) {
+                if (email != null) novo.adicionar(normalizar(email));
+            }
+            if (novo.getInseridos() > novo.getCapacidade()) {
+                novo = new BloomFilter(2 * novo.getInseridos(), taxaFalsoPositivo);
+                emConstrucao = novo;
+                for (String email : alunoRepository.listarEmails()) {
+                    if (email != null) novo.adicionar(normalizar(email));
+                }
+            }
+            obsoletos.reset();
+            atual = novo;
+        } finally {
+            emConstrucao = null;
+        }
+        reconstrucoes.increment();
+        logger.info("Filtro de e-mails construído: {} e-mail(s), {} KiB, {} função(ões) hash em {} ms.",
+                novo.getInseridos(), novo.getMemoriaBytes() / 1024, novo.getFuncoes(),
+                (System.nanoTime() - inicio) / 1_000_000L);
+    }
+
+    private Map<String, Object> metricas() {
+        BloomFilter filtro = atual;
+        long ausentes = falsosPositivos.sum() + consultasEvitadas.sum(); // checks of e-mails not in use
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("capacidade", filtro.getCapacidade());
+        m.put("emails", filtro.getInseridos());
+        m.put("obsoletos", obsoletos.sum());
+        m.put("bits", filtro.getBits());
+        m.put("funcoesHash", filtro.getFuncoes());
+        m.put("memoriaBytes", filtro.getMemoriaBytes());
+        m.put("taxaFalsoPositivoAlvo", taxaFalsoPositivo);
+        m.put("taxaFalsoPositivoEstimada", filtro.taxaFalsoPositivoEstimada());
+        m.put("consultas", consultas.sum());
+        m.put("consultasEvitadas", consultasEvitadas.sum());
+        m.put("falsosPositivos", falsosPositivos.sum());
+        // Unused e-mails the filter still answered "maybe" for (stale e-mails included)
+        m.put("taxaFalsoPositivoObservada", ausentes == 0 ? 0.0 : (double) falsosPositivos.sum() / ausentes);
+        m.put("reconstrucoes", reconstrucoes.sum());
+        return m;
+    }
+}
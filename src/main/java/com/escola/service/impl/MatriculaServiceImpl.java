@@ -2,6 +2,7 @@ package com.escola.service.impl;
 
 import com.escola.dto.MatriculaDTO;
 import com.escola.dto.MatriculaRequestDTO;
+import com.escola.exception.ConflitoDeVersaoException;
 import com.escola.exception.EntidadeNaoEncontradaException;
 import com.escola.exception.OperacaoInvalidaException;
 import com.escola.model.Aluno;
@@ -11,8 +12,13 @@ import com.escola.repository.AlunoRepository;
 import com.escola.repository.CursoRepository;
 import com.escola.repository.MatriculaRepository;
 import com.escola.service.MatriculaService;
+import com.escola.service.RelatorioService;
+import com.escola.util.GroupCommitQueue;
+import com.escola.util.RetryPolicy;
+import com.escola.util.SingleFlight;
 
 import java.time.LocalDate;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -20,8 +26,18 @@ import java.util.stream.Collectors;
 /**
  * Implementação do serviço de matrícula.
  * Responsável por gerenciar operações relacionadas à entidade {@link Matricula}.
+ * <p>
+ * Opcionalmente, as novas matrículas são gravadas por uma {@link GroupCommitQueue}: as validações
+ * continuam na thread da requisição, mas os INSERTs de requisições concorrentes são agrupados
+ * em uma única transação, e cada chamador recebe o seu próprio resultado ou erro.
+ * </p>
+ * <p>
+ * Listagens concorrentes idênticas compartilham uma única consulta ({@link SingleFlight});
+ * toda escrita feita por este serviço invalida os resultados compartilhados e, quando informado,
+ * os relatórios do {@link RelatorioService}.
+ * </p>
  *
- * @version 1.1
+ * @version 1.8
  * @author FelipeCardoso
  */
 public final class MatriculaServiceImpl implements MatriculaService {
@@ -29,9 +45,14 @@ public final class MatriculaServiceImpl implements MatriculaService {
     private final MatriculaRepository matriculaRepository;
     private final AlunoRepository alunoRepository;
     private final CursoRepository cursoRepository;
+    private final RetryPolicy retryPolicy;
+    private final GroupCommitQueue<Matricula> filaDeGravacao; // null: one transaction per enrollment
+    private final SingleFlight consultas = SingleFlight.fromConfig("matriculas.single-flight", "LISTAS_FRESH_MS", "LISTAS_SWR_MS");
+    private final RelatorioService relatorioService; // null: no report to invalidate
 
     /**
      * Construtor com injeção de dependência.
+     * Usa a política de repetição padrão para conflitos de versão.
      *
      * @param matriculaRepository Repositório de matrículas
      * @param alunoRepository     Repositório de alunos
@@ -40,9 +61,34 @@ public final class MatriculaServiceImpl implements MatriculaService {
     public MatriculaServiceImpl(MatriculaRepository matriculaRepository,
                                 AlunoRepository alunoRepository,
                                 CursoRepository cursoRepository) {
+        this(matriculaRepository, alunoRepository, cursoRepository, RetryPolicy.padrao(), null, null);
+    }
+
+    /**
+     * Construtor com injeção de dependência, incluindo a política de repetição para conflitos
+     * de versão, a fila de gravação em lote usada por {@link #realizarMatricula(MatriculaRequestDTO)}
+     * e o serviço de relatórios cujos resultados reaproveitados são invalidados a cada escrita
+     * de matrícula.
+     *
+     * @param matriculaRepository Repositório de matrículas
+     * @param alunoRepository     Repositório de alunos
+     * @param cursoRepository     Repositório de cursos
+     * @param retryPolicy         Política de repetição para conflitos de versão
+     * @param filaDeGravacao      Fila que agrupa as novas matrículas em lotes, ou nulo para gravação direta
+     * @param relatorioService    Serviço de relatórios a invalidar, ou nulo
+     */
+    public MatriculaServiceImpl(MatriculaRepository matriculaRepository,
+                                AlunoRepository alunoRepository,
+                                CursoRepository cursoRepository,
+                                RetryPolicy retryPolicy,
+                                GroupCommitQueue<Matricula> filaDeGravacao,
+                                RelatorioService relatorioService) {
         this.matriculaRepository = matriculaRepository;
         this.alunoRepository = alunoRepository;
         this.cursoRepository = cursoRepository;
+        this.retryPolicy = retryPolicy;
+        this.filaDeGravacao = filaDeGravacao;
+        this.relatorioService = relatorioService;
     }
 
     /**
@@ -65,7 +111,10 @@ public final class MatriculaServiceImpl implements MatriculaService {
         Matricula novaMatricula = new Matricula(aluno, curso);
         novaMatricula.setDataMatricula(LocalDate.now());
 
-        Matricula matriculaSalva = matriculaRepository.salvar(novaMatricula);
+        Matricula matriculaSalva = filaDeGravacao != null
+                ? filaDeGravacao.gravar(novaMatricula)
+                : matriculaRepository.salvar(novaMatricula);
+        invalidarConsultas();
         return toDTO(matriculaSalva);
     }
 
@@ -76,9 +125,16 @@ public final class MatriculaServiceImpl implements MatriculaService {
      */
     @Override
     public List<MatriculaDTO> listarTodasMatriculasComDetalhes() {
-        return matriculaRepository.listarTodasComDetalhes().stream()
+        if (consultas == null) {
+            return carregarMatriculasComDetalhes();
+        }
+        return consultas.executar("listarTodasMatriculasComDetalhes", this::carregarMatriculasComDetalhes);
+    }
+
+    private List<MatriculaDTO> carregarMatriculasComDetalhes() {
+        return Collections.unmodifiableList(matriculaRepository.listarTodasComDetalhes().stream()
                 .map(this::toDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     /**
@@ -96,22 +152,46 @@ public final class MatriculaServiceImpl implements MatriculaService {
     }
 
     /**
-     * Atualiza uma matrícula existente.
+     * Atualiza uma matrícula existente, sem versão esperada.
      *
      * @param input Dados atualizados da matrícula
      * @return DTO da matrícula atualizada
      * @throws EntidadeNaoEncontradaException Caso a matrícula, aluno ou curso não existam
      * @throws OperacaoInvalidaException      Caso falte algum dado obrigatório
+     * @throws ConflitoDeVersaoException      Caso outra operação altere a matrícula durante a atualização
      */
     @Override
     public MatriculaDTO atualizar(Matricula input)
             throws EntidadeNaoEncontradaException, OperacaoInvalidaException {
+        return atualizar(input, null);
+    }
+
+    /**
+     * Atualiza uma matrícula existente, recusando a alteração se ela mudou depois da versão lida
+     * pelo chamador.
+     *
+     * @param input          Dados atualizados da matrícula
+     * @param versaoEsperada Versão lida pelo chamador, ou nulo para não verificar antes de gravar
+     * @return DTO da matrícula atualizada
+     * @throws EntidadeNaoEncontradaException Caso a matrícula, aluno ou curso não existam
+     * @throws OperacaoInvalidaException      Caso falte algum dado obrigatório
+     * @throws ConflitoDeVersaoException      Caso a versão informada não seja a versão atual
+     */
+    @Override
+    public MatriculaDTO atualizar(Matricula input, Long versaoEsperada)
+            throws EntidadeNaoEncontradaException, OperacaoInvalidaException {
 
         validarDadosAtualizacao(input);
 
         Matricula existente = matriculaRepository.buscarPorId(input.getId())
                 .orElseThrow(() -> new EntidadeNaoEncontradaException("Matrícula com ID " + input.getId() + " não encontrada."));
 
+        // Rejects edits based on an outdated read; the versioned write covers races after this point.
+        if (versaoEsperada != null && versaoEsperada != existente.getVersao()) {
+            throw new ConflitoDeVersaoException(
+                    "Matrícula com ID " + input.getId() + " foi alterada por outra operação.", existente.getVersao());
+        }
+
         Aluno aluno = buscarAlunoPorId(input.getAluno().getId());
         Curso curso = buscarCursoPorId(input.getCurso().getId());
 
@@ -120,27 +200,78 @@ public final class MatriculaServiceImpl implements MatriculaService {
         existente.setDataMatricula(input.getDataMatricula());
 
         Matricula atualizada = matriculaRepository.atualizar(existente);
+        invalidarConsultas();
         return toDTO(atualizada);
     }
 
     /**
      * Cancela uma matrícula existente.
+     * A leitura e a escrita são repetidas (com backoff) quando outra operação altera
+     * a matrícula entre as duas etapas.
      *
      * @param id ID da matrícula
      * @throws EntidadeNaoEncontradaException Caso a matrícula não seja encontrada
      * @throws OperacaoInvalidaException      Caso a matrícula já esteja cancelada
+     * @throws ConflitoDeVersaoException      Caso o conflito persista após todas as tentativas
      */
     @Override
     public void cancelarMatricula(Long id) throws EntidadeNaoEncontradaException, OperacaoInvalidaException {
-        Matricula matricula = matriculaRepository.buscarPorId(id)
-                .orElseThrow(() -> new EntidadeNaoEncontradaException("Matrícula com ID " + id + " não encontrada."));
+        retryPolicy.executar(() -> {
+            Matricula matricula = matriculaRepository.buscarPorId(id)
+                    .orElseThrow(() -> new EntidadeNaoEncontradaException("Matrícula com ID " + id + " não encontrada."));
 
-        if (matricula.isCancelada()) {
-            throw new OperacaoInvalidaException("A matrícula já está cancelada.");
+            if (matricula.isCancelada()) {
+                throw new OperacaoInvalidaException("A matrícula já está cancelada.");
+            }
+
+            matricula.setCancelada(true);
+            matriculaRepository.atualizar(matricula);
+        }, ConflitoDeVersaoException.class);
+        invalidarConsultas();
+    }
+
+    /**
+     * Atualiza parcialmente uma matrícula com um único UPDATE, sem carregá-la antes.
+     *
+     * @param id             ID da matrícula
+     * @param versaoEsperada Versão lida pelo cliente, ou nulo
+     * @param cancelada      Novo estado de cancelamento, ou nulo
+     * @param dataMatricula  Nova data de matrícula, ou nulo
+     * @throws EntidadeNaoEncontradaException Caso a matrícula não seja encontrada
+     * @throws OperacaoInvalidaException      Caso nenhum campo seja informado ou a data seja futura
+     * @throws ConflitoDeVersaoException      Caso a versão informada não seja a versão atual
+     */
+    @Override
+    public void atualizarParcial(Long id, Long versaoEsperada, Boolean cancelada, LocalDate dataMatricula)
+            throws EntidadeNaoEncontradaException, OperacaoInvalidaException {
+        if (cancelada == null && dataMatricula == null) {
+            throw new OperacaoInvalidaException("Nenhum campo informado para atualização.");
+        }
+        if (dataMatricula != null && dataMatricula.isAfter(LocalDate.now())) {
+            throw new OperacaoInvalidaException("A data da matrícula não pode ser futura.");
         }
+        if (matriculaRepository.atualizarCampos(id, versaoEsperada, cancelada, dataMatricula) == 0) {
+            throw new EntidadeNaoEncontradaException("Matrícula com ID " + id + " não encontrada.");
+        }
+        invalidarConsultas();
+    }
 
-        matricula.setCancelada(true);
-        matriculaRepository.atualizar(matricula);
+    /**
+     * Cancela todas as matrículas ativas de um curso com uma única operação em lote.
+     *
+     * @param cursoId ID do curso
+     * @return Quantidade de matrículas canceladas
+     * @throws EntidadeNaoEncontradaException Caso nenhuma matrícula seja afetada e o curso não exista
+     */
+    @Override
+    public int cancelarMatriculasDoCurso(Long cursoId) throws EntidadeNaoEncontradaException {
+        int canceladas = matriculaRepository.cancelarTodasPorCursoId(cursoId);
+        invalidarConsultas();
+        if (canceladas == 0) {
+            // Only an empty result needs to distinguish "no active enrollments" from "unknown course".
+            buscarCursoPorId(cursoId);
+        }
+        return canceladas;
     }
 
     /**
@@ -154,6 +285,7 @@ public final class MatriculaServiceImpl implements MatriculaService {
         Matricula existente = matriculaRepository.buscarPorId(id)
                 .orElseThrow(() -> new EntidadeNaoEncontradaException("Matrícula com ID " + id + " não encontrada."));
         matriculaRepository.remover(existente);
+        invalidarConsultas();
     }
 
     /**
@@ -177,8 +309,32 @@ public final class MatriculaServiceImpl implements MatriculaService {
         return matriculaRepository.buscarPorId(id);
     }
 
+    /**
+     * Lista os alunos com matrícula ativa nos dois cursos.
+     *
+     * @param cursoA ID de um dos cursos
+     * @param cursoB ID do outro curso
+     * @return IDs dos alunos, em ordem crescente
+     * @throws EntidadeNaoEncontradaException Caso nenhum aluno seja encontrado e um dos cursos não exista
+     */
+    @Override
+    public List<Long> listarAlunosAtivosEmAmbosOsCursos(Long cursoA, Long cursoB) throws EntidadeNaoEncontradaException {
+        List<Long> alunos = matriculaRepository.listarAlunosAtivosEmAmbosOsCursos(cursoA, cursoB);
+        if (alunos.isEmpty()) {
+            // Only an empty result needs to distinguish "no common students" from "unknown course".
+            buscarCursoPorId(cursoA);
+            buscarCursoPorId(cursoB);
+        }
+        return alunos;
+    }
+
     // ===================== Métodos auxiliares ===================== //
 
+    private void invalidarConsultas() {
+        if (consultas != null) consultas.invalidar();
+        if (relatorioService != null) relatorioService.invalidar();
+    }
+
     private void verificarDuplicidadeDeMatricula(Long alunoId, Long cursoId) throws OperacaoInvalidaException {
         if (matriculaRepository.buscarPorAlunoIdECursoId(alunoId, cursoId).isPresent()) {
             throw new OperacaoInvalidaException("O aluno já está matriculado neste curso.");
@@ -213,7 +369,7 @@ public final class MatriculaServiceImpl implements MatriculaService {
      * @param matricula A entidade de matrícula
      * @return DTO da matrícula
      */
-    private MatriculaDTO toDTO(Matricula matricula) {
+    MatriculaDTO toDTO(Matricula matricula) {
         if (matricula == null) return null;
 
         return new MatriculaDTO(
@@ -223,7 +379,8 @@ public final class MatriculaServiceImpl implements MatriculaService {
                 Optional.ofNullable(matricula.getCurso()).map(Curso::getId).orElse(null),
                 Optional.ofNullable(matricula.getCurso()).map(Curso::getNome).orElse(null),
                 matricula.getDataMatricula(),
-                matricula.isCancelada() // assumindo que exista esse método boolean na entidade Matricula
+                matricula.isCancelada(), // assumindo que exista esse método boolean na entidade Matricula
+                matricula.getVersao()
         );
     }
 }
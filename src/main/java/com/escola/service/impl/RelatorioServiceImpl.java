@@ -8,10 +8,12 @@ import com.escola.repository.MatriculaRepository;
 import com.escola.repository.impl.CursoRepositoryImpl;
 import com.escola.repository.impl.MatriculaRepositoryImpl;
 import com.escola.service.RelatorioService;
+import com.escola.util.SingleFlight;
 
 import java.time.LocalDate;
 import java.time.Period;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -20,14 +22,22 @@ import java.util.List;
  * interacting with the repository layer to fetch necessary data.
  * It aims to provide insights into course engagement, such as total students,
  * average age, and recent enrollments.
+ * <p>
+ * Concurrent requests for the same report share one computation ({@link SingleFlight}). With
+ * {@code RELATORIO_SWR_MS} set, a finished report is reused: as is for {@code RELATORIO_FRESH_MS}
+ * (default 1000), then for {@code RELATORIO_SWR_MS} more while a single background computation
+ * refreshes it. Enrollment writes call {@link #invalidar()}, so they show up in the next report;
+ * edits to a student's birth date or a course's name are only picked up once the windows expire.
+ * </p>
  *
- * @version 1.1
+ * @version 1.3
  * @author FelipeCardoso
  */
 public class RelatorioServiceImpl implements RelatorioService {
 
     private final MatriculaRepository matriculaRepository;
     private final CursoRepository cursoRepository;
+    private final SingleFlight relatorios = SingleFlight.fromConfig("relatorios.single-flight", "RELATORIO_FRESH_MS", "RELATORIO_SWR_MS"); // null when disabled
 
     /**
      * Constructs a new RelatorioServiceImpl with specified repository implementations.
@@ -74,6 +84,18 @@ public class RelatorioServiceImpl implements RelatorioService {
      */
     @Override
     public List<RelatorioCursoDTO> gerarRelatorioEngajamentoCursos() {
+        if (relatorios == null) {
+            return calcularRelatorioEngajamentoCursos();
+        }
+        return relatorios.executar("gerarRelatorioEngajamentoCursos", this::calcularRelatorioEngajamentoCursos);
+    }
+
+    @Override
+    public void invalidar() {
+        if (relatorios != null) relatorios.invalidar();
+    }
+
+    private List<RelatorioCursoDTO> calcularRelatorioEngajamentoCursos() {
         List<RelatorioCursoDTO> relatorios = new ArrayList<>();
         List<Curso> cursos = cursoRepository.listarTodos();
 
@@ -86,7 +108,7 @@ public class RelatorioServiceImpl implements RelatorioService {
             RelatorioCursoDTO relatorio = new RelatorioCursoDTO(curso.getNome(), totalMatriculados, mediaIdade, novosAlunos);
             relatorios.add(relatorio);
         }
-        return relatorios;
+        return Collections.unmodifiableList(relatorios);
     }
 
     /**
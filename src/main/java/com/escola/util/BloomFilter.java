@@ -0,0 +1,147 @@
+package com.escola.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free Bloom filter over strings.
+ * <p>
+ * {@link #talvezContenha(String)} never answers {@code false} for a string that was added
+ * (no false negatives); it answers {@code true} for an absent string with a probability that
+ * grows as the filter fills. Bits are stored in an {@link AtomicLongArray} and set with CAS, so
+ * concurrent readers and writers never block each other. Elements cannot be removed.
+ * </p>
+ * <p>
+ * Bit positions come from double hashing ({@code h1 + i·h2}) of a 64-bit hash of the string,
+ * as described by Kirsch and Mitzenmacher.
+ * </p>
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray palavras;
+    private final long bits;
+    private final int funcoes;
+    private final long capacidade;
+    private final LongAdder inseridos = new LongAdder();
+
+    /**
+     * Constructs a filter sized for the expected number of elements and false-positive rate.
+     *
+     * @param capacidade     Expected number of distinct elements.
+     * @param taxaFalsoPositivo Target false-positive probability at that capacity (e.g. 0.01).
+     */
+    public BloomFilter(long capacidade, double taxaFalsoPositivo) {
+        if (taxaFalsoPositivo <= 0 || taxaFalsoPositivo >= 1) {
+            throw new IllegalArgumentException("taxaFalsoPositivo deve estar entre 0 e 1.");
+        }
+        this.capacidade = Math.max(1, capacidade);
+        long m = (long) Math.ceil(-this.capacidade * Math.log(taxaFalsoPositivo) / (Math.log(2) * Math.log(2)));
+        int palavrasNecessarias = (int) Math.min(Integer.MAX_VALUE - 8, (Math.max(64, m) + 63) / 64);
+        this.palavras = new AtomicLongArray(palavrasNecessarias);
+        this.bits = (long) palavrasNecessarias * 64;
+        this.funcoes = Math.max(1, (int) Math.round((double) bits / this.capacidade * Math.log(2)));
+    }
+
+    /**
+     * Adds an element.
+     *
+     * @param valor The element; must not be null.
+     */
+    public void adicionar(String valor) {
+        long hash = hash(valor);
+        long h1 = hash;
+        long h2 = misturar(hash ^ 0x9E3779B97F4A7C15L) | 1L; // odd step: visits distinct positions
+        for (int i = 0; i < funcoes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            int indice = (int) (bit >>> 6);
+            long mascara = 1L << bit;
+            long atual;
+            while (((atual = palavras.get(indice)) & mascara) == 0) {
+                if (palavras.compareAndSet(indice, atual, atual | mascara)) break;
+            }
+        }
+        inseridos.increment();
+    }
+
+    /**
+     * Tests membership.
+     *
+     * @param valor The element; must not be null.
+     * @return {@code false} if the element was certainly never added; {@code true} if it may have been.
+     */
+    public boolean talvezContenha(String valor) {
+        long hash = hash(valor);
+        long h1 = hash;
+        long h2 = misturar(hash ^ 0x9E3779B97F4A7C15L) | 1L;
+        for (int i = 0; i < funcoes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            if ((palavras.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Estimates the current false-positive probability from the fraction of bits set,
+     * {@code (bitsSet / bits)^k}. Unlike the design rate, this reflects the actual fill,
+     * including stale elements that can no longer be removed.
+     *
+     * @return The estimated false-positive probability (0 to 1).
+     */
+    public double taxaFalsoPositivoEstimada() {
+        long ligados = 0;
+        for (int i = 0; i < palavras.length(); i++) {
+            ligados += Long.bitCount(palavras.get(i));
+        }
+        return Math.pow((double) ligados / bits, funcoes);
+    }
+
+    /** @return Number of {@link #adicionar(String)} calls (duplicates included). */
+    public long getInseridos() {
+        return inseridos.sum();
+    }
+
+    /** @return The capacity the filter was sized for. */
+    public long getCapacidade() {
+        return capacidade;
+    }
+
+    /** @return Size of the bit array. */
+    public long getBits() {
+        return bits;
+    }
+
+    /** @return Number of hash functions. */
+    public int getFuncoes() {
+        return funcoes;
+    }
+
+    /** @return Heap used by the bit array, in bytes. */
+    public long getMemoriaBytes() {
+        return bits / 8;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-16 code units, finished with the MurmurHash3 mixer so that
+     * similar strings (e.g. sequential e-mails) spread over the whole bit array.
+     */
+    private static long hash(String valor) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < valor.length(); i++) {
+            h ^= valor.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return misturar(h);
+    }
+
+    private static long misturar(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
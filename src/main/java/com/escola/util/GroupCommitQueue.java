@@ -0,0 +1,264 @@
+package com.escola.util;
+
+import com.escola.monitoring.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded write queue that coalesces concurrent writes into batches (group commit).
+ * <p>
+ * Callers {@link #enviar(Object) submit} an item and receive a future. A single writer thread
+ * takes the oldest item and keeps collecting until the batch has {@code tamanhoMaximoLote} items
+ * or {@code janelaMillis} have passed since that item was queued, then writes the whole batch
+ * with one call (one transaction, one commit). If the batch fails, its items are written again
+ * one by one, so each future completes with its own result or its own error and a single bad
+ * item (e.g. a duplicate) does not fail its neighbours.
+ * </p>
+ * <p>
+ * When the queue is full, {@link #enviar(Object)} blocks the caller (back-pressure) instead of
+ * growing without bound. Batch size and queue wait are published through {@link MetricsRegistry}.
+ * </p>
+ *
+ * @param <T> The item type; the write functions return the persisted item.
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public final class GroupCommitQueue<T> implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitQueue.class);
+
+    // Batch size histogram upper bounds: 1, 2, 4, ..., 256, +inf
+    private static final int[] FAIXAS = {1, 2, 4, 8, 16, 32, 64, 128, 256, Integer.MAX_VALUE};
+
+    private final String nome;
+    private final BlockingQueue<Pedido<T>> fila;
+    private final int tamanhoMaximoLote;
+    private final long janelaNanos;
+    private final Function<List<T>, List<T>> gravarLote;
+    private final Function<T, T> gravarUm;
+    private final Thread gravador;
+    private volatile boolean fechada;
+
+    private final LongAdder itens = new LongAdder();
+    private final LongAdder lotes = new LongAdder();
+    private final LongAdder lotesComFalha = new LongAdder();
+    private final AtomicLong maiorLote = new AtomicLong();
+    private final AtomicLongArray histograma = new AtomicLongArray(FAIXAS.length);
+    private final LongAdder esperaTotalNanos = new LongAdder();
+    private final AtomicLong esperaMaximaNanos = new AtomicLong();
+
+    /**
+     * Constructs and starts a queue.
+     *
+     * @param nome              Name used for the writer thread and the metrics source.
+     * @param capacidade        Maximum number of queued items.
+     * @param tamanhoMaximoLote Maximum items per batch.
+     * @param janelaMillis      Maximum time the oldest item waits for the batch to fill.
+     * @param gravarLote        Writes a batch atomically; returns the persisted items in the same order.
+     * @param gravarUm          Writes a single item; used when a batch fails.
+     */
+    public GroupCommitQueue(String nome, int capacidade, int tamanhoMaximoLote, long janelaMillis,
+                            Function<List<T>, List<T>> gravarLote, Function<T, T> gravarUm) {
+        this.nome = nome;
+        this.fila = new ArrayBlockingQueue<>(Math.max(1, capacidade));
+        this.tamanhoMaximoLote = Math.max(1, tamanhoMaximoLote);
+        this.janelaNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, janelaMillis));
+        this.gravarLote = gravarLote;
+        this.gravarUm = gravarUm;
+        this.gravador = new Thread(this::gravarContinuamente, nome + "-writer");
+        this.gravador.setDaemon(true);
+        this.gravador.start();
+        MetricsRegistry.getInstance().registrar(nome, this::metricas);
+    }
+
+    /**
+     * Queues an item for the next batch, blocking while the queue is full.
+     *
+     * @param item The item to write.
+     * @return A future completed with the persisted item, or exceptionally with the write error.
+     * @throws RejectedExecutionException if the queue has been closed.
+     */
+    public CompletableFuture<T> enviar(T item) {
+        if (fechada) {
+            throw new RejectedExecutionException("Fila de gravação " + nome + " encerrada.");
+        }
+        Pedido<T> pedido = new Pedido<>(item);
+        try {
+            fila.put(pedido);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrompido ao enfileirar gravação em " + nome + ".", e);
+        }
+        return pedido.resultado;
+    }
+
+    /**
+     * Submits an item and waits for its own result.
+     *
+     * @param item The item to write.
+     * @return The persisted item.
+     * @throws RuntimeException the exception raised while writing this item.
+     */
+    public T gravar(T item) {
+        CompletableFuture<T> futuro = enviar(item);
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException) throw (RuntimeException) causa;
+            if (causa instanceof Error) throw (Error) causa;
+            throw e;
+        }
+    }
+
+    private void gravarContinuamente() {
+        List<Pedido<T>> lote = new ArrayList<>(tamanhoMaximoLote);
+        while (true) {
+            try {
+                Pedido<T> primeiro = fila.poll(100, TimeUnit.MILLISECONDS);
+                if (primeiro == null) {
+                    if (fechada && fila.isEmpty()) return;
+                    continue;
+                }
+                lote.add(primeiro);
+                long prazo = primeiro.enfileiradoEm + janelaNanos;
+                while (lote.size() < tamanhoMaximoLote) {
+                    long restante = prazo - System.nanoTime();
+                    Pedido<T> proximo = restante > 0 ? fila.poll(restante, TimeUnit.NANOSECONDS) : fila.poll();
+                    if (proximo == null) break;
+                    lote.add(proximo);
+                }
+                processar(lote);
+            } catch (InterruptedException e) {
+                if (!fechada) logger.warn("Gravador {} interrompido.", nome);
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Erro inesperado no gravador {}.", nome, e);
+                lote.forEach(p -> p.resultado.completeExceptionally(e)); // no-op for futures already completed
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    private void processar(List<Pedido<T>> lote) {
+        long agora = System.nanoTime();
+        List<T> itensDoLote = new ArrayList<>(lote.size());
+        for (Pedido<T> pedido : lote) {
+            long espera = agora - pedido.enfileiradoEm;
+            esperaTotalNanos.add(espera);
+            esperaMaximaNanos.accumulateAndGet(espera, Math::max);
+            itensDoLote.add(pedido.item);
+        }
+        registrarLote(lote.size());
+
+        List<T> gravados;
+        try {
+            gravados = gravarLote.apply(itensDoLote);
+        } catch (RuntimeException e) {
+            if (lote.size() == 1) {
+                lote.get(0).resultado.completeExceptionally(e);
+            } else {
+                lotesComFalha.increment();
+                logger.debug("Lote de {} item(ns) em {} falhou ({}). Gravando individualmente.", lote.size(), nome, e.getMessage());
+                gravarIndividualmente(lote);
+            }
+            return;
+        }
+        for (int i = 0; i < lote.size(); i++) {
+            lote.get(i).resultado.complete(gravados.get(i));
+        }
+    }
+
+    private void gravarIndividualmente(List<Pedido<T>> lote) {
+        for (Pedido<T> pedido : lote) {
+            try {
+                pedido.resultado.complete(gravarUm.apply(pedido.item));
+            } catch (RuntimeException e) {
+                pedido.resultado.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void registrarLote(int tamanho) {
+        itens.add(tamanho);
+        lotes.increment();
+        maiorLote.accumulateAndGet(tamanho, Math::max);
+        for (int i = 0; i < FAIXAS.length; i++) {
+            if (tamanho <= FAIXAS[i]) {
+                histograma.incrementAndGet(i);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Stops accepting items, writes everything already queued and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        fechada = true;
+        try {
+            gravador.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Items that raced with close() after the writer drained the queue
+        Pedido<T> restante;
+        while ((restante = fila.poll()) != null) {
+            restante.resultado.completeExceptionally(new RejectedExecutionException("Fila de gravação " + nome + " encerrada."));
+        }
+        MetricsRegistry.getInstance().remover(nome);
+        logger.info("Fila de gravação {} encerrada: {} item(ns) em {} lote(s).", nome, itens.sum(), lotes.sum());
+    }
+
+    private Map<String, Object> metricas() {
+        long totalLotes = lotes.sum();
+        long totalItens = itens.sum();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("capacidade", fila.size() + fila.remainingCapacity());
+        m.put("pendentes", fila.size());
+        m.put("tamanhoMaximoLote", tamanhoMaximoLote);
+        m.put("janelaMs", TimeUnit.NANOSECONDS.toMillis(janelaNanos));
+        m.put("itens", totalItens);
+        m.put("lotes", totalLotes);
+        m.put("lotesComFalha", lotesComFalha.sum());
+        m.put("tamanhoMedioLote", totalLotes == 0 ? 0.0 : (double) totalItens / totalLotes);
+        m.put("maiorLote", maiorLote.get());
+        Map<String, Long> faixas = new LinkedHashMap<>();
+        for (int i = 0; i < FAIXAS.length; i++) {
+            faixas.put(FAIXAS[i] == Integer.MAX_VALUE ? "+inf" : "<=" + FAIXAS[i], histograma.get(i));
+        }
+        m.put("histogramaLotes", faixas);
+        m.put("esperaMediaMs", totalItens == 0 ? 0.0 : esperaTotalNanos.sum() / 1e6 / totalItens);
+        m.put("esperaMaximaMs", esperaMaximaNanos.get() / 1e6);
+        return m;
+    }
+
+    private static final class Pedido<T> {
+        final T item;
+        final long enfileiradoEm = System.nanoTime();
+        final CompletableFuture<T> resultado = new CompletableFuture<>();
+
+        Pedido(T item) {
+            this.item = item;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.escola.util;
+
+import com.escola.config.AppConfig;
+import com.escola.monitoring.MetricsRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache of serialized JSON fragments (UTF-8), one per entity ID and version. A list response is
+ * assembled by writing the cached fragments of its items one after the other, so Jackson only
+ * runs for the items that changed since they were last served.
+ * <p>
+ * Every fragment is stored with the version it was serialized from, and a lookup only uses it when
+ * the version of the item being written is the same. A changed entity therefore replaces its
+ * fragment the next time it is served, even when the write happened in another process. The
+ * "version" is whatever identifies the serialized content: the {@code @Version} column, plus any
+ * denormalized fields copied from other entities (e.g. the student's name in an enrollment).
+ * Items without a version are always serialized and never cached.
+ * </p>
+ * <p>
+ * Fragments are bounded by a {@link TinyLfuCache}. Settings: {@code JSON_FRAGMENT_CACHE_ENABLED}
+ * (default true) and {@code JSON_FRAGMENT_CACHE_MAX_ENTRIES} (default 50000 per entity type).
+ * </p>
+ *
+ * @param <T> The DTO type.
+ * @version 1.1
+ * @author FelipeCardoso
+ */
+public final class JsonFragmentCache<T> {
+
+    private final TinyLfuCache<Object, Fragmento> fragmentos;
+    private final Function<? super T, ?> id;
+    private final Function<? super T, ?> versao;
+
+    private final LongAdder reutilizados = new LongAdder();
+    private final LongAdder serializados = new LongAdder();
+    private final LongAdder bytesReutilizados = new LongAdder();
+
+    /**
+     * Constructs a cache and publishes its metrics.
+     *
+     * @param nome       Metrics source name, e.g. {@code "json.fragmentos.matriculas"}.
+     * @param capacidade Maximum number of fragments kept.
+     * @param id         Extracts the entity ID from an item.
+     * @param versao     Extracts what identifies the serialized content (must implement equals).
+     */
+    public JsonFragmentCache(String nome, long capacidade, Function<? super T, ?> id, Function<? super T, ?> versao) {
+        this.fragmentos = new TinyLfuCache<>(nome, capacidade);
+        this.id = Objects.requireNonNull(id);
+        this.versao = Objects.requireNonNull(versao);
+        MetricsRegistry.getInstance().registrar(nome, this::metricas);
+    }
+
+    /**
+     * Creates a cache configured by the {@code JSON_FRAGMENT_CACHE_*} settings.
+     *
+     * @return The cache, or {@code null} when disabled.
+     */
+    public static <T> JsonFragmentCache<T> fromConfig(String nome, Function<? super T, ?> id, Function<? super T, ?> versao) {
+        if (!AppConfig.getBoolean("JSON_FRAGMENT_CACHE_ENABLED", true)) {
+            return null;
+        }
+        return new JsonFragmentCache<>(nome, AppConfig.getLong("JSON_FRAGMENT_CACHE_MAX_ENTRIES", 50_000), id, versao);
+    }
+
+    /**
+     * Returns the JSON of one item, serializing it only if the cached fragment is missing or
+     * belongs to another version.
+     *
+     * @param item The item.
+     * @return The JSON bytes (UTF-8). Shared: must not be modified.
+     * @throws JsonProcessingException if the item cannot be serialized.
+     */
+    public byte[] fragmento(T item) throws JsonProcessingException {
+        Object chave = id.apply(item);
+        Object versaoItem = versao.apply(item);
+        if (chave == null || versaoItem == null) {
+            serializados.increment();
+            return JsonMapper.toJsonBytes(item);
+        }
+        Fragmento emCache = fragmentos.buscar(chave);
+        if (emCache != null && emCache.versao.equals(versaoItem)) {
+            reutilizados.increment();
+            bytesReutilizados.add(emCache.json.length);
+            return emCache.json;
+        }
+        long geracao = fragmentos.geracao();
+        byte[] json = JsonMapper.toJsonBytes(item);
+        serializados.increment();
+        fragmentos.guardar(chave, new Fragmento(versaoItem, json), 0, geracao);
+        return json;
+    }
+
+    /**
+     * Resolves the fragments of every item of a list, ready to be written as a JSON array.
+     *
+     * @param itens The items, in response order.
+     * @return The array, whose length is known before anything is written.
+     * @throws JsonProcessingException if an item cannot be serialized.
+     */
+    public ArrayJson array(List<? extends T> itens) throws JsonProcessingException {
+        byte[][] partes = new byte[itens.size()][];
+        long comprimento = 2 + Math.max(0, partes.length - 1);
+        for (int i = 0; i < partes.length; i++) {
+            partes[i] = fragmento(itens.get(i));
+            comprimento += partes[i].length;
+        }
+        return new ArrayJson(partes, comprimento);
+    }
+
+    /**
+     * Drops the fragment of an entity, e.g. after it was deleted. Updates need no call:
+     * the version check already replaces the fragment.
+     *
+     * @param chave The entity ID.
+     */
+    public void invalidar(Object chave) {
+        if (chave != null) fragmentos.invalidar(chave);
+    }
+
+    private Map<String, Object> metricas() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("reutilizados", reutilizados.sum());
+        m.put("serializados", serializados.sum());
+        m.put("bytesReutilizados", bytesReutilizados.sum());
+        m.put("fragmentos", fragmentos.metricas());
+        return m;
+    }
+
+    /**
+     * A JSON array made of cached fragments, written without copying them into one buffer.
+     */
+    public static final class ArrayJson {
+        private static final int BLOCO = 64 * 1024;
+
+        private final byte[][] partes;
+        private final long comprimento;
+
+        private ArrayJson(byte[][] partes, long comprimento) {
+            this.partes = partes;
+            this.comprimento = comprimento;
+        }
+
+        /** @return The size of the array in bytes, for {@code Content-Length}. */
+        public long comprimento() {
+            return comprimento;
+        }
+
+        /**
+         * Writes {@code [fragment,fragment,...]} to a stream. Fragments are small, so they are
+         * gathered in blocks of {@value #BLOCO} bytes first: the HTTP server's response stream
+         * sends every write to the socket.
+         *
+         * @param out The stream; flushed, not closed.
+         * @throws IOException If an I/O error occurs.
+         */
+        public void escreverEm(OutputStream out) throws IOException {
+            BufferedOutputStream bloco = new BufferedOutputStream(out, (int) Math.min(BLOCO, comprimento));
+            bloco.write('[');
+            for (int i = 0; i < partes.length; i++) {
+                if (i > 0) bloco.write(',');
+                bloco.write(partes[i]);
+            }
+            bloco.write(']');
+            bloco.flush();
+        }
+
+        /** @return The whole array in a single buffer. */
+        public byte[] paraBytes() {
+            byte[] bytes = new byte[Math.toIntExact(comprimento)];
+            int pos = 0;
+            bytes[pos++] = '[';
+            for (int i = 0; i < partes.length; i++) {
+                if (i > 0) bytes[pos++] = ',';
+                System.arraycopy(partes[i], 0, bytes, pos, partes[i].length);
+                pos += partes[i].length;
+            }
+            bytes[pos] = ']';
+            return bytes;
+        }
+    }
+
+    private static final class Fragmento {
+        final Object versao;
+        final byte[] json;
+
+        Fragmento(Object versao, byte[] json) {
+            this.versao = versao;
+            this.json = json;
+        }
+    }
+}
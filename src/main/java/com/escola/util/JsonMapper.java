@@ -1,31 +1,84 @@
 package com.escola.util;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Utility class for JSON serialization and deserialization using Jackson.
  * This class is final as it only contains static utility methods.
+ * <p>
+ * Readers and writers are created once per type and reused: they are immutable and thread-safe,
+ * and skip the root type resolution {@link ObjectMapper} repeats on every call. Property access
+ * goes through accessors generated by the Blackbird module instead of reflection.
+ * </p>
+ * <p>
+ * {@link LocalDate} keeps its wire format, the {@code [year, month, day]} array, but is written
+ * by a dedicated serializer that emits the three numbers directly.
+ * </p>
  *
- * @version 1.1
+ * @version 1.2
  * @author FelipeCardoso
  */
 public final class JsonMapper {
     private static final ObjectMapper objectMapper = createObjectMapper();
+    private static final ObjectWriter writerPadrao = objectMapper.writer();
+    private static final ConcurrentHashMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Class<?>, ObjectReader> listReaders = new ConcurrentHashMap<>();
 
     private JsonMapper() {} // Private constructor for utility class
 
     private static ObjectMapper createObjectMapper() {
-        ObjectMapper mapper = new ObjectMapper();
+        return configurar(new ObjectMapper());
+    }
+
+    /**
+     * Applies the modules and features of this mapper to another one, so that other data
+     * formats ({@link WireFormat}) see exactly the same properties and types.
+     *
+     * @param mapper A new mapper (JSON, Smile, CBOR...).
+     * @param <M>    The mapper type.
+     * @return The same mapper, configured.
+     */
+    static <M extends ObjectMapper> M configurar(M mapper) {
         mapper.registerModule(new JavaTimeModule()); // For Java 8 Date/Time types like LocalDate
+        mapper.registerModule(new SimpleModule("LocalDateArray").addSerializer(new LocalDateArraySerializer()));
+        mapper.registerModule(new BlackbirdModule());
         // mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        // Streams belong to the caller (e.g. an HTTP response still to be completed)
+        mapper.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
         return mapper;
     }
 
+    private static ObjectWriter writerFor(Object object) {
+        if (object == null) return writerPadrao;
+        return writers.computeIfAbsent(object.getClass(), objectMapper::writerFor);
+    }
+
+    private static ObjectReader readerFor(Class<?> clazz) {
+        return readers.computeIfAbsent(clazz, objectMapper::readerFor);
+    }
+
+    private static ObjectReader listReaderFor(Class<?> clazz) {
+        return listReaders.computeIfAbsent(clazz, c -> objectMapper.readerFor(
+                objectMapper.getTypeFactory().constructCollectionType(List.class, c)));
+    }
+
     /**
      * Serializes an object to its JSON string representation.
      *
@@ -34,7 +87,29 @@ public final class JsonMapper {
      * @throws JsonProcessingException if an error occurs during serialization.
      */
     public static String toJson(Object object) throws JsonProcessingException {
-        return objectMapper.writeValueAsString(object);
+        return writerFor(object).writeValueAsString(object);
+    }
+
+    /**
+     * Serializes an object straight to UTF-8 bytes, skipping the intermediate String.
+     *
+     * @param object The object to serialize.
+     * @return The JSON bytes (UTF-8).
+     * @throws JsonProcessingException if an error occurs during serialization.
+     */
+    public static byte[] toJsonBytes(Object object) throws JsonProcessingException {
+        return writerFor(object).writeValueAsBytes(object);
+    }
+
+    /**
+     * Serializes an object as UTF-8 JSON into a stream, without buffering the whole document.
+     *
+     * @param object The object to serialize.
+     * @param out    The target stream; flushed, not closed.
+     * @throws IOException if an error occurs during serialization or writing.
+     */
+    public static void toJson(Object object, OutputStream out) throws IOException {
+        writerFor(object).writeValue(out, object);
     }
 
     /**
@@ -47,7 +122,33 @@ public final class JsonMapper {
      * @throws IOException if an error occurs during deserialization.
      */
     public static <T> T fromJson(String jsonString, Class<T> clazz) throws IOException {
-        return objectMapper.readValue(jsonString, clazz);
+        return readerFor(clazz).readValue(jsonString);
+    }
+
+    /**
+     * Deserializes UTF-8 JSON bytes to an object of the specified class.
+     *
+     * @param json  The JSON bytes.
+     * @param clazz The class of the object to create.
+     * @param <T>   The type of the object.
+     * @return The deserialized object.
+     * @throws IOException if an error occurs during deserialization.
+     */
+    public static <T> T fromJson(byte[] json, Class<T> clazz) throws IOException {
+        return readerFor(clazz).readValue(json);
+    }
+
+    /**
+     * Deserializes JSON read from a stream (e.g. a request body) to an object of the specified class.
+     *
+     * @param in    The stream; closed after reading.
+     * @param clazz The class of the object to create.
+     * @param <T>   The type of the object.
+     * @return The deserialized object.
+     * @throws IOException if an error occurs during reading or deserialization.
+     */
+    public static <T> T fromJson(InputStream in, Class<T> clazz) throws IOException {
+        return readerFor(clazz).readValue(in);
     }
 
     /**
@@ -60,6 +161,53 @@ public final class JsonMapper {
      * @throws IOException if an error occurs during deserialization.
      */
     public static <T> List<T> fromJsonList(String jsonArray, Class<T> clazz) throws IOException {
-        return objectMapper.readValue(jsonArray, objectMapper.getTypeFactory().constructCollectionType(List.class, clazz));
+        return listReaderFor(clazz).readValue(jsonArray);
+    }
+
+    /**
+     * Deserializes a UTF-8 JSON array into a list of specified type.
+     *
+     * @param jsonArray The JSON array bytes.
+     * @param clazz     The class of the elements in the list.
+     * @param <T>       The type of the elements.
+     * @return A list of deserialized objects.
+     * @throws IOException if an error occurs during deserialization.
+     */
+    public static <T> List<T> fromJsonList(byte[] jsonArray, Class<T> clazz) throws IOException {
+        return listReaderFor(clazz).readValue(jsonArray);
+    }
+
+    /**
+     * Deserializes a JSON array read from a stream into a list of specified type.
+     *
+     * @param in    The stream; closed after reading.
+     * @param clazz The class of the elements in the list.
+     * @param <T>   The type of the elements.
+     * @return A list of deserialized objects.
+     * @throws IOException if an error occurs during reading or deserialization.
+     */
+    public static <T> List<T> fromJsonList(InputStream in, Class<T> clazz) throws IOException {
+        return listReaderFor(clazz).readValue(in);
+    }
+
+    /**
+     * Writes a {@link LocalDate} as {@code [year,month,day]}, the same output as the JavaTimeModule
+     * serializer with timestamps enabled, without its per-call format and feature checks.
+     */
+    private static final class LocalDateArraySerializer extends StdSerializer<LocalDate> {
+        private static final long serialVersionUID = 1L;
+
+        LocalDateArraySerializer() {
+            super(LocalDate.class);
+        }
+
+        @Override
+        public void serialize(LocalDate value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartArray(value, 3);
+            gen.writeNumber(value.getYear());
+            gen.writeNumber(value.getMonthValue());
+            gen.writeNumber(value.getDayOfMonth());
+            gen.writeEndArray();
+        }
     }
 }
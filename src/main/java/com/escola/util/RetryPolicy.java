@@ -0,0 +1,115 @@
+package com.escola.util;
+
+import com.escola.config.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Bounded retry policy with exponential backoff and full jitter.
+ * Intended for internal read-modify-write paths that may lose an optimistic locking race
+ * (e.g. cancelling an enrollment): the whole operation, including the re-read, is executed again
+ * after a short randomized pause, up to a fixed number of attempts.
+ * <p>
+ * Defaults can be overridden with the {@code RETRY_MAX_ATTEMPTS}, {@code RETRY_BACKOFF_MS}
+ * and {@code RETRY_MAX_BACKOFF_MS} settings.
+ * </p>
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public final class RetryPolicy {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryPolicy.class);
+
+    private final int maxTentativas;
+    private final long backoffInicialMs;
+    private final long backoffMaximoMs;
+
+    /**
+     * Constructs a retry policy.
+     *
+     * @param maxTentativas    Total number of attempts, including the first one. Must be at least 1.
+     * @param backoffInicialMs Base pause before the second attempt, in milliseconds.
+     * @param backoffMaximoMs  Upper bound for any single pause, in milliseconds.
+     */
+    public RetryPolicy(int maxTentativas, long backoffInicialMs, long backoffMaximoMs) {
+        if (maxTentativas < 1) {
+            throw new IllegalArgumentException("maxTentativas deve ser pelo menos 1.");
+        }
+        this.maxTentativas = maxTentativas;
+        this.backoffInicialMs = Math.max(0, backoffInicialMs);
+        this.backoffMaximoMs = Math.max(this.backoffInicialMs, backoffMaximoMs);
+    }
+
+    /**
+     * Creates the default policy, honouring the configuration settings.
+     *
+     * @return A policy with 3 attempts, 20 ms base backoff and 200 ms cap unless configured otherwise.
+     */
+    public static RetryPolicy padrao() {
+        return new RetryPolicy(
+                AppConfig.getInt("RETRY_MAX_ATTEMPTS", 3),
+                AppConfig.getLong("RETRY_BACKOFF_MS", 20),
+                AppConfig.getLong("RETRY_MAX_BACKOFF_MS", 200));
+    }
+
+    /**
+     * Executes the operation, retrying it while it fails with the given exception type.
+     * Any other exception is propagated immediately. When all attempts fail, the last
+     * retryable exception is rethrown.
+     *
+     * @param operacao  The operation to run. It must be safe to execute more than once.
+     * @param retryOn   The exception type that triggers a retry.
+     * @param <T>       The result type.
+     * @return The result of the first successful attempt.
+     */
+    public <T> T executar(Supplier<T> operacao, Class<? extends RuntimeException> retryOn) {
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                return operacao.get();
+            } catch (RuntimeException e) {
+                if (!retryOn.isInstance(e) || tentativa >= maxTentativas) {
+                    throw e;
+                }
+                long pausa = calcularPausa(tentativa);
+                logger.debug("Tentativa {}/{} falhou ({}). Repetindo em {} ms.",
+                        tentativa, maxTentativas, e.getMessage(), pausa);
+                try {
+                    Thread.sleep(pausa);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Executes an operation without a result, retrying it while it fails with the given exception type.
+     *
+     * @param operacao The operation to run. It must be safe to execute more than once.
+     * @param retryOn  The exception type that triggers a retry.
+     */
+    public void executar(Runnable operacao, Class<? extends RuntimeException> retryOn) {
+        executar(() -> {
+            operacao.run();
+            return null;
+        }, retryOn);
+    }
+
+    /**
+     * Exponential backoff with full jitter: a random pause in [0, min(cap, base * 2^(n-1))].
+     */
+    private long calcularPausa(int tentativa) {
+        long teto = backoffInicialMs << Math.min(tentativa - 1, 20);
+        teto = Math.min(backoffMaximoMs, teto);
+        return teto <= 0 ? 0 : ThreadLocalRandom.current().nextLong(teto + 1);
+    }
+
+    public int getMaxTentativas() {
+        return maxTentativas;
+    }
+}
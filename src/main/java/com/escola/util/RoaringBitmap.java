@@ -0,0 +1,315 @@
+package com.escola.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of non-negative 32-bit integers in the Roaring layout.
+ * <p>
+ * Values are split by their high 16 bits into chunks of 65536. Each non-empty chunk is stored in
+ * a container chosen by its cardinality: a sorted {@code char[]} while it holds at most 4096
+ * values (2 bytes per value), or a fixed 8 KiB bitmap above that. Containers switch
+ * representation automatically as values are added and removed, so sparse and dense sets both stay
+ * small and membership is a binary search over the chunk keys followed by a search or a bit test.
+ * Run containers from the reference implementation are left out; enrollment ids are not long
+ * consecutive runs.
+ * </p>
+ * <p>
+ * Not thread-safe: callers synchronize externally.
+ * </p>
+ *
+ * @version 1.1
+ * @author FelipeCardoso
+ */
+public final class RoaringBitmap {
+
+    private static final int LIMITE_ARRAY = 4096; // above this, a bitmap (8 KiB) is smaller than a char[]
+    private static final int PALAVRAS_BITMAP = 1024; // 65536 bits
+
+    private char[] chaves = new char[4];
+    private Object[] conteineres = new Object[4]; // char[] (array container) or long[] (bitmap container)
+    private int[] cardinalidades = new int[4];
+    private int tamanho; // number of containers in use
+    private long cardinalidade;
+
+    /**
+     * Adds a value.
+     *
+     * @param valor The value, treated as unsigned.
+     * @return {@code true} if the value was not present.
+     */
+    public boolean adicionar(int valor) {
+        char alta = (char) (valor >>> 16);
+        char baixa = (char) valor;
+        int i = buscarChave(alta);
+        if (i < 0) {
+            i = -i - 1;
+            inserirConteiner(i, alta, new char[]{baixa});
+            cardinalidades[i] = 1;
+            cardinalidade++;
+            return true;
+        }
+        Object conteiner = conteineres[i];
+        int n = cardinalidades[i];
+        if (conteiner instanceof long[]) {
+            long[] bits = (long[]) conteiner;
+            long mascara = 1L << baixa;
+            if ((bits[baixa >>> 6] & mascara) != 0) return false;
+            bits[baixa >>> 6] |= mascara;
+        } else {
+            char[] valores = (char[]) conteiner;
+            int pos = Arrays.binarySearch(valores, 0, n, baixa);
+            if (pos >= 0) return false;
+            pos = -pos - 1;
+            if (n == LIMITE_ARRAY) {
+                long[] bits = paraBitmap(valores, n);
+                bits[baixa >>> 6] |= 1L << baixa;
+                conteineres[i] = bits;
+            } else {
+                if (n == valores.length) {
+                    valores = Arrays.copyOf(valores, Math.min(LIMITE_ARRAY, n < 64 ? n * 2 : n + (n >> 1)));
+                    conteineres[i] = valores;
+                }
+                System.arraycopy(valores, pos, valores, pos + 1, n - pos);
+                valores[pos] = baixa;
+            }
+        }
+        cardinalidades[i] = n + 1;
+        cardinalidade++;
+        return true;
+    }
+
+    /**
+     * Removes a value.
+     *
+     * @param valor The value, treated as unsigned.
+     * @return {@code true} if the value was present.
+     */
+    public boolean remover(int valor) {
+        int i = buscarChave((char) (valor >>> 16));
+        if (i < 0) return false;
+        char baixa = (char) valor;
+        Object conteiner = conteineres[i];
+        int n = cardinalidades[i];
+        if (conteiner instanceof long[]) {
+            long[] bits = (long[]) conteiner;
+            long mascara = 1L << baixa;
+            if ((bits[baixa >>> 6] & mascara) == 0) return false;
+            bits[baixa >>> 6] &= ~mascara;
+            if (n - 1 <= LIMITE_ARRAY) {
+                conteineres[i] = paraArray(bits, n - 1);
+            }
+        } else {
+            char[] valores = (char[]) conteiner;
+            int pos = Arrays.binarySearch(valores, 0, n, baixa);
+            if (pos < 0) return false;
+            System.arraycopy(valores, pos + 1, valores, pos, n - pos - 1);
+        }
+        cardinalidade--;
+        if (n == 1) {
+            removerConteiner(i);
+        } else {
+            cardinalidades[i] = n - 1;
+        }
+        return true;
+    }
+
+    /**
+     * @param valor The value, treated as unsigned.
+     * @return {@code true} if the value is present.
+     */
+    public boolean contem(int valor) {
+        int i = buscarChave((char) (valor >>> 16));
+        if (i < 0) return false;
+        char baixa = (char) valor;
+        Object conteiner = conteineres[i];
+        if (conteiner instanceof long[]) {
+            return (((long[]) conteiner)[baixa >>> 6] & (1L << baixa)) != 0;
+        }
+        return Arrays.binarySearch((char[]) conteiner, 0, cardinalidades[i], baixa) >= 0;
+    }
+
+    /** @return Number of values in the set. */
+    public long cardinalidade() {
+        return cardinalidade;
+    }
+
+    /** @return {@code true} if the set has no values. */
+    public boolean vazio() {
+        return cardinalidade == 0;
+    }
+
+    /**
+     * Computes the intersection of two sets. Only chunks present in both are visited; two array
+     * containers are merged, an array is probed against a bitmap, and two bitmaps are ANDed word by word.
+     *
+     * @param a A set.
+     * @param b Another set.
+     * @return A new set with the values present in both.
+     */
+    public static RoaringBitmap e(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap resultado = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.tamanho && j < b.tamanho) {
+            char ka = a.chaves[i];
+            char kb = b.chaves[j];
+            if (ka < kb) {
+                i++;
+            } else if (ka > kb) {
+                j++;
+            } else {
+                resultado.anexarIntersecao(ka, a.conteineres[i], a.cardinalidades[i], b.conteineres[j], b.cardinalidades[j]);
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Calls the consumer for every value, in ascending unsigned order.
+     *
+     * @param consumidor Receives each value.
+     */
+    public void paraCada(IntConsumer consumidor) {
+        for (int i = 0; i < tamanho; i++) {
+            int base = chaves[i] << 16;
+            Object conteiner = conteineres[i];
+            if (conteiner instanceof long[]) {
+                long[] bits = (long[]) conteiner;
+                for (int w = 0; w < PALAVRAS_BITMAP; w++) {
+                    long palavra = bits[w];
+                    while (palavra != 0) {
+                        consumidor.accept(base | (w << 6) | Long.numberOfTrailingZeros(palavra));
+                        palavra &= palavra - 1;
+                    }
+                }
+            } else {
+                char[] valores = (char[]) conteiner;
+                for (int k = 0; k < cardinalidades[i]; k++) {
+                    consumidor.accept(base | valores[k]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param valor The value, treated as unsigned.
+     * @return {@code true} if the chunk of the value is stored as a bitmap container (for tests).
+     */
+    boolean conteinerBitmap(int valor) {
+        int i = buscarChave((char) (valor >>> 16));
+        return i >= 0 && conteineres[i] instanceof long[];
+    }
+
+    /** @return Approximate heap used by the containers, in bytes. */
+    public long getMemoriaBytes() {
+        long bytes = chaves.length * 2L + conteineres.length * 8L + cardinalidades.length * 4L;
+        for (int i = 0; i < tamanho; i++) {
+            Object conteiner = conteineres[i];
+            bytes += conteiner instanceof long[] ? PALAVRAS_BITMAP * 8L : ((char[]) conteiner).length * 2L;
+        }
+        return bytes;
+    }
+
+    private void anexarIntersecao(char chave, Object a, int na, Object b, int nb) {
+        if (a instanceof long[] && b instanceof long[]) {
+            long[] x = (long[]) a;
+            long[] y = (long[]) b;
+            long[] bits = new long[PALAVRAS_BITMAP];
+            int n = 0;
+            for (int w = 0; w < PALAVRAS_BITMAP; w++) {
+                bits[w] = x[w] & y[w];
+                n += Long.bitCount(bits[w]);
+            }
+            if (n == 0) return;
+            anexar(chave, n > LIMITE_ARRAY ? bits : paraArray(bits, n), n);
+        } else if (a instanceof long[] || b instanceof long[]) {
+            long[] bits = (long[]) (a instanceof long[] ? a : b);
+            char[] valores = (char[]) (a instanceof long[] ? b : a);
+            int total = a instanceof long[] ? nb : na;
+            char[] saida = new char[total];
+            int n = 0;
+            for (int k = 0; k < total; k++) {
+                char v = valores[k];
+                if ((bits[v >>> 6] & (1L << v)) != 0) saida[n++] = v;
+            }
+            if (n > 0) anexar(chave, saida, n);
+        } else {
+            char[] x = (char[]) a;
+            char[] y = (char[]) b;
+            char[] saida = new char[Math.min(na, nb)];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < na && j < nb) {
+                if (x[i] < y[j]) {
+                    i++;
+                } else if (x[i] > y[j]) {
+                    j++;
+                } else {
+                    saida[n++] = x[i];
+                    i++;
+                    j++;
+                }
+            }
+            if (n > 0) anexar(chave, saida, n);
+        }
+    }
+
+    /** Appends a container whose key is greater than every key already present. */
+    private void anexar(char chave, Object conteiner, int n) {
+        inserirConteiner(tamanho, chave, conteiner);
+        cardinalidades[tamanho - 1] = n;
+        cardinalidade += n;
+    }
+
+    private int buscarChave(char chave) {
+        return Arrays.binarySearch(chaves, 0, tamanho, chave);
+    }
+
+    private void inserirConteiner(int i, char chave, Object conteiner) {
+        if (tamanho == chaves.length) {
+            int novo = tamanho * 2;
+            chaves = Arrays.copyOf(chaves, novo);
+            conteineres = Arrays.copyOf(conteineres, novo);
+            cardinalidades = Arrays.copyOf(cardinalidades, novo);
+        }
+        System.arraycopy(chaves, i, chaves, i + 1, tamanho - i);
+        System.arraycopy(conteineres, i, conteineres, i + 1, tamanho - i);
+        System.arraycopy(cardinalidades, i, cardinalidades, i + 1, tamanho - i);
+        chaves[i] = chave;
+        conteineres[i] = conteiner;
+        tamanho++;
+    }
+
+    private void removerConteiner(int i) {
+        System.arraycopy(chaves, i + 1, chaves, i, tamanho - i - 1);
+        System.arraycopy(conteineres, i + 1, conteineres, i, tamanho - i - 1);
+        System.arraycopy(cardinalidades, i + 1, cardinalidades, i, tamanho - i - 1);
+        tamanho--;
+        conteineres[tamanho] = null;
+    }
+
+    private static long[] paraBitmap(char[] valores, int n) {
+        long[] bits = new long[PALAVRAS_BITMAP];
+        for (int k = 0; k < n; k++) {
+            bits[valores[k] >>> 6] |= 1L << valores[k];
+        }
+        return bits;
+    }
+
+    private static char[] paraArray(long[] bits, int n) {
+        char[] valores = new char[n];
+        int k = 0;
+        for (int w = 0; w < PALAVRAS_BITMAP && k < n; w++) {
+            long palavra = bits[w];
+            while (palavra != 0) {
+                valores[k++] = (char) ((w << 6) | Long.numberOfTrailingZeros(palavra));
+                palavra &= palavra - 1;
+            }
+        }
+        return valores;
+    }
+}
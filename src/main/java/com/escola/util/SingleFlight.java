@@ -0,0 +1,230 @@
+package com.escola.util;
+
+import com.escola.config.AppConfig;
+import com.escola.monitoring.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical calls ("single flight"): while a computation for a key is
+ * running, further callers with the same key wait for it and receive the same result instead
+ * of starting their own. Forty dashboards opening at once cost one query, not forty.
+ * <p>
+ * Optionally, a finished result can be reused. For {@code frescoMillis} after it was computed it
+ * is <em>fresh</em>: callers get it immediately and nothing is recomputed. For the following
+ * {@code janelaStaleMillis} it is <em>stale</em>: callers still get it immediately, and at most one
+ * background computation refreshes it (stale-while-revalidate). After both windows the next caller
+ * computes it again. The windows trade freshness for load, so they are off by default.
+ * </p>
+ * <p>
+ * {@link #invalidar()} must be called after every write that affects the results. It discards
+ * the stored results, and callers arriving afterwards no longer join computations that started
+ * before the write, so a client always sees its own writes. A failed computation is reported to
+ * every caller waiting for it and is never stored.
+ * </p>
+ * <p>
+ * Results are shared between callers and must not be modified (return unmodifiable collections).
+ * </p>
+ *
+ * @version 1.1
+ * @author FelipeCardoso
+ */
+public final class SingleFlight {
+
+    private static final Logger logger = LoggerFactory.getLogger(SingleFlight.class);
+
+    private final String nome;
+    private final long frescoNanos;
+    private final long janelaStaleNanos;
+    private final AtomicLong geracao = new AtomicLong();
+    private final ConcurrentHashMap<Chave, CompletableFuture<Object>> emVoo = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Object, Resultado> resultados = new ConcurrentHashMap<>();
+
+    private final LongAdder chamadas = new LongAdder();
+    private final LongAdder execucoes = new LongAdder();
+    private final LongAdder compartilhadas = new LongAdder();
+    private final LongAdder servidasFrescas = new LongAdder();
+    private final LongAdder servidasStale = new LongAdder();
+    private final LongAdder revalidacoes = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+
+    /**
+     * Constructs a group and publishes its metrics.
+     *
+     * @param nome              Metrics source name, e.g. {@code "relatorios.single-flight"}.
+     * @param frescoMillis      How long a finished result is served without recomputing it; 0 disables.
+     * @param janelaStaleMillis How long after that it may still be served while it is refreshed; 0 disables.
+     */
+    public SingleFlight(String nome, long frescoMillis, long janelaStaleMillis) {
+        this.nome = nome;
+        this.frescoNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, frescoMillis));
+        this.janelaStaleNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, janelaStaleMillis));
+        MetricsRegistry.getInstance().registrar(nome, this::metricas);
+    }
+
+    /**
+     * Creates a group when {@code SINGLE_FLIGHT_ENABLED} (default true) is set.
+     *
+     * @param nome         Metrics source name.
+     * @param chaveFresco  Setting with the fresh window in milliseconds: default 1000 when the
+     *                     stale window is set (stale results are already accepted), 0 otherwise.
+     * @param chaveJanela  Setting with the stale-while-revalidate window in milliseconds (default 0).
+     * @return The group, or {@code null} when disabled.
+     */
+    public static SingleFlight fromConfig(String nome, String chaveFresco, String chaveJanela) {
+        if (!AppConfig.getBoolean("SINGLE_FLIGHT_ENABLED", true)) {
+            return null;
+        }
+        long janelaStale = AppConfig.getLong(chaveJanela, 0);
+        return new SingleFlight(nome, AppConfig.getLong(chaveFresco, janelaStale > 0 ? 1000 : 0), janelaStale);
+    }
+
+    /**
+     * Runs the computation for a key, or joins the one already running for it.
+     *
+     * @param chave   Identifies the call: method name and parameters (must implement equals/hashCode).
+     * @param calculo The computation.
+     * @param <T>     The result type.
+     * @return The (possibly shared) result.
+     * @throws RuntimeException the exception raised by the computation.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T executar(Object chave, Supplier<T> calculo) {
+        chamadas.increment();
+        long geracaoAtual = geracao.get();
+        Resultado anterior = guardaResultados() ? resultados.get(chave) : null;
+        if (anterior != null && anterior.geracao == geracaoAtual) {
+            long idade = System.nanoTime() - anterior.calculadoEm;
+            if (idade < frescoNanos) {
+                servidasFrescas.increment();
+                return (T) anterior.valor;
+            }
+            if (idade < frescoNanos + janelaStaleNanos) {
+                servidasStale.increment();
+                revalidarEmSegundoPlano(chave, calculo, geracaoAtual);
+                return (T) anterior.valor;
+            }
+        }
+        return (T) aguardar(iniciarOuJuntar(chave, calculo, geracaoAtual));
+    }
+
+    /**
+     * Discards stored results and detaches running computations from future callers.
+     * Call after every write that changes what the computations return.
+     */
+    public void invalidar() {
+        geracao.incrementAndGet();
+        resultados.clear();
+    }
+
+    private CompletableFuture<Object> iniciarOuJuntar(Object chave, Supplier<?> calculo, long geracaoAtual) {
+        Chave chaveVoo = new Chave(chave, geracaoAtual);
+        CompletableFuture<Object> novo = new CompletableFuture<>();
+        CompletableFuture<Object> existente = emVoo.putIfAbsent(chaveVoo, novo);
+        if (existente != null) {
+            compartilhadas.increment();
+            return existente;
+        }
+        execucoes.increment();
+        try {
+            Object valor = calculo.get();
+            if (guardaResultados() && geracao.get() == geracaoAtual) {
+                resultados.put(chave, new Resultado(valor, geracaoAtual, System.nanoTime()));
+            }
+            novo.complete(valor);
+        } catch (RuntimeException | Error e) {
+            falhas.increment();
+            novo.completeExceptionally(e);
+        } finally {
+            emVoo.remove(chaveVoo, novo);
+        }
+        return novo;
+    }
+
+    private boolean guardaResultados() {
+        return frescoNanos > 0 || janelaStaleNanos > 0;
+    }
+
+    private void revalidarEmSegundoPlano(Object chave, Supplier<?> calculo, long geracaoAtual) {
+        if (emVoo.containsKey(new Chave(chave, geracaoAtual))) {
+            return; // a refresh (or a caller) is already computing it
+        }
+        revalidacoes.increment();
+        CompletableFuture.runAsync(() -> iniciarOuJuntar(chave, calculo, geracaoAtual)
+                .whenComplete((valor, e) -> {
+                    if (e != null) logger.warn("Falha ao revalidar {} em {}: {}", chave, nome, e.getMessage());
+                }));
+    }
+
+    private static Object aguardar(CompletableFuture<Object> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException) throw (RuntimeException) causa;
+            if (causa instanceof Error) throw (Error) causa;
+            throw e;
+        }
+    }
+
+    private Map<String, Object> metricas() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("frescoMs", TimeUnit.NANOSECONDS.toMillis(frescoNanos));
+        m.put("janelaStaleMs", TimeUnit.NANOSECONDS.toMillis(janelaStaleNanos));
+        m.put("chamadas", chamadas.sum());
+        m.put("execucoes", execucoes.sum());
+        m.put("compartilhadas", compartilhadas.sum());
+        m.put("servidasFrescas", servidasFrescas.sum());
+        m.put("servidasStale", servidasStale.sum());
+        m.put("revalidacoes", revalidacoes.sum());
+        m.put("falhas", falhas.sum());
+        m.put("emVoo", emVoo.size());
+        return m;
+    }
+
+    private static final class Chave {
+        final Object chave;
+        final long geracao;
+
+        Chave(Object chave, long geracao) {
+            this.chave = chave;
+            this.geracao = geracao;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Chave)) return false;
+            Chave outra = (Chave) o;
+            return geracao == outra.geracao && Objects.equals(chave, outra.chave);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(chave) + Long.hashCode(geracao);
+        }
+    }
+
+    private static final class Resultado {
+        final Object valor;
+        final long geracao;
+        final long calculadoEm;
+
+        Resultado(Object valor, long geracao, long calculadoEm) {
+            this.valor = valor;
+            this.geracao = geracao;
+            this.calculadoEm = calculadoEm;
+        }
+    }
+}
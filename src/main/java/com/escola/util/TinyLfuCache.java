@@ -0,0 +1,451 @@
+package com.escola.util;
+
+import com.escola.monitoring.CacheOperationEvent;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Size-bounded, frequency-aware cache using the W-TinyLFU policy, with optional per-entry TTL.
+ * <p>
+ * Entries live in a {@link ConcurrentHashMap}, so a lookup never takes a lock. The eviction policy
+ * (recency lists and a frequency sketch) is single-threaded: reads are recorded in small lossy
+ * per-stripe ring buffers and writes in a queue, and whichever thread finds a buffer full
+ * <em>tries</em> the policy lock to replay them. Readers never wait for it; writers only block when
+ * the write queue is far behind, which keeps the size bound.
+ * </p>
+ * <p>
+ * New entries go to a small LRU window (1% of the capacity). Entries leaving the window compete
+ * with the least recently used entry of the main area's probation segment. A 4-bit count-min
+ * sketch, halved periodically so old popularity fades, estimates how often each key was seen
+ * recently. The more frequent of the two stays. Entries used again while in probation move to the
+ * protected segment (80% of the main area). One-off keys, such as a scan of random IDs,
+ * therefore cannot flush the frequently used ones, which plain LRU would allow.
+ * </p>
+ * <p>
+ * {@link #guardar(Object, Object, long, long)} takes the {@link #geracao() generation} read before
+ * the value was loaded. If an invalidation happened meanwhile, the value is discarded instead of
+ * resurrecting stale data.
+ * </p>
+ * <p>
+ * Lookups, stores, invalidations and evictions are reported as JFR {@link CacheOperationEvent}s,
+ * which cost nothing unless a recording enables them.
+ * </p>
+ *
+ * @param <K> The key type.
+ * @param <V> The value type.
+ * @version 1.2
+ * @author FelipeCardoso
+ */
+public final class TinyLfuCache<K, V> {
+
+    private static final int JANELA = 0;
+    private static final int PROBATORIO = 1;
+    private static final int PROTEGIDO = 2;
+
+    private static final int TAMANHO_BUFFER_LEITURA = 64; // per stripe; power of two
+    private static final int LIMITE_ESCRITAS_PENDENTES = 1024; // beyond this, writers wait for the policy lock
+
+    private final ConcurrentHashMap<K, No<K, V>> dados = new ConcurrentHashMap<>();
+    private final String nome;
+    private final long capacidade;
+
+    // Read buffers: lossy, a dropped read only costs a little frequency/recency accuracy
+    private final List<BufferLeitura<K, V>> buffersLeitura;
+    private final ConcurrentLinkedQueue<Runnable> escritas = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger escritasPendentes = new AtomicInteger();
+    private final ReentrantLock lockPolitica = new ReentrantLock();
+    private final AtomicLong geracao = new AtomicLong();
+
+    // Policy state: guarded by lockPolitica
+    private final Lista<K, V> janela = new Lista<>();
+    private final Lista<K, V> probatorio = new Lista<>();
+    private final Lista<K, V> protegido = new Lista<>();
+    private final long maximoJanela;
+    private final long maximoProtegido;
+    private final Sketch sketch;
+
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder expirados = new LongAdder();
+    private final LongAdder despejos = new LongAdder();
+    private final LongAdder descartadosPorInvalidacao = new LongAdder();
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param nome       Name reported in the JFR events, e.g. {@code "alunos.porId"}.
+     * @param capacidade Maximum number of entries.
+     */
+    public TinyLfuCache(String nome, long capacidade) {
+        this.nome = nome;
+        this.capacidade = Math.max(1, capacidade);
+        this.maximoJanela = Math.max(1, this.capacidade / 100);
+        this.maximoProtegido = (long) ((this.capacidade - maximoJanela) * 0.8);
+        this.sketch = new Sketch(this.capacidade);
+        int listras = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        List<BufferLeitura<K, V>> buffers = new ArrayList<>(listras);
+        for (int i = 0; i < listras; i++) {
+            buffers.add(new BufferLeitura<>());
+        }
+        this.buffersLeitura = List.copyOf(buffers);
+    }
+
+    /**
+     * Looks a key up.
+     *
+     * @param chave The key.
+     * @return The cached value, or {@code null} on a miss (absent or expired).
+     */
+    public V buscar(K chave) {
+        No<K, V> no = dados.get(chave);
+        if (no == null) {
+            falhas.increment();
+            CacheOperationEvent.registrar(nome, "buscar", "falha");
+            return null;
+        }
+        if (no.expiraEm != 0 && System.nanoTime() - no.expiraEm >= 0) {
+            if (dados.remove(chave, no)) {
+                expirados.increment();
+                agendarRemocao(no);
+            }
+            falhas.increment();
+            CacheOperationEvent.registrar(nome, "buscar", "expirado");
+            return null;
+        }
+        acertos.increment();
+        CacheOperationEvent.registrar(nome, "buscar", "acerto");
+        registrarLeitura(no);
+        return no.valor;
+    }
+
+    /**
+     * @return The current invalidation generation; read it before loading a value to cache.
+     */
+    public long geracao() {
+        return geracao.get();
+    }
+
+    /**
+     * Stores a value, unless the key was invalidated after {@code geracaoLida}.
+     *
+     * @param chave       The key.
+     * @param valor       The value; must not be null.
+     * @param ttlNanos    Time to live, or 0 for no expiry.
+     * @param geracaoLida The value of {@link #geracao()} read before the value was loaded.
+     */
+    public void guardar(K chave, V valor, long ttlNanos, long geracaoLida) {
+        if (geracao.get() != geracaoLida) {
+            descartadosPorInvalidacao.increment();
+            CacheOperationEvent.registrar(nome, "guardar", "descartado");
+            return;
+        }
+        long expiraEm = ttlNanos > 0 ? Math.max(1, System.nanoTime() + ttlNanos) : 0;
+        No<K, V> no = new No<>(chave, valor, expiraEm);
+        No<K, V> anterior = dados.put(chave, no);
+        if (anterior != null) agendarRemocao(anterior);
+        agendarEscrita(() -> adicionar(no));
+        // An invalidation may have raced with the put: let it win
+        if (geracao.get() != geracaoLida && dados.remove(chave, no)) {
+            descartadosPorInvalidacao.increment();
+            agendarRemocao(no);
+            CacheOperationEvent.registrar(nome, "guardar", "descartado");
+        } else {
+            CacheOperationEvent.registrar(nome, "guardar", "gravado");
+        }
+    }
+
+    /**
+     * Removes a key and rejects values for any key loaded before this call.
+     *
+     * @param chave The key.
+     */
+    public void invalidar(K chave) {
+        geracao.incrementAndGet();
+        No<K, V> no = dados.remove(chave);
+        if (no != null) agendarRemocao(no);
+        CacheOperationEvent.registrar(nome, "invalidar", no != null ? "removido" : "ausente");
+    }
+
+    /** @return Number of entries currently stored (expired ones included until they are found or evicted). */
+    public long tamanho() {
+        return dados.size();
+    }
+
+    /**
+     * @return A point-in-time view of the counters, for {@code GET /admin/metrics}.
+     */
+    public Map<String, Object> metricas() {
+        long hits = acertos.sum();
+        long total = hits + falhas.sum();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("capacidade", capacidade);
+        m.put("tamanho", dados.size());
+        m.put("acertos", hits);
+        m.put("falhas", falhas.sum());
+        m.put("taxaAcerto", total == 0 ? 0.0 : (double) hits / total);
+        m.put("despejos", despejos.sum());
+        m.put("expirados", expirados.sum());
+        m.put("descartadosPorInvalidacao", descartadosPorInvalidacao.sum());
+        return m;
+    }
+
+    // ===================== Buffers ===================== //
+
+    private void registrarLeitura(No<K, V> no) {
+        BufferLeitura<K, V> buffer = buffersLeitura.get(ThreadLocalRandom.current().nextInt(buffersLeitura.size()));
+        long posicao = buffer.posicao.getAndIncrement();
+        buffer.nos.lazySet((int) (posicao & (TAMANHO_BUFFER_LEITURA - 1)), no);
+        if ((posicao & (TAMANHO_BUFFER_LEITURA - 1)) == TAMANHO_BUFFER_LEITURA - 1 && lockPolitica.tryLock()) {
+            try {
+                drenar();
+            } finally {
+                lockPolitica.unlock();
+            }
+        }
+    }
+
+    private void agendarRemocao(No<K, V> no) {
+        agendarEscrita(() -> remover(no));
+    }
+
+    private void agendarEscrita(Runnable tarefa) {
+        escritas.add(tarefa);
+        if (escritasPendentes.incrementAndGet() > LIMITE_ESCRITAS_PENDENTES) {
+            lockPolitica.lock(); // back-pressure: keep the size bound
+        } else if (!lockPolitica.tryLock()) {
+            return; // the thread holding the lock drains it
+        }
+        try {
+            drenar();
+        } finally {
+            lockPolitica.unlock();
+        }
+    }
+
+    private void drenar() {
+        Runnable tarefa;
+        while ((tarefa = escritas.poll()) != null) {
+            escritasPendentes.decrementAndGet();
+            tarefa.run();
+        }
+        for (BufferLeitura<K, V> buffer : buffersLeitura) {
+            for (int i = 0; i < TAMANHO_BUFFER_LEITURA; i++) {
+                No<K, V> no = buffer.nos.getAndSet(i, null);
+                if (no != null) acessar(no);
+            }
+        }
+        despejarExcedentes();
+    }
+
+    // ===================== Política (sob lockPolitica) ===================== //
+
+    private void adicionar(No<K, V> no) {
+        if (no.removido) return; // replaced or invalidated before the policy saw it
+        sketch.incrementar(no.chave);
+        no.regiao = JANELA;
+        janela.inserirNoInicio(no);
+        while (janela.tamanho > maximoJanela) {
+            No<K, V> saindo = janela.ultimo();
+            janela.desligar(saindo);
+            saindo.regiao = PROBATORIO;
+            probatorio.inserirNoInicio(saindo);
+        }
+    }
+
+    private void remover(No<K, V> no) {
+        no.removido = true;
+        if (no.lista != null) no.lista.desligar(no);
+    }
+
+    private void acessar(No<K, V> no) {
+        if (no.removido || no.lista == null) return;
+        sketch.incrementar(no.chave);
+        switch (no.regiao) {
+            case JANELA:
+                janela.moverParaInicio(no);
+                break;
+            case PROBATORIO:
+                probatorio.desligar(no);
+                no.regiao = PROTEGIDO;
+                protegido.inserirNoInicio(no);
+                while (protegido.tamanho > maximoProtegido) {
+                    No<K, V> rebaixado = protegido.ultimo();
+                    protegido.desligar(rebaixado);
+                    rebaixado.regiao = PROBATORIO;
+                    probatorio.inserirNoInicio(rebaixado);
+                }
+                break;
+            default:
+                protegido.moverParaInicio(no);
+        }
+    }
+
+    private void despejarExcedentes() {
+        while (janela.tamanho + probatorio.tamanho + protegido.tamanho > capacidade) {
+            No<K, V> vitima = probatorio.ultimo();
+            No<K, V> candidato = probatorio.primeiro();
+            No<K, V> despejado;
+            if (vitima == null) {
+                despejado = protegido.tamanho > 0 ? protegido.ultimo() : janela.ultimo();
+            } else if (candidato == vitima) {
+                despejado = vitima;
+            } else {
+                // TinyLFU admission: the newcomer from the window only stays if it is more popular
+                despejado = sketch.frequencia(candidato.chave) > sketch.frequencia(vitima.chave) ? vitima : candidato;
+            }
+            despejado.lista.desligar(despejado);
+            despejado.removido = true;
+            if (dados.remove(despejado.chave, despejado)) {
+                despejos.increment();
+                CacheOperationEvent.registrar(nome, "despejar", "despejado");
+            }
+        }
+    }
+
+    // ===================== Estruturas ===================== //
+
+    /** One stripe of the read buffer: a ring of recently read nodes and its write position. */
+    private static final class BufferLeitura<K, V> {
+        final AtomicReferenceArray<No<K, V>> nos = new AtomicReferenceArray<>(TAMANHO_BUFFER_LEITURA);
+        final AtomicLong posicao = new AtomicLong();
+    }
+
+    private static final class No<K, V> {
+        final K chave;
+        final V valor;
+        final long expiraEm; // System.nanoTime() deadline, or 0
+        volatile boolean removido;
+        // Policy fields: guarded by lockPolitica
+        int regiao;
+        Lista<K, V> lista;
+        No<K, V> anterior;
+        No<K, V> proximo;
+
+        No(K chave, V valor, long expiraEm) {
+            this.chave = chave;
+            this.valor = valor;
+            this.expiraEm = expiraEm;
+        }
+    }
+
+    /** Intrusive doubly linked list; the head is the most recently used. */
+    private static final class Lista<K, V> {
+        No<K, V> cabeca;
+        No<K, V> cauda;
+        long tamanho;
+
+        void inserirNoInicio(No<K, V> no) {
+            no.lista = this;
+            no.anterior = null;
+            no.proximo = cabeca;
+            if (cabeca != null) cabeca.anterior = no;
+            cabeca = no;
+            if (cauda == null) cauda = no;
+            tamanho++;
+        }
+
+        void desligar(No<K, V> no) {
+            if (no.anterior != null) no.anterior.proximo = no.proximo;
+            else cabeca = no.proximo;
+            if (no.proximo != null) no.proximo.anterior = no.anterior;
+            else cauda = no.anterior;
+            no.anterior = null;
+            no.proximo = null;
+            no.lista = null;
+            tamanho--;
+        }
+
+        void moverParaInicio(No<K, V> no) {
+            if (cabeca == no) return;
+            desligar(no);
+            inserirNoInicio(no);
+        }
+
+        No<K, V> primeiro() {
+            return cabeca;
+        }
+
+        No<K, V> ultimo() {
+            return cauda;
+        }
+    }
+
+    /**
+     * Count-min sketch with four 4-bit counters per key (16 counters per {@code long}). After
+     * {@code 10 × capacity} increments every counter is halved, so the estimate reflects recent
+     * popularity.
+     */
+    private static final class Sketch {
+        private static final long[] SEMENTES = {
+                0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L};
+        private static final long METADE = 0x7777_7777_7777_7777L;
+
+        private final long[] tabela;
+        private final int mascara;
+        private final long amostra;
+        private long incrementos;
+
+        Sketch(long capacidade) {
+            int tamanho = (int) Math.min(1 << 30, Long.highestOneBit(Math.max(16, capacidade) * 2 - 1));
+            this.tabela = new long[tamanho];
+            this.mascara = tamanho - 1;
+            this.amostra = 10 * Math.max(16, capacidade);
+        }
+
+        void incrementar(Object chave) {
+            int hash = espalhar(chave.hashCode());
+            int inicio = (hash & 3) << 2;
+            boolean incrementou = false;
+            for (int i = 0; i < 4; i++) {
+                int indice = indice(hash, i);
+                int deslocamento = (inicio + i) << 2;
+                long mascaraContador = 0xFL << deslocamento;
+                if ((tabela[indice] & mascaraContador) != mascaraContador) {
+                    tabela[indice] += 1L << deslocamento;
+                    incrementou = true;
+                }
+            }
+            if (incrementou && ++incrementos >= amostra) {
+                for (int i = 0; i < tabela.length; i++) {
+                    tabela[i] = (tabela[i] >>> 1) & METADE;
+                }
+                incrementos /= 2;
+            }
+        }
+
+        int frequencia(Object chave) {
+            int hash = espalhar(chave.hashCode());
+            int inicio = (hash & 3) << 2;
+            int minimo = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                int deslocamento = (inicio + i) << 2;
+                int contador = (int) ((tabela[indice(hash, i)] >>> deslocamento) & 0xFL);
+                minimo = Math.min(minimo, contador);
+            }
+            return minimo;
+        }
+
+        private int indice(int hash, int i) {
+            long h = (hash + SEMENTES[i]) * SEMENTES[i];
+            h += h >>> 32;
+            return (int) h & mascara;
+        }
+
+        private static int espalhar(int x) {
+            x = ((x >>> 16) ^ x) * 0x45D9F3B;
+            x = ((x >>> 16) ^ x) * 0x45D9F3B;
+            return (x >>> 16) ^ x;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.escola.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Data formats the HTTP API can speak, chosen per request by content negotiation: the
+ * {@code Accept} header selects the response format and {@code Content-Type} the request format.
+ * JSON is the default whenever the client states no supported preference.
+ * <p>
+ * Smile and CBOR are binary encodings of the same data model as JSON, so every DTO and
+ * {@code ApiResponse} is represented with the same properties; the mappers share the
+ * configuration of {@link JsonMapper}. They are meant for internal integrations that pull whole
+ * collections: smaller payloads and no text parsing.
+ * </p>
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public enum WireFormat {
+
+    JSON("application/json", null),
+    SMILE("application/x-jackson-smile", JsonMapper.configurar(new SmileMapper())),
+    CBOR("application/cbor", JsonMapper.configurar(new CBORMapper()));
+
+    private final String mediaType;
+    private final ObjectMapper mapper; // null for JSON, which goes through JsonMapper
+    private final ConcurrentHashMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class<?>, ObjectReader> listReaders = new ConcurrentHashMap<>();
+
+    WireFormat(String mediaType, ObjectMapper mapper) {
+        this.mediaType = mediaType;
+        this.mapper = mapper;
+    }
+
+    /** @return The media type, e.g. {@code application/cbor}. */
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /** @return The value for the {@code Content-Type} header of a response in this format. */
+    public String getContentType() {
+        return this == JSON ? "application/json; charset=UTF-8" : mediaType;
+    }
+
+    /**
+     * Picks the response format from an {@code Accept} header. Quality values are honoured; among
+     * equally preferred types the first listed wins. Wildcards and unsupported types mean JSON.
+     *
+     * @param accept The header value, possibly null.
+     * @return The format to answer with.
+     */
+    public static WireFormat paraAccept(String accept) {
+        if (accept == null || accept.isEmpty()) {
+            return JSON;
+        }
+        WireFormat escolhido = JSON;
+        double melhorQ = 0;
+        for (String item : accept.split(",")) {
+            String[] partes = item.split(";");
+            WireFormat formato = porMediaType(partes[0]);
+            if (formato == null) continue;
+            double q = 1;
+            for (int i = 1; i < partes.length; i++) {
+                String parametro = partes[i].trim();
+                if (parametro.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(parametro.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (q > melhorQ) {
+                melhorQ = q;
+                escolhido = formato;
+            }
+        }
+        return escolhido;
+    }
+
+    /**
+     * Identifies the format of a request body from its {@code Content-Type}.
+     *
+     * @param contentType The header value, possibly null.
+     * @return The format; JSON when absent or not a supported binary type.
+     */
+    public static WireFormat paraContentType(String contentType) {
+        if (contentType == null) {
+            return JSON;
+        }
+        WireFormat formato = porMediaType(contentType.split(";")[0]);
+        return formato == null ? JSON : formato;
+    }
+
+    private static WireFormat porMediaType(String mediaType) {
+        String tipo = mediaType.trim().toLowerCase(Locale.ROOT);
+        for (WireFormat formato : values()) {
+            if (formato.mediaType.equals(tipo)) return formato;
+        }
+        return null;
+    }
+
+    /**
+     * Serializes an object in this format.
+     *
+     * @param object The object to serialize.
+     * @return The encoded bytes.
+     * @throws IOException if an error occurs during serialization.
+     */
+    public byte[] escrever(Object object) throws IOException {
+        if (mapper == null) return JsonMapper.toJsonBytes(object);
+        ObjectWriter writer = object == null ? mapper.writer()
+                : writers.computeIfAbsent(object.getClass(), mapper::writerFor);
+        return writer.writeValueAsBytes(object);
+    }
+
+    /**
+     * Deserializes a document in this format.
+     *
+     * @param in    The stream; closed after reading.
+     * @param clazz The class of the object to create.
+     * @param <T>   The type of the object.
+     * @return The deserialized object.
+     * @throws IOException if an error occurs during reading or deserialization.
+     */
+    public <T> T ler(InputStream in, Class<T> clazz) throws IOException {
+        if (mapper == null) return JsonMapper.fromJson(in, clazz);
+        return readers.computeIfAbsent(clazz, mapper::readerFor).readValue(in);
+    }
+
+    /**
+     * Deserializes an array in this format into a list.
+     *
+     * @param in    The stream; closed after reading.
+     * @param clazz The class of the elements in the list.
+     * @param <T>   The type of the elements.
+     * @return A list of deserialized objects.
+     * @throws IOException if an error occurs during reading or deserialization.
+     */
+    public <T> List<T> lerLista(InputStream in, Class<T> clazz) throws IOException {
+        if (mapper == null) return JsonMapper.fromJsonList(in, clazz);
+        return listReaders.computeIfAbsent(clazz, c -> mapper.readerFor(
+                mapper.getTypeFactory().constructCollectionType(List.class, c))).readValue(in);
+    }
+}
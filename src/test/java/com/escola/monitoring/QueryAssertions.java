@@ -0,0 +1,129 @@
+package com.escola.monitoring;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Test-support API to pin the number of JDBC statements a service call issues, so that N+1
+ * regressions (e.g. in {@code gerarRelatorioEngajamentoCursos} or
+ * {@code listarTodasMatriculasComDetalhes}) fail a test instead of reaching production.
+ * Requires the instrumented connection provider, which is on by default.
+ *
+ * <p><b>Exemplo de uso:</b></p>
+ * <pre>{@code
+ * List<RelatorioCursoDTO> relatorio =
+ *         QueryAssertions.assertQueryCount(1, relatorioService::gerarRelatorioEngajamentoCursos);
+ * QueryAssertions.assertMaxQueryCount(2, matriculaService::listarTodasMatriculasComDetalhes);
+ * }</pre>
+ *
+ * The operation runs on the calling thread inside its own {@link RequestContext}; any context
+ * already bound to the thread is restored afterwards and is not charged for the statements.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+public final class QueryAssertions {
+
+    private QueryAssertions() {}
+
+    /**
+     * Runs the operation and returns the statements it executed.
+     *
+     * @param operacao The operation to measure.
+     * @return Executions per SQL fingerprint.
+     */
+    public static Map<String, Integer> medir(Runnable operacao) {
+        return executar(() -> {
+            operacao.run();
+            return null;
+        }).execucoes;
+    }
+
+    /**
+     * Runs the operation and returns how many JDBC statements it executed.
+     *
+     * @param operacao The operation to measure.
+     * @return The statement count.
+     */
+    public static int contarConsultas(Runnable operacao) {
+        return medir(operacao).values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * Asserts that the operation executes exactly {@code esperado} JDBC statements.
+     *
+     * @param esperado The expected statement count.
+     * @param operacao The operation to run.
+     * @param <T>      The operation result type.
+     * @return The operation result.
+     * @throws AssertionError if the count differs; the message lists the statements executed.
+     */
+    public static <T> T assertQueryCount(int esperado, Supplier<T> operacao) {
+        Medicao<T> medicao = executar(operacao);
+        if (medicao.total != esperado) {
+            throw new AssertionError(mensagem("Esperado(s) " + esperado, medicao));
+        }
+        return medicao.resultado;
+    }
+
+    /**
+     * Asserts that the operation executes exactly {@code esperado} JDBC statements.
+     *
+     * @param esperado The expected statement count.
+     * @param operacao The operation to run.
+     */
+    public static void assertQueryCount(int esperado, Runnable operacao) {
+        assertQueryCount(esperado, () -> {
+            operacao.run();
+            return null;
+        });
+    }
+
+    /**
+     * Asserts that the operation executes at most {@code maximo} JDBC statements.
+     *
+     * @param maximo   The maximum statement count.
+     * @param operacao The operation to run.
+     * @param <T>      The operation result type.
+     * @return The operation result.
+     * @throws AssertionError if the count is exceeded; the message lists the statements executed.
+     */
+    public static <T> T assertMaxQueryCount(int maximo, Supplier<T> operacao) {
+        Medicao<T> medicao = executar(operacao);
+        if (medicao.total > maximo) {
+            throw new AssertionError(mensagem("Máximo de " + maximo, medicao));
+        }
+        return medicao.resultado;
+    }
+
+    private static <T> Medicao<T> executar(Supplier<T> operacao) {
+        RequestContext anterior = RequestContext.atual();
+        RequestContext contexto = RequestContext.iniciar("test");
+        try {
+            T resultado = operacao.get();
+            return new Medicao<>(resultado, contexto.getConsultas(), contexto.getExecucoesPorFingerprint());
+        } finally {
+            RequestContext.restaurar(anterior);
+        }
+    }
+
+    private static String mensagem(String prefixo, Medicao<?> medicao) {
+        StringBuilder sb = new StringBuilder(prefixo)
+                .append(" comando(s) SQL, mas foram executados ").append(medicao.total).append(':');
+        medicao.execucoes.forEach((fingerprint, vezes) ->
+                sb.append("\n  ").append(vezes).append("x ").append(fingerprint));
+        return sb.toString();
+    }
+
+    private static final class Medicao<T> {
+        final T resultado;
+        final int total;
+        final Map<String, Integer> execucoes;
+
+        Medicao(T resultado, int total, Map<String, Integer> execucoes) {
+            this.resultado = resultado;
+            this.total = total;
+            this.execucoes = execucoes;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.escola.monitoring;
+
+import com.escola.dto.QueryStatsDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reading the {@code Server-Timing} value back, as traffic capture and replay do, and the
+ * warm-up requests kept out of the SQL statistics.
+ *
+ * @version 1.2
+ * @author FelipeCardoso
+ */
+class RequestContextTest {
+
+    @Test
+    void lerDuracaoAppDoServerTiming() {
+        assertEquals(30_100, RequestContext.lerDuracaoApp("db;dur=12.4;desc=\"3 queries\", app;dur=30.1"));
+        assertEquals(1_500, RequestContext.lerDuracaoApp("app;desc=\"total\";dur=1.5"));
+        assertEquals(-1, RequestContext.lerDuracaoApp("db;dur=12.4"));
+        assertEquals(-1, RequestContext.lerDuracaoApp("app;dur=x"));
+        assertEquals(-1, RequestContext.lerDuracaoApp(null));
+    }
+
+    @Test
+    void requisicaoDeAquecimentoNaoEntraNasEstatisticasDeSql() {
+        String sql = "select id from aquecimento_teste where id = 1";
+        RequestContext contexto = RequestContext.iniciar("GET /teste", true);
+        try {
+            SqlStatistics.getInstance().registrarExecucao(sql, 1_000, 1);
+        } finally {
+            RequestContext.encerrar();
+        }
+        assertEquals(1, contexto.getConsultas());
+        assertTrue(estatistica(sql).isEmpty());
+
+        RequestContext.iniciar("GET /teste", false);
+        try {
+            SqlStatistics.getInstance().registrarExecucao(sql, 1_000, 1);
+        } finally {
+            RequestContext.encerrar();
+        }
+        assertEquals(1, estatistica(sql).map(QueryStatsDTO::getExecucoes).orElse(0L));
+    }
+
+    private static Optional<QueryStatsDTO> estatistica(String sql) {
+        String fingerprint = SqlFingerprint.of(sql);
+        return SqlStatistics.getInstance().snapshot("total", Integer.MAX_VALUE).stream()
+                .filter(q -> q.getFingerprint().equals(fingerprint))
+                .findFirst();
+    }
+}
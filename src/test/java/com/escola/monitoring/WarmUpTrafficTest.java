@@ -0,0 +1,59 @@
+package com.escola.monitoring;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Only the warm-up of this process, with its token, is taken for warm-up traffic.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+class WarmUpTrafficTest {
+
+    private HttpServer servidor;
+    private URI uri;
+    private final HttpClient cliente = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void iniciar() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        servidor.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(WarmUpTraffic.isAquecimento(exchange) ? 200 : 403, -1);
+            exchange.close();
+        });
+        servidor.start();
+        uri = URI.create("http://127.0.0.1:" + servidor.getAddress().getPort() + "/");
+    }
+
+    @AfterEach
+    void parar() {
+        servidor.stop(0);
+    }
+
+    @Test
+    void somenteOTokenDoProcessoIdentificaOAquecimento() throws Exception {
+        assertEquals(403, enviar(null));
+        assertEquals(403, enviar("true"));
+        assertEquals(403, enviar(WarmUpTraffic.token() + "x"));
+        assertEquals(200, enviar(WarmUpTraffic.token()));
+    }
+
+    private int enviar(String valor) throws IOException, InterruptedException {
+        HttpRequest.Builder requisicao = HttpRequest.newBuilder(uri).GET();
+        if (valor != null) requisicao.header(WarmUpTraffic.CABECALHO, valor);
+        return cliente.send(requisicao.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
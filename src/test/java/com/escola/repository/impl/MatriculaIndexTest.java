@@ -0,0 +1,130 @@
+package com.escola.repository.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link MatriculaIndex} over a list standing in for the enrollment table: writes, cancellation,
+ * removal and the replay of the writes that commit while a rebuild loads.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+class MatriculaIndexTest {
+
+    private static final long JAVA = 10;
+    private static final long REDES = 20;
+
+    @Test
+    void gravarCancelarERemover() {
+        MatriculaIndex indice = new MatriculaIndex(List::of);
+        assertEquals(OptionalLong.empty(), indice.contarPorAluno(1L)); // not built yet: falls back to SQL
+        indice.reconstruir();
+
+        confirmar(indice, () -> {
+            indice.gravada(1L, JAVA, false);
+            indice.gravada(1L, REDES, false);
+            indice.gravada(2L, JAVA, false);
+            indice.gravada(2L, REDES, false);
+        });
+        assertEquals(Optional.of(List.of(1L, 2L)), indice.alunosAtivosEmAmbos(JAVA, REDES));
+        assertEquals(OptionalLong.of(2), indice.contarPorCurso(JAVA));
+
+        // Cancelled: still an enrollment for the counts and the duplicate check, no longer active
+        confirmar(indice, () -> indice.gravada(1L, REDES, true));
+        assertTrue(indice.podeExistir(1L, REDES));
+        assertEquals(OptionalLong.of(2), indice.contarPorAluno(1L));
+        assertEquals(Optional.of(List.of(2L)), indice.alunosAtivosEmAmbos(JAVA, REDES));
+
+        // Removed: gone from every set
+        confirmar(indice, () -> indice.removida(1L, REDES));
+        assertFalse(indice.podeExistir(1L, REDES));
+        assertEquals(OptionalLong.of(1), indice.contarPorAluno(1L));
+        assertEquals(OptionalLong.of(1), indice.contarPorCurso(REDES));
+
+        // Removing an active enrollment takes it out of the active set too
+        confirmar(indice, () -> indice.removida(2L, JAVA));
+        assertEquals(Optional.of(List.of()), indice.alunosAtivosEmAmbos(JAVA, REDES));
+        assertTrue(indice.podeExistir(2L, REDES));
+    }
+
+    @Test
+    void reconstrucaoReproduzAsEscritasFeitasDuranteACarga() {
+        List<Object[]> tabela = new ArrayList<>();
+        tabela.add(linha(1, JAVA, false));
+        tabela.add(linha(2, JAVA, false));
+        Runnable[] duranteACarga = {() -> {}};
+        MatriculaIndex indice = new MatriculaIndex(() -> {
+            List<Object[]> instantaneo = new ArrayList<>(tabela);
+            duranteACarga[0].run();
+            return instantaneo;
+        });
+        indice.reconstruir();
+        assertTrue(indice.podeExistir(1L, JAVA));
+
+        // While the rebuild reads, aluno 1 is deleted and enrolled again, and aluno 2 is cancelled.
+        // The query saw none of it, so only the replay can bring the new index up to date.
+        duranteACarga[0] = () -> {
+            tabela.remove(0);
+            confirmar(indice, () -> indice.removida(1L, JAVA));
+            tabela.add(linha(1, JAVA, false));
+            confirmar(indice, () -> indice.gravada(1L, JAVA, false));
+            tabela.set(0, linha(2, JAVA, true));
+            confirmar(indice, () -> indice.gravada(2L, JAVA, true));
+            confirmar(indice, () -> indice.gravada(3L, REDES, false));
+        };
+        indice.reconstruir();
+        duranteACarga[0] = () -> {};
+
+        assertTrue(indice.podeExistir(1L, JAVA));
+        assertTrue(indice.podeExistir(2L, JAVA));
+        assertTrue(indice.podeExistir(3L, REDES));
+        assertEquals(OptionalLong.of(2), indice.contarPorCurso(JAVA));
+        assertEquals(Optional.of(List.of(1L)), indice.alunosAtivosEmAmbos(JAVA, JAVA));
+
+        // A rebuild that sees everything arrives at the same state
+        indice.reconstruir();
+        assertEquals(OptionalLong.of(2), indice.contarPorCurso(JAVA));
+        assertEquals(Optional.of(List.of(1L)), indice.alunosAtivosEmAmbos(JAVA, JAVA));
+    }
+
+    @Test
+    void reconstrucaoQueJaViuAsEscritasAsReproduzSemEfeito() {
+        List<Object[]> tabela = new ArrayList<>();
+        tabela.add(linha(1, JAVA, false));
+        Runnable[] duranteACarga = {() -> {}};
+        MatriculaIndex indice = new MatriculaIndex(() -> {
+            duranteACarga[0].run();
+            return new ArrayList<>(tabela); // read after the writes: they are in the result too
+        });
+        indice.reconstruir();
+
+        duranteACarga[0] = () -> {
+            tabela.remove(0);
+            confirmar(indice, () -> indice.removida(1L, JAVA));
+            tabela.add(linha(4, JAVA, false));
+            confirmar(indice, () -> indice.gravada(4L, JAVA, false));
+        };
+        indice.reconstruir();
+
+        assertFalse(indice.podeExistir(1L, JAVA));
+        assertTrue(indice.podeExistir(4L, JAVA));
+        assertEquals(OptionalLong.of(1), indice.contarPorCurso(JAVA));
+    }
+
+    private static void confirmar(MatriculaIndex indice, Runnable escrita) {
+        indice.emOrdemDeCommit(escrita);
+    }
+
+    private static Object[] linha(long aluno, long curso, boolean cancelada) {
+        return new Object[]{aluno, curso, cancelada};
+    }
+}
@@ -0,0 +1,53 @@
+package com.escola.repository.memory;
+
+import com.escola.model.Aluno;
+import com.escola.model.Curso;
+import com.escola.model.Matricula;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Queries of {@link InMemoryMatriculaRepository} that the JPA backend answers from its bitmap index.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+class InMemoryMatriculaRepositoryTest {
+
+    @Test
+    void alunosAtivosEmAmbosOsCursosIgnoraCanceladasEVemOrdenados() {
+        InMemoryStore store = new InMemoryStore();
+        InMemoryAlunoRepository alunos = new InMemoryAlunoRepository(store);
+        InMemoryCursoRepository cursos = new InMemoryCursoRepository(store);
+        InMemoryMatriculaRepository matriculas = new InMemoryMatriculaRepository(store);
+
+        Curso java = cursos.salvar(new Curso("Java", "Básico", 40));
+        Curso redes = cursos.salvar(new Curso("Redes", "Básico", 40));
+        Curso vazio = cursos.salvar(new Curso("Vazio", "Sem alunos", 10));
+        List<Aluno> todos = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            todos.add(alunos.salvar(new Aluno("Aluno " + i, "aluno" + i + "@escola.com", LocalDate.of(2000, 1, 1))));
+        }
+        // 0..4 in Java; 1..5 in Redes, in reverse order; aluno 2 cancelled in Redes
+        for (int i = 0; i < 5; i++) {
+            matriculas.salvar(new Matricula(todos.get(i), java));
+        }
+        for (int i = 5; i >= 1; i--) {
+            Matricula matricula = new Matricula(todos.get(i), redes);
+            matricula.setCancelada(i == 2);
+            matriculas.salvar(matricula);
+        }
+
+        List<Long> esperado = List.of(todos.get(1).getId(), todos.get(3).getId(), todos.get(4).getId());
+        assertEquals(esperado, matriculas.listarAlunosAtivosEmAmbosOsCursos(java.getId(), redes.getId()));
+        assertEquals(esperado, matriculas.listarAlunosAtivosEmAmbosOsCursos(redes.getId(), java.getId()));
+        assertTrue(matriculas.listarAlunosAtivosEmAmbosOsCursos(java.getId(), vazio.getId()).isEmpty());
+        assertTrue(matriculas.listarAlunosAtivosEmAmbosOsCursos(java.getId(), 999L).isEmpty());
+    }
+}
@@ -0,0 +1,98 @@
+package com.escola.repository.memory;
+
+import com.escola.model.Aluno;
+import com.escola.model.Curso;
+import com.escola.model.Matricula;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Atomicity of {@link InMemoryStore} mutations: a mutation that throws halfway leaves neither
+ * the memory state nor the journal with part of its writes.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+class InMemoryStoreTest {
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void mutacaoQueFalhaNaoDeixaEscritasNaMemoriaNemNoJournal() {
+        InMemoryStore store = new InMemoryStore();
+        InMemoryAlunoRepository alunos = new InMemoryAlunoRepository(store);
+        Aluno ana;
+        try (Journal journal = abrir(store)) {
+            ana = alunos.salvar(new Aluno("Ana", "ana@escola.com", LocalDate.of(2000, 1, 1)));
+
+            assertThrows(IllegalStateException.class, () -> store.escrever(() -> {
+                Aluno bruno = new Aluno("Bruno", "bruno@escola.com", LocalDate.of(2001, 2, 2));
+                bruno.setId(store.alunoSeq.incrementAndGet());
+                store.gravar(bruno);
+                Aluno renomeada = InMemoryStore.copiar(store.alunos.get(ana.getId()));
+                renomeada.setEmail("ana.nova@escola.com");
+                store.gravar(renomeada);
+                store.removerAluno(ana.getId());
+                throw new IllegalStateException("falha no meio da mutação");
+            }));
+
+            assertEquals(1, store.alunos.size());
+            assertEquals("ana@escola.com", store.alunos.get(ana.getId()).getEmail());
+            assertEquals(ana.getId(), store.alunoPorEmail.get("ana@escola.com"));
+            assertNull(store.alunoPorEmail.get("ana.nova@escola.com"));
+            assertNull(store.alunoPorEmail.get("bruno@escola.com"));
+
+            // The journal keeps working after the discarded mutation
+            alunos.salvar(new Aluno("Carla", "carla@escola.com", LocalDate.of(2002, 3, 3)));
+        }
+
+        InMemoryStore recuperado = new InMemoryStore();
+        try (Journal journal = abrir(recuperado)) {
+            assertEquals(2, recuperado.alunos.size());
+            assertEquals("ana@escola.com", recuperado.alunos.get(ana.getId()).getEmail());
+            assertTrue(recuperado.alunoPorEmail.containsKey("carla@escola.com"));
+            assertFalse(recuperado.alunoPorEmail.containsKey("bruno@escola.com"));
+        }
+    }
+
+    @Test
+    void cancelamentoEmLoteQueFalhaRestauraAsMatriculasEOsIndices() {
+        InMemoryStore store = new InMemoryStore();
+        Aluno aluno = new InMemoryAlunoRepository(store).salvar(new Aluno("Ana", "ana@escola.com", LocalDate.of(2000, 1, 1)));
+        InMemoryCursoRepository cursos = new InMemoryCursoRepository(store);
+        Curso java = cursos.salvar(new Curso("Java", "Básico", 40));
+        Curso redes = cursos.salvar(new Curso("Redes", "Básico", 40));
+        InMemoryMatriculaRepository matriculas = new InMemoryMatriculaRepository(store);
+        Matricula primeira = matriculas.salvar(new Matricula(aluno, java, LocalDate.of(2024, 1, 1)));
+        Matricula segunda = matriculas.salvar(new Matricula(aluno, redes, LocalDate.of(2024, 1, 2)));
+
+        assertThrows(IllegalStateException.class, () -> store.escrever(() -> {
+            Matricula cancelada = InMemoryStore.registro(store.matriculas.get(primeira.getId()), primeira.getId(), 1);
+            cancelada.setCancelada(true);
+            store.gravar(cancelada);
+            store.removerMatricula(segunda.getId());
+            throw new IllegalStateException("falha no meio do lote");
+        }));
+
+        assertFalse(store.matriculas.get(primeira.getId()).isCancelada());
+        assertEquals(0L, store.matriculas.get(primeira.getId()).getVersao());
+        assertTrue(store.matriculas.containsKey(segunda.getId()));
+        assertEquals(segunda.getId(), store.matriculaPorPar.get(new InMemoryStore.Par(aluno.getId(), redes.getId())));
+        assertEquals(2, store.indice(store.matriculasPorAluno, aluno.getId()).size());
+        assertEquals(1, store.indice(store.matriculasPorCurso, redes.getId()).size());
+    }
+
+    private Journal abrir(InMemoryStore store) {
+        return Journal.abrir(diretorio, store, false, 0, 1_000_000);
+    }
+}
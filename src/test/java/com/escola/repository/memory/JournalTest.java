@@ -0,0 +1,168 @@
+package com.escola.repository.memory;
+
+import com.escola.model.Aluno;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Snapshot bookkeeping and crash recovery of the {@link Journal}.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+class JournalTest {
+
+    private static final long SEM_SNAPSHOT_AUTOMATICO = 1_000_000;
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void snapshotDescontaApenasOsRegistrosQueCobre() throws InterruptedException {
+        InMemoryStore store = new InMemoryStore();
+        InMemoryAlunoRepository alunos = new InMemoryAlunoRepository(store);
+        try (Journal journal = Journal.abrir(diretorio, store, false, 0, SEM_SNAPSHOT_AUTOMATICO)) {
+            salvarAlunos(alunos, 0, 5);
+            aguardar(journal::getRegistrosGravados, 5);
+            assertEquals(5, journal.getRegistrosDesdeSnapshot());
+
+            journal.snapshot();
+            salvarAlunos(alunos, 5, 3);
+            aguardar(journal::getRegistrosGravados, 8);
+            assertEquals(3, journal.getRegistrosDesdeSnapshot());
+        }
+
+        // After a restart only the journal tail counts
+        InMemoryStore recuperado = new InMemoryStore();
+        try (Journal journal = Journal.abrir(diretorio, recuperado, false, 0, SEM_SNAPSHOT_AUTOMATICO)) {
+            assertEquals(8, recuperado.alunos.size());
+            assertEquals(3, journal.getRegistrosDesdeSnapshot());
+        }
+    }
+
+    @Test
+    void caudaRasgadaEDescartadaETruncada() throws IOException {
+        gravarAlunos(3);
+        Path arquivo = primeiroJournal();
+        long tamanho = Files.size(arquivo);
+        // Crash in the middle of a frame: only part of it reached the disk
+        byte[] quadro = JournalCodec.quadro(aluno(99));
+        anexar(arquivo, Arrays.copyOf(quadro, quadro.length / 2));
+
+        InMemoryStore recuperado = reabrir();
+        assertEquals(3, recuperado.alunos.size());
+        assertEquals(tamanho, Files.size(arquivo));
+    }
+
+    @Test
+    void mutacaoSemConfirmacaoEIgnorada() throws IOException {
+        gravarAlunos(3);
+        Path arquivo = primeiroJournal();
+        long tamanho = Files.size(arquivo);
+        // Whole, valid frames of a mutation whose commit marker never reached the disk
+        anexar(arquivo, JournalCodec.quadro(aluno(98)));
+        anexar(arquivo, JournalCodec.quadro(aluno(99)));
+
+        InMemoryStore recuperado = reabrir();
+        assertEquals(3, recuperado.alunos.size());
+        assertFalse(recuperado.alunos.containsKey(98L));
+        assertFalse(recuperado.alunos.containsKey(99L));
+        assertEquals(tamanho, Files.size(arquivo));
+    }
+
+    @Test
+    void snapshotMaisCaudaDoJournalSaoReproduzidos() {
+        InMemoryStore store = new InMemoryStore();
+        InMemoryAlunoRepository alunos = new InMemoryAlunoRepository(store);
+        long removido;
+        try (Journal journal = Journal.abrir(diretorio, store, false, 0, SEM_SNAPSHOT_AUTOMATICO)) {
+            salvarAlunos(alunos, 0, 5);
+            removido = alunos.listarTodos().get(0).getId();
+            journal.snapshot();
+            salvarAlunos(alunos, 5, 3);
+            alunos.deletarPorId(removido); // in the snapshot, removed by the tail
+        }
+        assertTrue(Files.exists(diretorio.resolve("snapshot.dat")));
+
+        InMemoryStore recuperado = reabrir();
+        assertEquals(7, recuperado.alunos.size());
+        assertFalse(recuperado.alunos.containsKey(removido));
+        assertEquals(store.alunos.keySet(), recuperado.alunos.keySet());
+        // IDs keep counting from where they were
+        Aluno novo = new InMemoryAlunoRepository(recuperado).salvar(aluno(0));
+        assertTrue(novo.getId() > Collections.max(store.alunos.keySet()));
+    }
+
+    @Test
+    void crcInvalidoForaDoUltimoArquivoAbortaARecuperacao() throws IOException {
+        gravarAlunos(3);
+        Path primeiro = primeiroJournal();
+        Files.copy(primeiro, diretorio.resolve("journal-0000000002.log"));
+        // Flip one payload byte of the first frame: its CRC no longer matches
+        byte[] conteudo = Files.readAllBytes(primeiro);
+        conteudo[JournalCodec.CABECALHO + 1] ^= 0x01;
+        Files.write(primeiro, conteudo);
+
+        RuntimeException erro = assertThrows(RuntimeException.class, this::reabrir);
+        assertTrue(erro.getMessage().contains("corrompido"), erro.getMessage());
+        assertEquals(conteudo.length, Files.size(primeiro)); // nothing truncated
+    }
+
+    private void gravarAlunos(int quantidade) {
+        InMemoryStore store = new InMemoryStore();
+        try (Journal journal = Journal.abrir(diretorio, store, false, 0, SEM_SNAPSHOT_AUTOMATICO)) {
+            salvarAlunos(new InMemoryAlunoRepository(store), 0, quantidade);
+        }
+    }
+
+    private InMemoryStore reabrir() {
+        InMemoryStore store = new InMemoryStore();
+        Journal.abrir(diretorio, store, false, 0, SEM_SNAPSHOT_AUTOMATICO).close();
+        return store;
+    }
+
+    private Path primeiroJournal() {
+        Path arquivo = diretorio.resolve("journal-0000000001.log");
+        assertTrue(Files.exists(arquivo));
+        return arquivo;
+    }
+
+    private static void anexar(Path arquivo, byte[] bytes) throws IOException {
+        Files.write(arquivo, bytes, StandardOpenOption.APPEND);
+    }
+
+    private static Aluno aluno(long id) {
+        Aluno aluno = new Aluno("Aluno " + id, "extra" + id + "@escola.com", LocalDate.of(2001, 1, 1));
+        if (id > 0) aluno.setId(id);
+        return aluno;
+    }
+
+    static void salvarAlunos(InMemoryAlunoRepository alunos, int primeiro, int quantidade) {
+        for (int i = primeiro; i < primeiro + quantidade; i++) {
+            alunos.salvar(new Aluno("Aluno " + i, "aluno" + i + "@escola.com", LocalDate.of(2000, 1, 1).plusDays(i)));
+        }
+    }
+
+    /** The writer thread updates its counters right after releasing the callers; waits for it. */
+    private static void aguardar(LongSupplier valor, long esperado) throws InterruptedException {
+        long limite = System.nanoTime() + 5_000_000_000L;
+        while (valor.getAsLong() < esperado && System.nanoTime() < limite) {
+            Thread.sleep(5);
+        }
+        assertEquals(esperado, valor.getAsLong());
+    }
+}
@@ -0,0 +1,74 @@
+package com.escola.service.impl;
+
+import com.escola.config.DataSeeder;
+import com.escola.config.PersistenceManager;
+import com.escola.dto.MatriculaDTO;
+import com.escola.dto.RelatorioCursoDTO;
+import com.escola.monitoring.QueryAssertions;
+import com.escola.repository.CursoRepository;
+import com.escola.repository.MatriculaRepository;
+import com.escola.repository.impl.AlunoRepositoryImpl;
+import com.escola.repository.impl.CursoRepositoryImpl;
+import com.escola.repository.impl.MatriculaRepositoryImpl;
+import com.escola.service.MatriculaService;
+import com.escola.service.RelatorioService;
+import com.escola.util.RetryPolicy;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Pins the number of JDBC statements the report and listing services issue on the JPA backend,
+ * so that an N+1 regression (a lazy association touched in a loop, a lost {@code JOIN FETCH})
+ * fails the build. Runs on the {@code h2-mem} profile, seeded by {@link DataSeeder}.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+class ContagemDeConsultasTest {
+
+    private static final int CURSOS = 20;
+
+    private static RelatorioService relatorioService;
+    private static MatriculaService matriculaService;
+    private static long qualquerMatricula;
+
+    @BeforeAll
+    static void popular() {
+        PersistenceManager.getEntityManagerFactory();
+        new DataSeeder(200, CURSOS, 1_000, 42, 10).popularSeVazio();
+
+        MatriculaRepository matriculaRepository = new MatriculaRepositoryImpl();
+        CursoRepository cursoRepository = new CursoRepositoryImpl();
+        relatorioService = new RelatorioServiceImpl(matriculaRepository, cursoRepository);
+        matriculaService = new MatriculaServiceImpl(matriculaRepository, new AlunoRepositoryImpl(),
+                cursoRepository, RetryPolicy.padrao(), null, null);
+        qualquerMatricula = matriculaRepository.listarTodas().get(0).getId();
+    }
+
+    @Test
+    void relatorioDeEngajamentoFazUmaConsultaPorCursoMaisALista() {
+        // One query for the courses, then one per course for its enrollments with their students
+        List<RelatorioCursoDTO> relatorio =
+                QueryAssertions.assertQueryCount(1 + CURSOS, relatorioService::gerarRelatorioEngajamentoCursos);
+        assertEquals(CURSOS, relatorio.size());
+    }
+
+    @Test
+    void listagemDeMatriculasComDetalhesFazUmaUnicaConsulta() {
+        List<MatriculaDTO> matriculas =
+                QueryAssertions.assertQueryCount(1, matriculaService::listarTodasMatriculasComDetalhes);
+        assertFalse(matriculas.isEmpty());
+    }
+
+    @Test
+    void buscaDeMatriculaComDetalhesFazUmaUnicaConsulta() {
+        MatriculaDTO matricula = QueryAssertions.assertQueryCount(1,
+                () -> matriculaService.buscarMatriculaPorIdComDetalhes(qualquerMatricula));
+        assertEquals(qualquerMatricula, matricula.getId());
+    }
+}
@@ -0,0 +1,74 @@
+package com.escola.service.impl;
+
+import com.escola.dto.MatriculaDTO;
+import com.escola.exception.ConflitoDeVersaoException;
+import com.escola.model.Aluno;
+import com.escola.model.Curso;
+import com.escola.model.Matricula;
+import com.escola.repository.memory.InMemoryAlunoRepository;
+import com.escola.repository.memory.InMemoryCursoRepository;
+import com.escola.repository.memory.InMemoryMatriculaRepository;
+import com.escola.repository.memory.InMemoryStore;
+import com.escola.util.RetryPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Optimistic locking of the enrollment update, on the in-memory backend.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+class MatriculaServiceImplTest {
+
+    private MatriculaServiceImpl service;
+    private Aluno aluno;
+    private Curso java;
+    private Curso redes;
+    private long matriculaId;
+
+    @BeforeEach
+    void popular() {
+        InMemoryStore store = new InMemoryStore();
+        InMemoryAlunoRepository alunos = new InMemoryAlunoRepository(store);
+        InMemoryCursoRepository cursos = new InMemoryCursoRepository(store);
+        InMemoryMatriculaRepository matriculas = new InMemoryMatriculaRepository(store);
+        service = new MatriculaServiceImpl(matriculas, alunos, cursos, RetryPolicy.padrao(), null, null);
+
+        aluno = alunos.salvar(new Aluno("Ana", "ana@escola.com", LocalDate.of(2000, 1, 1)));
+        java = cursos.salvar(new Curso("Java", "Básico", 40));
+        redes = cursos.salvar(new Curso("Redes", "Básico", 40));
+        matriculaId = matriculas.salvar(new Matricula(aluno, java)).getId();
+    }
+
+    @Test
+    void atualizacaoSemVersaoAceitaMatriculaJaAlterada() {
+        MatriculaDTO primeira = service.atualizar(entrada(redes, LocalDate.of(2024, 3, 1)), 0L);
+        assertEquals(1L, primeira.getVersao());
+
+        // A caller that sends no version: the entity carries 0, which must not be compared
+        MatriculaDTO segunda = service.atualizar(entrada(java, LocalDate.of(2024, 4, 1)));
+        assertEquals(2L, segunda.getVersao());
+        assertEquals(java.getId(), segunda.getCursoId());
+    }
+
+    @Test
+    void atualizacaoComVersaoDesatualizadaEmiteConflito() {
+        service.atualizar(entrada(redes, LocalDate.of(2024, 3, 1)), 0L);
+
+        ConflitoDeVersaoException conflito = assertThrows(ConflitoDeVersaoException.class,
+                () -> service.atualizar(entrada(java, LocalDate.of(2024, 4, 1)), 0L));
+        assertEquals(1L, conflito.getVersaoAtual());
+    }
+
+    private Matricula entrada(Curso curso, LocalDate data) {
+        Matricula matricula = new Matricula(aluno, curso, data);
+        matricula.setId(matriculaId);
+        return matricula;
+    }
+}
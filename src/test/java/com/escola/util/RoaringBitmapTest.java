@@ -0,0 +1,121 @@
+package com.escola.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Container changes of {@link RoaringBitmap} at 4096 values per chunk, removal and intersection.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+class RoaringBitmapTest {
+
+    private static final int LIMITE_ARRAY = 4096;
+
+    @Test
+    void conteinerViraBitmapAcimaDe4096EVoltaAArrayAoRemover() {
+        RoaringBitmap conjunto = new RoaringBitmap();
+        for (int i = 0; i < LIMITE_ARRAY; i++) {
+            assertTrue(conjunto.adicionar(i * 3));
+        }
+        assertFalse(conjunto.conteinerBitmap(0));
+        assertFalse(conjunto.adicionar(0)); // present already: no change
+        assertFalse(conjunto.conteinerBitmap(0));
+
+        assertTrue(conjunto.adicionar(1));
+        assertTrue(conjunto.conteinerBitmap(0));
+        assertEquals(LIMITE_ARRAY + 1, conjunto.cardinalidade());
+
+        assertTrue(conjunto.remover(3));
+        assertFalse(conjunto.conteinerBitmap(0));
+        assertEquals(LIMITE_ARRAY, conjunto.cardinalidade());
+
+        // Every value survives both conversions, in order
+        List<Integer> esperado = new ArrayList<>();
+        esperado.add(0);
+        esperado.add(1);
+        for (int i = 2; i < LIMITE_ARRAY; i++) esperado.add(i * 3);
+        assertEquals(esperado, valores(conjunto));
+        assertFalse(conjunto.contem(3));
+        assertTrue(conjunto.contem((LIMITE_ARRAY - 1) * 3));
+    }
+
+    @Test
+    void removerEsvaziaERetiraOConteiner() {
+        RoaringBitmap conjunto = new RoaringBitmap();
+        conjunto.adicionar(7);
+        conjunto.adicionar(70_000); // second chunk
+        conjunto.adicionar(-1);     // 0xFFFFFFFF: last chunk, last in unsigned order
+
+        assertFalse(conjunto.remover(8));
+        assertFalse(conjunto.remover(140_000)); // chunk not present
+        assertEquals(List.of(7, 70_000, -1), valores(conjunto));
+
+        assertTrue(conjunto.remover(70_000));
+        assertFalse(conjunto.contem(70_000));
+        assertFalse(conjunto.remover(70_000));
+        assertTrue(conjunto.remover(7));
+        assertTrue(conjunto.remover(-1));
+        assertTrue(conjunto.vazio());
+        assertEquals(List.of(), valores(conjunto));
+
+        assertTrue(conjunto.adicionar(70_000));
+        assertEquals(List.of(70_000), valores(conjunto));
+    }
+
+    @Test
+    void intersecaoEntreTiposDeConteiner() {
+        RoaringBitmap denso = new RoaringBitmap();   // chunk 0 and chunk 1 as bitmaps
+        RoaringBitmap esparso = new RoaringBitmap(); // chunk 0 as an array, chunk 1 as a bitmap
+        RoaringBitmap pares = new RoaringBitmap();   // chunk 0 as a bitmap, chunk 2 as an array
+        TreeSet<Integer> a = new TreeSet<>();
+        TreeSet<Integer> b = new TreeSet<>();
+        TreeSet<Integer> c = new TreeSet<>();
+        for (int v = 0; v < 6_000; v++) {
+            adicionar(denso, a, v);
+            adicionar(denso, a, 65_536 + v * 2);
+        }
+        for (int v = 0; v < 60_000; v += 17) adicionar(esparso, b, v);
+        for (int v = 0; v < 10_000; v++) adicionar(esparso, b, 65_536 + v * 3);
+        for (int v = 0; v < 20_000; v += 2) adicionar(pares, c, v);
+        adicionar(pares, c, 131_072 + 5);
+        assertTrue(denso.conteinerBitmap(0) && denso.conteinerBitmap(65_536));
+        assertFalse(esparso.conteinerBitmap(0));
+        assertTrue(esparso.conteinerBitmap(65_536) && pares.conteinerBitmap(0));
+
+        assertEquals(intersecao(a, b), valores(RoaringBitmap.e(denso, esparso))); // array × bitmap, bitmap × bitmap
+        assertEquals(intersecao(b, a), valores(RoaringBitmap.e(esparso, denso)));
+        assertEquals(intersecao(a, c), valores(RoaringBitmap.e(denso, pares)));
+        assertEquals(intersecao(b, c), valores(RoaringBitmap.e(esparso, pares)));
+        RoaringBitmap vazio = RoaringBitmap.e(pares, new RoaringBitmap());
+        assertTrue(vazio.vazio());
+
+        RoaringBitmap resultado = RoaringBitmap.e(denso, esparso);
+        assertEquals(intersecao(a, b).size(), resultado.cardinalidade());
+    }
+
+    private static void adicionar(RoaringBitmap conjunto, TreeSet<Integer> referencia, int valor) {
+        conjunto.adicionar(valor);
+        referencia.add(valor);
+    }
+
+    private static List<Integer> intersecao(TreeSet<Integer> a, TreeSet<Integer> b) {
+        List<Integer> resultado = new ArrayList<>(a);
+        resultado.retainAll(b);
+        return resultado;
+    }
+
+    private static List<Integer> valores(RoaringBitmap conjunto) {
+        List<Integer> valores = new ArrayList<>();
+        conjunto.paraCada(valores::add);
+        return valores;
+    }
+}
@@ -0,0 +1,56 @@
+package com.escola.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Reuse windows of {@link SingleFlight}: fresh results are served without recomputing, stale ones
+ * are served while one background computation refreshes them, and {@link SingleFlight#invalidar()}
+ * ends both.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+class SingleFlightTest {
+
+    private static final long UM_MINUTO = 60_000;
+
+    @Test
+    void resultadoFrescoNaoERecalculado() {
+        SingleFlight grupo = new SingleFlight("teste.fresco", UM_MINUTO, UM_MINUTO);
+        AtomicInteger calculos = new AtomicInteger();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(1, (int) grupo.executar("chave", calculos::incrementAndGet));
+        }
+        assertEquals(1, calculos.get());
+    }
+
+    @Test
+    void resultadoStaleEServidoERevalidadoEmSegundoPlano() throws InterruptedException {
+        SingleFlight grupo = new SingleFlight("teste.stale", 0, UM_MINUTO);
+        AtomicInteger calculos = new AtomicInteger();
+
+        assertEquals(1, (int) grupo.executar("chave", calculos::incrementAndGet));
+        assertEquals(1, (int) grupo.executar("chave", calculos::incrementAndGet)); // stale, refresh started
+        long limite = System.nanoTime() + 5_000_000_000L;
+        while (calculos.get() < 2 && System.nanoTime() < limite) {
+            Thread.sleep(5);
+        }
+        assertEquals(2, calculos.get());
+    }
+
+    @Test
+    void invalidarDescartaOResultadoFresco() {
+        SingleFlight grupo = new SingleFlight("teste.invalidar", UM_MINUTO, 0);
+        AtomicInteger calculos = new AtomicInteger();
+
+        assertEquals(1, (int) grupo.executar("chave", calculos::incrementAndGet));
+        grupo.invalidar();
+        assertEquals(2, (int) grupo.executar("chave", calculos::incrementAndGet));
+        assertEquals(2, (int) grupo.executar("chave", calculos::incrementAndGet));
+    }
+}
@@ -0,0 +1,160 @@
+package com.escola.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Admission and eviction of {@link TinyLfuCache}, the invalidation generation guard and the
+ * back-pressure on writers.
+ *
+ * @version 1.0
+ * @author FelipeCardoso
+ */
+class TinyLfuCacheTest {
+
+    private static final int LIMITE_ESCRITAS_PENDENTES = 1024;
+
+    @Test
+    void cacheCheioMantemAsChavesFrequentesDuranteUmaVarredura() {
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>("teste", 100);
+        for (int i = 0; i < 100; i++) {
+            cache.guardar(i, "quente-" + i, 0, cache.geracao());
+        }
+        for (int rodada = 0; rodada < 5; rodada++) {
+            for (int i = 0; i < 100; i++) {
+                assertEquals("quente-" + i, cache.buscar(i));
+            }
+        }
+
+        // One-off keys, each seen once: plain LRU would end up holding only these
+        for (int i = 1_000; i < 1_200; i++) {
+            cache.guardar(i, "varredura-" + i, 0, cache.geracao());
+        }
+
+        assertEquals(100, cache.tamanho());
+        assertEquals(200L, cache.metricas().get("despejos"));
+        int quentes = 0;
+        for (int i = 0; i < 100; i++) {
+            if (cache.buscar(i) != null) quentes++;
+        }
+        assertTrue(quentes >= 95, "chaves frequentes mantidas: " + quentes);
+    }
+
+    @Test
+    void valorCarregadoAntesDaInvalidacaoEDescartado() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>("teste", 100);
+        long geracao = cache.geracao();
+        cache.invalidar("k");
+        cache.guardar("k", "velho", 0, geracao);
+        assertNull(cache.buscar("k"));
+        assertEquals(1L, cache.metricas().get("descartadosPorInvalidacao"));
+
+        cache.guardar("k", "novo", 0, cache.geracao());
+        assertEquals("novo", cache.buscar("k"));
+    }
+
+    @Test
+    void invalidacaoConcorrenteComGravacaoPendenteVence() throws Exception {
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<>("teste", 100);
+        CyclicBarrier largada = new CyclicBarrier(2);
+        for (int i = 0; i < 2_000; i++) {
+            int valor = i;
+            long geracao = cache.geracao(); // read before "loading" the value
+            Thread gravador = new Thread(() -> {
+                aguardar(largada);
+                cache.guardar("k", valor, 0, geracao);
+            });
+            gravador.start();
+            aguardar(largada);
+            cache.invalidar("k");
+            gravador.join();
+            // Whatever the interleaving, a value loaded before the invalidation must not survive it
+            assertNull(cache.buscar("k"), "iteração " + i);
+        }
+    }
+
+    @Test
+    void filaDeEscritasCheiaBloqueiaOGravadorMasNaoOLeitor() throws Exception {
+        TinyLfuCache<Object, String> cache = new TinyLfuCache<>("teste", 10_000);
+        cache.guardar(-1, "lido", 0, cache.geracao());
+        CountDownLatch liberar = new CountDownLatch(1);
+        ChaveBloqueante bloqueante = new ChaveBloqueante(liberar);
+
+        // Holds the policy lock: the policy hashes the key while adding it and blocks there
+        Thread politica = new Thread(() -> cache.guardar(bloqueante, "x", 0, cache.geracao()));
+        politica.start();
+        assertTrue(bloqueante.dentroDaPolitica.await(5, TimeUnit.SECONDS));
+
+        AtomicInteger gravadas = new AtomicInteger();
+        Thread gravador = new Thread(() -> {
+            for (int i = 0; i < 2_000; i++) {
+                cache.guardar(i, "v" + i, 0, cache.geracao());
+                gravadas.incrementAndGet();
+            }
+        });
+        gravador.start();
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (gravador.getState() != Thread.State.WAITING && System.nanoTime() < limite) {
+            Thread.sleep(1);
+        }
+        assertEquals(Thread.State.WAITING, gravador.getState());
+        assertEquals(LIMITE_ESCRITAS_PENDENTES, gravadas.get());
+        assertEquals("lido", assertTimeoutPreemptively(Duration.ofSeconds(5), () -> cache.buscar(-1)));
+
+        liberar.countDown();
+        politica.join(5_000);
+        gravador.join(5_000);
+        assertEquals(2_000, gravadas.get());
+        assertEquals(2_002, cache.tamanho());
+    }
+
+    private static void aguardar(CyclicBarrier barreira) {
+        try {
+            barreira.await(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Key whose second {@code hashCode()} call blocks: the first comes from the map, the second
+     * from the frequency sketch, under the policy lock.
+     */
+    private static final class ChaveBloqueante {
+        final CountDownLatch dentroDaPolitica = new CountDownLatch(1);
+        private final CountDownLatch liberar;
+        private final AtomicInteger chamadas = new AtomicInteger();
+
+        ChaveBloqueante(CountDownLatch liberar) {
+            this.liberar = liberar;
+        }
+
+        @Override
+        public int hashCode() {
+            if (chamadas.incrementAndGet() == 2) {
+                dentroDaPolitica.countDown();
+                try {
+                    liberar.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return 42;
+        }
+
+        @Override
+        public boolean equals(Object outro) {
+            return this == outro;
+        }
+    }
+}